@@ -31,5 +31,9 @@ contextHandlerClass?=org.eclipse.jetty.server.handler.ResourceHandler$ResourceCo
 ## Monitored directory scan period (seconds)
 # jetty.deploy.scanInterval=0
 
+## Whether changes to the monitored directory are notified by the file system,
+## rather than only found by the periodic scan
+# jetty.deploy.useWatchService=false
+
 ## Default ContextHandler class for core deployments
 # contextHandlerClass=org.eclipse.jetty.server.handler.ResourceHandler$ResourceContext
@@ -36,8 +36,9 @@ public class StandardStarter implements AppLifeCycle.Binding
 
         if (contexts.isStarted() && handler.isStopped())
         {
-            // start the handler manually
-            handler.start();
+            // start the handler manually, unless it is started by its first request
+            if (!contexts.isLazyStart())
+                handler.start();
 
             // After starting let the context manage state
             contexts.manage(handler);
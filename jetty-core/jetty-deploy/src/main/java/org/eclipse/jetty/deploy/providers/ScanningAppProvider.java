@@ -56,6 +56,7 @@ public abstract class ScanningAppProvider extends ContainerLifeCycle implements
     private FilenameFilter _filenameFilter;
     private final List<Resource> _monitored = new CopyOnWriteArrayList<>();
     private int _scanInterval = 10;
+    private boolean _useWatchService;
     private Scanner _scanner;
     private boolean _useRealPaths;
     private String _environmentName;
@@ -233,6 +234,7 @@ public abstract class ScanningAppProvider extends ContainerLifeCycle implements
         _scanner = new Scanner(null, _useRealPaths);
         _scanner.setScanDirs(files);
         _scanner.setScanInterval(_scanInterval);
+        _scanner.setUseWatchService(_useWatchService);
         _scanner.setFilenameFilter(_filenameFilter);
         _scanner.setReportDirs(true);
         _scanner.setScanDepth(1); //consider direct dir children of monitored dir
@@ -349,6 +351,12 @@ public abstract class ScanningAppProvider extends ContainerLifeCycle implements
         return _scanInterval;
     }
 
+    @ManagedAttribute("whether changes are notified by the file system rather than only found by scanning")
+    public boolean isUseWatchService()
+    {
+        return _useWatchService;
+    }
+
     @Override
     public void setDeploymentManager(DeploymentManager deploymentManager)
     {
@@ -436,6 +444,20 @@ public abstract class ScanningAppProvider extends ContainerLifeCycle implements
         _scanInterval = scanInterval;
     }
 
+    /**
+     * <p>Set whether changes to the monitored directories are notified by the file system,
+     * so that they are deployed without waiting for the next scan.</p>
+     * <p>The {@link #setScanInterval(int) scan interval} is then the interval between
+     * reconciliation scans, which may be much longer, or 0 to rely only on the notifications.</p>
+     *
+     * @param useWatchService true to use a {@link java.nio.file.WatchService}
+     * @see Scanner#setUseWatchService(boolean)
+     */
+    public void setUseWatchService(boolean useWatchService)
+    {
+        _useWatchService = useWatchService;
+    }
+
     @ManagedOperation(value = "Scan the monitored directories", impact = "ACTION")
     public void scan()
     {
@@ -38,6 +38,7 @@ import org.eclipse.jetty.io.Content;
 import org.eclipse.jetty.io.content.ByteBufferContentSource;
 import org.eclipse.jetty.io.content.ChunksContentSource;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.ExceptionUtil;
 import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.QuotedStringTokenizer;
 import org.eclipse.jetty.util.SearchPattern;
@@ -905,6 +906,369 @@ public class MultiPart
         }
     }
 
+    /**
+     * <p>A source of {@link Part}s parsed from a multipart content, where
+     * the content of each part is streamed rather than stored.</p>
+     * <p>Differently from {@link MultiPartFormData.Parser}, which provides the parts
+     * only when the whole multipart content has been parsed, storing their content
+     * in memory or in files, this class provides each part as soon as its headers
+     * have been parsed.
+     * The {@link Part#getContentSource() content source} of the part returns
+     * chunks that are slices of the multipart content chunks, so that the part
+     * content can be consumed as it arrives, without copies and without buffering
+     * the whole part.</p>
+     * <p>Reading the next part skips the content of the previous part
+     * that has not been read yet.
+     * {@link Part#close() Closing} a part skips its content.</p>
+     * <p>Typical usage is the following:</p>
+     * <pre>{@code
+     * MultiPart.PartSource partSource = new MultiPart.PartSource(request, boundary);
+     *
+     * // Read the parts.
+     * while (true)
+     * {
+     *     MultiPart.Part part = partSource.read();
+     *     if (part == null)
+     *     {
+     *         if (partSource.isComplete())
+     *             break;
+     *         partSource.demand(this::resume);
+     *         return;
+     *     }
+     *
+     *     // Consume the part content, for example writing it to a file.
+     *     Content.Source content = part.getContentSource();
+     *     ...
+     * }
+     * }</pre>
+     */
+    public static class PartSource
+    {
+        private static final Throwable SKIPPED = new StaticException("Part content skipped");
+
+        private final AutoLock lock = new AutoLock();
+        private final Queue<PartContentSource> parts = new ArrayDeque<>();
+        private final Content.Source content;
+        private final Parser parser;
+        private long maxLength = -1;
+        private long length;
+        private PartContentSource parsing;
+        private PartContentSource reading;
+        private boolean complete;
+        private Throwable failure;
+
+        public PartSource(Content.Source content, String boundary)
+        {
+            this(content, boundary, MultiPartCompliance.RFC7578);
+        }
+
+        public PartSource(Content.Source content, String boundary, MultiPartCompliance compliance)
+        {
+            this.content = Objects.requireNonNull(content);
+            this.parser = new Parser(Objects.requireNonNull(boundary), compliance, new PartsListener());
+        }
+
+        /**
+         * @return the boundary string
+         */
+        public String getBoundary()
+        {
+            return parser.getBoundary();
+        }
+
+        /**
+         * @return the max length of a {@link Part} headers, in bytes, or -1 for unlimited length
+         */
+        public int getPartHeadersMaxLength()
+        {
+            return parser.getPartHeadersMaxLength();
+        }
+
+        /**
+         * @param partHeadersMaxLength the max length of a {@link Part} headers, in bytes, or -1 for unlimited length
+         */
+        public void setPartHeadersMaxLength(int partHeadersMaxLength)
+        {
+            parser.setPartHeadersMaxLength(partHeadersMaxLength);
+        }
+
+        /**
+         * @return the maximum number of parts that can be read (0 for no parts allowed, -1 for unlimited parts)
+         */
+        public long getMaxParts()
+        {
+            return parser.getMaxParts();
+        }
+
+        /**
+         * @param maxParts the maximum number of parts that can be read (0 for no parts allowed, -1 for unlimited parts)
+         */
+        public void setMaxParts(long maxParts)
+        {
+            parser.setMaxParts(maxParts);
+        }
+
+        /**
+         * @return the maximum length in bytes of the whole multipart content, or -1 for unlimited length
+         */
+        public long getMaxLength()
+        {
+            return maxLength;
+        }
+
+        /**
+         * @param maxLength the maximum length in bytes of the whole multipart content, or -1 for unlimited length
+         */
+        public void setMaxLength(long maxLength)
+        {
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * @return whether all the parts have been parsed
+         */
+        public boolean isComplete()
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                return complete && parts.isEmpty();
+            }
+        }
+
+        /**
+         * <p>Reads the next part.</p>
+         * <p>The unread content of the previous part, if any, is skipped.</p>
+         * <p>When this method returns {@code null}, either all the parts have
+         * been read (see {@link #isComplete()}), or {@link #demand(Runnable)}
+         * should be called to be notified when this method should be called again.</p>
+         *
+         * @return the next part, or {@code null} if no part is available
+         * @throws RuntimeException if the multipart content could not be read or parsed
+         */
+        public Part read()
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                if (reading != null)
+                {
+                    reading.skip();
+                    reading = null;
+                }
+                while (true)
+                {
+                    PartContentSource next = parts.poll();
+                    if (next != null)
+                    {
+                        reading = next;
+                        return next.part;
+                    }
+                    if (failure != null)
+                    {
+                        ExceptionUtil.ifExceptionThrowUnchecked(failure);
+                        throw new IllegalStateException(failure);
+                    }
+                    if (complete)
+                        return null;
+                    if (!parseNextChunk())
+                        return null;
+                }
+            }
+        }
+
+        /**
+         * <p>Demands that the given callback is invoked when {@link #read()}
+         * should be called again.</p>
+         *
+         * @param demandCallback the callback to invoke when {@link #read()} should be called again
+         */
+        public void demand(Runnable demandCallback)
+        {
+            boolean ready;
+            try (AutoLock ignored = lock.lock())
+            {
+                ready = !parts.isEmpty() || complete || failure != null;
+            }
+            if (ready)
+                demandCallback.run();
+            else
+                content.demand(demandCallback);
+        }
+
+        /**
+         * <p>Fails this source, the parts that have been read and
+         * the multipart content with the given failure.</p>
+         *
+         * @param failure the failure
+         */
+        public void fail(Throwable failure)
+        {
+            List<PartContentSource> toFail;
+            try (AutoLock ignored = lock.lock())
+            {
+                if (this.failure != null)
+                    return;
+                this.failure = failure;
+                toFail = new ArrayList<>(parts);
+                if (reading != null)
+                    toFail.add(reading);
+                if (parsing != null && parsing != reading)
+                    toFail.add(parsing);
+                parts.clear();
+            }
+            toFail.forEach(source -> source.fail(failure));
+            content.fail(failure);
+        }
+
+        private boolean parseNextChunk()
+        {
+            assert lock.isHeldByCurrentThread();
+            Content.Chunk chunk = content.read();
+            if (chunk == null)
+                return false;
+            try
+            {
+                if (Content.Chunk.isFailure(chunk))
+                    throw chunk.getFailure();
+                length += chunk.remaining();
+                if (maxLength >= 0 && length > maxLength)
+                    throw new IllegalStateException("max length exceeded: %d".formatted(maxLength));
+                // Events are notified to the PartsListener while holding the lock.
+                parser.parse(chunk);
+            }
+            catch (Throwable x)
+            {
+                fail(x);
+            }
+            finally
+            {
+                chunk.release();
+            }
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                return "%s@%x[parts=%d,complete=%b,failure=%s]".formatted(getClass().getSimpleName(), hashCode(), parts.size(), complete, failure);
+            }
+        }
+
+        private class PartsListener extends AbstractPartsListener
+        {
+            @Override
+            public void onPartHeaders()
+            {
+                PartContentSource source = new PartContentSource();
+                source.part = new ContentSourcePart(getName(), getFileName(), getHeaders(), source);
+                parsing = source;
+                parts.offer(source);
+            }
+
+            @Override
+            public void onPartContent(Content.Chunk chunk)
+            {
+                if (parsing != null)
+                    parsing.offer(chunk);
+            }
+
+            @Override
+            public void onPart(String name, String fileName, HttpFields headers)
+            {
+                parsing = null;
+            }
+
+            @Override
+            public void onComplete()
+            {
+                complete = true;
+            }
+
+            @Override
+            public void onFailure(Throwable failure)
+            {
+                fail(failure);
+            }
+        }
+
+        private class PartContentSource implements Content.Source
+        {
+            private final Queue<Content.Chunk> chunks = new ArrayDeque<>();
+            private Part part;
+            private boolean terminated;
+            private Throwable failure;
+
+            private void offer(Content.Chunk chunk)
+            {
+                assert lock.isHeldByCurrentThread();
+                if (failure != null)
+                    return;
+                chunk.retain();
+                chunks.offer(chunk);
+            }
+
+            private void skip()
+            {
+                fail(SKIPPED);
+            }
+
+            @Override
+            public Content.Chunk read()
+            {
+                try (AutoLock ignored = lock.lock())
+                {
+                    while (true)
+                    {
+                        if (failure != null)
+                            return Content.Chunk.from(failure, true);
+                        if (terminated)
+                            return Content.Chunk.EOF;
+                        Content.Chunk chunk = chunks.poll();
+                        if (chunk != null)
+                        {
+                            terminated = chunk.isLast();
+                            return chunk;
+                        }
+                        if (PartSource.this.failure != null)
+                            return Content.Chunk.from(PartSource.this.failure, true);
+                        if (!parseNextChunk())
+                            return null;
+                    }
+                }
+            }
+
+            @Override
+            public void demand(Runnable demandCallback)
+            {
+                boolean ready;
+                try (AutoLock ignored = lock.lock())
+                {
+                    ready = !chunks.isEmpty() || terminated || failure != null || PartSource.this.failure != null;
+                }
+                if (ready)
+                    demandCallback.run();
+                else
+                    content.demand(demandCallback);
+            }
+
+            @Override
+            public void fail(Throwable failure)
+            {
+                List<Content.Chunk> toRelease;
+                try (AutoLock ignored = lock.lock())
+                {
+                    if (terminated || this.failure != null)
+                        return;
+                    this.failure = failure;
+                    toRelease = List.copyOf(chunks);
+                    chunks.clear();
+                }
+                toRelease.forEach(Content.Chunk::release);
+            }
+        }
+    }
+
     /**
      * <p>A {@code multipart/form-data} parser that follows
      * <a href="https://datatracker.ietf.org/doc/html/rfc7578">RFC 7578</a>.</p>
@@ -1755,6 +2119,14 @@ public class MultiPart
             return fileName;
         }
 
+        /**
+         * @return the headers of the part being parsed
+         */
+        public HttpFields getHeaders()
+        {
+            return fields.asImmutable();
+        }
+
         @Override
         public void onPartHeader(String headerName, String headerValue)
         {
@@ -21,7 +21,10 @@ import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.io.content.AsyncContent;
+import org.eclipse.jetty.io.content.ChunksContentSource;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -32,7 +35,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsStringIgnoringCase;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MultiPartTest
@@ -670,6 +676,116 @@ public class MultiPartTest
         return random;
     }
 
+    @Test
+    public void testPartSourceStreamsPartContent() throws Exception
+    {
+        String boundary = "boundary";
+        AsyncContent content = new AsyncContent();
+        MultiPart.PartSource partSource = new MultiPart.PartSource(content, boundary);
+
+        assertNull(partSource.read());
+        content.write(false, UTF_8.encode("""
+            --$B\r
+            Content-Disposition: form-data; name="file"; filename="file.txt"\r
+            \r
+            hello""".replace("$B", boundary)), Callback.NOOP);
+
+        // The part is available before its content is complete.
+        MultiPart.Part part = partSource.read();
+        assertNotNull(part);
+        assertEquals("file", part.getName());
+        assertEquals("file.txt", part.getFileName());
+
+        Content.Source partContent = part.getContentSource();
+        Content.Chunk chunk = partContent.read();
+        assertNotNull(chunk);
+        assertEquals("hello", BufferUtil.toString(chunk.getByteBuffer()));
+        assertFalse(chunk.isLast());
+        chunk.release();
+        assertNull(partContent.read());
+
+        content.write(false, UTF_8.encode(" world\r\n--$B".replace("$B", boundary)), Callback.NOOP);
+        chunk = partContent.read();
+        assertNotNull(chunk);
+        assertEquals(" world", BufferUtil.toString(chunk.getByteBuffer()));
+        chunk.release();
+
+        content.write(true, UTF_8.encode("--\r\n"), Callback.NOOP);
+        chunk = partContent.read();
+        assertNotNull(chunk);
+        assertTrue(chunk.isLast());
+        chunk.release();
+
+        assertNull(partSource.read());
+        assertTrue(partSource.isComplete());
+    }
+
+    @Test
+    public void testPartSourceSkipsUnreadContent() throws Exception
+    {
+        String boundary = "boundary";
+        String multipart = """
+            --$B\r
+            Content-Disposition: form-data; name="one"\r
+            \r
+            first content\r
+            --$B\r
+            Content-Disposition: form-data; name="two"\r
+            \r
+            second content\r
+            --$B--\r
+            """.replace("$B", boundary);
+        // Split the content in small chunks.
+        List<Content.Chunk> chunks = new ArrayList<>();
+        ByteBuffer buffer = UTF_8.encode(multipart);
+        while (buffer.hasRemaining())
+        {
+            ByteBuffer slice = buffer.slice(buffer.position(), Math.min(3, buffer.remaining()));
+            buffer.position(buffer.position() + slice.remaining());
+            chunks.add(Content.Chunk.from(slice, !buffer.hasRemaining()));
+        }
+        MultiPart.PartSource partSource = new MultiPart.PartSource(new ChunksContentSource(chunks), boundary);
+
+        MultiPart.Part one = partSource.read();
+        assertNotNull(one);
+        assertEquals("one", one.getName());
+
+        // Do not read the content of the first part.
+        MultiPart.Part two = partSource.read();
+        assertNotNull(two);
+        assertEquals("two", two.getName());
+        assertEquals("second content", Content.Source.asString(two.getContentSource()));
+
+        Content.Chunk skipped = one.getContentSource().read();
+        assertTrue(Content.Chunk.isFailure(skipped, true));
+
+        assertNull(partSource.read());
+        assertTrue(partSource.isComplete());
+    }
+
+    @Test
+    public void testPartSourceFailure() throws Exception
+    {
+        String boundary = "boundary";
+        String multipart = """
+            --$B\r
+            Content-Disposition: form-data; name="one"\r
+            \r
+            truncated""".replace("$B", boundary);
+        List<Content.Chunk> chunks = List.of(Content.Chunk.from(UTF_8.encode(multipart), false), Content.Chunk.EOF);
+        MultiPart.PartSource partSource = new MultiPart.PartSource(new ChunksContentSource(chunks), boundary);
+
+        MultiPart.Part part = partSource.read();
+        assertNotNull(part);
+        Content.Source partContent = part.getContentSource();
+        Content.Chunk chunk = partContent.read();
+        assertEquals("truncated", BufferUtil.toString(chunk.getByteBuffer()));
+        chunk.release();
+        chunk = partContent.read();
+        assertTrue(Content.Chunk.isFailure(chunk, true));
+        assertThrows(RuntimeException.class, partSource::read);
+    }
+
     private static class TestListener implements MultiPart.Parser.Listener
     {
         private final Deque<String> events = new ArrayDeque<>();
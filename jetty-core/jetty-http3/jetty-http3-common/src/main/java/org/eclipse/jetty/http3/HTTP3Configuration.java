@@ -13,6 +13,9 @@
 
 package org.eclipse.jetty.http3;
 
+import java.util.Set;
+
+import org.eclipse.jetty.http3.qpack.QpackInsertionStrategy;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 
@@ -32,6 +35,8 @@ public class HTTP3Configuration
     private int maxEncoderTableCapacity = 64 * 1024;
     private int maxRequestHeadersSize = 8 * 1024;
     private int maxResponseHeadersSize = 8 * 1024;
+    private int encoderInsertionThreshold = 2;
+    private Set<String> encoderAlwaysInsertFields = Set.of();
 
     @ManagedAttribute("The stream idle timeout in milliseconds")
     public long getStreamIdleTimeout()
@@ -221,4 +226,55 @@ public class HTTP3Configuration
     {
         this.maxResponseHeadersSize = maxResponseHeadersSize;
     }
+
+    @ManagedAttribute("The number of times a field must be encoded before the QPACK encoder inserts it in the dynamic table")
+    public int getEncoderInsertionThreshold()
+    {
+        return encoderInsertionThreshold;
+    }
+
+    /**
+     * <p>Sets the number of times a field must be encoded before the local
+     * QPACK encoder inserts it in the dynamic table.</p>
+     * <p>The default value is {@code 2}, so that fields that are encoded only
+     * once, such as {@code :path}, do not evict frequently encoded fields from
+     * the dynamic table; the value {@code 1} inserts all fields.</p>
+     *
+     * @param encoderInsertionThreshold the QPACK encoder insertion threshold
+     * @see #setEncoderAlwaysInsertFields(Set)
+     */
+    public void setEncoderInsertionThreshold(int encoderInsertionThreshold)
+    {
+        if (encoderInsertionThreshold < 1)
+            throw new IllegalArgumentException("Invalid encoder insertion threshold " + encoderInsertionThreshold);
+        this.encoderInsertionThreshold = encoderInsertionThreshold;
+    }
+
+    @ManagedAttribute("The names of the fields that the QPACK encoder always inserts in the dynamic table")
+    public Set<String> getEncoderAlwaysInsertFields()
+    {
+        return encoderAlwaysInsertFields;
+    }
+
+    /**
+     * <p>Sets the names of the fields that the local QPACK encoder inserts
+     * in the dynamic table the first time they are encoded, regardless of
+     * the {@link #setEncoderInsertionThreshold(int) insertion threshold}.</p>
+     *
+     * @param encoderAlwaysInsertFields the names of the fields always inserted
+     */
+    public void setEncoderAlwaysInsertFields(Set<String> encoderAlwaysInsertFields)
+    {
+        this.encoderAlwaysInsertFields = Set.copyOf(encoderAlwaysInsertFields);
+    }
+
+    /**
+     * @return a new QPACK encoder insertion strategy configured with the parameters of this configuration
+     */
+    public QpackInsertionStrategy newEncoderInsertionStrategy()
+    {
+        if (getEncoderInsertionThreshold() == 1)
+            return QpackInsertionStrategy.ALWAYS;
+        return new QpackInsertionStrategy.Frequency(getEncoderInsertionThreshold(), getEncoderAlwaysInsertFields());
+    }
 }
@@ -21,6 +21,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpHeader;
@@ -99,6 +100,7 @@ public class QpackEncoder implements Dumpable
     private int _blockedStreams;
     private int _maxHeadersSize;
     private int _maxTableCapacity;
+    private QpackInsertionStrategy _insertionStrategy = QpackInsertionStrategy.ALWAYS;
 
     public QpackEncoder(Instruction.Handler handler)
     {
@@ -127,6 +129,25 @@ public class QpackEncoder implements Dumpable
         _maxBlockedStreams = maxBlockedStreams;
     }
 
+    public QpackInsertionStrategy getInsertionStrategy()
+    {
+        return _insertionStrategy;
+    }
+
+    /**
+     * <p>Sets the strategy that decides whether encoded fields are inserted into the dynamic table.</p>
+     * <p>The default strategy is {@link QpackInsertionStrategy#ALWAYS}.</p>
+     *
+     * @param insertionStrategy the insertion strategy
+     */
+    public void setInsertionStrategy(QpackInsertionStrategy insertionStrategy)
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            _insertionStrategy = Objects.requireNonNull(insertionStrategy);
+        }
+    }
+
     public int getMaxHeadersSize()
     {
         return _maxHeadersSize;
@@ -400,31 +421,32 @@ public class QpackEncoder implements Dumpable
         if (field instanceof PreEncodedHttpField)
             return EncodableEntry.getPreEncodedEntry((PreEncodedHttpField)field);
 
-        boolean canCreateEntry = shouldIndex(field) && dynamicTable.canInsert(field);
-
         Entry entry = _context.get(field);
         if (referenceEntry(entry, streamInfo))
-        {
             return EncodableEntry.getReferencedEntry(entry);
-        }
-        else
+
+        // The insertion strategy is only consulted for fields that cannot be referenced,
+        // and that can be inserted, as it may update its state when it answers true.
+        Entry nameEntry = _context.get(field.getName());
+        boolean canCreateEntry = shouldIndex(field) && dynamicTable.canInsert(field) && _insertionStrategy.shouldInsert(field, nameEntry != null);
+
+        // Should we duplicate this entry.
+        if (entry != null && canCreateEntry)
         {
-            // Should we duplicate this entry.
-            if (entry != null && canCreateEntry)
-            {
-                int index = _context.indexOf(entry);
-                Entry newEntry = new Entry(field);
-                dynamicTable.add(newEntry);
-                _instructions.add(new DuplicateInstruction(index));
+            int index = _context.indexOf(entry);
+            Entry newEntry = new Entry(field);
+            dynamicTable.add(newEntry);
+            _instructions.add(new DuplicateInstruction(index));
 
-                // Should we reference this entry and risk blocking.
-                if (referenceEntry(newEntry, streamInfo))
-                    return EncodableEntry.getReferencedEntry(newEntry);
-            }
+            // Should we reference this entry and risk blocking.
+            if (referenceEntry(newEntry, streamInfo))
+                return EncodableEntry.getReferencedEntry(newEntry);
+
+            // The field has been inserted, do not insert it again.
+            canCreateEntry = false;
         }
 
         boolean huffman = shouldHuffmanEncode(field);
-        Entry nameEntry = _context.get(field.getName());
         if (referenceEntry(nameEntry, streamInfo))
         {
             // Should we copy this entry
@@ -0,0 +1,170 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http3.qpack;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.util.StringUtil;
+
+/**
+ * <p>Decides whether a {@link QpackEncoder} should insert a field into its dynamic table.</p>
+ * <p>A {@link QpackEncoder} consults its strategy when it encodes a field that it cannot
+ * reference from the dynamic table, after it has verified that the field can be indexed
+ * and that there is room in the dynamic table.</p>
+ * <p>Implementations are called with the {@link QpackEncoder} lock held, so they may keep
+ * per-connection state without further synchronization; a new instance should be used
+ * for every {@link QpackEncoder}.</p>
+ *
+ * @see QpackEncoder#setInsertionStrategy(QpackInsertionStrategy)
+ */
+public interface QpackInsertionStrategy
+{
+    /**
+     * <p>An insertion strategy that inserts every indexable field.</p>
+     */
+    QpackInsertionStrategy ALWAYS = (field, indexedName) -> true;
+
+    /**
+     * @param field the field to encode
+     * @param indexedName whether the field name is already in the static or dynamic table
+     * @return whether the field should be inserted into the dynamic table
+     */
+    boolean shouldInsert(HttpField field, boolean indexedName);
+
+    /**
+     * <p>An insertion strategy that learns the frequency of fields, and inserts
+     * a field only after it has been encoded a number of times.</p>
+     * <p>Fields whose value changes at every request, such as {@code :path} or
+     * {@code content-length}, are therefore not inserted, and do not evict from
+     * the dynamic table the fields that are encoded at every request; however,
+     * when their name is frequently encoded, one of them is inserted so that
+     * the others can reference its name from the dynamic table.</p>
+     * <p>Fields whose name belongs to the configured <em>always insert</em> set
+     * are inserted the first time they are encoded.</p>
+     */
+    class Frequency implements QpackInsertionStrategy
+    {
+        private final Map<HttpField, Counter> fields = new HashMap<>();
+        private final Map<String, Counter> names = new HashMap<>();
+        private final int threshold;
+        private final Set<String> alwaysInsert;
+        private final int maxFields;
+
+        /**
+         * @param threshold the number of times a field must be encoded before it is inserted
+         * @param alwaysInsert the names of the fields that are always inserted
+         */
+        public Frequency(int threshold, Set<String> alwaysInsert)
+        {
+            this(threshold, alwaysInsert, 256);
+        }
+
+        /**
+         * @param threshold the number of times a field must be encoded before it is inserted
+         * @param alwaysInsert the names of the fields that are always inserted
+         * @param maxFields the max number of distinct fields and names whose frequency is tracked
+         */
+        public Frequency(int threshold, Set<String> alwaysInsert, int maxFields)
+        {
+            if (threshold < 1)
+                throw new IllegalArgumentException("Invalid threshold " + threshold);
+            if (maxFields < 1)
+                throw new IllegalArgumentException("Invalid max fields " + maxFields);
+            this.threshold = threshold;
+            this.alwaysInsert = alwaysInsert.stream().map(StringUtil::asciiToLowerCase).collect(Collectors.toUnmodifiableSet());
+            this.maxFields = maxFields;
+        }
+
+        public int getThreshold()
+        {
+            return threshold;
+        }
+
+        public Set<String> getAlwaysInsert()
+        {
+            return alwaysInsert;
+        }
+
+        @Override
+        public boolean shouldInsert(HttpField field, boolean indexedName)
+        {
+            String name = field.getLowerCaseName();
+            if (threshold == 1 || alwaysInsert.contains(name))
+                return true;
+
+            // The field is hot; once inserted, it is referenced from the
+            // dynamic table, so its frequency is learnt again only if evicted.
+            if (count(fields, field))
+                return true;
+
+            // The name is hot, but the values vary: insert the field,
+            // so that the following fields can reference the name.
+            return !indexedName && count(names, name);
+        }
+
+        private <K> boolean count(Map<K, Counter> counters, K key)
+        {
+            Counter counter = counters.get(key);
+            if (counter == null)
+            {
+                if (counters.size() >= maxFields)
+                {
+                    age(counters);
+                    if (counters.size() >= maxFields)
+                        return false;
+                }
+                counters.put(key, new Counter());
+                return false;
+            }
+
+            if (++counter.count < threshold)
+                return false;
+
+            counters.remove(key);
+            return true;
+        }
+
+        /**
+         * <p>Halves the counts of the tracked keys, and stops tracking those that
+         * drop to zero, so that fields that are no longer encoded are forgotten.</p>
+         */
+        private void age(Map<?, Counter> counters)
+        {
+            Iterator<Counter> iterator = counters.values().iterator();
+            while (iterator.hasNext())
+            {
+                Counter counter = iterator.next();
+                counter.count >>= 1;
+                if (counter.count == 0)
+                    iterator.remove();
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[threshold=%d,alwaysInsert=%s,fields=%d,names=%d]", getClass().getSimpleName(), hashCode(), threshold, alwaysInsert, fields.size(), names.size());
+        }
+
+        private static class Counter
+        {
+            private int count = 1;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http3.qpack;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http3.qpack.util.TestDecoderHandler;
+import org.eclipse.jetty.http3.qpack.util.TestEncoderHandler;
+import org.eclipse.jetty.util.NanoTime;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InsertionStrategyTest
+{
+    private final TestDecoderHandler _decoderHandler = new TestDecoderHandler();
+    private final TestEncoderHandler _encoderHandler = new TestEncoderHandler();
+    private QpackEncoder _encoder;
+    private QpackDecoder _decoder;
+    private long _encodedBytes;
+
+    private void start(QpackInsertionStrategy strategy) throws Exception
+    {
+        start(strategy, 4 * 1024);
+    }
+
+    private void start(QpackInsertionStrategy strategy, int tableCapacity) throws Exception
+    {
+        _decoder = new QpackDecoder(_decoderHandler);
+        _decoder.setBeginNanoTimeSupplier(NanoTime::now);
+        _decoder.setMaxHeadersSize(1024);
+        _decoder.setMaxTableCapacity(4 * 1024);
+
+        _encoder = new QpackEncoder(_encoderHandler);
+        _encoder.setInsertionStrategy(strategy);
+        _encoder.setMaxTableCapacity(4 * 1024);
+        _encoder.setTableCapacity(tableCapacity);
+        _encoder.setMaxBlockedStreams(5);
+        // Discard the set capacity instruction.
+        _decoder.parseInstructions(_encoderHandler.getInstructionBuffer());
+    }
+
+    private int insertCount()
+    {
+        return _encoder.getQpackContext().getDynamicTable().getInsertCount();
+    }
+
+    private void roundTrip(long streamId, HttpFields fields) throws Exception
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        _encoder.encode(buffer, streamId, new MetaData(HttpVersion.HTTP_3, fields));
+        buffer.flip();
+        _encodedBytes += buffer.remaining();
+
+        ByteBuffer instructions = _encoderHandler.getInstructionBuffer();
+        _encodedBytes += instructions.remaining();
+        _decoder.parseInstructions(instructions);
+
+        _decoder.decode(streamId, buffer, _decoderHandler);
+        _encoder.parseInstructions(_decoderHandler.getInstructionBuffer());
+
+        MetaData metaData = _decoderHandler.getMetaData();
+        assertNotNull(metaData);
+        assertTrue(metaData.getHttpFields().isEqualTo(fields));
+    }
+
+    private static HttpFields responseFields(int request)
+    {
+        return HttpFields.build()
+            .put(HttpHeader.SERVER, "Jetty")
+            .put(HttpHeader.CONTENT_TYPE, "application/json;charset=UTF-8")
+            .put("x-request-id", "7f3a9c2e-" + request);
+    }
+
+    @Test
+    public void testFrequencyStrategyInsertsHotFieldsOnly() throws Exception
+    {
+        start(new QpackInsertionStrategy.Frequency(2, Set.of()));
+
+        roundTrip(0, responseFields(0));
+        // Nothing is inserted the first time.
+        assertEquals(0, insertCount());
+
+        roundTrip(4, responseFields(1));
+        // The repeated fields are inserted the second time,
+        // and so is the field with a repeated name.
+        assertEquals(3, insertCount());
+
+        for (int i = 2; i < 32; ++i)
+        {
+            roundTrip(4L * i, responseFields(i));
+        }
+        // The fields with a unique value are not inserted again.
+        assertEquals(3, insertCount());
+    }
+
+    @Test
+    public void testAlwaysInsertFields() throws Exception
+    {
+        start(new QpackInsertionStrategy.Frequency(2, Set.of("Server")));
+
+        roundTrip(0, responseFields(0));
+        assertEquals(1, insertCount());
+        assertEquals("Jetty", _encoder.getQpackContext().getDynamicTable().getAbsolute(0).getHttpField().getValue());
+        assertFalse(_encoder.getInsertionStrategy().shouldInsert(responseFields(1).getField("x-request-id"), true));
+    }
+
+    @Test
+    public void testStrategyNotConsultedWhenTableFull() throws Exception
+    {
+        AtomicInteger consulted = new AtomicInteger();
+        QpackInsertionStrategy frequency = new QpackInsertionStrategy.Frequency(2, Set.of("x-a"));
+        QpackInsertionStrategy strategy = (field, indexedName) ->
+        {
+            if (field.is("x-b"))
+                consulted.incrementAndGet();
+            return frequency.shouldInsert(field, indexedName);
+        };
+        // Room for a single entry of 36 bytes.
+        start(strategy, 64);
+
+        // The inserted entry is referenced by a stream that is not acknowledged, so it cannot be evicted.
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        _encoder.encode(buffer, 0, new MetaData(HttpVersion.HTTP_3, HttpFields.build().put("x-a", "1")));
+        assertEquals(1, insertCount());
+
+        for (int i = 1; i <= 3; ++i)
+        {
+            buffer.clear();
+            _encoder.encode(buffer, 4L * i, new MetaData(HttpVersion.HTTP_3, HttpFields.build().put("x-b", "2")));
+        }
+        // The table is full, so the strategy is not consulted, and does not forget what it learnt.
+        assertEquals(1, insertCount());
+        assertEquals(0, consulted.get());
+        HttpField field = new HttpField("x-b", "2");
+        assertFalse(frequency.shouldInsert(field, false));
+        assertTrue(frequency.shouldInsert(field, false));
+    }
+
+    @Test
+    public void testFrequencyStrategyEncodesFewerBytes() throws Exception
+    {
+        start(QpackInsertionStrategy.ALWAYS);
+        for (int i = 0; i < 64; ++i)
+        {
+            roundTrip(4L * i, responseFields(i));
+        }
+        long alwaysBytes = _encodedBytes;
+        int alwaysInsertCount = insertCount();
+
+        _encodedBytes = 0;
+        start(new QpackInsertionStrategy.Frequency(2, Set.of()));
+        for (int i = 0; i < 64; ++i)
+        {
+            roundTrip(4L * i, responseFields(i));
+        }
+
+        assertThat(insertCount(), lessThan(alwaysInsertCount));
+        assertThat(_encodedBytes, lessThan(alwaysBytes));
+    }
+}
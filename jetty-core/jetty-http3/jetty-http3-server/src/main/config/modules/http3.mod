@@ -49,4 +49,7 @@ etc/jetty-http3.xml
 
 ## Specifies the stream idle timeout, in milliseconds.
 # jetty.http3.streamIdleTimeout=30000
+
+## The number of times a response header must be sent before it is inserted in the QPACK dynamic table.
+# jetty.http3.encoderInsertionThreshold=2
 # end::documentation[]
@@ -97,11 +97,16 @@ public class AbstractClientServerTest
         serverThreads.setName("server");
         server = new Server(serverThreads);
         connector = new QuicServerConnector(server, quicConfiguration, serverConnectionFactory);
+        configureConnector(connector);
         server.addConnector(connector);
         MBeanContainer mbeanContainer = new MBeanContainer(ManagementFactory.getPlatformMBeanServer());
         server.addBean(mbeanContainer);
     }
 
+    protected void configureConnector(QuicServerConnector connector)
+    {
+    }
+
     protected void startClient() throws Exception
     {
         ClientConnector clientConnector = new ClientConnector();
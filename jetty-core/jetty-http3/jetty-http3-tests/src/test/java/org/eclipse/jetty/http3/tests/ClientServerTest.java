@@ -364,6 +364,12 @@ public class ClientServerTest extends AbstractClientServerTest
         ClientQuicSession clientQuicSession = clientSession.getProtocolSession().getQuicSession();
         assertTrue(clientQuicSession.getQuicStreamEndPoints().stream()
             .noneMatch(endPoint -> endPoint.getStreamId() == stream.getId()));
+
+        // Datagrams are received and sent in batches.
+        double receiveBatchSize = connector.getAverageReceiveBatchSize();
+        assertTrue(receiveBatchSize >= 1 && receiveBatchSize <= connector.getReceiveBatchSize(), "receiveBatchSize=" + receiveBatchSize);
+        double sendBatchSize = connector.getAverageSendBatchSize();
+        assertTrue(sendBatchSize >= 1 && sendBatchSize <= connector.getSendBatchSize(), "sendBatchSize=" + sendBatchSize);
     }
 
     @Test
@@ -0,0 +1,171 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http3.tests;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http3.api.Session;
+import org.eclipse.jetty.http3.api.Stream;
+import org.eclipse.jetty.http3.frames.HeadersFrame;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.quic.common.QuicSession;
+import org.eclipse.jetty.quic.quiche.QuicheConnectionId;
+import org.eclipse.jetty.quic.server.QuicServerConnector;
+import org.eclipse.jetty.quic.server.ServerQuicConnection;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.Test;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DatagramChannelsTest extends AbstractClientServerTest
+{
+    private static final int DATAGRAM_CHANNELS = 4;
+
+    @Override
+    protected void configureConnector(QuicServerConnector connector)
+    {
+        connector.setDatagramChannels(DATAGRAM_CHANNELS);
+    }
+
+    private void startServer() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                callback.succeeded();
+                return true;
+            }
+        });
+    }
+
+    private void request(Session.Client session) throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newRequest(new HeadersFrame(newRequest("/"), true), new Stream.Client.Listener()
+        {
+            @Override
+            public void onResponse(Stream.Client stream, HeadersFrame frame)
+            {
+                MetaData.Response response = (MetaData.Response)frame.getMetaData();
+                assertEquals(HttpStatus.OK_200, response.getStatus());
+                latch.countDown();
+            }
+        }).get(5, TimeUnit.SECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private List<ServerQuicConnection> serverConnections()
+    {
+        List<ServerQuicConnection> result = new ArrayList<>();
+        for (EndPoint endPoint : connector.getConnectedEndPoints())
+        {
+            Connection connection = endPoint.getConnection();
+            if (connection instanceof ServerQuicConnection serverQuicConnection)
+                result.add(serverQuicConnection);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSessionsSpreadAcrossDatagramChannels() throws Exception
+    {
+        startServer();
+
+        List<ServerQuicConnection> connections = serverConnections();
+        assertEquals(DATAGRAM_CHANNELS, connections.size());
+
+        for (int i = 0; i < 16; ++i)
+        {
+            // Each session has its own client DatagramChannel and port.
+            Session.Client session = newSession(new Session.Client.Listener() {});
+            request(session);
+        }
+
+        Set<Integer> channelIndexes = new HashSet<>();
+        int sessions = 0;
+        for (ServerQuicConnection connection : connections)
+        {
+            for (QuicSession session : connection.getQuicSessions())
+            {
+                ++sessions;
+                channelIndexes.add(connection.getChannelIndex());
+                // The connection ID encodes the index of the channel that owns the session.
+                assertEquals(connection.getChannelIndex(), session.getConnectionId().byteAt(0) & 0xFF);
+            }
+        }
+        assertEquals(16, sessions);
+        assertThat(channelIndexes.size(), greaterThan(1));
+    }
+
+    @Test
+    public void testPacketsSteeredToOwnerDatagramChannel() throws Exception
+    {
+        startServer();
+
+        Session.Client session = newSession(new Session.Client.Listener() {});
+        request(session);
+
+        QuicheConnectionId connectionId = serverConnections().stream()
+            .flatMap(connection -> connection.getQuicSessions().stream())
+            .map(QuicSession::getConnectionId)
+            .findFirst()
+            .orElseThrow();
+
+        // A short header packet for the connection ID, with undecryptable payload,
+        // that is dropped by the owner, as if the client changed address.
+        ByteBuffer packet = ByteBuffer.allocate(1 + connectionId.length() + 32);
+        packet.put((byte)0x40);
+        for (int i = 0; i < connectionId.length(); ++i)
+        {
+            packet.put(connectionId.byteAt(i));
+        }
+        packet.put(new byte[32]);
+
+        // Send from multiple ports, so that the packets
+        // are received by different server channels.
+        InetSocketAddress address = new InetSocketAddress("localhost", connector.getLocalPort());
+        for (int i = 0; i < 32; ++i)
+        {
+            try (DatagramChannel channel = DatagramChannel.open())
+            {
+                channel.send(packet.flip(), address);
+            }
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(connector::getSteeredPackets, greaterThan(0L));
+
+        // The session is still usable.
+        request(session);
+    }
+}
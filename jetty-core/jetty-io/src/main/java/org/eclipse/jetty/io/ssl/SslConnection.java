@@ -85,6 +85,26 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
     private static final Logger LOG = LoggerFactory.getLogger(SslConnection.class);
     private static final String TLS_1_3 = "TLSv1.3";
 
+    /**
+     * <p>An {@link Executor} of TLS handshakes that is notified when the handshakes complete.</p>
+     * <p>All the tasks that progress the handshake of a connection are the same {@link Runnable}
+     * instance, so that implementations can track each handshake once, from its first task
+     * until its completion.</p>
+     *
+     * @see #setHandshakeExecutor(Executor)
+     */
+    public interface HandshakeExecutor extends Executor
+    {
+        /**
+         * <p>Invoked when the handshake progressed by the given task completes, either
+         * successfully or not, or when its connection is closed before the handshake
+         * completes; it may be invoked more than once for the same handshake.</p>
+         *
+         * @param task the task of the handshake, as previously passed to {@link #execute(Runnable)}
+         */
+        void onHandshakeComplete(Runnable task);
+    }
+
     private enum HandshakeState
     {
         INITIAL,
@@ -128,6 +148,22 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
     private FlushState _flushState = FlushState.IDLE;
     private FillState _fillState = FillState.IDLE;
     private boolean _underflown;
+    private Executor _handshakeExecutor;
+    private volatile boolean _handshakeExecuted;
+    private final Runnable _runHandshake = new RunnableTask("runHandshake")
+    {
+        @Override
+        public void run()
+        {
+            _sslEndPoint.onHandshakeFillable();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return InvocationType.BLOCKING;
+        }
+    };
     private final Runnable _runFillable = new RunnableTask("runFillable")
     {
         @Override
@@ -147,7 +183,10 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
         @Override
         public void succeeded()
         {
-            onFillable();
+            if (isHandshakeOffloaded())
+                executeHandshake();
+            else
+                onFillable();
         }
 
         @Override
@@ -159,6 +198,9 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
         @Override
         public InvocationType getInvocationType()
         {
+            // Offloading the handshake only dispatches a task, so it does not block.
+            if (isHandshakeOffloaded())
+                return InvocationType.NON_BLOCKING;
             return getSslEndPoint().getFillInterest().getCallbackInvocationType();
         }
 
@@ -288,6 +330,68 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
         _requireCloseMessage = requireCloseMessage;
     }
 
+    /**
+     * @return the executor used to progress the TLS handshake, or null if the handshake
+     * is progressed by the thread that fills from the {@link SslEndPoint}
+     * @see #setHandshakeExecutor(Executor)
+     */
+    public Executor getHandshakeExecutor()
+    {
+        return _handshakeExecutor;
+    }
+
+    /**
+     * <p>Sets the executor used to progress the TLS handshake.</p>
+     * <p>When set, the {@code unwrap()}/{@code wrap()} calls and the {@link SSLEngine}
+     * delegated tasks of the handshake are performed by this executor, rather than by
+     * the thread that calls {@link SslEndPoint#fill(ByteBuffer)} on behalf of the
+     * upper {@link Connection}; the upper {@link Connection} is only notified of
+     * fillability once the handshake is complete, so that it runs on the connection
+     * executor as usual.</p>
+     * <p>If the handshake executor rejects the first task of the handshake, this connection
+     * is closed; if it rejects a task of a handshake already in progress, the task is
+     * executed by the connection executor instead.
+     * If the handshake executor is a {@link HandshakeExecutor}, it is notified when the
+     * handshake completes.</p>
+     *
+     * @param handshakeExecutor the executor used to progress the TLS handshake, or null
+     * to progress the handshake in the filling thread
+     */
+    public void setHandshakeExecutor(Executor handshakeExecutor)
+    {
+        _handshakeExecutor = handshakeExecutor;
+    }
+
+    private boolean isHandshakeOffloaded()
+    {
+        return _handshakeExecutor != null && !isHandshakeComplete();
+    }
+
+    private void executeHandshake()
+    {
+        boolean inProgress = _handshakeExecuted;
+        _handshakeExecuted = true;
+        try
+        {
+            _handshakeExecutor.execute(_runHandshake);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Handshake rejected {}", this, x);
+            if (inProgress)
+                getExecutor().execute(_runHandshake);
+            else
+                _sslEndPoint.close(x);
+        }
+    }
+
+    private void notifyHandshakeComplete()
+    {
+        if (_handshakeExecuted && _handshakeExecutor instanceof HandshakeExecutor handshakeExecutor)
+            handshakeExecutor.onHandshakeComplete(_runHandshake);
+    }
+
     private boolean isHandshakeInitial()
     {
         return _handshake.get() == HandshakeState.INITIAL;
@@ -355,6 +459,8 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
     @Override
     public void onClose(Throwable cause)
     {
+        if (!isHandshakeComplete())
+            notifyHandshakeComplete();
         getSslEndPoint().getConnection().onClose(cause);
         super.onClose(cause);
     }
@@ -590,6 +696,43 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
             }
         }
 
+        /**
+         * <p>Progresses the TLS handshake without notifying the upper {@link Connection},
+         * which is only notified in the connection executor when the handshake is complete,
+         * or when it produced decrypted data or a failure.</p>
+         */
+        protected void onHandshakeFillable()
+        {
+            try
+            {
+                try (AutoLock l = _lock.lock())
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("onHandshakeFillable {}", SslConnection.this);
+                    _fillState = FillState.IDLE;
+                }
+
+                int filled = fill(BufferUtil.EMPTY_BUFFER);
+
+                boolean decrypted;
+                try (AutoLock l = _lock.lock())
+                {
+                    decrypted = _decryptedInput != null && _decryptedInput.hasRemaining();
+                }
+
+                if (filled != 0 || decrypted || isHandshakeComplete() || isInputShutdown())
+                    getExecutor().execute(SslConnection.this::onFillable);
+                else
+                    needsFillInterest();
+            }
+            catch (Throwable x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("onHandshakeFillable failure {}", SslConnection.this, x);
+                close(x);
+            }
+        }
+
         protected void onFillableFail(Throwable failure)
         {
             // If we are handshaking, then wake up any waiting write as well as it may have been blocked on the read
@@ -963,6 +1106,7 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
                     LOG.debug("handshake succeeded {} {} {}/{}", SslConnection.this,
                         _sslEngine.getUseClientMode() ? "client" : "resumed server",
                         _sslEngine.getSession().getProtocol(), _sslEngine.getSession().getCipherSuite());
+                notifyHandshakeComplete();
                 notifyHandshakeSucceeded(_sslEngine);
             }
             else if (isHandshakeSucceeded())
@@ -980,6 +1124,7 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
                     LOG.debug("handshake failed {} {}", SslConnection.this, failure);
                 if (!(failure instanceof SSLHandshakeException))
                     failure = new SSLHandshakeException(failure.getMessage()).initCause(failure);
+                notifyHandshakeComplete();
                 notifyHandshakeFailed(_sslEngine, failure);
             }
             return failure;
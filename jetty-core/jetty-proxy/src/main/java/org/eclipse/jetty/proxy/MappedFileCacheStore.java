@@ -0,0 +1,363 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.io.Retainable;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A {@link ProxyCache.Store} that writes the content of the entries
+ * to files in a directory, and serves it from memory-mapped buffers,
+ * so that the content lives off-heap in the operating system page cache.</p>
+ * <p>The content is written and mapped by the {@link #getExecutor() executor},
+ * so that the entries are stored asynchronously with respect to
+ * {@link #put(String, ProxyCache.Entry)}.</p>
+ * <p>The least recently used entries are evicted when the total size of the
+ * entries exceeds {@link #getMaxSize()}; the file of an entry is deleted when
+ * the entry is evicted or removed and the last retained reference to it,
+ * for example of a response being served, is released.</p>
+ * <p>The index of the entries is kept in memory: the files are deleted when
+ * this store is stopped and the entries do not survive a restart.</p>
+ */
+@ManagedObject("Memory-mapped file store for ProxyCache")
+public class MappedFileCacheStore extends ContainerLifeCycle implements ProxyCache.Store
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileCacheStore.class);
+
+    private final AutoLock lock = new AutoLock();
+    private final Map<String, MappedEntry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private final Map<String, Object> pending = new HashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private final Path directory;
+    private final long maxSize;
+    private Executor executor;
+    private long size;
+
+    public MappedFileCacheStore(@Name("directory") Path directory, @Name("maxSize") long maxSize)
+    {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * @return the executor that writes and maps the content of the entries
+     */
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * <p>Sets the executor that writes and maps the content of the entries,
+     * by default a {@link QueuedThreadPool} managed by this store.</p>
+     *
+     * @param executor the executor that writes and maps the content of the entries
+     */
+    public void setExecutor(Executor executor)
+    {
+        if (isStarted())
+            throw new IllegalStateException();
+        updateBean(this.executor, executor);
+        this.executor = executor;
+    }
+
+    @ManagedAttribute("The max size in bytes of the entries")
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    @ManagedAttribute(value = "The size in bytes of the entries", readonly = true)
+    public long getSize()
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            return size;
+        }
+    }
+
+    @ManagedAttribute(value = "The number of entries", readonly = true)
+    public int getEntries()
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            return entries.size();
+        }
+    }
+
+    @ManagedAttribute(value = "The number of entries evicted", readonly = true)
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        Files.createDirectories(directory);
+        if (executor == null)
+        {
+            QueuedThreadPool cacheThreads = new QueuedThreadPool();
+            cacheThreads.setName(String.format("proxy-cache@%x", hashCode()));
+            setExecutor(cacheThreads);
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        clear();
+    }
+
+    @Override
+    public ProxyCache.Entry get(String key)
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            MappedEntry mapped = entries.get(key);
+            if (mapped == null)
+                return null;
+            mapped.retain();
+            return mapped.entry;
+        }
+    }
+
+    @Override
+    public void put(String key, ProxyCache.Entry entry)
+    {
+        long entrySize = entry.getSize();
+        if (entrySize > maxSize)
+        {
+            remove(key);
+            return;
+        }
+
+        // Write the content of the entry off the calling thread,
+        // typically the thread that completed the server response.
+        Object token = new Object();
+        try (AutoLock ignored = lock.lock())
+        {
+            pending.put(key, token);
+        }
+        entry.retain();
+        try
+        {
+            executor.execute(() -> store(key, entry, token));
+        }
+        catch (RejectedExecutionException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Could not store {} {}", key, entry, x);
+            entry.release();
+            remove(key, token);
+        }
+    }
+
+    private void store(String key, ProxyCache.Entry entry, Object token)
+    {
+        MappedEntry mapped;
+        try
+        {
+            mapped = map(entry);
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Could not store {} {}", key, entry, x);
+            remove(key, token);
+            return;
+        }
+        finally
+        {
+            entry.release();
+        }
+
+        List<MappedEntry> removed = new ArrayList<>();
+        try (AutoLock ignored = lock.lock())
+        {
+            // The entry was removed or replaced while it was written.
+            if (!pending.remove(key, token))
+            {
+                removed.add(mapped);
+            }
+            else
+            {
+                MappedEntry old = entries.put(key, mapped);
+                if (old != null)
+                {
+                    size -= old.entry.getSize();
+                    removed.add(old);
+                }
+                size += mapped.entry.getSize();
+
+                Iterator<MappedEntry> iterator = entries.values().iterator();
+                while (size > maxSize && iterator.hasNext())
+                {
+                    MappedEntry eldest = iterator.next();
+                    iterator.remove();
+                    size -= eldest.entry.getSize();
+                    evictions.increment();
+                    removed.add(eldest);
+                }
+            }
+        }
+        removed.forEach(MappedEntry::release);
+    }
+
+    private MappedEntry map(ProxyCache.Entry entry) throws IOException
+    {
+        Path path = directory.resolve("entry-" + ids.incrementAndGet());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            ByteBuffer content = entry.getContent();
+            int length = content.remaining();
+            while (content.hasRemaining())
+            {
+                channel.write(content);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new MappedEntry(entry, buffer, path);
+        }
+        catch (Throwable x)
+        {
+            Files.deleteIfExists(path);
+            throw x;
+        }
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        remove(key, null);
+    }
+
+    private void remove(String key, Object token)
+    {
+        MappedEntry mapped;
+        try (AutoLock ignored = lock.lock())
+        {
+            // A failed write does not remove the entry of a more recent put().
+            if (token == null)
+                pending.remove(key);
+            else if (!pending.remove(key, token))
+                return;
+            mapped = entries.remove(key);
+            if (mapped != null)
+                size -= mapped.entry.getSize();
+        }
+        if (mapped != null)
+            mapped.release();
+    }
+
+    @Override
+    public void clear()
+    {
+        List<MappedEntry> removed;
+        try (AutoLock ignored = lock.lock())
+        {
+            removed = new ArrayList<>(entries.values());
+            entries.clear();
+            pending.clear();
+            size = 0;
+        }
+        removed.forEach(MappedEntry::release);
+    }
+
+    @Override
+    public String toString()
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            return String.format("%s@%x{%s,entries=%d,size=%d/%d}", getClass().getSimpleName(), hashCode(), directory, entries.size(), size, maxSize);
+        }
+    }
+
+    /**
+     * <p>The file of an entry, deleted when the last reference to the entry is released.</p>
+     * <p>The reference count starts at 1 for the reference of this store,
+     * and it is incremented for each entry returned by {@link #get(String)}.</p>
+     */
+    private static class MappedEntry extends Retainable.ReferenceCounter
+    {
+        private final ProxyCache.Entry entry;
+        private final Path path;
+
+        private MappedEntry(ProxyCache.Entry entry, ByteBuffer buffer, Path path)
+        {
+            this.entry = entry.withContent(buffer, this);
+            this.path = path;
+        }
+
+        @Override
+        public boolean release()
+        {
+            boolean released = super.release();
+            if (released)
+                delete();
+            return released;
+        }
+
+        private void delete()
+        {
+            try
+            {
+                Files.deleteIfExists(path);
+            }
+            catch (IOException x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Could not delete {}", path, x);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{%s,refs=%d}", getClass().getSimpleName(), hashCode(), path, get());
+        }
+    }
+}
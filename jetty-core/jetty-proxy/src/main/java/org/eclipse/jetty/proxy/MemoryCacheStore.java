@@ -0,0 +1,217 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A {@link ProxyCache.Store} that keeps the entries on-heap,
+ * evicting the least recently used entries when the total size
+ * of the entries exceeds {@link #getMaxSize()}.</p>
+ * <p>An optional overflow store (typically a {@link MappedFileCacheStore})
+ * receives the evicted entries and the entries too large for this store;
+ * entries found in the overflow store are promoted back to this store.</p>
+ */
+@ManagedObject("On-heap LRU store for ProxyCache")
+public class MemoryCacheStore extends ContainerLifeCycle implements ProxyCache.Store
+{
+    private final AutoLock lock = new AutoLock();
+    private final Map<String, ProxyCache.Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder evictions = new LongAdder();
+    private final long maxSize;
+    private final ProxyCache.Store overflow;
+    private long size;
+
+    public MemoryCacheStore()
+    {
+        this(64 * 1024 * 1024);
+    }
+
+    public MemoryCacheStore(@Name("maxSize") long maxSize)
+    {
+        this(maxSize, null);
+    }
+
+    public MemoryCacheStore(@Name("maxSize") long maxSize, @Name("overflow") ProxyCache.Store overflow)
+    {
+        this.maxSize = maxSize;
+        this.overflow = overflow;
+        installBean(overflow);
+    }
+
+    @ManagedAttribute("The max size in bytes of the entries")
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * @return the store that receives the entries evicted from this store, or {@code null}
+     */
+    public ProxyCache.Store getOverflow()
+    {
+        return overflow;
+    }
+
+    @ManagedAttribute(value = "The size in bytes of the entries", readonly = true)
+    public long getSize()
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            return size;
+        }
+    }
+
+    @ManagedAttribute(value = "The number of entries", readonly = true)
+    public int getEntries()
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            return entries.size();
+        }
+    }
+
+    @ManagedAttribute(value = "The number of entries evicted", readonly = true)
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    @Override
+    public ProxyCache.Entry get(String key)
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            ProxyCache.Entry entry = entries.get(key);
+            if (entry != null)
+            {
+                entry.retain();
+                return entry;
+            }
+        }
+
+        if (overflow == null)
+            return null;
+        ProxyCache.Entry entry = overflow.get(key);
+        if (entry == null || entry.getSize() > maxSize)
+            return entry;
+
+        // Promote the entry, copying its content on-heap.
+        ByteBuffer content = entry.getContent();
+        ByteBuffer copy = ByteBuffer.allocate(content.remaining());
+        copy.put(content).flip();
+        entry.release();
+        entry = entry.withContent(copy);
+        overflow.remove(key);
+        put(key, entry);
+        return entry;
+    }
+
+    @Override
+    public void put(String key, ProxyCache.Entry entry)
+    {
+        long entrySize = entry.getSize();
+        if (entrySize > maxSize)
+        {
+            remove(key);
+            if (overflow != null)
+                overflow.put(key, entry);
+            return;
+        }
+
+        // The content of the entry may be backed by the overflow store.
+        entry.retain();
+        ProxyCache.Entry old;
+        List<Map.Entry<String, ProxyCache.Entry>> evicted = new ArrayList<>();
+        try (AutoLock ignored = lock.lock())
+        {
+            old = entries.put(key, entry);
+            if (old != null)
+                size -= old.getSize();
+            size += entrySize;
+
+            Iterator<Map.Entry<String, ProxyCache.Entry>> iterator = entries.entrySet().iterator();
+            while (size > maxSize && iterator.hasNext())
+            {
+                Map.Entry<String, ProxyCache.Entry> eldest = iterator.next();
+                iterator.remove();
+                size -= eldest.getValue().getSize();
+                evictions.increment();
+                evicted.add(eldest);
+            }
+        }
+
+        if (old != null)
+            old.release();
+        if (overflow != null)
+        {
+            // Remove a previous version, that may have been evicted.
+            overflow.remove(key);
+            evicted.forEach(e -> overflow.put(e.getKey(), e.getValue()));
+        }
+        evicted.forEach(e -> e.getValue().release());
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        ProxyCache.Entry entry;
+        try (AutoLock ignored = lock.lock())
+        {
+            entry = entries.remove(key);
+            if (entry != null)
+                size -= entry.getSize();
+        }
+        if (entry != null)
+            entry.release();
+        if (overflow != null)
+            overflow.remove(key);
+    }
+
+    @Override
+    public void clear()
+    {
+        List<ProxyCache.Entry> removed;
+        try (AutoLock ignored = lock.lock())
+        {
+            removed = new ArrayList<>(entries.values());
+            entries.clear();
+            size = 0;
+        }
+        removed.forEach(ProxyCache.Entry::release);
+        if (overflow != null)
+            overflow.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            return String.format("%s@%x{entries=%d,size=%d/%d,overflow=%s}", getClass().getSimpleName(), hashCode(), entries.size(), size, maxSize, overflow);
+        }
+    }
+}
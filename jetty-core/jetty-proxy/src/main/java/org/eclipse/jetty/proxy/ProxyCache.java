@@ -0,0 +1,1308 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.eclipse.jetty.client.Result;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.io.ByteBufferAccumulator;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.io.Retainable;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A shared HTTP cache for {@link ProxyHandler}, as defined by
+ * <a href="https://datatracker.ietf.org/doc/html/rfc9111">RFC 9111</a>.</p>
+ * <p>When configured via {@link ProxyHandler#setProxyCache(ProxyCache)}, the
+ * server-to-proxy responses to {@code GET} requests are stored in a {@link Store}
+ * and used to serve subsequent {@code GET} and {@code HEAD} client-to-proxy requests
+ * for the same proxy-to-server URI, honoring the {@code Cache-Control},
+ * {@code Expires}, {@code Age} and {@code Vary} response headers, as well as the
+ * {@code Cache-Control} and {@code Pragma} request headers.</p>
+ * <p>Stale entries that have an {@code ETag} or a {@code Last-Modified} validator are
+ * revalidated with a conditional request; a {@code 304} response freshens the stored
+ * entry, which is then served to the client.
+ * The {@code stale-while-revalidate} and {@code stale-if-error} extensions defined by
+ * <a href="https://datatracker.ietf.org/doc/html/rfc5861">RFC 5861</a> are supported:
+ * the former serves a stale entry while it is revalidated in background, the latter
+ * serves a stale entry when the server cannot be reached or responds with a
+ * {@code 5xx} status code.</p>
+ * <p>Concurrent cache misses for the same key are collapsed: only the first request is
+ * forwarded to the server, and the others wait for its response to be stored,
+ * for at most {@link #setCollapseTimeout(Duration) collapseTimeout},
+ * see {@link #setCollapseRequests(boolean)}.</p>
+ * <p>This cache is conservative: requests with an {@code Authorization} or a
+ * {@code Range} header bypass the cache, and responses that are {@code private},
+ * that set cookies, that are larger than {@link #getMaxEntrySize()} or that carry
+ * {@code Vary: *} are not stored.
+ * Requests with unsafe methods invalidate the entries for their URI.</p>
+ * <p><b>Usage:</b></p>
+ * <pre>{@code
+ * ProxyHandler proxyHandler = new ProxyHandler.Reverse(...);
+ * Path cacheDir = ...;
+ * ProxyCache.Store disk = new MappedFileCacheStore(cacheDir, 1024 * 1024 * 1024L);
+ * proxyHandler.setProxyCache(new ProxyCache(new MemoryCacheStore(64 * 1024 * 1024L, disk)));
+ * }</pre>
+ *
+ * @see MemoryCacheStore
+ * @see MappedFileCacheStore
+ */
+@ManagedObject("Shared HTTP cache for ProxyHandler")
+public class ProxyCache extends ContainerLifeCycle
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ProxyCache.class);
+    private static final long MAX_HEURISTIC_FRESHNESS = TimeUnit.DAYS.toMillis(1);
+    private static final EnumSet<HttpHeader> AGE_HEADER = EnumSet.of(HttpHeader.AGE);
+    private static final Set<Integer> HEURISTICALLY_CACHEABLE = Set.of(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501);
+
+    private final ConcurrentMap<String, Fetch> fetches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Variants> variants = new ConcurrentHashMap<>();
+    private final AtomicLong variantsIds = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder staleIfErrors = new LongAdder();
+    private final LongAdder collapsedRequests = new LongAdder();
+    private final Store store;
+    private int maxEntrySize = 4 * 1024 * 1024;
+    private boolean collapseRequests = true;
+    private Duration collapseTimeout = Duration.ofSeconds(10);
+
+    public ProxyCache()
+    {
+        this(new MemoryCacheStore());
+    }
+
+    public ProxyCache(@Name("store") Store store)
+    {
+        this.store = Objects.requireNonNull(store);
+        installBean(store);
+    }
+
+    /**
+     * @return the store of the cache entries
+     */
+    public Store getStore()
+    {
+        return store;
+    }
+
+    @ManagedAttribute("The max size in bytes of the content of a cache entry")
+    public int getMaxEntrySize()
+    {
+        return maxEntrySize;
+    }
+
+    /**
+     * @param maxEntrySize the max size in bytes of the content of a cache entry
+     */
+    public void setMaxEntrySize(int maxEntrySize)
+    {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    @ManagedAttribute("Whether concurrent cache misses for the same key are collapsed into one server request")
+    public boolean isCollapseRequests()
+    {
+        return collapseRequests;
+    }
+
+    /**
+     * @param collapseRequests whether concurrent cache misses for the same key
+     * are collapsed into one server request
+     */
+    public void setCollapseRequests(boolean collapseRequests)
+    {
+        this.collapseRequests = collapseRequests;
+    }
+
+    /**
+     * @return the max duration a collapsed request waits for the server response of another request
+     */
+    public Duration getCollapseTimeout()
+    {
+        return collapseTimeout;
+    }
+
+    /**
+     * <p>Sets the max duration a collapsed request waits for the server response
+     * of another request, after which it is forwarded to the server.</p>
+     *
+     * @param collapseTimeout the max duration a collapsed request waits for the server response of another request
+     */
+    public void setCollapseTimeout(Duration collapseTimeout)
+    {
+        if (collapseTimeout.isNegative() || collapseTimeout.isZero())
+            throw new IllegalArgumentException("Invalid collapseTimeout duration");
+        this.collapseTimeout = collapseTimeout;
+    }
+
+    @ManagedAttribute(value = "The number of requests served with a fresh cache entry", readonly = true)
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    @ManagedAttribute(value = "The number of requests served with a stale cache entry while it was revalidated", readonly = true)
+    public long getStaleHits()
+    {
+        return staleHits.sum();
+    }
+
+    @ManagedAttribute(value = "The number of requests forwarded to the server", readonly = true)
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(value = "The number of stale cache entries revalidated by the server", readonly = true)
+    public long getRevalidations()
+    {
+        return revalidations.sum();
+    }
+
+    @ManagedAttribute(value = "The number of requests served with a stale cache entry because of a server error", readonly = true)
+    public long getStaleIfErrors()
+    {
+        return staleIfErrors.sum();
+    }
+
+    @ManagedAttribute(value = "The number of requests that waited for the server response of another request", readonly = true)
+    public long getCollapsedRequests()
+    {
+        return collapsedRequests.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        hits.reset();
+        staleHits.reset();
+        misses.reset();
+        revalidations.reset();
+        staleIfErrors.reset();
+        collapsedRequests.reset();
+    }
+
+    @ManagedOperation(value = "Removes all the cache entries", impact = "ACTION")
+    public void clear()
+    {
+        variants.clear();
+        store.clear();
+    }
+
+    /**
+     * @return the current time in milliseconds since the Unix Epoch
+     */
+    protected long now()
+    {
+        return System.currentTimeMillis();
+    }
+
+    boolean handle(ProxyHandler proxyHandler, Request clientToProxyRequest, HttpURI rewritten, Response proxyToClientResponse, Callback proxyToClientCallback)
+    {
+        String method = clientToProxyRequest.getMethod();
+        String primaryKey = rewritten.asString();
+        boolean get = HttpMethod.GET.is(method);
+        if (!get && !HttpMethod.HEAD.is(method))
+        {
+            HttpMethod httpMethod = HttpMethod.fromString(method);
+            if (httpMethod == null || !httpMethod.isSafe())
+                invalidate(primaryKey);
+            proxyHandler.proxy(clientToProxyRequest, rewritten, proxyToClientResponse, proxyToClientCallback, null);
+            return true;
+        }
+
+        HttpFields requestHeaders = clientToProxyRequest.getHeaders();
+        Map<String, String> requestCacheControl = cacheControl(requestHeaders);
+        if (requestCacheControl.containsKey("no-store") ||
+            requestHeaders.contains(HttpHeader.AUTHORIZATION) ||
+            requestHeaders.contains(HttpHeader.RANGE))
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} cache bypass {}", ProxyHandler.requestId(clientToProxyRequest), primaryKey);
+            proxyHandler.proxy(clientToProxyRequest, rewritten, proxyToClientResponse, proxyToClientCallback, null);
+            return true;
+        }
+
+        boolean noCache = isNoCache(requestHeaders);
+        String key = key(primaryKey, requestHeaders);
+        Entry stored = store.get(key);
+        try
+        {
+            Entry entry = stored;
+            if (entry != null && !entry.matches(requestHeaders))
+                entry = null;
+
+            long now = now();
+            if (entry != null && !noCache)
+            {
+                if (entry.isFresh(now, requestCacheControl))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("{} cache hit {}", ProxyHandler.requestId(clientToProxyRequest), key);
+                    hits.increment();
+                    serve(proxyHandler, clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, entry, now);
+                    return true;
+                }
+                if (entry.isStaleWhileRevalidate(now))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("{} cache stale hit {}", ProxyHandler.requestId(clientToProxyRequest), key);
+                    staleHits.increment();
+                    revalidate(proxyHandler, clientToProxyRequest, rewritten, key, primaryKey, entry);
+                    serve(proxyHandler, clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, entry, now);
+                    return true;
+                }
+            }
+
+            if (entry == null && requestCacheControl.containsKey("only-if-cached"))
+            {
+                Response.writeError(clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, HttpStatus.GATEWAY_TIMEOUT_504);
+                return true;
+            }
+
+            misses.increment();
+            if (!get)
+            {
+                proxyHandler.proxy(clientToProxyRequest, rewritten, proxyToClientResponse, proxyToClientCallback, null);
+                return true;
+            }
+
+            Fetch fetch = null;
+            if (isCollapseRequests())
+            {
+                Fetch newFetch = new Fetch(key);
+                Fetch oldFetch = fetches.putIfAbsent(key, newFetch);
+                if (oldFetch == null)
+                {
+                    fetch = newFetch;
+                    fetch.expireAfter(clientToProxyRequest.getComponents().getScheduler(), getCollapseTimeout());
+                }
+                else if (oldFetch.await(fetched -> onFetched(proxyHandler, clientToProxyRequest, rewritten, proxyToClientResponse, proxyToClientCallback, primaryKey, fetched)))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("{} cache collapsed {}", ProxyHandler.requestId(clientToProxyRequest), key);
+                    collapsedRequests.increment();
+                    return true;
+                }
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} cache miss {} stale={}", ProxyHandler.requestId(clientToProxyRequest), key, entry);
+            Exchange exchange = new Exchange(proxyHandler, clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, key, primaryKey, entry, fetch);
+            try
+            {
+                proxyHandler.proxy(clientToProxyRequest, rewritten, proxyToClientResponse, proxyToClientCallback, exchange);
+            }
+            catch (Throwable x)
+            {
+                // Do not let the collapsed requests wait for a request that was not sent.
+                exchange.complete(null);
+                exchange.release();
+                throw x;
+            }
+            return true;
+        }
+        finally
+        {
+            if (stored != null)
+                stored.release();
+        }
+    }
+
+    private void onFetched(ProxyHandler proxyHandler, Request clientToProxyRequest, HttpURI rewritten, Response proxyToClientResponse, Callback proxyToClientCallback, String primaryKey, Entry entry)
+    {
+        HttpFields requestHeaders = clientToProxyRequest.getHeaders();
+        if (entry != null && !entry.matches(requestHeaders))
+            entry = null;
+        if (entry != null && !isNoCache(requestHeaders) && entry.isFresh(now(), cacheControl(requestHeaders)))
+        {
+            serve(proxyHandler, clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, entry, now());
+        }
+        else
+        {
+            // The response was not storable, or it varies for this
+            // request, or it must be revalidated, forward it to the server.
+            String key = key(primaryKey, requestHeaders);
+            Exchange exchange = new Exchange(proxyHandler, clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, key, primaryKey, entry, null);
+            proxyHandler.proxy(clientToProxyRequest, rewritten, proxyToClientResponse, proxyToClientCallback, exchange);
+        }
+    }
+
+    private static boolean isNoCache(HttpFields requestHeaders)
+    {
+        return cacheControl(requestHeaders).containsKey("no-cache") ||
+            !requestHeaders.contains(HttpHeader.CACHE_CONTROL) && requestHeaders.contains(HttpHeader.PRAGMA, "no-cache");
+    }
+
+    private void revalidate(ProxyHandler proxyHandler, Request clientToProxyRequest, HttpURI rewritten, String key, String primaryKey, Entry entry)
+    {
+        Fetch fetch = new Fetch(key);
+        if (fetches.putIfAbsent(key, fetch) != null)
+            return;
+        fetch.expireAfter(clientToProxyRequest.getComponents().getScheduler(), getCollapseTimeout());
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} cache revalidating in background {}", ProxyHandler.requestId(clientToProxyRequest), key);
+        Exchange exchange = new Exchange(proxyHandler, clientToProxyRequest, null, null, key, primaryKey, entry, fetch);
+        try
+        {
+            var proxyToServerRequest = proxyHandler.newProxyToServerRequest(clientToProxyRequest, rewritten);
+            proxyHandler.copyRequestHeaders(clientToProxyRequest, proxyToServerRequest);
+            proxyHandler.addProxyHeaders(clientToProxyRequest, proxyToServerRequest);
+            exchange.onProxyToServerRequest(proxyToServerRequest);
+            proxyToServerRequest.send(exchange.newServerToProxyResponseListener(null));
+        }
+        catch (Throwable x)
+        {
+            LOG.warn("Failure revalidating {}", key, x);
+            exchange.complete(null);
+            exchange.release();
+        }
+    }
+
+    private void invalidate(String primaryKey)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("cache invalidate {}", primaryKey);
+        Variants variants = this.variants.remove(primaryKey);
+        if (variants != null)
+            variants.keys().forEach(store::remove);
+        store.remove(primaryKey);
+    }
+
+    private String key(String primaryKey, HttpFields requestHeaders)
+    {
+        Variants variants = this.variants.get(primaryKey);
+        return variants == null ? primaryKey : variants.key(primaryKey, requestHeaders);
+    }
+
+    private void store(String primaryKey, List<String> varyNames, HttpFields requestHeaders, Entry entry)
+    {
+        String key;
+        if (varyNames.isEmpty())
+        {
+            variants.remove(primaryKey);
+            key = primaryKey;
+        }
+        else
+        {
+            Variants variants = this.variants.compute(primaryKey, (k, v) ->
+                v != null && v.names().equals(varyNames) ? v : new Variants(varyNames, variantsIds.incrementAndGet()));
+            key = variants.key(primaryKey, requestHeaders);
+            variants.keys().add(key);
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("cache store {} {}", key, entry);
+        store.put(key, entry);
+    }
+
+    private void serve(ProxyHandler proxyHandler, Request clientToProxyRequest, Response proxyToClientResponse, Callback proxyToClientCallback, Entry entry, long now)
+    {
+        boolean notModified = isNotModified(clientToProxyRequest.getHeaders(), entry);
+        HttpFields.Mutable headers = proxyToClientResponse.getHeaders();
+        for (HttpField field : entry.getHeaders())
+        {
+            HttpField newField = proxyHandler.filterServerToProxyResponseField(field);
+            if (newField != null)
+                headers.add(newField);
+        }
+        headers.put(HttpHeader.AGE, TimeUnit.MILLISECONDS.toSeconds(entry.getCurrentAge(now)));
+
+        int status = notModified ? HttpStatus.NOT_MODIFIED_304 : entry.getStatus();
+        proxyToClientResponse.setStatus(status);
+        ByteBuffer content = entry.getContent();
+        if (HttpStatus.hasNoBody(status))
+            headers.remove(HttpHeader.CONTENT_LENGTH);
+        else
+            headers.put(HttpHeader.CONTENT_LENGTH, content.remaining());
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} P2C sending cached response {}{}{}", ProxyHandler.requestId(clientToProxyRequest), proxyToClientResponse, System.lineSeparator(), headers);
+
+        boolean head = HttpMethod.HEAD.is(clientToProxyRequest.getMethod());
+        // The content may be backed by a store resource, retain it until written.
+        entry.retain();
+        proxyToClientResponse.write(true, head || HttpStatus.hasNoBody(status) ? BufferUtil.EMPTY_BUFFER : content, Callback.from(proxyToClientCallback, entry::release));
+    }
+
+    private static boolean isNotModified(HttpFields requestHeaders, Entry entry)
+    {
+        if (entry.getStatus() != HttpStatus.OK_200)
+            return false;
+        List<String> ifNoneMatch = requestHeaders.getCSV(HttpHeader.IF_NONE_MATCH, true);
+        if (!ifNoneMatch.isEmpty())
+        {
+            String etag = entry.getHeaders().get(HttpHeader.ETAG);
+            for (String candidate : ifNoneMatch)
+            {
+                if ("*".equals(candidate) || etag != null && weakEquals(etag, candidate))
+                    return true;
+            }
+            return false;
+        }
+        long ifModifiedSince = requestHeaders.getDateField(HttpHeader.IF_MODIFIED_SINCE);
+        long lastModified = entry.getHeaders().getDateField(HttpHeader.LAST_MODIFIED);
+        return ifModifiedSince >= 0 && lastModified >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    private static boolean weakEquals(String etag1, String etag2)
+    {
+        return stripWeak(etag1).equals(stripWeak(etag2));
+    }
+
+    private static String stripWeak(String etag)
+    {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static Map<String, String> cacheControl(HttpFields fields)
+    {
+        List<String> values = fields.getCSV(HttpHeader.CACHE_CONTROL, false);
+        if (values.isEmpty())
+            return Map.of();
+        Map<String, String> directives = new HashMap<>();
+        for (String value : values)
+        {
+            int equals = value.indexOf('=');
+            if (equals < 0)
+                directives.put(StringUtil.asciiToLowerCase(value.trim()), null);
+            else
+                directives.put(StringUtil.asciiToLowerCase(value.substring(0, equals).trim()), value.substring(equals + 1).trim());
+        }
+        return directives;
+    }
+
+    private static long seconds(Map<String, String> directives, String name)
+    {
+        String value = directives.get(name);
+        if (value == null)
+            return -1;
+        try
+        {
+            return Math.max(0, Long.parseLong(value));
+        }
+        catch (NumberFormatException x)
+        {
+            return -1;
+        }
+    }
+
+    private static long longField(HttpFields headers, HttpHeader header)
+    {
+        try
+        {
+            return headers.getLongField(header);
+        }
+        catch (NumberFormatException x)
+        {
+            return -1;
+        }
+    }
+
+    private static List<String> varyNames(HttpFields responseHeaders)
+    {
+        List<String> values = responseHeaders.getCSV(HttpHeader.VARY, false);
+        if (values.isEmpty())
+            return List.of();
+        List<String> names = new ArrayList<>(values.size());
+        for (String value : values)
+        {
+            String name = StringUtil.asciiToLowerCase(value.trim());
+            if (!names.contains(name))
+                names.add(name);
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static String varyValue(HttpFields requestHeaders, String name)
+    {
+        List<String> values = requestHeaders.getValuesList(name);
+        if (values.isEmpty())
+            return null;
+        return String.join(",", values).replace(" ", "");
+    }
+
+    private boolean isStorable(org.eclipse.jetty.client.Response serverToProxyResponse, List<String> varyNames)
+    {
+        int status = serverToProxyResponse.getStatus();
+        if (status < HttpStatus.OK_200 || status == HttpStatus.PARTIAL_CONTENT_206 || status == HttpStatus.NOT_MODIFIED_304)
+            return false;
+        HttpFields headers = serverToProxyResponse.getHeaders();
+        if (varyNames.contains("*") || headers.contains(HttpHeader.SET_COOKIE))
+            return false;
+        if (longField(headers, HttpHeader.CONTENT_LENGTH) > getMaxEntrySize())
+            return false;
+        Map<String, String> cacheControl = cacheControl(headers);
+        if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private"))
+            return false;
+        return cacheControl.containsKey("public") ||
+            cacheControl.containsKey("max-age") ||
+            cacheControl.containsKey("s-maxage") ||
+            headers.contains(HttpHeader.EXPIRES) ||
+            HEURISTICALLY_CACHEABLE.contains(status);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,store=%s}", getClass().getSimpleName(), hashCode(), getState(), store);
+    }
+
+    /**
+     * <p>The storage of the {@link Entry cache entries}.</p>
+     * <p>Implementations must be thread-safe, and may evict entries at any time.</p>
+     * <p>Entries may be backed by resources of the store, such as a memory-mapped file:
+     * the entries returned by {@link #get(String)} are {@link Entry#retain() retained}
+     * and must be {@link Entry#release() released} when they are no longer used, and
+     * a store retains the entries it keeps, releasing them when they are removed.</p>
+     */
+    public interface Store
+    {
+        /**
+         * @param key the cache key
+         * @return the retained entry for the given key, or {@code null} if there is no such entry
+         */
+        Entry get(String key);
+
+        /**
+         * <p>Stores the given entry, replacing the entry with the same key, if any.</p>
+         * <p>The entry may be stored asynchronously, so it may not be
+         * immediately returned by {@link #get(String)}.</p>
+         *
+         * @param key the cache key
+         * @param entry the entry to store
+         */
+        void put(String key, Entry entry);
+
+        /**
+         * @param key the cache key of the entry to remove
+         */
+        void remove(String key);
+
+        /**
+         * <p>Removes all the entries.</p>
+         */
+        void clear();
+    }
+
+    /**
+     * <p>An immutable cache entry, holding the status code, the headers
+     * and the content of a server-to-proxy response, along with the
+     * information necessary to calculate its freshness.</p>
+     * <p>The content of an entry may be backed by a {@link Retainable} resource of
+     * its {@link Store}, that is retained and released along with the entry.</p>
+     */
+    public static class Entry implements Retainable
+    {
+        private final int status;
+        private final HttpFields headers;
+        private final ByteBuffer content;
+        private final Retainable retainable;
+        private final Map<String, String> vary;
+        private final Map<String, String> cacheControl;
+        private final long responseTime;
+        private final long correctedInitialAge;
+        private final long freshnessLifetime;
+
+        /**
+         * @param status the response status code
+         * @param headers the response headers
+         * @param content the response content
+         * @param vary the request header values the response varies on,
+         * indexed by the lower-case header name
+         * @param requestTime the time the request was sent, in milliseconds since the Unix Epoch
+         * @param responseTime the time the response was received, in milliseconds since the Unix Epoch
+         */
+        public Entry(int status, HttpFields headers, ByteBuffer content, Map<String, String> vary, long requestTime, long responseTime)
+        {
+            this(status, headers, content, null, vary, requestTime, responseTime);
+        }
+
+        private Entry(int status, HttpFields headers, ByteBuffer content, Retainable retainable, Map<String, String> vary, long requestTime, long responseTime)
+        {
+            this.status = status;
+            this.headers = HttpFields.build(headers, AGE_HEADER).asImmutable();
+            this.content = content.asReadOnlyBuffer();
+            this.retainable = retainable;
+            this.vary = Collections.unmodifiableMap(new HashMap<>(vary));
+            this.cacheControl = cacheControl(headers);
+            this.responseTime = responseTime;
+
+            // See https://datatracker.ietf.org/doc/html/rfc9111#section-4.2.3.
+            long date = headers.getDateField(HttpHeader.DATE);
+            if (date < 0)
+                date = responseTime;
+            long ageValue = Math.max(0, longField(headers, HttpHeader.AGE));
+            long apparentAge = Math.max(0, responseTime - date);
+            long correctedAgeValue = TimeUnit.SECONDS.toMillis(ageValue) + (responseTime - requestTime);
+            this.correctedInitialAge = Math.max(apparentAge, correctedAgeValue);
+
+            // See https://datatracker.ietf.org/doc/html/rfc9111#section-4.2.1.
+            long lifetime = seconds(cacheControl, "s-maxage");
+            if (lifetime < 0)
+                lifetime = seconds(cacheControl, "max-age");
+            if (lifetime >= 0)
+            {
+                lifetime = TimeUnit.SECONDS.toMillis(lifetime);
+            }
+            else if (headers.contains(HttpHeader.EXPIRES))
+            {
+                long expires = headers.getDateField(HttpHeader.EXPIRES);
+                lifetime = Math.max(0, expires - date);
+            }
+            else
+            {
+                // See https://datatracker.ietf.org/doc/html/rfc9111#section-4.2.2.
+                long lastModified = headers.getDateField(HttpHeader.LAST_MODIFIED);
+                if (lastModified >= 0 && HEURISTICALLY_CACHEABLE.contains(status))
+                    lifetime = Math.min(MAX_HEURISTIC_FRESHNESS, Math.max(0, date - lastModified) / 10);
+                else
+                    lifetime = 0;
+            }
+            this.freshnessLifetime = lifetime;
+        }
+
+        private Entry(Entry entry, ByteBuffer content, Retainable retainable)
+        {
+            this.status = entry.status;
+            this.headers = entry.headers;
+            this.content = content.asReadOnlyBuffer();
+            this.retainable = retainable;
+            this.vary = entry.vary;
+            this.cacheControl = entry.cacheControl;
+            this.responseTime = entry.responseTime;
+            this.correctedInitialAge = entry.correctedInitialAge;
+            this.freshnessLifetime = entry.freshnessLifetime;
+        }
+
+        /**
+         * <p>Returns a copy of this entry with the given content, that must
+         * have the same bytes of this entry's content.</p>
+         * <p>This method is typically used by {@link Store}s to move the content
+         * to a different memory region, for example a memory-mapped file.</p>
+         *
+         * @param content the relocated content
+         * @return a copy of this entry with the given content
+         */
+        public Entry withContent(ByteBuffer content)
+        {
+            return withContent(content, null);
+        }
+
+        /**
+         * <p>Returns a copy of this entry with the given content, that must
+         * have the same bytes of this entry's content, and that is backed by
+         * the given resource.</p>
+         * <p>The returned entry delegates {@link #retain()} and {@link #release()}
+         * to the given resource, that may be released when the content is no
+         * longer used, for example to delete a memory-mapped file.</p>
+         *
+         * @param content the relocated content
+         * @param retainable the resource backing the content, or {@code null}
+         * @return a copy of this entry with the given content
+         */
+        public Entry withContent(ByteBuffer content, Retainable retainable)
+        {
+            return new Entry(this, content, retainable);
+        }
+
+        /**
+         * <p>Returns a new entry with the headers of this entry updated with
+         * the headers of a {@code 304} response, as specified by
+         * <a href="https://datatracker.ietf.org/doc/html/rfc9111#section-3.2">RFC 9111, section 3.2</a>.</p>
+         *
+         * @param notModifiedHeaders the headers of the {@code 304} response
+         * @param requestTime the time the revalidation request was sent
+         * @param responseTime the time the {@code 304} response was received
+         * @return a freshened entry
+         */
+        public Entry freshen(HttpFields notModifiedHeaders, long requestTime, long responseTime)
+        {
+            HttpFields.Mutable newHeaders = HttpFields.build(headers);
+            for (HttpField field : notModifiedHeaders)
+            {
+                if (field.getHeader() == HttpHeader.CONTENT_LENGTH || ProxyHandler.HOP_HEADERS.contains(field.getHeader()))
+                    continue;
+                newHeaders.remove(field.getName());
+            }
+            for (HttpField field : notModifiedHeaders)
+            {
+                if (field.getHeader() == HttpHeader.CONTENT_LENGTH || ProxyHandler.HOP_HEADERS.contains(field.getHeader()))
+                    continue;
+                newHeaders.add(field);
+            }
+            // The freshened entry shares the content of this entry.
+            return new Entry(status, newHeaders, content, retainable, vary, requestTime, responseTime);
+        }
+
+        @Override
+        public boolean canRetain()
+        {
+            return retainable != null && retainable.canRetain();
+        }
+
+        @Override
+        public void retain()
+        {
+            if (retainable != null)
+                retainable.retain();
+        }
+
+        @Override
+        public boolean release()
+        {
+            return retainable == null || retainable.release();
+        }
+
+        public int getStatus()
+        {
+            return status;
+        }
+
+        /**
+         * @return the immutable response headers, without the {@code Age} header
+         */
+        public HttpFields getHeaders()
+        {
+            return headers;
+        }
+
+        /**
+         * @return a read-only view of the response content
+         */
+        public ByteBuffer getContent()
+        {
+            return content.slice();
+        }
+
+        /**
+         * @return the request header values the response varies on, indexed by the lower-case header name
+         */
+        public Map<String, String> getVary()
+        {
+            return vary;
+        }
+
+        /**
+         * @return an estimate of the memory occupied by this entry, in bytes
+         */
+        public long getSize()
+        {
+            long size = content.remaining();
+            for (HttpField field : headers)
+            {
+                size += field.getName().length() + 4;
+                String value = field.getValue();
+                if (value != null)
+                    size += value.length();
+            }
+            return size;
+        }
+
+        /**
+         * @return the freshness lifetime of this entry, in milliseconds
+         */
+        public long getFreshnessLifetime()
+        {
+            return freshnessLifetime;
+        }
+
+        /**
+         * @param now the current time in milliseconds since the Unix Epoch
+         * @return the current age of this entry, in milliseconds
+         */
+        public long getCurrentAge(long now)
+        {
+            return correctedInitialAge + Math.max(0, now - responseTime);
+        }
+
+        List<String> getVaryNames()
+        {
+            List<String> names = new ArrayList<>(vary.keySet());
+            Collections.sort(names);
+            return names;
+        }
+
+        boolean matches(HttpFields requestHeaders)
+        {
+            for (Map.Entry<String, String> entry : vary.entrySet())
+            {
+                if (!Objects.equals(entry.getValue(), varyValue(requestHeaders, entry.getKey())))
+                    return false;
+            }
+            return true;
+        }
+
+        boolean hasValidators()
+        {
+            return headers.contains(HttpHeader.ETAG) || headers.contains(HttpHeader.LAST_MODIFIED);
+        }
+
+        private boolean mustRevalidate()
+        {
+            return cacheControl.containsKey("must-revalidate") ||
+                cacheControl.containsKey("proxy-revalidate") ||
+                cacheControl.containsKey("s-maxage") ||
+                cacheControl.containsKey("no-cache");
+        }
+
+        boolean isFresh(long now, Map<String, String> requestCacheControl)
+        {
+            if (cacheControl.containsKey("no-cache"))
+                return false;
+            long age = getCurrentAge(now);
+            long lifetime = freshnessLifetime;
+            long maxAge = seconds(requestCacheControl, "max-age");
+            if (maxAge >= 0)
+                lifetime = Math.min(lifetime, TimeUnit.SECONDS.toMillis(maxAge));
+            long minFresh = seconds(requestCacheControl, "min-fresh");
+            if (minFresh > 0)
+                age += TimeUnit.SECONDS.toMillis(minFresh);
+            if (age < lifetime)
+                return true;
+            if (mustRevalidate() || !requestCacheControl.containsKey("max-stale"))
+                return false;
+            long maxStale = seconds(requestCacheControl, "max-stale");
+            return maxStale < 0 || age - lifetime < TimeUnit.SECONDS.toMillis(maxStale);
+        }
+
+        boolean isStaleWhileRevalidate(long now)
+        {
+            return isWithinStaleWindow(now, "stale-while-revalidate");
+        }
+
+        boolean isStaleIfError(long now)
+        {
+            return isWithinStaleWindow(now, "stale-if-error");
+        }
+
+        private boolean isWithinStaleWindow(long now, String directive)
+        {
+            if (mustRevalidate())
+                return false;
+            long window = seconds(cacheControl, directive);
+            return window > 0 && getCurrentAge(now) - freshnessLifetime < TimeUnit.SECONDS.toMillis(window);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{status=%d,length=%d,lifetime=%d,vary=%s}", getClass().getSimpleName(), hashCode(), status, content.remaining(), freshnessLifetime, vary);
+        }
+    }
+
+    /**
+     * <p>The names of the request headers that the responses for a
+     * primary key vary on, and the keys of the stored variants.</p>
+     */
+    private record Variants(List<String> names, long id, Set<String> keys)
+    {
+        private Variants(List<String> names, long id)
+        {
+            this(names, id, ConcurrentHashMap.newKeySet());
+        }
+
+        private String key(String primaryKey, HttpFields requestHeaders)
+        {
+            StringBuilder builder = new StringBuilder(primaryKey).append('\n').append(id);
+            for (String name : names)
+            {
+                builder.append('\n').append(name).append(':');
+                String value = varyValue(requestHeaders, name);
+                if (value != null)
+                    builder.append(value);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * <p>A server request in progress, that other requests
+     * for the same key can wait for, rather than being
+     * forwarded to the server.</p>
+     */
+    private class Fetch
+    {
+        private final AutoLock lock = new AutoLock();
+        private final String key;
+        private List<Consumer<Entry>> waiters = new ArrayList<>();
+        private Scheduler.Task timeout;
+
+        private Fetch(String key)
+        {
+            this.key = key;
+        }
+
+        private void expireAfter(Scheduler scheduler, Duration collapseTimeout)
+        {
+            Scheduler.Task task = scheduler.schedule(this::expire, collapseTimeout);
+            try (AutoLock ignored = lock.lock())
+            {
+                if (waiters != null)
+                {
+                    timeout = task;
+                    return;
+                }
+            }
+            task.cancel();
+        }
+
+        private void expire()
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("cache collapse timeout {}", key);
+            // The waiters are forwarded to the server.
+            fetches.remove(key, this);
+            complete(null);
+        }
+
+        private boolean await(Consumer<Entry> waiter)
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                if (waiters == null)
+                    return false;
+                waiters.add(waiter);
+                return true;
+            }
+        }
+
+        private void complete(Entry entry)
+        {
+            List<Consumer<Entry>> waiters;
+            Scheduler.Task timeout;
+            try (AutoLock ignored = lock.lock())
+            {
+                waiters = this.waiters;
+                this.waiters = null;
+                timeout = this.timeout;
+                this.timeout = null;
+            }
+            if (timeout != null)
+                timeout.cancel();
+            if (waiters == null)
+                return;
+            for (Consumer<Entry> waiter : waiters)
+            {
+                try
+                {
+                    waiter.accept(entry);
+                }
+                catch (Throwable x)
+                {
+                    LOG.warn("Failure completing collapsed request", x);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>The state of a cache-aware proxy-to-server exchange, that
+     * captures the server-to-proxy response in order to store it.</p>
+     * <p>When the client-to-proxy response is {@code null}, the
+     * exchange is a background revalidation.</p>
+     */
+    class Exchange
+    {
+        private final ProxyHandler proxyHandler;
+        private final Request clientToProxyRequest;
+        private final HttpFields requestHeaders;
+        private final Response proxyToClientResponse;
+        private final Callback proxyToClientCallback;
+        private final String key;
+        private final String primaryKey;
+        private final Entry staleEntry;
+        private final Fetch fetch;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean revalidating;
+        private long requestTime;
+
+        private Exchange(ProxyHandler proxyHandler, Request clientToProxyRequest, Response proxyToClientResponse, Callback proxyToClientCallback, String key, String primaryKey, Entry staleEntry, Fetch fetch)
+        {
+            this.proxyHandler = proxyHandler;
+            this.clientToProxyRequest = clientToProxyRequest;
+            // The request headers are retained beyond the request lifecycle.
+            this.requestHeaders = clientToProxyRequest.getHeaders().asImmutable();
+            this.proxyToClientResponse = proxyToClientResponse;
+            this.proxyToClientCallback = proxyToClientCallback;
+            this.key = key;
+            this.primaryKey = primaryKey;
+            this.staleEntry = staleEntry;
+            this.fetch = fetch;
+            // The stale entry may be served or freshened when the exchange completes.
+            if (staleEntry != null)
+                staleEntry.retain();
+        }
+
+        void onProxyToServerRequest(org.eclipse.jetty.client.Request proxyToServerRequest)
+        {
+            requestTime = now();
+            if (staleEntry != null && staleEntry.hasValidators())
+            {
+                revalidating = true;
+                String etag = staleEntry.getHeaders().get(HttpHeader.ETAG);
+                String lastModified = staleEntry.getHeaders().get(HttpHeader.LAST_MODIFIED);
+                proxyToServerRequest.headers(headers ->
+                {
+                    headers.remove(HttpHeader.IF_NONE_MATCH);
+                    headers.remove(HttpHeader.IF_MODIFIED_SINCE);
+                    if (etag != null)
+                        headers.put(HttpHeader.IF_NONE_MATCH, etag);
+                    if (lastModified != null)
+                        headers.put(HttpHeader.IF_MODIFIED_SINCE, lastModified);
+                });
+            }
+        }
+
+        org.eclipse.jetty.client.Response.CompleteListener newServerToProxyResponseListener(org.eclipse.jetty.client.Response.CompleteListener delegate)
+        {
+            return new CacheResponseListener(delegate);
+        }
+
+        private boolean isBackground()
+        {
+            return proxyToClientResponse == null;
+        }
+
+        private void complete(Entry entry)
+        {
+            if (fetch != null)
+            {
+                fetches.remove(key, fetch);
+                fetch.complete(entry);
+            }
+        }
+
+        private void release()
+        {
+            if (staleEntry != null && released.compareAndSet(false, true))
+                staleEntry.release();
+        }
+
+        private enum Mode
+        {
+            FORWARD, NOT_MODIFIED, STALE_IF_ERROR
+        }
+
+        private class CacheResponseListener implements org.eclipse.jetty.client.Response.Listener
+        {
+            private final org.eclipse.jetty.client.Response.CompleteListener delegate;
+            private Mode mode;
+            private List<String> varyNames;
+            private ByteBufferAccumulator accumulator;
+
+            private CacheResponseListener(org.eclipse.jetty.client.Response.CompleteListener delegate)
+            {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public boolean onHeader(org.eclipse.jetty.client.Response serverToProxyResponse, HttpField field)
+            {
+                if (delegate instanceof org.eclipse.jetty.client.Response.HeaderListener listener)
+                    return listener.onHeader(serverToProxyResponse, field);
+                return true;
+            }
+
+            @Override
+            public void onHeaders(org.eclipse.jetty.client.Response serverToProxyResponse)
+            {
+                int status = serverToProxyResponse.getStatus();
+                if (revalidating && status == HttpStatus.NOT_MODIFIED_304)
+                {
+                    mode = Mode.NOT_MODIFIED;
+                    return;
+                }
+                if (staleEntry != null && !isBackground() && HttpStatus.isServerError(status) && staleEntry.isStaleIfError(now()))
+                {
+                    mode = Mode.STALE_IF_ERROR;
+                    return;
+                }
+
+                mode = Mode.FORWARD;
+                varyNames = varyNames(serverToProxyResponse.getHeaders());
+                if (isStorable(serverToProxyResponse, varyNames))
+                    accumulator = new ByteBufferAccumulator();
+
+                if (delegate instanceof org.eclipse.jetty.client.Response.BeginListener listener)
+                    listener.onBegin(serverToProxyResponse);
+                if (delegate instanceof org.eclipse.jetty.client.Response.HeadersListener listener)
+                    listener.onHeaders(serverToProxyResponse);
+            }
+
+            @Override
+            public void onContent(org.eclipse.jetty.client.Response serverToProxyResponse, Content.Chunk chunk, Runnable demander) throws Exception
+            {
+                if (mode != Mode.FORWARD)
+                {
+                    demander.run();
+                    return;
+                }
+
+                if (accumulator != null)
+                {
+                    ByteBuffer byteBuffer = chunk.getByteBuffer();
+                    if (accumulator.getLength() + byteBuffer.remaining() > getMaxEntrySize())
+                    {
+                        accumulator.close();
+                        accumulator = null;
+                    }
+                    else
+                    {
+                        accumulator.copyBuffer(byteBuffer.slice());
+                    }
+                }
+
+                if (delegate instanceof org.eclipse.jetty.client.Response.AsyncContentListener listener)
+                    listener.onContent(serverToProxyResponse, chunk, demander);
+                else
+                    demander.run();
+            }
+
+            @Override
+            public void onSuccess(org.eclipse.jetty.client.Response serverToProxyResponse)
+            {
+                if (mode == Mode.FORWARD && delegate instanceof org.eclipse.jetty.client.Response.SuccessListener listener)
+                    listener.onSuccess(serverToProxyResponse);
+            }
+
+            @Override
+            public void onFailure(org.eclipse.jetty.client.Response serverToProxyResponse, Throwable failure)
+            {
+                if (mode == Mode.FORWARD && delegate instanceof org.eclipse.jetty.client.Response.FailureListener listener)
+                    listener.onFailure(serverToProxyResponse, failure);
+            }
+
+            @Override
+            public void onComplete(Result result)
+            {
+                Entry entry = null;
+                boolean serve = false;
+                try
+                {
+                    org.eclipse.jetty.client.Response serverToProxyResponse = result.getResponse();
+                    if (mode == Mode.NOT_MODIFIED)
+                    {
+                        revalidations.increment();
+                        entry = staleEntry.freshen(serverToProxyResponse.getHeaders(), requestTime, now());
+                        store(primaryKey, staleEntry.getVaryNames(), requestHeaders, entry);
+                        serve = true;
+                    }
+                    else if (mode == Mode.STALE_IF_ERROR || mode == null && result.isFailed() && canServeStaleIfError())
+                    {
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("{} cache serving stale if error {}", ProxyHandler.requestId(clientToProxyRequest), key, result.getFailure());
+                        staleIfErrors.increment();
+                        entry = staleEntry;
+                        serve = true;
+                    }
+                    else if (result.isSucceeded() && accumulator != null)
+                    {
+                        entry = newEntry(serverToProxyResponse, accumulator.takeByteBuffer());
+                        store(primaryKey, varyNames, requestHeaders, entry);
+                    }
+                }
+                catch (Throwable x)
+                {
+                    LOG.warn("Failure caching {}", key, x);
+                }
+                finally
+                {
+                    if (accumulator != null)
+                        accumulator.close();
+                    // Complete the fetch before the client-to-proxy response,
+                    // so that subsequent requests do not wait for a completed fetch.
+                    complete(entry);
+                }
+
+                try
+                {
+                    if (serve)
+                    {
+                        if (!isBackground())
+                            serve(proxyHandler, clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, entry, now());
+                    }
+                    else if (delegate != null)
+                    {
+                        delegate.onComplete(result);
+                    }
+                }
+                finally
+                {
+                    release();
+                }
+            }
+
+            private Entry newEntry(org.eclipse.jetty.client.Response serverToProxyResponse, ByteBuffer content)
+            {
+                Map<String, String> vary = new HashMap<>();
+                for (String name : varyNames)
+                {
+                    vary.put(name, varyValue(requestHeaders, name));
+                }
+                HttpFields.Mutable headers = HttpFields.build();
+                for (HttpField field : serverToProxyResponse.getHeaders())
+                {
+                    if (!ProxyHandler.HOP_HEADERS.contains(field.getHeader()))
+                        headers.add(field);
+                }
+                return new Entry(serverToProxyResponse.getStatus(), headers, content, vary, requestTime, now());
+            }
+
+            private boolean canServeStaleIfError()
+            {
+                return staleEntry != null && !isBackground() && staleEntry.isStaleIfError(now());
+            }
+        }
+    }
+}
@@ -75,7 +75,8 @@ public abstract class ProxyHandler extends Handler.Abstract
     private static final String CLIENT_TO_PROXY_REQUEST_ATTRIBUTE = ProxyHandler.class.getName() + ".clientToProxyRequest";
     private static final String PROXY_TO_CLIENT_RESPONSE_ATTRIBUTE = ProxyHandler.class.getName() + ".proxyToClientResponse";
     private static final String PROXY_TO_SERVER_CONTINUE_ATTRIBUTE = ProxyHandler.class.getName() + ".proxyToServerContinue";
-    private static final EnumSet<HttpHeader> HOP_HEADERS = EnumSet.of(
+    private static final String PROXY_CACHE_EXCHANGE_ATTRIBUTE = ProxyHandler.class.getName() + ".proxyCacheExchange";
+    static final EnumSet<HttpHeader> HOP_HEADERS = EnumSet.of(
         HttpHeader.CONNECTION,
         HttpHeader.KEEP_ALIVE,
         HttpHeader.PROXY_AUTHORIZATION,
@@ -90,6 +91,7 @@ public abstract class ProxyHandler extends Handler.Abstract
     private HttpClient httpClient;
     private String proxyToServerHost;
     private String viaHost;
+    private ProxyCache proxyCache;
 
     public HttpClient getHttpClient()
     {
@@ -141,6 +143,29 @@ public abstract class ProxyHandler extends Handler.Abstract
         this.viaHost = viaHost;
     }
 
+    /**
+     * Get the shared HTTP cache.
+     * @return the shared HTTP cache, or {@code null} if responses are not cached
+     */
+    public ProxyCache getProxyCache()
+    {
+        return proxyCache;
+    }
+
+    /**
+     * <p>Sets the shared HTTP cache used to store the server-to-proxy
+     * responses and to serve them to subsequent client-to-proxy requests.</p>
+     * <p>If {@code null}, the default, all requests are forwarded to the server.</p>
+     *
+     * @param proxyCache the shared HTTP cache
+     * @see ProxyCache
+     */
+    public void setProxyCache(ProxyCache proxyCache)
+    {
+        updateBean(this.proxyCache, proxyCache, true);
+        this.proxyCache = proxyCache;
+    }
+
     private static String viaHost()
     {
         try
@@ -229,6 +254,16 @@ public abstract class ProxyHandler extends Handler.Abstract
         if (LOG.isDebugEnabled())
             LOG.debug("{} URI rewrite {} => {}", requestId(clientToProxyRequest), clientToProxyRequest.getHttpURI(), rewritten);
 
+        ProxyCache proxyCache = getProxyCache();
+        if (proxyCache != null)
+            return proxyCache.handle(this, clientToProxyRequest, rewritten, proxyToClientResponse, proxyToClientCallback);
+
+        proxy(clientToProxyRequest, rewritten, proxyToClientResponse, proxyToClientCallback, null);
+        return true;
+    }
+
+    void proxy(Request clientToProxyRequest, HttpURI rewritten, Response proxyToClientResponse, Callback proxyToClientCallback, ProxyCache.Exchange cacheExchange)
+    {
         var proxyToServerRequest = newProxyToServerRequest(clientToProxyRequest, rewritten);
         proxyToServerRequest.attribute(CLIENT_TO_PROXY_REQUEST_ATTRIBUTE, clientToProxyRequest)
             .attribute(PROXY_TO_CLIENT_RESPONSE_ATTRIBUTE, proxyToClientResponse);
@@ -261,8 +296,13 @@ public abstract class ProxyHandler extends Handler.Abstract
             }
         }
 
+        if (cacheExchange != null)
+        {
+            proxyToServerRequest.attribute(PROXY_CACHE_EXCHANGE_ATTRIBUTE, cacheExchange);
+            cacheExchange.onProxyToServerRequest(proxyToServerRequest);
+        }
+
         sendProxyToServerRequest(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback);
-        return true;
     }
 
     /**
@@ -391,7 +431,7 @@ public abstract class ProxyHandler extends Handler.Abstract
         }));
     }
 
-    private boolean hasContent(Request clientToProxyRequest)
+    boolean hasContent(Request clientToProxyRequest)
     {
         long contentLength = clientToProxyRequest.getLength();
         if (contentLength == 0)
@@ -423,7 +463,11 @@ public abstract class ProxyHandler extends Handler.Abstract
                 proxyToServerRequest,
                 proxyToServerRequest.getHeaders());
         }
-        proxyToServerRequest.send(newServerToProxyResponseListener(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback));
+        var listener = newServerToProxyResponseListener(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback);
+        var cacheExchange = (ProxyCache.Exchange)proxyToServerRequest.getAttributes().get(PROXY_CACHE_EXCHANGE_ATTRIBUTE);
+        if (cacheExchange != null)
+            listener = cacheExchange.newServerToProxyResponseListener(listener);
+        proxyToServerRequest.send(listener);
     }
 
     protected org.eclipse.jetty.client.Response.CompleteListener newServerToProxyResponseListener(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, Response proxyToClientResponse, Callback proxyToClientCallback)
@@ -608,6 +652,8 @@ public abstract class ProxyHandler extends Handler.Abstract
         private final org.eclipse.jetty.client.Request proxyToServerRequest;
         private final Response proxyToClientResponse;
         private final Callback proxyToClientCallback;
+        private long contentRemaining = -1;
+        private boolean lastContentWritten;
 
         public ProxyResponseListener(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, Response proxyToClientResponse, Callback proxyToClientCallback)
         {
@@ -645,6 +691,9 @@ public abstract class ProxyHandler extends Handler.Abstract
                     continue;
                 proxyToClientResponse.getHeaders().add(newField);
             }
+            // The content is forwarded as-is, so the Content-Length
+            // tells which chunk can be written as the last one.
+            contentRemaining = serverToProxyResponse.getHeaders().getLongField(HttpHeader.CONTENT_LENGTH);
             if (LOG.isDebugEnabled())
             {
                 LOG.debug("""
@@ -664,6 +713,13 @@ public abstract class ProxyHandler extends Handler.Abstract
             if (LOG.isDebugEnabled())
                 LOG.debug("{} S2P received content {}", requestId(clientToProxyRequest), BufferUtil.toDetailString(serverToProxyContent));
 
+            if (contentRemaining > 0)
+                contentRemaining -= serverToProxyContent.remaining();
+            boolean last = contentRemaining == 0;
+            lastContentWritten = last;
+
+            // The chunk is retained and its buffer written as-is towards
+            // the client, so that the content is forwarded without copies.
             serverToProxyChunk.retain();
             Callback callback = new Callback()
             {
@@ -671,8 +727,10 @@ public abstract class ProxyHandler extends Handler.Abstract
                 public void succeeded()
                 {
                     if (LOG.isDebugEnabled())
-                        LOG.debug("{} P2C succeeded to write content {}", requestId(clientToProxyRequest), BufferUtil.toDetailString(serverToProxyContent));
+                        LOG.debug("{} P2C succeeded to write content {} last={}", requestId(clientToProxyRequest), BufferUtil.toDetailString(serverToProxyContent), last);
                     serverToProxyChunk.release();
+                    if (last)
+                        ProxyResponseListener.this.succeeded();
                     serverToProxyDemander.run();
                 }
 
@@ -680,8 +738,11 @@ public abstract class ProxyHandler extends Handler.Abstract
                 public void failed(Throwable failure)
                 {
                     if (LOG.isDebugEnabled())
-                        LOG.debug("{} P2C failed to write content {}", requestId(clientToProxyRequest), BufferUtil.toDetailString(serverToProxyContent), failure);
+                        LOG.debug("{} P2C failed to write content {} last={}", requestId(clientToProxyRequest), BufferUtil.toDetailString(serverToProxyContent), last, failure);
                     serverToProxyChunk.release();
+                    // The server response may be already complete.
+                    if (last)
+                        ProxyResponseListener.this.failed(failure);
                     // Cannot write towards the client, abort towards the server.
                     serverToProxyResponse.abort(failure);
                 }
@@ -693,13 +754,15 @@ public abstract class ProxyHandler extends Handler.Abstract
                 }
             };
 
-            proxyToClientResponse.write(false, serverToProxyContent, callback);
+            proxyToClientResponse.write(last, serverToProxyContent, callback);
         }
 
         @Override
         public void onSuccess(org.eclipse.jetty.client.Response serverToProxyResponse)
         {
-            proxyToClientResponse.write(true, BufferUtil.EMPTY_BUFFER, this);
+            // Avoid an extra write if the last content has already been written.
+            if (!lastContentWritten)
+                proxyToClientResponse.write(true, BufferUtil.EMPTY_BUFFER, this);
         }
 
         @Override
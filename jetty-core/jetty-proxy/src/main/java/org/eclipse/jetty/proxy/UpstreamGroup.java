@@ -0,0 +1,842 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.Destination;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.Origin;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A group of equivalent {@link Upstream} servers, that a
+ * {@link UpstreamProxyHandler} balances the proxied requests across.</p>
+ * <p>The upstream for each request is chosen among the available upstreams by a
+ * {@link Policy}; an upstream is available if it is healthy and not ejected.
+ * If no upstream is available, the policy chooses among all the upstreams.</p>
+ * <p>Upstreams are health checked in two ways:</p>
+ * <ul>
+ * <li>actively, if {@link #setHealthCheckPath(String) a health check path} is configured,
+ * by sending a {@code GET} request to each upstream every {@link #getHealthCheckInterval()};
+ * an upstream becomes unhealthy after {@link #getUnhealthyThreshold()} consecutive failed
+ * checks and healthy again after {@link #getHealthyThreshold()} consecutive successful checks;</li>
+ * <li>passively, by ejecting an upstream for which {@link #getMaxConsecutiveFailures()}
+ * consecutive requests failed with a {@link HttpClient} failure or a {@code 5xx} status code;
+ * the ejection time grows linearly with the number of ejections of the upstream, and
+ * at most {@link #getMaxEjectionPercent()} of the upstreams can be ejected at the same time.</li>
+ * </ul>
+ * <p>Failed requests may be retried on a different upstream, within a
+ * {@link #getRetryBudgetRatio() retry budget} that limits the retries to a
+ * fraction of the requests, so that retries cannot amplify an overload.</p>
+ * <p>The requests to the upstreams are sent by the {@link HttpClient} of the proxy,
+ * so that each upstream is a {@link Destination} with its own
+ * {@link org.eclipse.jetty.client.ConnectionPool}.</p>
+ */
+@ManagedObject("A group of upstream servers")
+public class UpstreamGroup extends ContainerLifeCycle
+{
+    private static final Logger LOG = LoggerFactory.getLogger(UpstreamGroup.class);
+
+    private final List<Upstream> upstreams = new CopyOnWriteArrayList<>();
+    private final AutoLock lock = new AutoLock();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriesRejected = new LongAdder();
+    private final Policy policy;
+    private HttpClient httpClient;
+    private Scheduler scheduler;
+    private Scheduler.Task healthCheckTask;
+    private String healthCheckPath;
+    private long healthCheckInterval = 5000;
+    private long healthCheckTimeout = 2000;
+    private int healthyThreshold = 2;
+    private int unhealthyThreshold = 3;
+    private int maxConsecutiveFailures = 5;
+    private long baseEjectionTime = 30000;
+    private long maxEjectionTime = 300000;
+    private int maxEjectionPercent = 50;
+    private double retryBudgetRatio = 0.2;
+    private int minRetriesPerSecond = 10;
+    private int maxRetries = 2;
+    private double retryTokens;
+    private long retryTokensNanoTime;
+
+    public UpstreamGroup()
+    {
+        this(new RoundRobinPolicy());
+    }
+
+    public UpstreamGroup(@Name("policy") Policy policy)
+    {
+        this.policy = Objects.requireNonNull(policy);
+        installBean(policy);
+    }
+
+    /**
+     * <p>Adds an upstream to this group.</p>
+     *
+     * @param uri the upstream URI, for example {@code http://backend1:8080}
+     * @return the upstream added
+     */
+    public Upstream addUpstream(@Name("uri") String uri)
+    {
+        Upstream upstream = new Upstream(HttpURI.from(uri));
+        upstreams.add(upstream);
+        addBean(upstream);
+        return upstream;
+    }
+
+    public boolean removeUpstream(Upstream upstream)
+    {
+        removeBean(upstream);
+        return upstreams.remove(upstream);
+    }
+
+    /**
+     * @return the upstreams of this group
+     */
+    public List<Upstream> getUpstreams()
+    {
+        return List.copyOf(upstreams);
+    }
+
+    public Policy getPolicy()
+    {
+        return policy;
+    }
+
+    @ManagedAttribute("The policy used to choose an upstream")
+    public String getPolicyName()
+    {
+        return policy.getClass().getSimpleName();
+    }
+
+    /**
+     * @return the {@link HttpClient} used to send the health check requests
+     */
+    public HttpClient getHttpClient()
+    {
+        return httpClient;
+    }
+
+    /**
+     * <p>Sets the {@link HttpClient} used to send the health check requests.</p>
+     * <p>This method is called by {@link UpstreamProxyHandler} with the proxy {@link HttpClient}.</p>
+     *
+     * @param httpClient the {@link HttpClient} used to send the health check requests
+     */
+    public void setHttpClient(HttpClient httpClient)
+    {
+        this.httpClient = httpClient;
+    }
+
+    public Scheduler getScheduler()
+    {
+        return scheduler;
+    }
+
+    /**
+     * @param scheduler the scheduler of the health checks
+     */
+    public void setScheduler(Scheduler scheduler)
+    {
+        updateBean(this.scheduler, scheduler);
+        this.scheduler = scheduler;
+    }
+
+    @ManagedAttribute("The path of the health check requests, or null to disable active health checks")
+    public String getHealthCheckPath()
+    {
+        return healthCheckPath;
+    }
+
+    public void setHealthCheckPath(String healthCheckPath)
+    {
+        this.healthCheckPath = healthCheckPath;
+    }
+
+    @ManagedAttribute("The interval in ms between health checks")
+    public long getHealthCheckInterval()
+    {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(long healthCheckInterval)
+    {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    @ManagedAttribute("The timeout in ms of a health check request")
+    public long getHealthCheckTimeout()
+    {
+        return healthCheckTimeout;
+    }
+
+    public void setHealthCheckTimeout(long healthCheckTimeout)
+    {
+        this.healthCheckTimeout = healthCheckTimeout;
+    }
+
+    @ManagedAttribute("The number of consecutive successful health checks for an unhealthy upstream to become healthy")
+    public int getHealthyThreshold()
+    {
+        return healthyThreshold;
+    }
+
+    public void setHealthyThreshold(int healthyThreshold)
+    {
+        this.healthyThreshold = healthyThreshold;
+    }
+
+    @ManagedAttribute("The number of consecutive failed health checks for a healthy upstream to become unhealthy")
+    public int getUnhealthyThreshold()
+    {
+        return unhealthyThreshold;
+    }
+
+    public void setUnhealthyThreshold(int unhealthyThreshold)
+    {
+        this.unhealthyThreshold = unhealthyThreshold;
+    }
+
+    @ManagedAttribute("The number of consecutive failed requests that ejects an upstream")
+    public int getMaxConsecutiveFailures()
+    {
+        return maxConsecutiveFailures;
+    }
+
+    public void setMaxConsecutiveFailures(int maxConsecutiveFailures)
+    {
+        this.maxConsecutiveFailures = maxConsecutiveFailures;
+    }
+
+    @ManagedAttribute("The time in ms an upstream is ejected for, multiplied by the number of its ejections")
+    public long getBaseEjectionTime()
+    {
+        return baseEjectionTime;
+    }
+
+    public void setBaseEjectionTime(long baseEjectionTime)
+    {
+        this.baseEjectionTime = baseEjectionTime;
+    }
+
+    @ManagedAttribute("The max time in ms an upstream is ejected for")
+    public long getMaxEjectionTime()
+    {
+        return maxEjectionTime;
+    }
+
+    public void setMaxEjectionTime(long maxEjectionTime)
+    {
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    @ManagedAttribute("The max percentage of upstreams that can be ejected at the same time")
+    public int getMaxEjectionPercent()
+    {
+        return maxEjectionPercent;
+    }
+
+    public void setMaxEjectionPercent(int maxEjectionPercent)
+    {
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+
+    @ManagedAttribute("The ratio of retries to requests allowed by the retry budget")
+    public double getRetryBudgetRatio()
+    {
+        return retryBudgetRatio;
+    }
+
+    public void setRetryBudgetRatio(double retryBudgetRatio)
+    {
+        this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    @ManagedAttribute("The number of retries per second allowed regardless of the retry budget ratio")
+    public int getMinRetriesPerSecond()
+    {
+        return minRetriesPerSecond;
+    }
+
+    public void setMinRetriesPerSecond(int minRetriesPerSecond)
+    {
+        this.minRetriesPerSecond = minRetriesPerSecond;
+    }
+
+    @ManagedAttribute("The max number of retries of a request")
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries)
+    {
+        this.maxRetries = maxRetries;
+    }
+
+    @ManagedAttribute(value = "The number of retried requests", readonly = true)
+    public long getRetries()
+    {
+        return retries.sum();
+    }
+
+    @ManagedAttribute(value = "The number of retries rejected by the retry budget", readonly = true)
+    public long getRetriesRejected()
+    {
+        return retriesRejected.sum();
+    }
+
+    @ManagedAttribute(value = "The number of available upstreams", readonly = true)
+    public int getAvailableUpstreams()
+    {
+        long now = NanoTime.now();
+        return (int)upstreams.stream().filter(u -> u.isAvailable(now)).count();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        retries.reset();
+        retriesRejected.reset();
+        upstreams.forEach(Upstream::reset);
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (scheduler == null)
+            setScheduler(new ScheduledExecutorScheduler(String.format("upstream-health-check@%x", hashCode()), true));
+        try (AutoLock ignored = lock.lock())
+        {
+            // Start with one second worth of minimum retries,
+            // so that failures right after start can be retried.
+            retryTokens = minRetriesPerSecond;
+            retryTokensNanoTime = NanoTime.now();
+        }
+        super.doStart();
+        scheduleHealthCheck();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            if (healthCheckTask != null)
+                healthCheckTask.cancel();
+            healthCheckTask = null;
+        }
+        super.doStop();
+    }
+
+    /**
+     * <p>Chooses an upstream for a request.</p>
+     *
+     * @param excluded the upstreams that must not be chosen, for example because they already failed the request
+     * @return the upstream chosen, or {@code null} if there are no upstreams that can be chosen
+     */
+    public Upstream select(Collection<Upstream> excluded)
+    {
+        long now = NanoTime.now();
+        List<Upstream> candidates = new ArrayList<>(upstreams.size());
+        for (Upstream upstream : upstreams)
+        {
+            if (upstream.isAvailable(now) && !excluded.contains(upstream))
+                candidates.add(upstream);
+        }
+        if (candidates.isEmpty())
+        {
+            // Panic mode: better to try an unavailable upstream than to fail.
+            for (Upstream upstream : upstreams)
+            {
+                if (!excluded.contains(upstream))
+                    candidates.add(upstream);
+            }
+        }
+        if (candidates.isEmpty())
+            return null;
+        if (candidates.size() == 1)
+            return candidates.get(0);
+        return policy.select(candidates);
+    }
+
+    /**
+     * <p>Records a request in the retry budget.</p>
+     */
+    void onRequest()
+    {
+        try (AutoLock ignored = lock.lock())
+        {
+            refillRetryTokens();
+            retryTokens = Math.min(retryTokens + retryBudgetRatio, maxRetryTokens());
+        }
+    }
+
+    /**
+     * <p>Withdraws a retry from the retry budget.</p>
+     *
+     * @param attempt the number of the retry of the request, starting from 1
+     * @return whether the request can be retried
+     */
+    boolean tryRetry(int attempt)
+    {
+        if (attempt > getMaxRetries())
+            return false;
+        try (AutoLock ignored = lock.lock())
+        {
+            refillRetryTokens();
+            if (retryTokens >= 1)
+            {
+                retryTokens -= 1;
+                retries.increment();
+                return true;
+            }
+        }
+        retriesRejected.increment();
+        return false;
+    }
+
+    private void refillRetryTokens()
+    {
+        assert lock.isHeldByCurrentThread();
+        long now = NanoTime.now();
+        double seconds = NanoTime.elapsed(retryTokensNanoTime, now) / (double)TimeUnit.SECONDS.toNanos(1);
+        retryTokensNanoTime = now;
+        retryTokens = Math.min(retryTokens + seconds * minRetriesPerSecond, maxRetryTokens());
+    }
+
+    private double maxRetryTokens()
+    {
+        // Allow bursts of up to 10 seconds worth of minimum retries.
+        return Math.max(1, 10.0 * minRetriesPerSecond);
+    }
+
+    private boolean canEject(long now)
+    {
+        int size = upstreams.size();
+        long ejected = upstreams.stream().filter(u -> u.isEjected(now)).count();
+        return (ejected + 1) * 100 <= (long)size * maxEjectionPercent;
+    }
+
+    private void scheduleHealthCheck()
+    {
+        if (getHealthCheckPath() == null || getHealthCheckInterval() <= 0)
+            return;
+        try (AutoLock ignored = lock.lock())
+        {
+            if (!isRunning())
+                return;
+            healthCheckTask = scheduler.schedule(this::checkHealth, getHealthCheckInterval(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkHealth()
+    {
+        HttpClient httpClient = getHttpClient();
+        if (httpClient != null && httpClient.isRunning())
+        {
+            for (Upstream upstream : upstreams)
+            {
+                checkHealth(httpClient, upstream);
+            }
+        }
+        scheduleHealthCheck();
+    }
+
+    private void checkHealth(HttpClient httpClient, Upstream upstream)
+    {
+        try
+        {
+            httpClient.newRequest(upstream.newHttpURI(HttpURI.from(getHealthCheckPath())).toURI())
+                .timeout(getHealthCheckTimeout(), TimeUnit.MILLISECONDS)
+                .send(result ->
+                {
+                    boolean healthy = result.isSucceeded() && result.getResponse().getStatus() < HttpStatus.BAD_REQUEST_400;
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Health check {} for {}", healthy ? "succeeded" : "failed", upstream, result.getFailure());
+                    upstream.onHealthCheck(healthy);
+                });
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Health check failed for {}", upstream, x);
+            upstream.onHealthCheck(false);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,policy=%s,upstreams=%d}", getClass().getSimpleName(), hashCode(), getState(), getPolicyName(), upstreams.size());
+    }
+
+    /**
+     * <p>The policy that chooses an upstream among the candidate upstreams.</p>
+     */
+    public interface Policy
+    {
+        /**
+         * @param candidates the candidate upstreams, at least two
+         * @return the upstream chosen
+         */
+        Upstream select(List<Upstream> candidates);
+    }
+
+    /**
+     * <p>Chooses the upstreams in turn.</p>
+     */
+    public static class RoundRobinPolicy implements Policy
+    {
+        private final AtomicInteger index = new AtomicInteger();
+
+        @Override
+        public Upstream select(List<Upstream> candidates)
+        {
+            int next = index.getAndIncrement() & Integer.MAX_VALUE;
+            return candidates.get(next % candidates.size());
+        }
+    }
+
+    /**
+     * <p>Chooses the upstream with the least outstanding requests,
+     * breaking ties in turn.</p>
+     */
+    public static class LeastOutstandingRequestsPolicy implements Policy
+    {
+        private final AtomicInteger index = new AtomicInteger();
+
+        @Override
+        public Upstream select(List<Upstream> candidates)
+        {
+            int size = candidates.size();
+            int offset = (index.getAndIncrement() & Integer.MAX_VALUE) % size;
+            Upstream result = null;
+            for (int i = 0; i < size; ++i)
+            {
+                Upstream upstream = candidates.get((offset + i) % size);
+                if (result == null || upstream.getOutstandingRequests() < result.getOutstandingRequests())
+                    result = upstream;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * <p>Chooses two upstreams at random, and then the one with
+     * the least outstanding requests.</p>
+     * <p>This policy has almost the same balancing properties of
+     * {@link LeastOutstandingRequestsPolicy} at a constant cost,
+     * and avoids that all the proxies choose the same upstream
+     * when there are multiple proxies.</p>
+     */
+    public static class PowerOfTwoChoicesPolicy implements Policy
+    {
+        @Override
+        public Upstream select(List<Upstream> candidates)
+        {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int size = candidates.size();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first)
+                ++second;
+            Upstream upstream1 = candidates.get(first);
+            Upstream upstream2 = candidates.get(second);
+            return upstream2.getOutstandingRequests() < upstream1.getOutstandingRequests() ? upstream2 : upstream1;
+        }
+    }
+
+    /**
+     * <p>Chooses the upstream with the least expected latency, calculated as
+     * the exponentially weighted moving average of the upstream latency,
+     * multiplied by the number of its outstanding requests plus one.</p>
+     */
+    public static class EWMALatencyPolicy implements Policy
+    {
+        @Override
+        public Upstream select(List<Upstream> candidates)
+        {
+            Upstream result = null;
+            double minCost = Double.MAX_VALUE;
+            for (Upstream upstream : candidates)
+            {
+                double cost = upstream.getEWMALatencyNanos() * (upstream.getOutstandingRequests() + 1);
+                if (result == null || cost < minCost)
+                {
+                    result = upstream;
+                    minCost = cost;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * <p>A server of an {@link UpstreamGroup}, with its health state and statistics.</p>
+     */
+    @ManagedObject("An upstream server")
+    public class Upstream
+    {
+        private static final long EWMA_DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+        private final AutoLock lock = new AutoLock();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final LongAdder failures = new LongAdder();
+        private final SampleStatistic latency = new SampleStatistic();
+        private final HttpURI uri;
+        private boolean healthy = true;
+        private int healthChecks;
+        private int consecutiveFailures;
+        private int ejections;
+        private long ejectedUntil;
+        private boolean ejected;
+        private double ewmaLatency;
+        private long ewmaNanoTime = NanoTime.now();
+
+        private Upstream(HttpURI uri)
+        {
+            this.uri = uri;
+        }
+
+        @ManagedAttribute(value = "The upstream URI", readonly = true)
+        public String getURI()
+        {
+            return uri.asString();
+        }
+
+        /**
+         * <p>Returns the given URI with the scheme, host and port of this upstream.</p>
+         *
+         * @param httpURI the URI to rewrite
+         * @return the rewritten URI
+         */
+        public HttpURI newHttpURI(HttpURI httpURI)
+        {
+            return HttpURI.build(httpURI).scheme(uri.getScheme()).host(uri.getHost()).port(uri.getPort());
+        }
+
+        @ManagedAttribute(value = "The number of outstanding requests", readonly = true)
+        public int getOutstandingRequests()
+        {
+            return outstanding.get();
+        }
+
+        @ManagedAttribute(value = "The number of completed requests", readonly = true)
+        public long getRequests()
+        {
+            return latency.getCount();
+        }
+
+        @ManagedAttribute(value = "The number of failed requests", readonly = true)
+        public long getFailures()
+        {
+            return failures.sum();
+        }
+
+        @ManagedAttribute(value = "The max request latency in ms", readonly = true)
+        public long getLatencyMax()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(latency.getMax());
+        }
+
+        @ManagedAttribute(value = "The mean request latency in ms", readonly = true)
+        public double getLatencyMean()
+        {
+            return latency.getMean() / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @ManagedAttribute(value = "The exponentially weighted moving average request latency in ms", readonly = true)
+        public double getEWMALatency()
+        {
+            return getEWMALatencyNanos() / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        double getEWMALatencyNanos()
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                return ewmaLatency;
+            }
+        }
+
+        @ManagedAttribute(value = "Whether the upstream passes the active health checks", readonly = true)
+        public boolean isHealthy()
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                return healthy;
+            }
+        }
+
+        @ManagedAttribute(value = "Whether the upstream is ejected because of consecutive failures", readonly = true)
+        public boolean isEjected()
+        {
+            return isEjected(NanoTime.now());
+        }
+
+        @ManagedAttribute(value = "The number of times the upstream was ejected", readonly = true)
+        public int getEjections()
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                return ejections;
+            }
+        }
+
+        @ManagedAttribute(value = "The number of active connections to the upstream", readonly = true)
+        public int getActiveConnections()
+        {
+            HttpClient httpClient = getHttpClient();
+            if (httpClient == null)
+                return 0;
+            int result = 0;
+            for (Destination destination : httpClient.getDestinations())
+            {
+                Origin origin = destination.getOrigin();
+                if (origin.getScheme().equalsIgnoreCase(uri.getScheme()) &&
+                    origin.getAddress().getHost().equalsIgnoreCase(uri.getHost()) &&
+                    origin.getAddress().getPort() == HttpClient.normalizePort(uri.getScheme(), uri.getPort()) &&
+                    destination.getConnectionPool() instanceof AbstractConnectionPool pool)
+                    result += pool.getActiveConnectionCount();
+            }
+            return result;
+        }
+
+        boolean isEjected(long now)
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                return ejected && NanoTime.isBefore(now, ejectedUntil);
+            }
+        }
+
+        boolean isAvailable(long now)
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                return healthy && !(ejected && NanoTime.isBefore(now, ejectedUntil));
+            }
+        }
+
+        void onRequestBegin()
+        {
+            outstanding.incrementAndGet();
+        }
+
+        /**
+         * @param nanos the request latency in nanoseconds
+         * @param failed whether the request failed
+         */
+        void onRequestComplete(long nanos, boolean failed)
+        {
+            outstanding.decrementAndGet();
+            latency.record(nanos);
+            if (failed)
+                failures.increment();
+
+            long now = NanoTime.now();
+            try (AutoLock ignored = lock.lock())
+            {
+                double weight = Math.exp(-NanoTime.elapsed(ewmaNanoTime, now) / (double)EWMA_DECAY_NANOS);
+                ewmaNanoTime = now;
+                ewmaLatency = ewmaLatency * weight + nanos * (1 - weight);
+
+                if (!failed)
+                {
+                    consecutiveFailures = 0;
+                    return;
+                }
+                if (++consecutiveFailures < getMaxConsecutiveFailures() || ejected && NanoTime.isBefore(now, ejectedUntil))
+                    return;
+            }
+
+            // Check the other upstreams without holding the lock.
+            if (!canEject(now))
+                return;
+
+            try (AutoLock ignored = lock.lock())
+            {
+                if (ejected && NanoTime.isBefore(now, ejectedUntil))
+                    return;
+                ++ejections;
+                long ejectionTime = Math.min(getBaseEjectionTime() * ejections, getMaxEjectionTime());
+                ejected = true;
+                ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(ejectionTime);
+                consecutiveFailures = 0;
+                LOG.info("Ejected {} for {} ms", this, ejectionTime);
+            }
+        }
+
+        void onHealthCheck(boolean success)
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                if (success == healthy)
+                {
+                    healthChecks = 0;
+                    return;
+                }
+                if (++healthChecks >= (healthy ? getUnhealthyThreshold() : getHealthyThreshold()))
+                {
+                    healthy = success;
+                    healthChecks = 0;
+                    if (success)
+                        ejected = false;
+                    LOG.info("{} is {}", this, healthy ? "healthy" : "unhealthy");
+                }
+            }
+        }
+
+        @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+        public void reset()
+        {
+            failures.reset();
+            latency.reset();
+        }
+
+        @Override
+        public String toString()
+        {
+            try (AutoLock ignored = lock.lock())
+            {
+                return String.format("%s@%x{%s,healthy=%b,ejected=%b,outstanding=%d}", getClass().getSimpleName(), hashCode(), getURI(), healthy, ejected, outstanding.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A reverse proxy that balances the requests across the upstreams of an {@link UpstreamGroup}.</p>
+ * <p>The client-to-proxy request URI is rewritten with the scheme, host and port of the
+ * upstream chosen by the group; applications may override
+ * {@link #rewriteHttpURI(Request, UpstreamGroup.Upstream)} to also rewrite the path.
+ * If no upstream is available, the request is responded with a 503 status code.</p>
+ * <p>Requests that fail before a response is received from the upstream are retried on
+ * a different upstream, if their method is idempotent, if they have no content and if
+ * the {@link UpstreamGroup#getRetryBudgetRatio() retry budget} allows it.</p>
+ * <p><b>Usage:</b></p>
+ * <pre>{@code
+ * UpstreamGroup group = new UpstreamGroup(new UpstreamGroup.PowerOfTwoChoicesPolicy());
+ * group.addUpstream("http://backend1:8080");
+ * group.addUpstream("http://backend2:8080");
+ * group.setHealthCheckPath("/health");
+ * server.setHandler(new UpstreamProxyHandler(group));
+ * }</pre>
+ */
+public class UpstreamProxyHandler extends ProxyHandler
+{
+    private static final Logger LOG = LoggerFactory.getLogger(UpstreamProxyHandler.class);
+    private static final String ATTEMPT_ATTRIBUTE = UpstreamProxyHandler.class.getName() + ".attempt";
+
+    private final UpstreamGroup upstreamGroup;
+
+    public UpstreamProxyHandler(UpstreamGroup upstreamGroup)
+    {
+        this.upstreamGroup = Objects.requireNonNull(upstreamGroup);
+        installBean(upstreamGroup);
+    }
+
+    public UpstreamGroup getUpstreamGroup()
+    {
+        return upstreamGroup;
+    }
+
+    @Override
+    public void setHttpClient(HttpClient httpClient)
+    {
+        super.setHttpClient(httpClient);
+        upstreamGroup.setHttpClient(httpClient);
+    }
+
+    @Override
+    public boolean handle(Request clientToProxyRequest, Response proxyToClientResponse, Callback proxyToClientCallback)
+    {
+        Attempt attempt = new Attempt();
+        upstreamGroup.onRequest();
+        UpstreamGroup.Upstream upstream = upstreamGroup.select(attempt.tried);
+        if (upstream == null)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} no upstream available in {}", requestId(clientToProxyRequest), upstreamGroup);
+            Response.writeError(clientToProxyRequest, proxyToClientResponse, proxyToClientCallback, HttpStatus.SERVICE_UNAVAILABLE_503);
+            return true;
+        }
+        attempt.select(upstream);
+        clientToProxyRequest.setAttribute(ATTEMPT_ATTRIBUTE, attempt);
+        return super.handle(clientToProxyRequest, proxyToClientResponse, proxyToClientCallback);
+    }
+
+    @Override
+    protected HttpURI rewriteHttpURI(Request clientToProxyRequest)
+    {
+        Attempt attempt = (Attempt)clientToProxyRequest.getAttribute(ATTEMPT_ATTRIBUTE);
+        return rewriteHttpURI(clientToProxyRequest, attempt.upstream);
+    }
+
+    /**
+     * <p>Rewrites the client-to-proxy request URI to the proxy-to-server request URI.</p>
+     *
+     * @param clientToProxyRequest the client-to-proxy request
+     * @param upstream the upstream chosen for the request
+     * @return an {@code HttpURI} for the proxy-to-server request
+     */
+    protected HttpURI rewriteHttpURI(Request clientToProxyRequest, UpstreamGroup.Upstream upstream)
+    {
+        return upstream.newHttpURI(clientToProxyRequest.getHttpURI());
+    }
+
+    @Override
+    protected void sendProxyToServerRequest(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, Response proxyToClientResponse, Callback proxyToClientCallback)
+    {
+        // The upstream request begins only when it is sent, so that failures
+        // before the send, or responses served by the cache, are not counted.
+        Attempt attempt = (Attempt)clientToProxyRequest.getAttribute(ATTEMPT_ATTRIBUTE);
+        if (attempt != null)
+            attempt.begin();
+        try
+        {
+            super.sendProxyToServerRequest(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback);
+        }
+        catch (Throwable x)
+        {
+            complete(clientToProxyRequest, false);
+            throw x;
+        }
+    }
+
+    @Override
+    protected void onProxyToClientResponseComplete(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, org.eclipse.jetty.client.Response serverToProxyResponse, Response proxyToClientResponse, Callback proxyToClientCallback)
+    {
+        complete(clientToProxyRequest, serverToProxyResponse != null && HttpStatus.isServerError(serverToProxyResponse.getStatus()));
+        super.onProxyToClientResponseComplete(clientToProxyRequest, proxyToServerRequest, serverToProxyResponse, proxyToClientResponse, proxyToClientCallback);
+    }
+
+    @Override
+    protected void onProxyToClientResponseFailure(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, org.eclipse.jetty.client.Response serverToProxyResponse, Response proxyToClientResponse, Callback proxyToClientCallback, Throwable failure)
+    {
+        // The failure is towards the client, not the upstream.
+        complete(clientToProxyRequest, false);
+        super.onProxyToClientResponseFailure(clientToProxyRequest, proxyToServerRequest, serverToProxyResponse, proxyToClientResponse, proxyToClientCallback, failure);
+    }
+
+    @Override
+    protected void onServerToProxyResponseFailure(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, org.eclipse.jetty.client.Response serverToProxyResponse, Response proxyToClientResponse, Callback proxyToClientCallback, Throwable failure)
+    {
+        Attempt attempt = complete(clientToProxyRequest, true);
+        if (attempt != null && isRetryable(clientToProxyRequest, serverToProxyResponse, proxyToClientResponse))
+        {
+            UpstreamGroup.Upstream upstream = upstreamGroup.select(attempt.tried);
+            if (upstream != null && upstreamGroup.tryRetry(attempt.tried.size()))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} retrying on {} after {}", requestId(clientToProxyRequest), upstream, failure.toString());
+                attempt.select(upstream);
+                proxy(clientToProxyRequest, rewriteHttpURI(clientToProxyRequest, upstream), proxyToClientResponse, proxyToClientCallback, null);
+                return;
+            }
+        }
+        super.onServerToProxyResponseFailure(clientToProxyRequest, proxyToServerRequest, serverToProxyResponse, proxyToClientResponse, proxyToClientCallback, failure);
+    }
+
+    private boolean isRetryable(Request clientToProxyRequest, org.eclipse.jetty.client.Response serverToProxyResponse, Response proxyToClientResponse)
+    {
+        if (serverToProxyResponse != null && serverToProxyResponse.getStatus() > 0)
+            return false;
+        if (proxyToClientResponse.isCommitted() || hasContent(clientToProxyRequest))
+            return false;
+        HttpMethod method = HttpMethod.fromString(clientToProxyRequest.getMethod());
+        return method != null && method.isIdempotent();
+    }
+
+    private Attempt complete(Request clientToProxyRequest, boolean failed)
+    {
+        Attempt attempt = (Attempt)clientToProxyRequest.getAttribute(ATTEMPT_ATTRIBUTE);
+        if (attempt == null || !attempt.begun)
+            return null;
+        attempt.upstream.onRequestComplete(NanoTime.since(attempt.beginNanoTime), failed);
+        attempt.begun = false;
+        return attempt;
+    }
+
+    private static class Attempt
+    {
+        private final List<UpstreamGroup.Upstream> tried = new ArrayList<>(2);
+        private UpstreamGroup.Upstream upstream;
+        private boolean begun;
+        private long beginNanoTime;
+
+        private void select(UpstreamGroup.Upstream upstream)
+        {
+            this.upstream = upstream;
+            tried.add(upstream);
+        }
+
+        private void begin()
+        {
+            if (begun)
+                return;
+            begun = true;
+            beginNanoTime = NanoTime.now();
+            upstream.onRequestBegin();
+        }
+    }
+}
@@ -0,0 +1,571 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.client.CompletableResponseListener;
+import org.eclipse.jetty.client.ContentResponse;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.toolchain.test.MavenPaths;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.junit.jupiter.api.Test;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ProxyCacheTest extends AbstractProxyTest
+{
+    private final AtomicInteger serverRequests = new AtomicInteger();
+    private ProxyCache proxyCache;
+    private int serverPort;
+
+    private void start(Handler serverHandler) throws Exception
+    {
+        start(serverHandler, new ProxyHandler.Reverse(this::rewrite));
+    }
+
+    private HttpURI rewrite(Request clientToProxyRequest)
+    {
+        return HttpURI.build(clientToProxyRequest.getHttpURI()).port(serverPort);
+    }
+
+    private void start(Handler serverHandler, ProxyHandler proxyHandler) throws Exception
+    {
+        startServer(new Handler.Wrapper(serverHandler)
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback) throws Exception
+            {
+                serverRequests.incrementAndGet();
+                return super.handle(request, response, callback);
+            }
+        });
+        serverPort = serverConnector.getLocalPort();
+        proxyCache = new ProxyCache();
+        proxyHandler.setProxyCache(proxyCache);
+        startProxy(proxyHandler);
+        startClient();
+    }
+
+    private ContentResponse send(String path, HttpMethod method, Map<String, String> headers) throws Exception
+    {
+        return client.newRequest("localhost", proxyConnector.getLocalPort())
+            .method(method)
+            .path(path)
+            .headers(h -> headers.forEach(h::put))
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+    }
+
+    private ContentResponse get(String path) throws Exception
+    {
+        return send(path, HttpMethod.GET, Map.of());
+    }
+
+    @Test
+    public void testFreshResponseServedFromCache() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=60");
+                Content.Sink.write(response, true, "hello" + serverRequests.get(), callback);
+                return true;
+            }
+        });
+
+        ContentResponse response1 = get("/fresh");
+        assertEquals(HttpStatus.OK_200, response1.getStatus());
+        assertEquals("hello1", response1.getContentAsString());
+
+        ContentResponse response2 = get("/fresh");
+        assertEquals(HttpStatus.OK_200, response2.getStatus());
+        assertEquals("hello1", response2.getContentAsString());
+        assertThat(response2.getHeaders().get(HttpHeader.AGE), notNullValue());
+
+        ContentResponse head = send("/fresh", HttpMethod.HEAD, Map.of());
+        assertEquals(HttpStatus.OK_200, head.getStatus());
+        assertEquals(0, head.getContent().length);
+
+        assertEquals(1, serverRequests.get());
+        assertEquals(2, proxyCache.getHits());
+        assertEquals(1, proxyCache.getMisses());
+    }
+
+    @Test
+    public void testNotStorableResponses() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                String directive = Request.getPathInContext(request).substring(1);
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, directive + ", max-age=60");
+                Content.Sink.write(response, true, "hello", callback);
+                return true;
+            }
+        });
+
+        get("/no-store");
+        get("/no-store");
+        get("/private");
+        get("/private");
+        assertEquals(4, serverRequests.get());
+
+        // A request with no-cache must revalidate the fresh entry.
+        get("/public");
+        send("/public", HttpMethod.GET, Map.of(HttpHeader.CACHE_CONTROL.asString(), "no-cache"));
+        assertEquals(6, serverRequests.get());
+    }
+
+    @Test
+    public void testVary() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=60");
+                response.getHeaders().put(HttpHeader.VARY, "Accept-Language");
+                Content.Sink.write(response, true, request.getHeaders().get(HttpHeader.ACCEPT_LANGUAGE), callback);
+                return true;
+            }
+        });
+
+        String acceptLanguage = HttpHeader.ACCEPT_LANGUAGE.asString();
+        assertEquals("en", send("/vary", HttpMethod.GET, Map.of(acceptLanguage, "en")).getContentAsString());
+        assertEquals("fr", send("/vary", HttpMethod.GET, Map.of(acceptLanguage, "fr")).getContentAsString());
+        assertEquals("en", send("/vary", HttpMethod.GET, Map.of(acceptLanguage, "en")).getContentAsString());
+        assertEquals("fr", send("/vary", HttpMethod.GET, Map.of(acceptLanguage, "fr")).getContentAsString());
+        assertEquals(2, serverRequests.get());
+    }
+
+    @Test
+    public void testConditionalRevalidation() throws Exception
+    {
+        List<String> ifNoneMatches = new ArrayList<>();
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                ifNoneMatches.add(request.getHeaders().get(HttpHeader.IF_NONE_MATCH));
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=0");
+                response.getHeaders().put(HttpHeader.ETAG, "\"v1\"");
+                if (request.getHeaders().contains(HttpHeader.IF_NONE_MATCH, "\"v1\""))
+                {
+                    response.setStatus(HttpStatus.NOT_MODIFIED_304);
+                    callback.succeeded();
+                }
+                else
+                {
+                    Content.Sink.write(response, true, "hello", callback);
+                }
+                return true;
+            }
+        });
+
+        assertEquals("hello", get("/etag").getContentAsString());
+        ContentResponse response = get("/etag");
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals("hello", response.getContentAsString());
+        assertEquals("\"v1\"", response.getHeaders().get(HttpHeader.ETAG));
+
+        // A conditional client request is answered by the cache.
+        response = send("/etag", HttpMethod.GET, Map.of(HttpHeader.IF_NONE_MATCH.asString(), "\"v1\""));
+        assertEquals(HttpStatus.NOT_MODIFIED_304, response.getStatus());
+
+        assertThat(ifNoneMatches.get(0), nullValue());
+        assertThat(ifNoneMatches.get(1), is("\"v1\""));
+        assertThat(ifNoneMatches.get(2), is("\"v1\""));
+        assertEquals(2, proxyCache.getRevalidations());
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                // The Age header makes the response immediately stale.
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=10, stale-while-revalidate=60");
+                response.getHeaders().put(HttpHeader.AGE, "20");
+                Content.Sink.write(response, true, "hello" + serverRequests.get(), callback);
+                return true;
+            }
+        });
+
+        assertEquals("hello1", get("/swr").getContentAsString());
+        // Served stale, revalidated in background.
+        assertEquals("hello1", get("/swr").getContentAsString());
+        await().atMost(5, TimeUnit.SECONDS).until(serverRequests::get, is(2));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> get("/swr").getContentAsString(), is("hello2"));
+        assertThat(proxyCache.getStaleHits() >= 2, is(true));
+    }
+
+    @Test
+    public void testStaleIfError() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                if (serverRequests.get() > 1)
+                {
+                    Response.writeError(request, response, callback, HttpStatus.SERVICE_UNAVAILABLE_503);
+                    return true;
+                }
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=10, stale-if-error=60");
+                response.getHeaders().put(HttpHeader.AGE, "20");
+                Content.Sink.write(response, true, "hello", callback);
+                return true;
+            }
+        });
+
+        assertEquals("hello", get("/sie").getContentAsString());
+        ContentResponse response = get("/sie");
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals("hello", response.getContentAsString());
+        assertEquals(2, serverRequests.get());
+        assertEquals(1, proxyCache.getStaleIfErrors());
+
+        // Stop the server, the stale entry is still served.
+        LifeCycle.stop(server);
+        response = get("/sie");
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals("hello", response.getContentAsString());
+        assertEquals(2, proxyCache.getStaleIfErrors());
+    }
+
+    @Test
+    public void testConcurrentMissesCollapsed() throws Exception
+    {
+        CountDownLatch serverLatch = new CountDownLatch(1);
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback) throws Exception
+            {
+                serverLatch.await(5, TimeUnit.SECONDS);
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=60");
+                Content.Sink.write(response, true, "hello", callback);
+                return true;
+            }
+        });
+
+        int count = 8;
+        List<CompletableFuture<ContentResponse>> futures = Stream.generate(() ->
+                new CompletableResponseListener(client.newRequest("localhost", proxyConnector.getLocalPort())
+                    .path("/collapse")
+                    .timeout(5, TimeUnit.SECONDS)).send())
+            .limit(count)
+            .toList();
+
+        await().atMost(5, TimeUnit.SECONDS).until(proxyCache::getCollapsedRequests, is((long)count - 1));
+        serverLatch.countDown();
+
+        for (CompletableFuture<ContentResponse> future : futures)
+        {
+            ContentResponse response = future.get(5, TimeUnit.SECONDS);
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals("hello", response.getContentAsString());
+        }
+        assertEquals(1, serverRequests.get());
+    }
+
+    @Test
+    public void testCollapsedRequestsNotWaitingForFailedRequest() throws Exception
+    {
+        AtomicInteger proxyRequests = new AtomicInteger();
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=60");
+                Content.Sink.write(response, true, "hello", callback);
+                return true;
+            }
+        }, new ProxyHandler.Reverse(this::rewrite)
+        {
+            @Override
+            protected org.eclipse.jetty.client.Request newProxyToServerRequest(Request clientToProxyRequest, HttpURI newHttpURI)
+            {
+                if (proxyRequests.incrementAndGet() == 1)
+                    throw new IllegalStateException("explicitly_thrown_by_test");
+                return super.newProxyToServerRequest(clientToProxyRequest, newHttpURI);
+            }
+        });
+
+        // The proxy closes the connection after the failure.
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR_500, send("/failed", HttpMethod.GET, Map.of(HttpHeader.CONNECTION.asString(), "close")).getStatus());
+        // The next request is not collapsed with the failed one.
+        ContentResponse response = get("/failed");
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals("hello", response.getContentAsString());
+        assertEquals(0, proxyCache.getCollapsedRequests());
+    }
+
+    @Test
+    public void testCollapseTimeout() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=60");
+                Content.Sink.write(response, true, "hello" + serverRequests.get(), callback);
+                return true;
+            }
+        }, new ProxyHandler.Reverse(this::rewrite)
+        {
+            @Override
+            protected void sendProxyToServerRequest(Request clientToProxyRequest, org.eclipse.jetty.client.Request proxyToServerRequest, Response proxyToClientResponse, Callback proxyToClientCallback)
+            {
+                // Bypass the cache, so the collapsed requests are never completed.
+                proxyToServerRequest.send(newServerToProxyResponseListener(clientToProxyRequest, proxyToServerRequest, proxyToClientResponse, proxyToClientCallback));
+            }
+        });
+        proxyCache.setCollapseTimeout(Duration.ofMillis(500));
+
+        assertEquals("hello1", get("/timeout").getContentAsString());
+        // The request waits for the first one, then is forwarded to the server.
+        long begin = NanoTime.now();
+        assertEquals("hello2", get("/timeout").getContentAsString());
+        assertThat(NanoTime.millisSince(begin), greaterThanOrEqualTo(400L));
+        assertEquals(1, proxyCache.getCollapsedRequests());
+    }
+
+    @Test
+    public void testCollapsedRequestsHonorFreshness() throws Exception
+    {
+        CountDownLatch serverLatch = new CountDownLatch(1);
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback) throws Exception
+            {
+                serverLatch.await(5, TimeUnit.SECONDS);
+                String path = Request.getPathInContext(request);
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, path.equals("/no-cache") ? "no-cache, max-age=60" : "max-age=60");
+                Content.Sink.write(response, true, "hello", callback);
+                return true;
+            }
+        });
+
+        List<CompletableFuture<ContentResponse>> futures = new ArrayList<>();
+        // A response that must be revalidated is not served to the collapsed requests.
+        for (int i = 0; i < 3; i++)
+        {
+            futures.add(new CompletableResponseListener(client.newRequest("localhost", proxyConnector.getLocalPort())
+                .path("/no-cache")
+                .timeout(5, TimeUnit.SECONDS)).send());
+        }
+        // A collapsed request with no-cache is not served the fresh response.
+        futures.add(new CompletableResponseListener(client.newRequest("localhost", proxyConnector.getLocalPort())
+            .path("/fresh")
+            .timeout(5, TimeUnit.SECONDS)).send());
+        await().atMost(5, TimeUnit.SECONDS).until(serverRequests::get, is(2));
+        futures.add(new CompletableResponseListener(client.newRequest("localhost", proxyConnector.getLocalPort())
+            .path("/fresh")
+            .headers(headers -> headers.put(HttpHeader.CACHE_CONTROL, "no-cache"))
+            .timeout(5, TimeUnit.SECONDS)).send());
+
+        await().atMost(5, TimeUnit.SECONDS).until(proxyCache::getCollapsedRequests, is(3L));
+        serverLatch.countDown();
+
+        for (CompletableFuture<ContentResponse> future : futures)
+        {
+            ContentResponse response = future.get(5, TimeUnit.SECONDS);
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals("hello", response.getContentAsString());
+        }
+        assertEquals(5, serverRequests.get());
+    }
+
+    @Test
+    public void testUnsafeMethodInvalidates() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=60");
+                Content.Sink.write(response, true, "hello" + serverRequests.get(), callback);
+                return true;
+            }
+        });
+
+        assertEquals("hello1", get("/unsafe").getContentAsString());
+        assertEquals("hello1", get("/unsafe").getContentAsString());
+        send("/unsafe", HttpMethod.POST, Map.of());
+        assertEquals("hello3", get("/unsafe").getContentAsString());
+        assertEquals(3, serverRequests.get());
+    }
+
+    @Test
+    public void testUnsafeMethodInvalidatesVariants() throws Exception
+    {
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                response.getHeaders().put(HttpHeader.CACHE_CONTROL, "max-age=60");
+                response.getHeaders().put(HttpHeader.VARY, "Accept-Language");
+                Content.Sink.write(response, true, request.getHeaders().get(HttpHeader.ACCEPT_LANGUAGE) + serverRequests.get(), callback);
+                return true;
+            }
+        });
+        MemoryCacheStore store = (MemoryCacheStore)proxyCache.getStore();
+
+        String acceptLanguage = HttpHeader.ACCEPT_LANGUAGE.asString();
+        assertEquals("en1", send("/unsafe", HttpMethod.GET, Map.of(acceptLanguage, "en")).getContentAsString());
+        assertEquals("fr2", send("/unsafe", HttpMethod.GET, Map.of(acceptLanguage, "fr")).getContentAsString());
+        await().atMost(5, TimeUnit.SECONDS).until(store::getEntries, is(2));
+
+        send("/unsafe", HttpMethod.DELETE, Map.of());
+        // All the variants are removed from the store.
+        assertEquals(0, store.getEntries());
+        assertEquals("en4", send("/unsafe", HttpMethod.GET, Map.of(acceptLanguage, "en")).getContentAsString());
+        assertEquals("fr5", send("/unsafe", HttpMethod.GET, Map.of(acceptLanguage, "fr")).getContentAsString());
+        assertEquals(5, serverRequests.get());
+    }
+
+    @Test
+    public void testMemoryStoreOverflowsToMappedFileStore() throws Exception
+    {
+        Path directory = MavenPaths.targetTestDir(ProxyCacheTest.class.getSimpleName());
+        MappedFileCacheStore disk = new MappedFileCacheStore(directory, 1024 * 1024);
+        MemoryCacheStore memory = new MemoryCacheStore(2048, disk);
+        memory.start();
+        try
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                byte[] bytes = ("content" + i).repeat(100).getBytes(StandardCharsets.UTF_8);
+                ProxyCache.Entry entry = new ProxyCache.Entry(HttpStatus.OK_200, HttpFields.EMPTY, ByteBuffer.wrap(bytes), Map.of(), 0, 0);
+                memory.put("/" + i, entry);
+            }
+
+            assertThat(memory.getEvictions() > 0, is(true));
+            // The evicted entries are written to disk asynchronously.
+            await().atMost(5, TimeUnit.SECONDS).until(disk::getEntries, is((int)memory.getEvictions()));
+            try (Stream<Path> files = Files.list(directory))
+            {
+                assertEquals(disk.getEntries(), files.count());
+            }
+
+            // The eldest entry is promoted from the disk store.
+            ProxyCache.Entry entry = memory.get("/0");
+            assertThat(entry, notNullValue());
+            assertEquals("content0".repeat(100), StandardCharsets.UTF_8.decode(entry.getContent()).toString());
+        }
+        finally
+        {
+            memory.stop();
+        }
+
+        try (Stream<Path> files = Files.list(directory))
+        {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testMappedFileStoreWritesInExecutorAndDeletesReleasedEntries() throws Exception
+    {
+        Path directory = MavenPaths.targetTestDir(ProxyCacheTest.class.getSimpleName() + "-mapped");
+        List<Runnable> writes = new ArrayList<>();
+        MappedFileCacheStore store = new MappedFileCacheStore(directory, 1024 * 1024);
+        store.setExecutor(writes::add);
+        store.start();
+        try
+        {
+            ProxyCache.Entry entry = new ProxyCache.Entry(HttpStatus.OK_200, HttpFields.EMPTY, ByteBuffer.wrap("content".getBytes(StandardCharsets.UTF_8)), Map.of(), 0, 0);
+            store.put("/a", entry);
+            // The content is written by the executor.
+            assertThat(store.get("/a"), nullValue());
+            assertEquals(1, writes.size());
+            writes.remove(0).run();
+            ProxyCache.Entry stored = store.get("/a");
+            assertThat(stored, notNullValue());
+
+            // A removed entry keeps its file until the last reference is released.
+            store.remove("/a");
+            assertThat(store.get("/a"), nullValue());
+            try (Stream<Path> files = Files.list(directory))
+            {
+                assertEquals(1, files.count());
+            }
+            assertEquals("content", StandardCharsets.UTF_8.decode(stored.getContent()).toString());
+            stored.release();
+            try (Stream<Path> files = Files.list(directory))
+            {
+                assertEquals(0, files.count());
+            }
+
+            // An entry removed while it is written is discarded.
+            store.put("/b", entry);
+            store.remove("/b");
+            writes.remove(0).run();
+            assertEquals(0, store.getEntries());
+            try (Stream<Path> files = Files.list(directory))
+            {
+                assertEquals(0, files.count());
+            }
+        }
+        finally
+        {
+            store.stop();
+        }
+    }
+}
@@ -13,17 +13,22 @@
 
 package org.eclipse.jetty.proxy;
 
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.jetty.client.BytesRequestContent;
 import org.eclipse.jetty.client.CompletableResponseListener;
 import org.eclipse.jetty.client.ContentResponse;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.StringRequestContent;
 import org.eclipse.jetty.client.transport.HttpClientConnectionFactory;
 import org.eclipse.jetty.client.transport.HttpClientTransportDynamic;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpURI;
 import org.eclipse.jetty.http.HttpVersion;
@@ -39,6 +44,7 @@ import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -93,6 +99,58 @@ public class ReverseProxyTest extends AbstractProxyTest
         assertEquals(serverContent, response.getContentAsString());
     }
 
+    @ParameterizedTest
+    @MethodSource("httpVersions")
+    public void testLargeContent(HttpVersion httpVersion) throws Exception
+    {
+        startServer(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                // Echo the content, with or without Content-Length.
+                if (request.getHttpURI().getPath().endsWith("/length"))
+                    response.getHeaders().put(HttpHeader.CONTENT_LENGTH, request.getLength());
+                Content.copy(request, response, callback);
+                return true;
+            }
+        });
+        startProxy(new ProxyHandler.Reverse(clientToProxyRequest ->
+            HttpURI.build(clientToProxyRequest.getHttpURI()).port(serverConnector.getLocalPort()))
+        {
+            @Override
+            protected HttpClient newHttpClient()
+            {
+                return newProxyHttpClient();
+            }
+
+            @Override
+            protected org.eclipse.jetty.client.Request newProxyToServerRequest(Request clientToProxyRequest, HttpURI newHttpURI)
+            {
+                // Use the client to proxy protocol also from the proxy to server.
+                return super.newProxyToServerRequest(clientToProxyRequest, newHttpURI)
+                    .version(httpVersion);
+            }
+        });
+        startClient();
+
+        byte[] content = new byte[1024 * 1024];
+        new Random().nextBytes(content);
+        for (String path : List.of("/length", "/chunked"))
+        {
+            ContentResponse response = client.newRequest("localhost", proxyConnector.getLocalPort())
+                .version(httpVersion)
+                .method(HttpMethod.POST)
+                .path(path)
+                .body(new BytesRequestContent(content))
+                .timeout(15, TimeUnit.SECONDS)
+                .send();
+
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertArrayEquals(content, response.getContent());
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("httpVersions")
     public void testEmptyHeaderValue(HttpVersion httpVersion) throws Exception
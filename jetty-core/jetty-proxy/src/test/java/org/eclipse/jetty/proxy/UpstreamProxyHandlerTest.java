@@ -0,0 +1,239 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.client.ContentResponse;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UpstreamProxyHandlerTest extends AbstractProxyTest
+{
+    private final List<Server> upstreams = new ArrayList<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    @AfterEach
+    public void disposeUpstreams()
+    {
+        upstreams.forEach(upstream -> LifeCycle.stop(upstream));
+    }
+
+    private String startUpstream(String name) throws Exception
+    {
+        Server upstream = new Server();
+        ServerConnector connector = new ServerConnector(upstream, 1, 1);
+        upstream.addConnector(connector);
+        upstream.setHandler(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                if ("/health".equals(Request.getPathInContext(request)))
+                {
+                    response.setStatus(name.startsWith("sick") ? HttpStatus.SERVICE_UNAVAILABLE_503 : HttpStatus.OK_200);
+                    callback.succeeded();
+                    return true;
+                }
+                requests.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+                Content.Sink.write(response, true, name, callback);
+                return true;
+            }
+        });
+        upstream.start();
+        upstreams.add(upstream);
+        return "http://localhost:" + connector.getLocalPort();
+    }
+
+    private ContentResponse get() throws Exception
+    {
+        return client.newRequest("localhost", proxyConnector.getLocalPort())
+            .path("/path")
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+    }
+
+    private int requests(String name)
+    {
+        AtomicInteger count = requests.get(name);
+        return count == null ? 0 : count.get();
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception
+    {
+        UpstreamGroup group = new UpstreamGroup(new UpstreamGroup.RoundRobinPolicy());
+        group.addUpstream(startUpstream("a"));
+        group.addUpstream(startUpstream("b"));
+        group.addUpstream(startUpstream("c"));
+        startProxy(new UpstreamProxyHandler(group));
+        startClient();
+
+        for (int i = 0; i < 9; ++i)
+        {
+            assertEquals(HttpStatus.OK_200, get().getStatus());
+        }
+
+        assertEquals(3, requests("a"));
+        assertEquals(3, requests("b"));
+        assertEquals(3, requests("c"));
+        for (UpstreamGroup.Upstream upstream : group.getUpstreams())
+        {
+            // The upstream request is completed after the response is sent to the client.
+            await().atMost(5, TimeUnit.SECONDS).until(upstream::getRequests, is(3L));
+            assertEquals(0, upstream.getOutstandingRequests());
+        }
+    }
+
+    @Test
+    public void testFailedUpstreamRetriedAndEjected() throws Exception
+    {
+        int deadPort;
+        try (ServerSocket serverSocket = new ServerSocket(0))
+        {
+            deadPort = serverSocket.getLocalPort();
+        }
+
+        UpstreamGroup group = new UpstreamGroup(new UpstreamGroup.RoundRobinPolicy());
+        UpstreamGroup.Upstream dead = group.addUpstream("http://localhost:" + deadPort);
+        group.addUpstream(startUpstream("a"));
+        group.addUpstream(startUpstream("b"));
+        group.setMaxConsecutiveFailures(2);
+        startProxy(new UpstreamProxyHandler(group));
+        startClient();
+
+        for (int i = 0; i < 12; ++i)
+        {
+            ContentResponse response = get();
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+        }
+
+        assertEquals(12, requests("a") + requests("b"));
+        assertThat(group.getRetries(), greaterThan(0L));
+        assertEquals(2, dead.getFailures());
+        assertTrue(dead.isEjected());
+        assertEquals(1, dead.getEjections());
+        assertEquals(2, group.getAvailableUpstreams());
+    }
+
+    @Test
+    public void testNoUpstreamAvailable() throws Exception
+    {
+        UpstreamGroup group = new UpstreamGroup(new UpstreamGroup.RoundRobinPolicy());
+        startProxy(new UpstreamProxyHandler(group));
+        startClient();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE_503, get().getStatus());
+    }
+
+    @Test
+    public void testFailureBeforeSendNotCounted() throws Exception
+    {
+        UpstreamGroup group = new UpstreamGroup(new UpstreamGroup.RoundRobinPolicy());
+        UpstreamGroup.Upstream upstream = group.addUpstream(startUpstream("a"));
+        startProxy(new UpstreamProxyHandler(group)
+        {
+            @Override
+            protected HttpURI rewriteHttpURI(Request clientToProxyRequest, UpstreamGroup.Upstream upstream)
+            {
+                throw new IllegalArgumentException("explicitly_thrown_by_test");
+            }
+        });
+        startClient();
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR_500, get().getStatus());
+        assertEquals(0, upstream.getOutstandingRequests());
+        assertEquals(0, requests("a"));
+    }
+
+    @Test
+    public void testActiveHealthCheck() throws Exception
+    {
+        UpstreamGroup group = new UpstreamGroup(new UpstreamGroup.LeastOutstandingRequestsPolicy());
+        group.addUpstream(startUpstream("a"));
+        UpstreamGroup.Upstream sick = group.addUpstream(startUpstream("sick"));
+        group.setHealthCheckPath("/health");
+        group.setHealthCheckInterval(100);
+        group.setUnhealthyThreshold(1);
+        startProxy(new UpstreamProxyHandler(group));
+        startClient();
+
+        await().atMost(5, TimeUnit.SECONDS).until(sick::isHealthy, is(false));
+
+        for (int i = 0; i < 4; ++i)
+        {
+            assertEquals("a", get().getContentAsString());
+        }
+        assertEquals(0, requests("sick"));
+    }
+
+    @Test
+    public void testPolicies() throws Exception
+    {
+        UpstreamGroup group = new UpstreamGroup();
+        UpstreamGroup.Upstream upstream1 = group.addUpstream("http://host1");
+        UpstreamGroup.Upstream upstream2 = group.addUpstream("http://host2");
+        UpstreamGroup.Upstream upstream3 = group.addUpstream("http://host3");
+        List<UpstreamGroup.Upstream> candidates = List.of(upstream1, upstream2, upstream3);
+
+        upstream1.onRequestBegin();
+        upstream2.onRequestBegin();
+        UpstreamGroup.Policy leastOutstanding = new UpstreamGroup.LeastOutstandingRequestsPolicy();
+        for (int i = 0; i < 3; ++i)
+        {
+            assertThat(leastOutstanding.select(candidates), sameInstance(upstream3));
+        }
+
+        UpstreamGroup.Policy powerOfTwo = new UpstreamGroup.PowerOfTwoChoicesPolicy();
+        for (int i = 0; i < 10; ++i)
+        {
+            assertThat(powerOfTwo.select(List.of(upstream1, upstream3)), sameInstance(upstream3));
+        }
+
+        upstream1.onRequestComplete(TimeUnit.MILLISECONDS.toNanos(500), false);
+        upstream2.onRequestComplete(TimeUnit.MILLISECONDS.toNanos(10), false);
+        upstream3.onRequestBegin();
+        upstream3.onRequestComplete(TimeUnit.MILLISECONDS.toNanos(100), false);
+        assertThat(upstream1.getEWMALatency(), greaterThan(upstream2.getEWMALatency()));
+        UpstreamGroup.Policy ewma = new UpstreamGroup.EWMALatencyPolicy();
+        assertThat(ewma.select(candidates), sameInstance(upstream2));
+
+        assertFalse(upstream1.isEjected());
+    }
+}
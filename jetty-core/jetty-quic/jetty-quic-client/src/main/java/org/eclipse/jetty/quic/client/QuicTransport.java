@@ -59,6 +59,8 @@ public class QuicTransport extends Transport.Wrapper
         connection.setOutputBufferSize(quicConfiguration.getOutputBufferSize());
         connection.setUseInputDirectByteBuffers(quicConfiguration.isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(quicConfiguration.isUseOutputDirectByteBuffers());
+        connection.setReceiveBatchSize(quicConfiguration.getReceiveBatchSize());
+        connection.setSendBatchSize(quicConfiguration.getSendBatchSize());
         quicConfiguration.getEventListeners().forEach(connection::addEventListener);
         return connection;
     }
@@ -34,6 +34,8 @@ public class QuicConfiguration extends ContainerLifeCycle
     private int outputBufferSize = 2048;
     private boolean useInputDirectByteBuffers = true;
     private boolean useOutputDirectByteBuffers = true;
+    private int receiveBatchSize = 16;
+    private int sendBatchSize = 16;
     private List<String> protocols = List.of();
     private boolean disableActiveMigration;
     private int maxBidirectionalRemoteStreams;
@@ -84,6 +86,38 @@ public class QuicConfiguration extends ContainerLifeCycle
         this.useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    /**
+     * @return the max number of datagrams received in a batch before they are processed
+     */
+    public int getReceiveBatchSize()
+    {
+        return receiveBatchSize;
+    }
+
+    /**
+     * @param receiveBatchSize the max number of datagrams received in a batch before they are processed
+     */
+    public void setReceiveBatchSize(int receiveBatchSize)
+    {
+        this.receiveBatchSize = receiveBatchSize;
+    }
+
+    /**
+     * @return the max number of datagrams sent in a batch
+     */
+    public int getSendBatchSize()
+    {
+        return sendBatchSize;
+    }
+
+    /**
+     * @param sendBatchSize the max number of datagrams sent in a batch
+     */
+    public void setSendBatchSize(int sendBatchSize)
+    {
+        this.sendBatchSize = sendBatchSize;
+    }
+
     public List<String> getProtocols()
     {
         return protocols;
@@ -17,7 +17,11 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.EventListener;
 import java.util.List;
 import java.util.Queue;
@@ -28,6 +32,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.io.AbstractConnection;
 import org.eclipse.jetty.io.ByteBufferPool;
@@ -41,6 +46,7 @@ import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
+import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.slf4j.Logger;
@@ -52,6 +58,11 @@ import org.slf4j.LoggerFactory;
  * {@link QuicSession}, and the received bytes are then passed to the {@link QuicSession} for processing.</p>
  * <p>On the receive side, one QuicConnection <em>fans-out</em> to multiple {@link QuicSession}s.</p>
  * <p>On the send side, many {@link QuicSession}s <em>fan-in</em> to one QuicConnection.</p>
+ * <p>Datagrams are received in batches of up to {@link #getReceiveBatchSize()} datagrams,
+ * all stored in a single pooled buffer; each batch is processed as a whole, so that the
+ * tasks of a {@link QuicSession} that receives many datagrams are run only once per batch.
+ * Likewise, datagrams are sent in batches of up to {@link #getSendBatchSize()} datagrams,
+ * without waiting for write completion between them, unless the send buffer is full.</p>
  */
 public abstract class QuicConnection extends AbstractConnection
 {
@@ -65,6 +76,16 @@ public abstract class QuicConnection extends AbstractConnection
     private final AdaptiveExecutionStrategy strategy;
     private final Flusher flusher = new Flusher();
     private final Callback fillableCallback = new FillableCallback();
+    private final Queue<SteeredPacket> steeredPackets = new ConcurrentLinkedQueue<>();
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+    private final LongAdder receiveBatches = new LongAdder();
+    private final LongAdder receivedDatagrams = new LongAdder();
+    private final LongAdder sendBatches = new LongAdder();
+    private final LongAdder sentDatagrams = new LongAdder();
+    private ByteBuffer[] batchPackets;
+    private SocketAddress[] batchAddresses;
+    private int receiveBatchSize = 16;
+    private int sendBatchSize = 16;
     private int outputBufferSize = 2048;
     private boolean useInputDirectByteBuffers = true;
     private boolean useOutputDirectByteBuffers = true;
@@ -117,6 +138,46 @@ public abstract class QuicConnection extends AbstractConnection
         this.useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    public int getReceiveBatchSize()
+    {
+        return receiveBatchSize;
+    }
+
+    public void setReceiveBatchSize(int receiveBatchSize)
+    {
+        this.receiveBatchSize = receiveBatchSize;
+    }
+
+    public int getSendBatchSize()
+    {
+        return sendBatchSize;
+    }
+
+    public void setSendBatchSize(int sendBatchSize)
+    {
+        this.sendBatchSize = sendBatchSize;
+    }
+
+    public long getReceiveBatches()
+    {
+        return receiveBatches.sum();
+    }
+
+    public long getReceivedDatagrams()
+    {
+        return receivedDatagrams.sum();
+    }
+
+    public long getSendBatches()
+    {
+        return sendBatches.sum();
+    }
+
+    public long getSentDatagrams()
+    {
+        return sentDatagrams.sum();
+    }
+
     public Collection<QuicSession> getQuicSessions()
     {
         return List.copyOf(sessions.values());
@@ -149,6 +210,13 @@ public abstract class QuicConnection extends AbstractConnection
     public void onClose(Throwable cause)
     {
         LifeCycle.stop(strategy);
+        while (true)
+        {
+            SteeredPacket steered = steeredPackets.poll();
+            if (steered == null)
+                break;
+            steered.packet.release();
+        }
         super.onClose(cause);
     }
 
@@ -211,103 +279,228 @@ public abstract class QuicConnection extends AbstractConnection
         flusher.offer(callback, remoteAddress, buffers);
     }
 
+    /**
+     * <p>Receives a packet that was read by another {@code QuicConnection},
+     * but that belongs to a {@link QuicSession} of this {@code QuicConnection}.</p>
+     * <p>The packet is queued and processed by this {@code QuicConnection}
+     * as if it was read from its own {@link EndPoint}.</p>
+     *
+     * @param connectionId the QUIC connection ID of the packet
+     * @param remoteAddress the remote address of the packet
+     * @param packet the packet bytes, released by this method once processed
+     * @see #steer(QuicheConnectionId, SocketAddress, ByteBuffer)
+     */
+    public void receiveSteered(QuicheConnectionId connectionId, SocketAddress remoteAddress, RetainableByteBuffer packet)
+    {
+        steeredPackets.offer(new SteeredPacket(connectionId, remoteAddress, packet));
+        strategy.dispatch();
+    }
+
+    /**
+     * <p>Steers a packet for an unknown QUIC connection ID to the {@code QuicConnection}
+     * that owns it, typically via {@link #receiveSteered(QuicheConnectionId, SocketAddress, RetainableByteBuffer)}.</p>
+     * <p>This implementation returns {@code false}, so the packet is processed
+     * by this {@code QuicConnection}, possibly creating a new {@link QuicSession}.</p>
+     *
+     * @param connectionId the QUIC connection ID of the packet
+     * @param remoteAddress the remote address of the packet
+     * @param cipherBuffer the packet bytes, that must not be consumed
+     * @return whether the packet has been steered to another {@code QuicConnection}
+     */
+    protected boolean steer(QuicheConnectionId connectionId, SocketAddress remoteAddress, ByteBuffer cipherBuffer)
+    {
+        return false;
+    }
+
     private Runnable receiveAndProcess()
     {
+        Runnable steeredTask = processSteered();
+        if (steeredTask != null)
+            return steeredTask;
+
+        // Tasks produced by a previous batch of datagrams.
+        Runnable pendingTask = tasks.poll();
+        if (pendingTask != null)
+            return pendingTask;
+
         boolean interested = isFillInterested();
         if (LOG.isDebugEnabled())
             LOG.debug("receiveAndProcess() fillInterested={}", interested);
         if (interested)
             return null;
 
-        RetainableByteBuffer buffer = bufferPool.acquire(getInputBufferSize(), isUseInputDirectByteBuffers());
-        ByteBuffer cipherBuffer = buffer.getByteBuffer();
+        // Receive a batch of datagrams into slices of a single pooled buffer.
+        int batchSize = Math.max(1, getReceiveBatchSize());
+        int packetSize = getInputBufferSize();
+        if (batchPackets == null || batchPackets.length != batchSize)
+        {
+            batchPackets = new ByteBuffer[batchSize];
+            batchAddresses = new SocketAddress[batchSize];
+        }
+        RetainableByteBuffer buffer = bufferPool.acquire(packetSize * batchSize, isUseInputDirectByteBuffers());
+        // The pooled buffer is in flush mode, slice it over its whole capacity.
+        ByteBuffer slab = buffer.getByteBuffer().duplicate().clear();
         try
         {
             while (true)
             {
-                BufferUtil.clear(cipherBuffer);
-                SocketAddress remoteAddress = getEndPoint().receive(cipherBuffer);
-                int fill = remoteAddress == EndPoint.EOF ? -1 : cipherBuffer.remaining();
-                if (LOG.isDebugEnabled())
-                    LOG.debug("filled cipher buffer with {} byte(s)", fill);
-                if (fill < 0)
-                {
-                    buffer.release();
-                    getEndPoint().shutdownOutput();
-                    return null;
-                }
-                if (fill == 0)
+                int received = 0;
+                boolean eof = false;
+                while (received < batchSize)
                 {
-                    buffer.release();
-                    fillInterested();
-                    return null;
+                    ByteBuffer cipherBuffer = slab.slice(received * packetSize, packetSize);
+                    BufferUtil.clear(cipherBuffer);
+                    SocketAddress remoteAddress = getEndPoint().receive(cipherBuffer);
+                    if (remoteAddress == EndPoint.EOF)
+                    {
+                        eof = true;
+                        break;
+                    }
+                    if (remoteAddress == null)
+                        break;
+                    batchPackets[received] = cipherBuffer;
+                    batchAddresses[received] = remoteAddress;
+                    ++received;
                 }
-
                 if (LOG.isDebugEnabled())
-                    LOG.debug("peer IP address: {}, ciphertext packet size: {}", remoteAddress, cipherBuffer.remaining());
+                    LOG.debug("received batch of {} datagram(s), eof={}", received, eof);
 
-                QuicheConnectionId quicheConnectionId = QuicheConnectionId.fromPacket(cipherBuffer);
-                if (quicheConnectionId == null)
+                if (received > 0)
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("packet contains undecipherable connection ID, dropping it");
-                    continue;
+                    receiveBatches.increment();
+                    receivedDatagrams.add(received);
+                    for (int i = 0; i < received; ++i)
+                    {
+                        ByteBuffer cipherBuffer = batchPackets[i];
+                        SocketAddress remoteAddress = batchAddresses[i];
+                        batchPackets[i] = null;
+                        batchAddresses[i] = null;
+                        Runnable task = receive(remoteAddress, cipherBuffer);
+                        // Many packets of the same session produce the same task.
+                        if (task != null && !tasks.contains(task))
+                            tasks.offer(task);
+                    }
                 }
-                if (LOG.isDebugEnabled())
-                    LOG.debug("packet contains connection ID {}", quicheConnectionId);
 
-                QuicSession session = sessions.get(quicheConnectionId);
-                if (session == null)
+                if (eof)
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("packet is for unknown session, trying to create a new one");
-                    session = createSession(remoteAddress, cipherBuffer);
-                    if (session != null)
-                    {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("session created");
-                        session.setConnectionId(quicheConnectionId);
-                        session.setIdleTimeout(getEndPoint().getIdleTimeout());
-                        sessions.put(quicheConnectionId, session);
-                        listeners.forEach(session::addEventListener);
-                        LifeCycle.start(session);
-
-                        // Session creation may have generated a task.
-                        Runnable task = session.pollTask();
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("processing creation task {} on {}", task, session);
-                        if (task != null)
-                        {
-                            buffer.release();
-                            return task;
-                        }
-                    }
-                    else
-                    {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("session not created");
-                    }
-                    continue;
+                    buffer.release();
+                    getEndPoint().shutdownOutput();
+                    return tasks.poll();
                 }
 
-                Runnable task = process(session, remoteAddress, cipherBuffer);
+                Runnable task = tasks.poll();
                 if (task != null)
                 {
                     buffer.release();
                     return task;
                 }
+
+                if (received < batchSize)
+                {
+                    buffer.release();
+                    fillInterested();
+                    return null;
+                }
             }
         }
         catch (Throwable x)
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("receiveAndProcess() failure", x);
+            Arrays.fill(batchPackets, null);
+            Arrays.fill(batchAddresses, null);
             buffer.release();
             onFailure(x);
             return null;
         }
     }
 
+    private Runnable receive(SocketAddress remoteAddress, ByteBuffer cipherBuffer) throws IOException
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("peer IP address: {}, ciphertext packet size: {}", remoteAddress, cipherBuffer.remaining());
+
+        QuicheConnectionId quicheConnectionId = QuicheConnectionId.fromPacket(cipherBuffer);
+        if (quicheConnectionId == null)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("packet contains undecipherable connection ID, dropping it");
+            return null;
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("packet contains connection ID {}", quicheConnectionId);
+
+        return receive(quicheConnectionId, remoteAddress, cipherBuffer, true);
+    }
+
+    private Runnable processSteered()
+    {
+        while (true)
+        {
+            SteeredPacket steered = steeredPackets.poll();
+            if (steered == null)
+                return null;
+            try
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("processing steered packet for connection ID {}", steered.connectionId);
+                Runnable task = receive(steered.connectionId, steered.remoteAddress, steered.packet.getByteBuffer(), false);
+                if (task != null)
+                    return task;
+            }
+            catch (Throwable x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("processSteered() failure", x);
+            }
+            finally
+            {
+                steered.packet.release();
+            }
+        }
+    }
+
+    private Runnable receive(QuicheConnectionId quicheConnectionId, SocketAddress remoteAddress, ByteBuffer cipherBuffer, boolean steer) throws IOException
+    {
+        QuicSession session = sessions.get(quicheConnectionId);
+        if (session == null)
+        {
+            if (steer && steer(quicheConnectionId, remoteAddress, cipherBuffer))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("packet for connection ID {} steered to another connection", quicheConnectionId);
+                return null;
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("packet is for unknown session, trying to create a new one");
+            session = createSession(remoteAddress, cipherBuffer);
+            if (session == null)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("session not created");
+                return null;
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("session created");
+            session.setConnectionId(quicheConnectionId);
+            session.setIdleTimeout(getEndPoint().getIdleTimeout());
+            sessions.put(quicheConnectionId, session);
+            listeners.forEach(session::addEventListener);
+            LifeCycle.start(session);
+
+            // Session creation may have generated a task.
+            Runnable task = session.pollTask();
+            if (LOG.isDebugEnabled())
+                LOG.debug("processing creation task {} on {}", task, session);
+            return task;
+        }
+
+        return process(session, remoteAddress, cipherBuffer);
+    }
+
     protected Runnable process(QuicSession session, SocketAddress remoteAddress, ByteBuffer cipherBuffer)
     {
         try
@@ -345,7 +538,8 @@ public abstract class QuicConnection extends AbstractConnection
     private class Flusher extends IteratingCallback
     {
         private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
-        private Entry entry;
+        private final Deque<Entry> deferred = new ArrayDeque<>();
+        private final List<Entry> batch = new ArrayList<>();
 
         public void offer(Callback callback, SocketAddress address, ByteBuffer[] buffers)
         {
@@ -354,32 +548,85 @@ public abstract class QuicConnection extends AbstractConnection
         }
 
         @Override
-        protected Action process()
+        protected Action process() throws IOException
         {
-            entry = queue.poll();
-            if (entry == null)
+            int batchSize = Math.max(1, getSendBatchSize());
+            while (batch.size() < batchSize)
+            {
+                Entry entry = deferred.poll();
+                if (entry == null)
+                    entry = queue.poll();
+                if (entry == null)
+                    break;
+                batch.add(entry);
+            }
+            if (batch.isEmpty())
                 return Action.IDLE;
 
-            getEndPoint().write(this, entry.address, entry.buffers);
+            sendBatches.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("sending batch of {} entries", batch.size());
+
+            EndPoint endPoint = getEndPoint();
+            for (int i = 0; i < batch.size(); ++i)
+            {
+                Entry entry = batch.get(i);
+                if (!endPoint.send(entry.address, entry.buffers))
+                {
+                    // The send buffer is full, defer the other entries,
+                    // and wait for the remaining datagrams to be written.
+                    for (int j = batch.size() - 1; j > i; --j)
+                    {
+                        deferred.addFirst(batch.remove(j));
+                    }
+                    endPoint.write(this, entry.address, remaining(entry.buffers));
+                    return Action.SCHEDULED;
+                }
+            }
+            succeeded();
             return Action.SCHEDULED;
         }
 
+        private ByteBuffer[] remaining(ByteBuffer[] buffers)
+        {
+            // Skip the datagrams already sent, to avoid sending empty datagrams.
+            int index = 0;
+            while (index < buffers.length - 1 && !buffers[index].hasRemaining())
+            {
+                ++index;
+            }
+            return index == 0 ? buffers : Arrays.copyOfRange(buffers, index, buffers.length);
+        }
+
         @Override
         protected void onSuccess()
         {
-            entry.callback.succeeded();
+            for (Entry entry : batch)
+            {
+                sentDatagrams.add(entry.buffers.length);
+                entry.callback.succeeded();
+            }
+            batch.clear();
         }
 
         @Override
         public InvocationType getInvocationType()
         {
-            return entry.callback.getInvocationType();
+            InvocationType invocationType = InvocationType.NON_BLOCKING;
+            for (Entry entry : batch)
+            {
+                invocationType = Invocable.combine(invocationType, entry.callback.getInvocationType());
+            }
+            return invocationType;
         }
 
         @Override
         protected void onCompleteFailure(Throwable cause)
         {
-            entry.callback.failed(cause);
+            batch.forEach(entry -> entry.callback.failed(cause));
+            batch.clear();
+            deferred.forEach(entry -> entry.callback.failed(cause));
+            deferred.clear();
             QuicConnection.this.close();
         }
 
@@ -398,6 +645,10 @@ public abstract class QuicConnection extends AbstractConnection
         }
     }
 
+    private record SteeredPacket(QuicheConnectionId connectionId, SocketAddress remoteAddress, RetainableByteBuffer packet)
+    {
+    }
+
     private class FillableCallback implements Callback
     {
         @Override
@@ -71,6 +71,17 @@ public abstract class QuicheConnection
         return QUICHE_BINDING.negotiate(tokenMinter, packetRead, packetToSend);
     }
 
+    /**
+     * Fully consumes the {@code packetRead} buffer.
+     * @param connectionIdGenerator the generator of the connection ID that the server chooses during a stateless retry
+     * @return true if a negotiation packet was written to the {@code packetToSend} buffer, false if negotiation failed
+     * and the {@code packetRead} buffer can be dropped.
+     */
+    public static boolean negotiate(TokenMinter tokenMinter, ConnectionIdGenerator connectionIdGenerator, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
+    {
+        return QUICHE_BINDING.negotiate(tokenMinter, connectionIdGenerator, packetRead, packetToSend);
+    }
+
     /**
      * Fully consumes the {@code packetRead} buffer if the connection was accepted.
      * @return an established connection if accept succeeded, null if accept failed and negotiation should be tried.
@@ -187,6 +198,20 @@ public abstract class QuicheConnection
         byte[] validate(byte[] token, int len);
     }
 
+    /**
+     * <p>Generates the bytes of the connection IDs chosen by the server.</p>
+     * <p>Servers may encode routing information in the connection ID,
+     * for example the index of the socket that owns the connection,
+     * as long as the rest of the connection ID is unpredictable.</p>
+     */
+    public interface ConnectionIdGenerator
+    {
+        /**
+         * @param connectionId the array to fill with the connection ID bytes
+         */
+        void generate(byte[] connectionId);
+    }
+
     public static class TokenValidationException extends IOException
     {
         public TokenValidationException(String msg)
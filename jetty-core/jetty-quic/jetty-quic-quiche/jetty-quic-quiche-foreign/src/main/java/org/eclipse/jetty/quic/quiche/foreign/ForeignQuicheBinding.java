@@ -69,6 +69,12 @@ public class ForeignQuicheBinding implements QuicheBinding
         return ForeignQuicheConnection.negotiate(tokenMinter, packetRead, packetToSend);
     }
 
+    @Override
+    public boolean negotiate(QuicheConnection.TokenMinter tokenMinter, QuicheConnection.ConnectionIdGenerator connectionIdGenerator, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
+    {
+        return ForeignQuicheConnection.negotiate(tokenMinter, connectionIdGenerator, packetRead, packetToSend);
+    }
+
     @Override
     public QuicheConnection tryAccept(QuicheConfig quicheConfig, QuicheConnection.TokenValidator tokenValidator, ByteBuffer packetRead, SocketAddress local, SocketAddress peer) throws IOException
     {
@@ -265,6 +265,11 @@ public class ForeignQuicheConnection extends QuicheConnection
     }
 
     public static boolean negotiate(TokenMinter tokenMinter, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
+    {
+        return negotiate(tokenMinter, SECURE_RANDOM::nextBytes, packetRead, packetToSend);
+    }
+
+    public static boolean negotiate(TokenMinter tokenMinter, ConnectionIdGenerator connectionIdGenerator, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
     {
         try (Arena scope = Arena.ofConfined())
         {
@@ -358,7 +363,7 @@ public class ForeignQuicheConnection extends QuicheConnection
                 token.asByteBuffer().put(tokenBytes);
 
                 byte[] newCid = new byte[QUICHE_MAX_CONN_ID_LEN];
-                SECURE_RANDOM.nextBytes(newCid);
+                connectionIdGenerator.generate(newCid);
                 MemorySegment newCidSegment = scope.allocate(newCid.length);
                 newCidSegment.asByteBuffer().put(newCid);
 
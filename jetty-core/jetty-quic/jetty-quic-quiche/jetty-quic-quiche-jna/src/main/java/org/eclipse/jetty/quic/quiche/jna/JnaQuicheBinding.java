@@ -68,6 +68,12 @@ public class JnaQuicheBinding implements QuicheBinding
         return JnaQuicheConnection.negotiate(tokenMinter, packetRead, packetToSend);
     }
 
+    @Override
+    public boolean negotiate(QuicheConnection.TokenMinter tokenMinter, QuicheConnection.ConnectionIdGenerator connectionIdGenerator, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
+    {
+        return JnaQuicheConnection.negotiate(tokenMinter, connectionIdGenerator, packetRead, packetToSend);
+    }
+
     @Override
     public QuicheConnection tryAccept(QuicheConfig quicheConfig, QuicheConnection.TokenValidator tokenValidator, ByteBuffer packetRead, SocketAddress local, SocketAddress peer) throws IOException
     {
@@ -258,6 +258,11 @@ public class JnaQuicheConnection extends QuicheConnection
      * and the {@code packetRead} buffer can be dropped.
      */
     public static boolean negotiate(TokenMinter tokenMinter, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
+    {
+        return negotiate(tokenMinter, SECURE_RANDOM::nextBytes, packetRead, packetToSend);
+    }
+
+    public static boolean negotiate(TokenMinter tokenMinter, ConnectionIdGenerator connectionIdGenerator, ByteBuffer packetRead, ByteBuffer packetToSend) throws IOException
     {
         uint8_t_pointer type = new uint8_t_pointer();
         uint32_t_pointer version = new uint32_t_pointer();
@@ -307,7 +312,7 @@ public class JnaQuicheConnection extends QuicheConnection
             token = tokenMinter.mint(dcid, (int)dcid_len.getValue());
 
             byte[] newCid = new byte[QUICHE_MAX_CONN_ID_LEN];
-            SECURE_RANDOM.nextBytes(newCid);
+            connectionIdGenerator.generate(newCid);
 
             ssize_t generated = LibQuiche.INSTANCE.quiche_retry(scid, scid_len.getPointee(),
                 dcid, dcid_len.getPointee(),
@@ -69,6 +69,8 @@ public class QuicServerConnectionFactory extends AbstractConnectionFactory
         connection.setOutputBufferSize(quicConfiguration.getOutputBufferSize());
         connection.setUseInputDirectByteBuffers(quicConfiguration.isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(quicConfiguration.isUseOutputDirectByteBuffers());
+        connection.setReceiveBatchSize(quicConfiguration.getReceiveBatchSize());
+        connection.setSendBatchSize(quicConfiguration.getSendBatchSize());
         return connection;
     }
 }
@@ -15,14 +15,20 @@ package org.eclipse.jetty.quic.server;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.EventListener;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
@@ -30,15 +36,20 @@ import org.eclipse.jetty.io.DatagramChannelEndPoint;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.ManagedSelector;
 import org.eclipse.jetty.io.SelectorManager;
+import org.eclipse.jetty.quic.common.QuicConnection;
 import org.eclipse.jetty.quic.common.QuicSession;
 import org.eclipse.jetty.quic.common.QuicSessionContainer;
 import org.eclipse.jetty.quic.common.QuicStreamEndPoint;
+import org.eclipse.jetty.quic.quiche.QuicheConnectionId;
 import org.eclipse.jetty.server.AbstractNetworkConnector;
 import org.eclipse.jetty.server.ConnectionFactory;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * <p>A server side network connector that uses a {@link DatagramChannel} to listen on a network port for QUIC traffic.</p>
@@ -46,15 +57,33 @@ import org.eclipse.jetty.util.thread.Scheduler;
  * The protocol is negotiated during the connection establishment by {@link QuicSession}, and for each QUIC stream
  * managed by a {@link QuicSession} a {@link ConnectionFactory} is used to create a {@link Connection} for the
  * correspondent {@link QuicStreamEndPoint}.</p>
+ * <p>By default, a single {@link DatagramChannel} receives all the QUIC packets for the port,
+ * so that their reception and demultiplexing is performed by a single thread.
+ * With {@link #setDatagramChannels(int)}, multiple {@link DatagramChannel}s are bound to the
+ * same port with {@code SO_REUSEPORT}, each with its own selector and {@link ServerQuicConnection};
+ * the operating system spreads the packets across the {@link DatagramChannel}s by hashing the
+ * remote address.
+ * The QUIC connection IDs chosen by this connector encode the index of the {@link DatagramChannel}
+ * that owns the QUIC connection, so that packets received by a different {@link DatagramChannel},
+ * for example after a client address change, are steered to the owner.</p>
  *
  * @see ServerQuicConfiguration
  */
 public class QuicServerConnector extends AbstractNetworkConnector
 {
+    private static final Logger LOG = LoggerFactory.getLogger(QuicServerConnector.class);
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final int MAX_DATAGRAM_CHANNELS = 256;
+
     private final QuicSessionContainer container = new QuicSessionContainer();
-    private final ServerDatagramSelectorManager selectorManager;
     private final QuicServerConnectionFactory connectionFactory;
-    private volatile DatagramChannel datagramChannel;
+    private final LongAdder steeredPackets = new LongAdder();
+    // Distinguishes the connection IDs chosen by this connector from those chosen by clients.
+    private final byte connectionIdTag = (byte)SECURE_RANDOM.nextInt();
+    private ServerDatagramSelectorManager selectorManager;
+    private int datagramChannelCount = 1;
+    private volatile DatagramChannel[] datagramChannels;
+    private volatile AtomicReferenceArray<ServerQuicConnection> connections;
     private volatile int localPort = -1;
 
     /**
@@ -92,7 +121,7 @@ public class QuicServerConnector extends AbstractNetworkConnector
     public QuicServerConnector(Server server, Executor executor, Scheduler scheduler, ByteBufferPool bufferPool, ServerQuicConfiguration quicConfiguration, ConnectionFactory... factories)
     {
         super(server, executor, scheduler, bufferPool, 0, factories);
-        this.selectorManager = new ServerDatagramSelectorManager(getExecutor(), getScheduler(), 1);
+        this.selectorManager = new ServerDatagramSelectorManager(getExecutor(), getScheduler(), datagramChannelCount);
         this.connectionFactory = new QuicServerConnectionFactory(quicConfiguration);
     }
 
@@ -107,6 +136,111 @@ public class QuicServerConnector extends AbstractNetworkConnector
         return localPort;
     }
 
+    /**
+     * @return the number of {@link DatagramChannel}s bound to the port
+     */
+    @ManagedAttribute("The number of DatagramChannels bound to the port")
+    public int getDatagramChannels()
+    {
+        return datagramChannelCount;
+    }
+
+    /**
+     * <p>Sets the number of {@link DatagramChannel}s bound to the port with {@code SO_REUSEPORT},
+     * each with its own selector, so that QUIC packets are received and processed in parallel.</p>
+     * <p>If the platform does not support {@code SO_REUSEPORT}, a single {@link DatagramChannel} is used.</p>
+     *
+     * @param datagramChannels the number of {@link DatagramChannel}s, between 1 and 256
+     */
+    public void setDatagramChannels(int datagramChannels)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        if (datagramChannels < 1 || datagramChannels > MAX_DATAGRAM_CHANNELS)
+            throw new IllegalArgumentException("Invalid number of DatagramChannels: " + datagramChannels);
+        if (datagramChannels == datagramChannelCount)
+            return;
+        ServerDatagramSelectorManager newSelectorManager = new ServerDatagramSelectorManager(getExecutor(), getScheduler(), datagramChannels);
+        updateBean(selectorManager, newSelectorManager);
+        this.selectorManager = newSelectorManager;
+        this.datagramChannelCount = datagramChannels;
+    }
+
+    /**
+     * @return the number of packets received by a {@link DatagramChannel}
+     * and steered to the {@link DatagramChannel} that owns the QUIC connection
+     */
+    @ManagedAttribute("The number of packets steered to the DatagramChannel that owns the QUIC connection")
+    public long getSteeredPackets()
+    {
+        return steeredPackets.sum();
+    }
+
+    @ManagedAttribute("The max number of datagrams received in a batch before they are processed")
+    public int getReceiveBatchSize()
+    {
+        return getQuicConfiguration().getReceiveBatchSize();
+    }
+
+    public void setReceiveBatchSize(int receiveBatchSize)
+    {
+        getQuicConfiguration().setReceiveBatchSize(receiveBatchSize);
+    }
+
+    @ManagedAttribute("The max number of datagrams sent in a batch")
+    public int getSendBatchSize()
+    {
+        return getQuicConfiguration().getSendBatchSize();
+    }
+
+    public void setSendBatchSize(int sendBatchSize)
+    {
+        getQuicConfiguration().setSendBatchSize(sendBatchSize);
+    }
+
+    /**
+     * @return the average number of datagrams received per batch
+     */
+    @ManagedAttribute("The average number of datagrams received per batch")
+    public double getAverageReceiveBatchSize()
+    {
+        long batches = 0;
+        long datagrams = 0;
+        for (QuicConnection connection : getQuicConnections())
+        {
+            batches += connection.getReceiveBatches();
+            datagrams += connection.getReceivedDatagrams();
+        }
+        return batches == 0 ? 0 : (double)datagrams / batches;
+    }
+
+    /**
+     * @return the average number of datagrams sent per batch
+     */
+    @ManagedAttribute("The average number of datagrams sent per batch")
+    public double getAverageSendBatchSize()
+    {
+        long batches = 0;
+        long datagrams = 0;
+        for (QuicConnection connection : getQuicConnections())
+        {
+            batches += connection.getSendBatches();
+            datagrams += connection.getSentDatagrams();
+        }
+        return batches == 0 ? 0 : (double)datagrams / batches;
+    }
+
+    private List<QuicConnection> getQuicConnections()
+    {
+        List<QuicConnection> result = new ArrayList<>();
+        for (EndPoint endPoint : getConnectedEndPoints())
+        {
+            if (endPoint.getConnection() instanceof QuicConnection connection)
+                result.add(connection);
+        }
+        return result;
+    }
+
     public int getInputBufferSize()
     {
         return getQuicConfiguration().getInputBufferSize();
@@ -150,8 +284,8 @@ public class QuicServerConnector extends AbstractNetworkConnector
     @Override
     public boolean isOpen()
     {
-        DatagramChannel channel = datagramChannel;
-        return channel != null && channel.isOpen();
+        DatagramChannel[] channels = datagramChannels;
+        return channels != null && channels[0].isOpen();
     }
 
     @Override
@@ -160,7 +294,11 @@ public class QuicServerConnector extends AbstractNetworkConnector
         addBean(container);
         addBean(selectorManager);
         addBean(connectionFactory);
-        addBean(datagramChannel);
+        DatagramChannel[] channels = datagramChannels;
+        for (DatagramChannel channel : channels)
+        {
+            addBean(channel);
+        }
 
         for (EventListener l : getBeans(SelectorManager.SelectorManagerListener.class))
             selectorManager.addEventListener(l);
@@ -169,7 +307,11 @@ public class QuicServerConnector extends AbstractNetworkConnector
 
         super.doStart();
 
-        selectorManager.accept(datagramChannel);
+        // The selectors are chosen in round-robin, so each DatagramChannel has its own.
+        for (int i = 0; i < channels.length; ++i)
+        {
+            selectorManager.accept(channels[i], i);
+        }
     }
 
     private Path findPemWorkDirectory()
@@ -190,13 +332,46 @@ public class QuicServerConnector extends AbstractNetworkConnector
     @Override
     public void open() throws IOException
     {
-        if (datagramChannel == null)
+        if (datagramChannels == null)
         {
-            datagramChannel = openDatagramChannel();
+            DatagramChannel datagramChannel = openDatagramChannel();
             datagramChannel.configureBlocking(false);
             localPort = datagramChannel.socket().getLocalPort();
             if (localPort <= 0)
+            {
+                IO.close(datagramChannel);
                 throw new IOException("DatagramChannel not bound");
+            }
+
+            int count = datagramChannelCount;
+            if (count > 1 && !datagramChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+            {
+                LOG.warn("SO_REUSEPORT not supported, using 1 DatagramChannel instead of {} for {}", count, this);
+                count = 1;
+            }
+
+            DatagramChannel[] channels = new DatagramChannel[count];
+            channels[0] = datagramChannel;
+            try
+            {
+                // Bind the other DatagramChannels to the actual port, in case it was ephemeral.
+                InetSocketAddress bindAddress = new InetSocketAddress(datagramChannel.socket().getLocalAddress(), localPort);
+                for (int i = 1; i < count; ++i)
+                {
+                    channels[i] = openDatagramChannel(bindAddress);
+                    channels[i].configureBlocking(false);
+                }
+            }
+            catch (Throwable x)
+            {
+                for (DatagramChannel channel : channels)
+                {
+                    IO.close(channel);
+                }
+                throw x;
+            }
+            datagramChannels = channels;
+            connections = new AtomicReferenceArray<>(count);
             super.open();
         }
     }
@@ -204,9 +379,24 @@ public class QuicServerConnector extends AbstractNetworkConnector
     protected DatagramChannel openDatagramChannel() throws IOException
     {
         InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(getPort()) : new InetSocketAddress(getHost(), getPort());
+        return openDatagramChannel(bindAddress);
+    }
+
+    /**
+     * <p>Opens a {@link DatagramChannel} and binds it to the given address,
+     * setting {@code SO_REUSEPORT} if multiple {@link DatagramChannel}s are used.</p>
+     *
+     * @param bindAddress the address to bind to
+     * @return a bound {@link DatagramChannel}
+     * @throws IOException if the {@link DatagramChannel} cannot be bound
+     */
+    protected DatagramChannel openDatagramChannel(InetSocketAddress bindAddress) throws IOException
+    {
         DatagramChannel datagramChannel = DatagramChannel.open();
         try
         {
+            if (datagramChannelCount > 1 && datagramChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+                datagramChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
             datagramChannel.bind(bindAddress);
             return datagramChannel;
         }
@@ -229,8 +419,16 @@ public class QuicServerConnector extends AbstractNetworkConnector
     {
         super.doStop();
 
-        removeBean(datagramChannel);
-        datagramChannel = null;
+        DatagramChannel[] channels = datagramChannels;
+        if (channels != null)
+        {
+            for (DatagramChannel channel : channels)
+            {
+                removeBean(channel);
+            }
+        }
+        datagramChannels = null;
+        connections = null;
 
         for (EventListener l : getBeans(EventListener.class))
         {
@@ -257,7 +455,8 @@ public class QuicServerConnector extends AbstractNetworkConnector
     @Override
     public Object getTransport()
     {
-        return datagramChannel;
+        DatagramChannel[] channels = datagramChannels;
+        return channels == null ? null : channels[0];
     }
 
     @Override
@@ -276,6 +475,42 @@ public class QuicServerConnector extends AbstractNetworkConnector
         return connectionFactory.newConnection(QuicServerConnector.this, endpoint);
     }
 
+    /**
+     * <p>Generates a QUIC connection ID that encodes the index of the given {@link DatagramChannel}.</p>
+     *
+     * @param channelIndex the index of the {@link DatagramChannel}
+     * @param connectionId the array to fill with the connection ID bytes
+     */
+    void generateConnectionId(int channelIndex, byte[] connectionId)
+    {
+        SECURE_RANDOM.nextBytes(connectionId);
+        connectionId[0] = (byte)channelIndex;
+        connectionId[1] = (byte)(connectionIdTag ^ channelIndex);
+    }
+
+    /**
+     * @param connectionId the QUIC connection ID
+     * @return the {@link ServerQuicConnection} that owns the given QUIC connection ID,
+     * or {@code null} if the connection ID was not generated by this connector
+     */
+    ServerQuicConnection findOwner(QuicheConnectionId connectionId)
+    {
+        AtomicReferenceArray<ServerQuicConnection> connections = this.connections;
+        if (connections == null || connections.length() == 1 || connectionId.length() < 2)
+            return null;
+        int channelIndex = connectionId.byteAt(0) & 0xFF;
+        if ((byte)(connectionIdTag ^ channelIndex) != connectionId.byteAt(1))
+            return null;
+        if (channelIndex >= connections.length())
+            return null;
+        return connections.get(channelIndex);
+    }
+
+    void onPacketSteered()
+    {
+        steeredPackets.increment();
+    }
+
     private class ServerDatagramSelectorManager extends SelectorManager
     {
         protected ServerDatagramSelectorManager(Executor executor, Scheduler scheduler, int selectors)
@@ -294,7 +529,14 @@ public class QuicServerConnector extends AbstractNetworkConnector
         @Override
         public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
         {
-            return QuicServerConnector.this.newConnection(endpoint);
+            ServerQuicConnection connection = QuicServerConnector.this.newConnection(endpoint);
+            AtomicReferenceArray<ServerQuicConnection> connections = QuicServerConnector.this.connections;
+            if (attachment instanceof Integer channelIndex && connections != null && connections.length() > 1)
+            {
+                connection.setChannelIndex(channelIndex);
+                connections.set(channelIndex, connection);
+            }
+            return connection;
         }
 
         @Override
@@ -34,6 +34,7 @@ import org.eclipse.jetty.quic.common.QuicConnection;
 import org.eclipse.jetty.quic.common.QuicSession;
 import org.eclipse.jetty.quic.quiche.QuicheConfig;
 import org.eclipse.jetty.quic.quiche.QuicheConnection;
+import org.eclipse.jetty.quic.quiche.QuicheConnectionId;
 import org.eclipse.jetty.quic.server.internal.SimpleTokenMinter;
 import org.eclipse.jetty.quic.server.internal.SimpleTokenValidator;
 import org.eclipse.jetty.server.Connector;
@@ -56,6 +57,7 @@ public class ServerQuicConnection extends QuicConnection
     private final ServerQuicConfiguration quicConfiguration;
     private final SessionTimeouts sessionTimeouts;
     private final InetSocketAddress inetLocalAddress;
+    private int channelIndex = -1;
 
     public ServerQuicConnection(Connector connector, ServerQuicConfiguration quicConfiguration, EndPoint endPoint)
     {
@@ -76,6 +78,21 @@ public class ServerQuicConnection extends QuicConnection
         return quicConfiguration;
     }
 
+    /**
+     * @return the index of the {@code DatagramChannel} of this connection,
+     * or {@code -1} if the connector uses a single {@code DatagramChannel}
+     * @see QuicServerConnector#setDatagramChannels(int)
+     */
+    public int getChannelIndex()
+    {
+        return channelIndex;
+    }
+
+    void setChannelIndex(int channelIndex)
+    {
+        this.channelIndex = channelIndex;
+    }
+
     @Override
     public void onOpen()
     {
@@ -103,7 +120,7 @@ public class ServerQuicConnection extends QuicConnection
             ByteBuffer byteBuffer = negotiationBuffer.getByteBuffer();
             int pos = BufferUtil.flipToFill(byteBuffer);
             // TODO make the token minter configurable
-            if (!QuicheConnection.negotiate(new SimpleTokenMinter(inetRemote), cipherBuffer, byteBuffer))
+            if (!negotiate(new SimpleTokenMinter(inetRemote), cipherBuffer, byteBuffer))
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("QUIC connection negotiation failed, dropping packet");
@@ -126,6 +143,36 @@ public class ServerQuicConnection extends QuicConnection
         }
     }
 
+    private boolean negotiate(QuicheConnection.TokenMinter tokenMinter, ByteBuffer cipherBuffer, ByteBuffer byteBuffer) throws IOException
+    {
+        // Encode the channel index in the connection ID chosen by the server,
+        // so that packets received by other channels can be steered here.
+        if (channelIndex >= 0 && connector instanceof QuicServerConnector quicServerConnector)
+            return QuicheConnection.negotiate(tokenMinter, connectionId -> quicServerConnector.generateConnectionId(channelIndex, connectionId), cipherBuffer, byteBuffer);
+        return QuicheConnection.negotiate(tokenMinter, cipherBuffer, byteBuffer);
+    }
+
+    @Override
+    protected boolean steer(QuicheConnectionId connectionId, SocketAddress remoteAddress, ByteBuffer cipherBuffer)
+    {
+        if (channelIndex < 0 || !(connector instanceof QuicServerConnector quicServerConnector))
+            return false;
+        ServerQuicConnection owner = quicServerConnector.findOwner(connectionId);
+        if (owner == null || owner == this)
+            return false;
+        if (LOG.isDebugEnabled())
+            LOG.debug("steering packet for connection ID {} from channel {} to channel {}", connectionId, channelIndex, owner.getChannelIndex());
+        // The cipher buffer is reused for the next packet, so a copy is needed.
+        RetainableByteBuffer packet = getByteBufferPool().acquire(cipherBuffer.remaining(), cipherBuffer.isDirect());
+        ByteBuffer byteBuffer = packet.getByteBuffer();
+        int pos = BufferUtil.flipToFill(byteBuffer);
+        byteBuffer.put(cipherBuffer.slice());
+        BufferUtil.flipToFlush(byteBuffer, pos);
+        quicServerConnector.onPacketSteered();
+        owner.receiveSteered(connectionId, remoteAddress, packet);
+        return true;
+    }
+
     protected ServerQuicSession newQuicSession(SocketAddress remoteAddress, QuicheConnection quicheConnection)
     {
         return new ServerQuicSession(getExecutor(), getScheduler(), getByteBufferPool(), quicheConnection, this, remoteAddress, getQuicServerConnector());
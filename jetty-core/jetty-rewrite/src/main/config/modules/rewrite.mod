@@ -27,4 +27,7 @@ etc/jetty-rewrite-rules.xml
 # tag::documentation[]
 ## Request attribute name used to store the original request path.
 # jetty.rewrite.originalPathAttribute=jetty.rewrite.originalRequestPath
+
+## Whether rules are indexed by their path prefix, so that only the rules that may match are evaluated.
+# jetty.rewrite.compiled=false
 # end::documentation[]
@@ -52,6 +52,18 @@ public abstract class PatternRule extends Rule
         return null;
     }
 
+    @Override
+    public String getPathPrefix()
+    {
+        String pattern = getPattern();
+        // The default "/" and suffix patterns may match any path.
+        if (pattern == null || pattern.length() <= 1 || pattern.charAt(0) != '/')
+            return null;
+        if (pattern.endsWith("/*"))
+            return pattern.length() == 2 ? null : pattern.substring(0, pattern.length() - 2);
+        return pattern;
+    }
+
     /**
      * <p>Invoked after the Servlet pattern matched the URI path to apply the rule's logic.</p>
      *
@@ -0,0 +1,162 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.rewrite.handler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+
+/**
+ * <p>Issues a (3xx) redirect response when the request path is one of the
+ * paths of a table of redirects, for example to redirect a large number of legacy URIs.</p>
+ * <p>The table of redirects is a hash map from request path to location, so the cost
+ * of this rule does not depend on the number of redirects.
+ * The redirects can be {@link #addRedirect(String, String) added} one by one or
+ * {@link #load(Path) loaded} from a file, that contains a redirect per line with the
+ * request path and the location separated by whitespace;
+ * blank lines and lines starting with {@code #} are ignored.</p>
+ * <p>Defaults to <a href="http://tools.ietf.org/html/rfc7231#section-6.4.3">{@code 302 Found}</a>.</p>
+ */
+public class RedirectMapRule extends Rule
+{
+    private volatile Map<String, String> _redirects = new HashMap<>();
+    private String _file;
+    private int _statusCode = HttpStatus.FOUND_302;
+
+    @Override
+    public boolean isTerminating()
+    {
+        return true;
+    }
+
+    public int getStatusCode()
+    {
+        return _statusCode;
+    }
+
+    /**
+     * Set the 3xx redirect status code.
+     * @param statusCode the 3xx redirect status code
+     */
+    public void setStatusCode(int statusCode)
+    {
+        if (!HttpStatus.isRedirection(statusCode))
+            throw new IllegalArgumentException("Invalid redirect status code " + statusCode + " (must be a value between 300 and 399)");
+        _statusCode = statusCode;
+    }
+
+    /**
+     * @param path the request path to redirect
+     * @param location the location to redirect to
+     */
+    public void addRedirect(String path, String location)
+    {
+        _redirects.put(path, location);
+    }
+
+    /**
+     * @param path the request path
+     * @return the location the request path is redirected to, or {@code null}
+     */
+    public String getRedirect(String path)
+    {
+        return _redirects.get(path);
+    }
+
+    /**
+     * @return the number of redirects
+     */
+    public int getRedirectCount()
+    {
+        return _redirects.size();
+    }
+
+    public String getFile()
+    {
+        return _file;
+    }
+
+    /**
+     * <p>Sets the file of redirects to load.</p>
+     *
+     * @param file the file of redirects
+     * @throws IOException if the file cannot be read
+     * @see #load(Path)
+     */
+    public void setFile(String file) throws IOException
+    {
+        load(Path.of(file));
+        _file = file;
+    }
+
+    /**
+     * <p>Replaces the redirects with those loaded from the given file.</p>
+     * <p>The redirects are replaced atomically, so this method may be called
+     * to reload the redirects while requests are being processed.</p>
+     *
+     * @param file the file of redirects
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line of the file is invalid
+     */
+    public void load(Path file) throws IOException
+    {
+        Map<String, String> redirects = new HashMap<>();
+        int number = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+        {
+            ++number;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] fields = line.split("\\s+");
+            if (fields.length != 2)
+                throw new IllegalArgumentException("Invalid redirect at %s:%d: %s".formatted(file, number, line));
+            redirects.put(fields[0], fields[1]);
+        }
+        _redirects = redirects;
+    }
+
+    @Override
+    public Handler matchAndApply(Handler input) throws IOException
+    {
+        String location = _redirects.get(input.getHttpURI().getPath());
+        if (location == null)
+            return null;
+        return new Handler(input)
+        {
+            @Override
+            protected boolean handle(Response response, Callback callback)
+            {
+                response.setStatus(getStatusCode());
+                response.getHeaders().put(HttpHeader.LOCATION, Response.toRedirectURI(this, location));
+                callback.succeeded();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return "%s[redirect:%d>%d redirects]".formatted(super.toString(), getStatusCode(), getRedirectCount());
+    }
+}
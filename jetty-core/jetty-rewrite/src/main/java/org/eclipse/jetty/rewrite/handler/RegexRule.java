@@ -62,6 +62,31 @@ public abstract class RegexRule extends Rule
         return null;
     }
 
+    /**
+     * @return the literal characters that start the regular expression, if it has no alternation
+     */
+    @Override
+    public String getPathPrefix()
+    {
+        String regex = getRegex();
+        if (regex == null || regex.indexOf('|') >= 0)
+            return null;
+        StringBuilder prefix = new StringBuilder();
+        for (int i = regex.startsWith("^") ? 1 : 0; i < regex.length(); i++)
+        {
+            char c = regex.charAt(i);
+            if ("\\[](){}.*+?^$".indexOf(c) >= 0)
+            {
+                // A quantifier may make the previous character optional.
+                if ((c == '*' || c == '?' || c == '{') && !prefix.isEmpty())
+                    prefix.setLength(prefix.length() - 1);
+                break;
+            }
+            prefix.append(c);
+        }
+        return prefix.isEmpty() ? null : prefix.toString();
+    }
+
     /**
      * <p>Invoked after the regular expression matched the URI path to apply the rule's logic.</p>
      *
@@ -108,6 +108,22 @@ public class RewriteHandler extends Handler.Wrapper
         _rules.clear();
     }
 
+    /**
+     * @see RuleContainer#isCompiled()
+     */
+    public boolean isCompiled()
+    {
+        return _rules.isCompiled();
+    }
+
+    /**
+     * @see RuleContainer#setCompiled(boolean)
+     */
+    public void setCompiled(boolean compiled)
+    {
+        _rules.setCompiled(compiled);
+    }
+
     /**
      * @see RuleContainer#getOriginalPathAttribute()
      */
@@ -41,6 +41,22 @@ public abstract class Rule
      */
     public abstract Handler matchAndApply(Handler input) throws IOException;
 
+    /**
+     * <p>Returns a literal prefix that the {@link HttpURI#getPathQuery() path and query}
+     * of a request must have for this rule to match.</p>
+     * <p>This is used by {@link RuleContainer#setCompiled(boolean) compiled} containers
+     * to only evaluate the rules that may match a request.
+     * Subclasses that override {@link #matchAndApply(Handler)} must override this
+     * method consistently.</p>
+     *
+     * @return a prefix that requests must have to match this rule,
+     * or {@code null} if any request may match this rule
+     */
+    public String getPathPrefix()
+    {
+        return null;
+    }
+
     /**
      * @return whether rules after this one are not invoked
      */
@@ -15,8 +15,11 @@ package org.eclipse.jetty.rewrite.handler;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.eclipse.jetty.http.HttpURI;
 import org.eclipse.jetty.util.component.Dumpable;
@@ -26,6 +29,12 @@ import org.slf4j.LoggerFactory;
 /**
  * <p>A container that groups {@link Rule}s and is itself a {@code Rule}.</p>
  * <p>The contained rules will be applied only if the container rule matches.</p>
+ * <p>By default, every rule is evaluated in order for every request.
+ * When the container is {@link #setCompiled(boolean) compiled}, the rules are indexed
+ * by their {@link Rule#getPathPrefix() path prefix} in a trie, and only the rules
+ * that may match the request path are evaluated, still in order.
+ * If a rule rewrites the request path, the rules that follow it are looked up
+ * again with the new path.</p>
  */
 public class RuleContainer extends Rule implements Iterable<Rule>, Dumpable
 {
@@ -36,6 +45,8 @@ public class RuleContainer extends Rule implements Iterable<Rule>, Dumpable
 
     private String _originalPathAttribute;
     private String _originalQueryStringAttribute;
+    private boolean _compiled;
+    private volatile Compiled _index;
 
     /**
      * @return the list of {@code Rule}s
@@ -55,6 +66,29 @@ public class RuleContainer extends Rule implements Iterable<Rule>, Dumpable
         _rules.addAll(rules);
     }
 
+    /**
+     * @return whether the rules are indexed by their path prefix
+     * @see #setCompiled(boolean)
+     */
+    public boolean isCompiled()
+    {
+        return _compiled;
+    }
+
+    /**
+     * <p>Sets whether the rules are indexed by their {@link Rule#getPathPrefix() path prefix},
+     * so that only the rules that may match a request are evaluated.</p>
+     * <p>The index is built when the first request is processed after the rules
+     * are modified, so the rules themselves must not be modified afterwards.</p>
+     *
+     * @param compiled whether the rules are indexed by their path prefix
+     */
+    public void setCompiled(boolean compiled)
+    {
+        _compiled = compiled;
+        _index = null;
+    }
+
     @Override
     public Iterator<Rule> iterator()
     {
@@ -69,6 +103,7 @@ public class RuleContainer extends Rule implements Iterable<Rule>, Dumpable
     public void addRule(Rule rule)
     {
         _rules.add(rule);
+        _index = null;
     }
 
     /**
@@ -77,6 +112,7 @@ public class RuleContainer extends Rule implements Iterable<Rule>, Dumpable
     public void clear()
     {
         _rules.clear();
+        _index = null;
     }
 
     /**
@@ -124,32 +160,60 @@ public class RuleContainer extends Rule implements Iterable<Rule>, Dumpable
                 input.setAttribute(originalQueryStringAttribute, httpURI.getQuery());
         }
 
+        if (isCompiled())
+            return matchAndApplyCompiled(input);
+
         boolean match = false;
         for (Rule rule : _rules)
         {
-            if (LOG.isDebugEnabled())
-                LOG.debug("applying {}", rule);
-            Handler output = rule.matchAndApply(input);
-            if (output == null)
+            Handler output = apply(rule, input);
+            if (output != null)
             {
-                if (LOG.isDebugEnabled())
-                    LOG.debug("no match {}", rule);
+                match = true;
+
+                // Chain the rules.
+                input = output;
+
+                if (rule.isTerminating())
+                    break;
             }
-            else
-            {
-                if (LOG.isDebugEnabled())
-                    LOG.debug("match {}", rule);
+        }
+
+        return match ? input : null;
+    }
+
+    private Handler matchAndApplyCompiled(Handler input) throws IOException
+    {
+        Compiled index = _index;
+        if (index == null)
+            _index = index = new Compiled(_rules);
 
+        String pathQuery = input.getHttpURI().getPathQuery();
+        int[] candidates = index.candidates(pathQuery);
+        boolean match = false;
+        for (int i = 0; i < candidates.length; i++)
+        {
+            int r = candidates[i];
+            Rule rule = index._rules[r];
+            Handler output = apply(rule, input);
+            if (output != null)
+            {
                 match = true;
 
                 // Chain the rules.
                 input = output;
 
                 if (rule.isTerminating())
-                {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("terminating {}", rule);
                     break;
+
+                // If the path was rewritten, look up the following rules again.
+                String rewritten = output.getHttpURI().getPathQuery();
+                if (!rewritten.equals(pathQuery))
+                {
+                    pathQuery = rewritten;
+                    candidates = index.candidates(pathQuery);
+                    int next = Arrays.binarySearch(candidates, r);
+                    i = next < 0 ? -next - 2 : next;
                 }
             }
         }
@@ -157,9 +221,119 @@ public class RuleContainer extends Rule implements Iterable<Rule>, Dumpable
         return match ? input : null;
     }
 
+    private Handler apply(Rule rule, Handler input) throws IOException
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("applying {}", rule);
+        Handler output = rule.matchAndApply(input);
+        if (LOG.isDebugEnabled())
+        {
+            if (output == null)
+                LOG.debug("no match {}", rule);
+            else if (rule.isTerminating())
+                LOG.debug("match terminating {}", rule);
+            else
+                LOG.debug("match {}", rule);
+        }
+        return output;
+    }
+
     @Override
     public void dump(Appendable out, String indent) throws IOException
     {
         Dumpable.dumpObjects(out, indent, this, _rules);
     }
+
+    /**
+     * <p>An immutable index of the rules, as a trie of their path prefixes.</p>
+     */
+    private static class Compiled
+    {
+        private final Rule[] _rules;
+        private final Node _root;
+
+        private Compiled(List<Rule> rules)
+        {
+            _rules = rules.toArray(new Rule[0]);
+            Builder root = new Builder();
+            for (int r = 0; r < _rules.length; r++)
+            {
+                String prefix = _rules[r].getPathPrefix();
+                Builder node = root;
+                if (prefix != null)
+                {
+                    for (int i = 0; i < prefix.length(); i++)
+                    {
+                        node = node._children.computeIfAbsent(prefix.charAt(i), c -> new Builder());
+                    }
+                }
+                node._rules.add(r);
+            }
+            _root = root.build();
+        }
+
+        /**
+         * @param pathQuery the request path and query
+         * @return the sorted indexes of the rules whose prefix is a prefix of the given path and query
+         */
+        private int[] candidates(String pathQuery)
+        {
+            int[] candidates = _root._rules;
+            Node node = _root;
+            for (int i = 0; i < pathQuery.length(); i++)
+            {
+                node = node.child(pathQuery.charAt(i));
+                if (node == null)
+                    break;
+                if (node._rules.length > 0)
+                {
+                    int[] merged = Arrays.copyOf(candidates, candidates.length + node._rules.length);
+                    System.arraycopy(node._rules, 0, merged, candidates.length, node._rules.length);
+                    candidates = merged;
+                }
+            }
+            if (candidates != _root._rules)
+                Arrays.sort(candidates);
+            return candidates;
+        }
+    }
+
+    private static class Node
+    {
+        private final char[] _chars;
+        private final Node[] _children;
+        private final int[] _rules;
+
+        private Node(char[] chars, Node[] children, int[] rules)
+        {
+            _chars = chars;
+            _children = children;
+            _rules = rules;
+        }
+
+        private Node child(char c)
+        {
+            int i = Arrays.binarySearch(_chars, c);
+            return i < 0 ? null : _children[i];
+        }
+    }
+
+    private static class Builder
+    {
+        private final TreeMap<Character, Builder> _children = new TreeMap<>();
+        private final List<Integer> _rules = new ArrayList<>();
+
+        private Node build()
+        {
+            char[] chars = new char[_children.size()];
+            Node[] children = new Node[_children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> entry : _children.entrySet())
+            {
+                chars[i] = entry.getKey();
+                children[i++] = entry.getValue().build();
+            }
+            return new Node(chars, children, _rules.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
 }
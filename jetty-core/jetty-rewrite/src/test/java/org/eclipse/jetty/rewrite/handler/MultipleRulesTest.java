@@ -13,9 +13,11 @@
 
 package org.eclipse.jetty.rewrite.handler;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpTester;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
@@ -152,4 +154,67 @@ public class MultipleRulesTest extends AbstractRuleTest
         assertEquals(200, response.getStatus());
         assertEquals("Rule1, Rule3", response.get(responseHeaderName));
     }
+
+    @Test
+    public void testCompiledRulesAppliedInOrder() throws Exception
+    {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            rules.add(new RedirectPatternRule("/legacy/" + i, "/moved/" + i));
+        }
+        rules.add(new RewriteRegexRule("/old/(.*)", "/new/$1"));
+        rules.add(new HeaderPatternRule("/old/*", "X-Old", "true"));
+        rules.add(new HeaderPatternRule("/new/*", "X-New", "true"));
+        rules.add(new HeaderPatternRule("*.html", "X-Html", "true"));
+        rules.add(new RedirectPatternRule("/new/redirect/*", "/redirected"));
+        _rewriteHandler.setRules(rules);
+        _rewriteHandler.setCompiled(true);
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                response.getHeaders().put("X-Path", Request.getPathInContext(request));
+                callback.succeeded();
+                return true;
+            }
+        });
+
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse("""
+            GET /legacy/42 HTTP/1.1
+            Host: localhost
+
+            """));
+        assertEquals(302, response.getStatus());
+        assertEquals("/moved/42", response.get(HttpHeader.LOCATION));
+
+        // The rules following a rewrite are looked up with the rewritten path.
+        response = HttpTester.parseResponse(_connector.getResponse("""
+            GET /old/page.html HTTP/1.1
+            Host: localhost
+
+            """));
+        assertEquals(200, response.getStatus());
+        assertEquals("/new/page.html", response.get("X-Path"));
+        assertEquals(null, response.get("X-Old"));
+        assertEquals("true", response.get("X-New"));
+        assertEquals("true", response.get("X-Html"));
+
+        response = HttpTester.parseResponse(_connector.getResponse("""
+            GET /old/redirect/x HTTP/1.1
+            Host: localhost
+
+            """));
+        assertEquals(302, response.getStatus());
+        assertEquals("/redirected", response.get(HttpHeader.LOCATION));
+
+        response = HttpTester.parseResponse(_connector.getResponse("""
+            GET /legacy/1000 HTTP/1.1
+            Host: localhost
+
+            """));
+        assertEquals(200, response.getStatus());
+        assertEquals("/legacy/1000", response.get("X-Path"));
+    }
 }
@@ -0,0 +1,94 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.rewrite.handler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.toolchain.test.MavenPaths;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RedirectMapRuleTest extends AbstractRuleTest
+{
+    private void start(RedirectMapRule rule) throws Exception
+    {
+        _rewriteHandler.addRule(rule);
+        start(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                callback.succeeded();
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void testLoadRedirects() throws Exception
+    {
+        Path dir = MavenPaths.targetTestDir(RedirectMapRuleTest.class.getSimpleName());
+        Files.createDirectories(dir);
+        Path file = dir.resolve("redirects.txt");
+        Files.writeString(file, """
+            # Legacy pages
+            /old/a.html   /new/a
+
+            /old/b.html\thttp://other.com/b
+            """);
+
+        RedirectMapRule rule = new RedirectMapRule();
+        rule.setStatusCode(HttpStatus.MOVED_PERMANENTLY_301);
+        rule.load(file);
+        assertEquals(2, rule.getRedirectCount());
+        start(rule);
+
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse("""
+            GET /old/a.html?x=1 HTTP/1.1
+            Host: localhost
+
+            """));
+        assertEquals(HttpStatus.MOVED_PERMANENTLY_301, response.getStatus());
+        assertEquals("/new/a", response.get(HttpHeader.LOCATION));
+
+        response = HttpTester.parseResponse(_connector.getResponse("""
+            GET /old/b.html HTTP/1.1
+            Host: localhost
+
+            """));
+        assertEquals("http://other.com/b", response.get(HttpHeader.LOCATION));
+
+        response = HttpTester.parseResponse(_connector.getResponse("""
+            GET /old/c.html HTTP/1.1
+            Host: localhost
+
+            """));
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+
+        // An invalid file does not replace the redirects.
+        Files.writeString(file, "/old/c.html\n");
+        assertThrows(IllegalArgumentException.class, () -> rule.load(file));
+        assertEquals("/new/a", rule.getRedirect("/old/a.html"));
+    }
+}
@@ -97,6 +97,14 @@ public class RegexRuleTest extends AbstractRuleTest
         assertTrue(rule._applied);
     }
 
+    @ParameterizedTest
+    @MethodSource("matches")
+    public void testPathPrefix(String pattern, String uri)
+    {
+        String prefix = new TestRegexRule(pattern).getPathPrefix();
+        assertTrue(prefix == null || uri.startsWith(prefix), () -> pattern + " prefix " + prefix);
+    }
+
     @ParameterizedTest
     @MethodSource("noMatches")
     public void testFalseMatch(String pattern, String uri) throws Exception
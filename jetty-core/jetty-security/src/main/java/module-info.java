@@ -16,6 +16,7 @@ module org.eclipse.jetty.security
     requires transitive org.eclipse.jetty.server;
     requires transitive org.eclipse.jetty.util;
     requires transitive org.slf4j;
+    requires static java.naming;
     requires static java.security.jgss;
     requires static transitive java.sql;
 
@@ -13,26 +13,62 @@
 
 package org.eclipse.jetty.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import javax.security.auth.Subject;
 
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Session;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.security.Password;
+import org.eclipse.jetty.util.thread.AutoLock;
 
 /**
  * AbstractLoginService
  * 
  * Base class for LoginServices that allows subclasses to provide the user authentication and authorization information,
  * but provides common behaviour such as handling authentication. 
+ * <p>
+ * The identities of the users that log in may be cached for the {@link #setIdentityCacheTimeout(long) identity cache timeout},
+ * keyed by the username and a salted digest of the credentials, so that the user information is not loaded, and the
+ * credentials are not checked, for every request of an authenticated user.  Failed logins may also be cached for the
+ * {@link #setIdentityCacheNegativeTimeout(long) negative timeout}.  The cache holds at most
+ * {@link #setIdentityCacheMaxSize(int) max size} entries, evicting the least recently used ones, and should be
+ * {@link #invalidateIdentityCache(String) invalidated} when a user is changed in the user store.
+ * </p>
  */
+@ManagedObject("Login Service")
 public abstract class AbstractLoginService extends ContainerLifeCycle implements LoginService
 {
     protected IdentityService _identityService = new DefaultIdentityService();
     protected String _name;
     protected boolean _fullValidate = false;
+    private final AutoLock _identityCacheLock = new AutoLock();
+    private final Map<IdentityKey, CachedIdentity> _identityCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder _identityCacheHits = new LongAdder();
+    private final LongAdder _identityCacheMisses = new LongAdder();
+    private final byte[] _identityCacheSalt = new byte[16];
+    private long _identityCacheTimeout;
+    private long _identityCacheNegativeTimeout;
+    private int _identityCacheMaxSize = 1024;
 
     protected abstract List<RolePrincipal> loadRoleInfo(UserPrincipal user);
 
@@ -41,6 +77,7 @@ public abstract class AbstractLoginService extends ContainerLifeCycle implements
     protected AbstractLoginService()
     {
         installBean(_identityService);
+        new SecureRandom().nextBytes(_identityCacheSalt);
     }
 
     @Override
@@ -75,6 +112,113 @@ public abstract class AbstractLoginService extends ContainerLifeCycle implements
         _name = name;
     }
 
+    /**
+     * @return the time in ms that the identity of a user that logged in is cached, or 0 if identities are not cached
+     */
+    @ManagedAttribute("The time in ms that the identity of a user that logged in is cached")
+    public long getIdentityCacheTimeout()
+    {
+        return _identityCacheTimeout;
+    }
+
+    /**
+     * @param identityCacheTimeout the time in ms that the identity of a user that logged in is cached,
+     * or 0 to not cache identities
+     */
+    public void setIdentityCacheTimeout(long identityCacheTimeout)
+    {
+        _identityCacheTimeout = identityCacheTimeout;
+    }
+
+    /**
+     * @return the time in ms that a failed login is cached, or 0 if failed logins are not cached
+     */
+    @ManagedAttribute("The time in ms that a failed login is cached")
+    public long getIdentityCacheNegativeTimeout()
+    {
+        return _identityCacheNegativeTimeout;
+    }
+
+    /**
+     * @param identityCacheNegativeTimeout the time in ms that a failed login is cached, or 0 to not cache failed logins
+     */
+    public void setIdentityCacheNegativeTimeout(long identityCacheNegativeTimeout)
+    {
+        _identityCacheNegativeTimeout = identityCacheNegativeTimeout;
+    }
+
+    /**
+     * @return the max number of cached identities and failed logins
+     */
+    @ManagedAttribute("The max number of cached identities and failed logins")
+    public int getIdentityCacheMaxSize()
+    {
+        return _identityCacheMaxSize;
+    }
+
+    /**
+     * @param identityCacheMaxSize the max number of cached identities and failed logins
+     */
+    public void setIdentityCacheMaxSize(int identityCacheMaxSize)
+    {
+        _identityCacheMaxSize = identityCacheMaxSize;
+    }
+
+    @ManagedAttribute("The number of cached identities and failed logins")
+    public int getIdentityCacheSize()
+    {
+        try (AutoLock ignored = _identityCacheLock.lock())
+        {
+            return _identityCache.size();
+        }
+    }
+
+    @ManagedAttribute("The number of logins found in the identity cache")
+    public long getIdentityCacheHits()
+    {
+        return _identityCacheHits.sum();
+    }
+
+    @ManagedAttribute("The number of logins not found in the identity cache")
+    public long getIdentityCacheMisses()
+    {
+        return _identityCacheMisses.sum();
+    }
+
+    /**
+     * Removes all the cached identities and failed logins.
+     */
+    @ManagedOperation(value = "Invalidate the identity cache", impact = "ACTION")
+    public void invalidateIdentityCache()
+    {
+        try (AutoLock ignored = _identityCacheLock.lock())
+        {
+            _identityCache.clear();
+        }
+    }
+
+    /**
+     * Removes the cached identities and failed logins of a user,
+     * for example because the user was changed or removed in the user store.
+     *
+     * @param username the name of the user
+     */
+    @ManagedOperation(value = "Invalidate the cached identities of a user", impact = "ACTION")
+    public void invalidateIdentityCache(@Name("username") String username)
+    {
+        try (AutoLock ignored = _identityCacheLock.lock())
+        {
+            _identityCache.keySet().removeIf(key -> key.username().equals(username));
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        invalidateIdentityCache();
+    }
+
     @Override
     public String toString()
     {
@@ -87,6 +231,114 @@ public abstract class AbstractLoginService extends ContainerLifeCycle implements
         if (username == null)
             return null;
 
+        IdentityKey key = getIdentityKey(username, credentials);
+        if (key == null)
+            return doLogin(username, credentials);
+
+        CachedIdentity cached = getCachedIdentity(key);
+        if (cached != null)
+            return cached.identity();
+        _identityCacheMisses.increment();
+
+        long now = NanoTime.now();
+        UserIdentity identity = doLogin(username, credentials);
+
+        long timeout = identity == null ? getIdentityCacheNegativeTimeout() : getIdentityCacheTimeout();
+        if (timeout > 0)
+        {
+            try (AutoLock ignored = _identityCacheLock.lock())
+            {
+                _identityCache.put(key, new CachedIdentity(identity, now + TimeUnit.MILLISECONDS.toNanos(timeout)));
+                int maxSize = getIdentityCacheMaxSize();
+                Iterator<CachedIdentity> iterator = _identityCache.values().iterator();
+                while (_identityCache.size() > maxSize && iterator.hasNext())
+                {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        return identity;
+    }
+
+    /**
+     * <p>Logs in a user asynchronously, so that the calling thread is not blocked while the
+     * user information is loaded, for example from a database.</p>
+     * <p>The identity is returned without dispatching to the executor if it is found in the
+     * {@link #setIdentityCacheTimeout(long) identity cache}.</p>
+     *
+     * @param username the name of the user
+     * @param credentials the credentials of the user
+     * @param executor the executor that runs the login
+     * @return a future completed with the identity of the user, or with null if the login failed
+     * @see #login(String, Object, Request, Function)
+     */
+    public CompletableFuture<UserIdentity> loginAsync(String username, Object credentials, Executor executor)
+    {
+        if (username == null)
+            return CompletableFuture.completedFuture(null);
+        IdentityKey key = getIdentityKey(username, credentials);
+        CachedIdentity cached = key == null ? null : getCachedIdentity(key);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached.identity());
+        return CompletableFuture.supplyAsync(() -> login(username, credentials, null, null), executor);
+    }
+
+    private CachedIdentity getCachedIdentity(IdentityKey key)
+    {
+        try (AutoLock ignored = _identityCacheLock.lock())
+        {
+            CachedIdentity cached = _identityCache.get(key);
+            if (cached == null)
+                return null;
+            if (NanoTime.isBefore(NanoTime.now(), cached.expireNanoTime()))
+            {
+                _identityCacheHits.increment();
+                return cached;
+            }
+            _identityCache.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * @param username the name of the user
+     * @param credentials the credentials of the user
+     * @return the key of the identity cache for the given user and credentials,
+     * or null if the identity cache is disabled or the credentials cannot be cached
+     */
+    private IdentityKey getIdentityKey(String username, Object credentials)
+    {
+        if (getIdentityCacheTimeout() <= 0 && getIdentityCacheNegativeTimeout() <= 0)
+            return null;
+
+        String password;
+        if (credentials instanceof String string)
+            password = string;
+        else if (credentials instanceof char[] chars)
+            password = new String(chars);
+        else if (credentials instanceof Password)
+            password = credentials.toString();
+        else
+            return null;
+
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(_identityCacheSalt);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte)0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return new IdentityKey(username, StringUtil.toHexString(digest.digest()));
+        }
+        catch (NoSuchAlgorithmException x)
+        {
+            return null;
+        }
+    }
+
+    private UserIdentity doLogin(String username, Object credentials)
+    {
         UserPrincipal userPrincipal = loadUserInfo(username);
         if (userPrincipal != null && userPrincipal.authenticate(credentials))
         {
@@ -152,4 +404,12 @@ public abstract class AbstractLoginService extends ContainerLifeCycle implements
     {
         _fullValidate = fullValidate;
     }
+
+    private record IdentityKey(String username, String digest)
+    {
+    }
+
+    private record CachedIdentity(UserIdentity identity, long expireNanoTime)
+    {
+    }
 }
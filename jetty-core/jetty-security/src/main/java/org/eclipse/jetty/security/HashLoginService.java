@@ -16,6 +16,7 @@ package org.eclipse.jetty.security;
 import java.util.List;
 
 import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.security.Credential;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +40,21 @@ public class HashLoginService extends AbstractLoginService
     private int _reloadInterval; // default is not to reload
     private UserStore _userStore;
     private boolean _userStoreAutoCreate = false;
+    // Users that are updated or removed in the property file must login again.
+    private final PropertyUserStore.UserListener _userListener = new PropertyUserStore.UserListener()
+    {
+        @Override
+        public void update(String username, Credential credential, String[] roleArray)
+        {
+            invalidateIdentityCache(username);
+        }
+
+        @Override
+        public void remove(String username)
+        {
+            invalidateIdentityCache(username);
+        }
+    };
 
     public HashLoginService()
     {
@@ -124,8 +140,12 @@ public class HashLoginService extends AbstractLoginService
      */
     public void setUserStore(UserStore userStore)
     {
+        if (_userStore instanceof PropertyUserStore propertyUserStore)
+            propertyUserStore.unregisterUserListener(_userListener);
         updateBean(_userStore, userStore);
         _userStore = userStore;
+        if (userStore instanceof PropertyUserStore propertyUserStore)
+            propertyUserStore.registerUserListener(_userListener);
     }
 
     @Override
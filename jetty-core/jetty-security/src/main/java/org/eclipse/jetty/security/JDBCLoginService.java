@@ -23,22 +23,36 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.stream.Collectors;
+import javax.naming.InitialContext;
+import javax.sql.DataSource;
 
 import org.eclipse.jetty.io.IOResources;
 import org.eclipse.jetty.util.Loader;
 import org.eclipse.jetty.util.resource.ResourceFactory;
 import org.eclipse.jetty.util.security.Credential;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * JDBC as a source of user authentication and authorization information.
- * Uses one database connection that is lazily initialized. Reconnect on failures.
+ * <p>
+ * By default, uses one database connection from the {@link DriverManager} that is lazily initialized,
+ * with its prepared statements cached, and that is reconnected on failures.  If a {@link DataSource}
+ * is {@link #setDataSource(DataSource) set}, or {@link #setDataSourceName(String) looked up in JNDI},
+ * the connections are instead obtained from the data source for each login, so that concurrent
+ * logins are not serialized on a single connection when the data source is pooled.
+ * </p>
+ * <p>
+ * The user and its roles are loaded with a single join query, and the login may be performed
+ * {@link #loginAsync(String, Object, java.util.concurrent.Executor) asynchronously}.
+ * </p>
  */
 public class JDBCLoginService extends AbstractLoginService
 {
     private static final Logger LOG = LoggerFactory.getLogger(JDBCLoginService.class);
 
+    private final AutoLock _lock = new AutoLock();
     protected String _config;
     protected String _jdbcDriver;
     protected String _url;
@@ -49,7 +63,13 @@ public class JDBCLoginService extends AbstractLoginService
     protected String _roleTableRoleField;
     protected String _userSql;
     protected String _roleSql;
+    protected String _userRoleSql;
     protected Connection _con;
+    private PreparedStatement _userRoleStatement;
+    private PreparedStatement _roleStatement;
+    private String _dataSourceName;
+    private DataSource _dataSource;
+    private boolean _dataSourceLookup;
 
     /**
      * A UserPrincipal with extra jdbc key info.
@@ -57,17 +77,32 @@ public class JDBCLoginService extends AbstractLoginService
     public static class JDBCUserPrincipal extends UserPrincipal
     {
         final int _userKey;
+        final List<RolePrincipal> _roles;
 
         public JDBCUserPrincipal(String name, Credential credential, int key)
+        {
+            this(name, credential, key, null);
+        }
+
+        public JDBCUserPrincipal(String name, Credential credential, int key, List<RolePrincipal> roles)
         {
             super(name, credential);
             _userKey = key;
+            _roles = roles;
         }
 
         public int getUserKey()
         {
             return _userKey;
         }
+
+        /**
+         * @return the roles loaded with the user, or null if they were not loaded
+         */
+        public List<RolePrincipal> getRoles()
+        {
+            return _roles;
+        }
     }
 
     public JDBCLoginService()
@@ -108,6 +143,8 @@ public class JDBCLoginService extends AbstractLoginService
         _userTableKey = properties.getProperty("usertablekey");
         _userTablePasswordField = properties.getProperty("usertablepasswordfield");
         _roleTableRoleField = properties.getProperty("roletablerolefield");
+        if (_dataSourceName == null)
+            _dataSourceName = properties.getProperty("datasource");
 
         final String userTable = properties.getProperty("usertable");
         final String userTableUserField = properties.getProperty("usertableuserfield");
@@ -117,10 +154,16 @@ public class JDBCLoginService extends AbstractLoginService
         final String userRoleTableUserKey = properties.getProperty("userroletableuserkey");
         final String userRoleTableRoleKey = properties.getProperty("userroletablerolekey");
 
-        if (_jdbcDriver == null || _jdbcDriver.isEmpty() ||
+        if (_dataSource == null && _dataSourceName != null && !_dataSourceName.isEmpty())
+        {
+            _dataSource = (DataSource)new InitialContext().lookup(_dataSourceName);
+            _dataSourceLookup = true;
+        }
+
+        if (_dataSource == null && (_jdbcDriver == null || _jdbcDriver.isEmpty() ||
             _url == null || _url.isEmpty() ||
             _userName == null || _userName.isEmpty() ||
-            _password == null)
+            _password == null))
         {
             LOG.warn("UserRealm {} has not been properly configured", getName());
         }
@@ -130,8 +173,14 @@ public class JDBCLoginService extends AbstractLoginService
             " from " + roleTable + " r, " + userRoleTable +
             " u where u." + userRoleTableUserKey + " = ?" +
             " and r." + roleTableKey + " = u." + userRoleTableRoleKey;
-
-        Loader.loadClass(_jdbcDriver).getDeclaredConstructor().newInstance();
+        _userRoleSql = "select u." + _userTableKey + ", u." + _userTablePasswordField + ", r." + _roleTableRoleField +
+            " from " + userTable + " u" +
+            " left outer join " + userRoleTable + " ur on ur." + userRoleTableUserKey + " = u." + _userTableKey +
+            " left outer join " + roleTable + " r on r." + roleTableKey + " = ur." + userRoleTableRoleKey +
+            " where u." + userTableUserField + " = ?";
+
+        if (_dataSource == null)
+            Loader.loadClass(_jdbcDriver).getDeclaredConstructor().newInstance();
         super.doStart();
     }
 
@@ -152,12 +201,55 @@ public class JDBCLoginService extends AbstractLoginService
         _config = config;
     }
 
+    /**
+     * @return the JNDI name of the {@link DataSource} to obtain the connections from, or null
+     */
+    public String getDataSourceName()
+    {
+        return _dataSourceName;
+    }
+
+    /**
+     * <p>Sets the JNDI name of the {@link DataSource} to obtain the connections from,
+     * which may also be configured with the {@code datasource} property of the config file.</p>
+     *
+     * @param dataSourceName the JNDI name of the data source, or null to connect with the {@link DriverManager}
+     */
+    public void setDataSourceName(String dataSourceName)
+    {
+        if (isRunning())
+            throw new IllegalStateException("Running");
+        _dataSourceName = dataSourceName;
+    }
+
+    /**
+     * @return the {@link DataSource} to obtain the connections from, or null
+     */
+    public DataSource getDataSource()
+    {
+        return _dataSource;
+    }
+
+    /**
+     * @param dataSource the {@link DataSource} to obtain the connections from, typically a pooled one,
+     * or null to connect with the {@link DriverManager}
+     */
+    public void setDataSource(DataSource dataSource)
+    {
+        if (isRunning())
+            throw new IllegalStateException("Running");
+        _dataSource = dataSource;
+        _dataSourceLookup = false;
+    }
+
     /**
      * Connect to database with parameters setup by loadConfig()
      */
     public Connection connectDatabase()
         throws SQLException
     {
+        if (_dataSource != null)
+            return _dataSource.getConnection();
         return DriverManager.getConnection(_url, _userName, _password);
     }
 
@@ -166,23 +258,23 @@ public class JDBCLoginService extends AbstractLoginService
     {
         try
         {
-            if (null == _con)
-                _con = connectDatabase();
-
-            try (PreparedStatement stat1 = _con.prepareStatement(_userSql))
+            if (_dataSource != null)
             {
-                stat1.setObject(1, username);
-                try (ResultSet rs1 = stat1.executeQuery())
+                try (Connection connection = connectDatabase();
+                     PreparedStatement statement = connection.prepareStatement(_userRoleSql))
                 {
-                    if (rs1.next())
-                    {
-                        int key = rs1.getInt(_userTableKey);
-                        String credentials = rs1.getString(_userTablePasswordField);
-
-                        return new JDBCUserPrincipal(username, Credential.getCredential(credentials), key);
-                    }
+                    return loadUserInfo(statement, username);
                 }
             }
+
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (null == _con)
+                    _con = connectDatabase();
+                if (_userRoleStatement == null)
+                    _userRoleStatement = _con.prepareStatement(_userRoleSql);
+                return loadUserInfo(_userRoleStatement, username);
+            }
         }
         catch (SQLException e)
         {
@@ -193,6 +285,29 @@ public class JDBCLoginService extends AbstractLoginService
         return null;
     }
 
+    private UserPrincipal loadUserInfo(PreparedStatement statement, String username) throws SQLException
+    {
+        statement.setObject(1, username);
+        try (ResultSet rs = statement.executeQuery())
+        {
+            if (!rs.next())
+                return null;
+
+            int key = rs.getInt(1);
+            String credentials = rs.getString(2);
+            List<RolePrincipal> roles = new ArrayList<>();
+            do
+            {
+                String role = rs.getString(3);
+                if (role != null)
+                    roles.add(new RolePrincipal(role));
+            }
+            while (rs.next());
+
+            return new JDBCUserPrincipal(username, Credential.getCredential(credentials), key, roles);
+        }
+    }
+
     @Override
     public List<RolePrincipal> loadRoleInfo(UserPrincipal user)
     {
@@ -200,25 +315,28 @@ public class JDBCLoginService extends AbstractLoginService
             return null;
 
         JDBCUserPrincipal jdbcUser = (JDBCUserPrincipal)user;
+        if (jdbcUser.getRoles() != null)
+            return jdbcUser.getRoles();
 
         try
         {
-            if (null == _con)
-                _con = connectDatabase();
-
-            List<String> roles = new ArrayList<String>();
-
-            try (PreparedStatement stat2 = _con.prepareStatement(_roleSql))
+            if (_dataSource != null)
             {
-                stat2.setInt(1, jdbcUser.getUserKey());
-                try (ResultSet rs2 = stat2.executeQuery())
+                try (Connection connection = connectDatabase();
+                     PreparedStatement statement = connection.prepareStatement(_roleSql))
                 {
-                    while (rs2.next())
-                        roles.add(rs2.getString(_roleTableRoleField));
-                                        
-                    return roles.stream().map(RolePrincipal::new).collect(Collectors.toList());
+                    return loadRoleInfo(statement, jdbcUser);
                 }
             }
+
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (null == _con)
+                    _con = connectDatabase();
+                if (_roleStatement == null)
+                    _roleStatement = _con.prepareStatement(_roleSql);
+                return loadRoleInfo(_roleStatement, jdbcUser);
+            }
         }
         catch (SQLException e)
         {
@@ -229,10 +347,27 @@ public class JDBCLoginService extends AbstractLoginService
         return null;
     }
 
+    private List<RolePrincipal> loadRoleInfo(PreparedStatement statement, JDBCUserPrincipal user) throws SQLException
+    {
+        List<String> roles = new ArrayList<>();
+        statement.setInt(1, user.getUserKey());
+        try (ResultSet rs = statement.executeQuery())
+        {
+            while (rs.next())
+                roles.add(rs.getString(_roleTableRoleField));
+        }
+        return roles.stream().map(RolePrincipal::new).collect(Collectors.toList());
+    }
+
     @Override
     protected void doStop() throws Exception
     {
         closeConnection();
+        if (_dataSourceLookup)
+        {
+            _dataSource = null;
+            _dataSourceLookup = false;
+        }
         super.doStop();
     }
 
@@ -241,19 +376,25 @@ public class JDBCLoginService extends AbstractLoginService
      */
     private void closeConnection()
     {
-        if (_con != null)
+        try (AutoLock ignored = _lock.lock())
         {
-            if (LOG.isDebugEnabled())
-                LOG.debug("Closing db connection for JDBCLoginService");
-            try
-            {
-                _con.close();
-            }
-            catch (Exception e)
+            if (_con != null)
             {
-                LOG.trace("IGNORED", e);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Closing db connection for JDBCLoginService");
+                try
+                {
+                    // Closing the connection closes its cached statements.
+                    _con.close();
+                }
+                catch (Exception e)
+                {
+                    LOG.trace("IGNORED", e);
+                }
             }
+            _con = null;
+            _userRoleStatement = null;
+            _roleStatement = null;
         }
-        _con = null;
     }
 }
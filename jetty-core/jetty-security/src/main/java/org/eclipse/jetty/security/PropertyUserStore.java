@@ -307,6 +307,17 @@ public class PropertyUserStore extends UserStore implements Scanner.DiscreteList
         _listeners.add(listener);
     }
 
+    /**
+     * Unregisters a listener previously registered with {@link #registerUserListener(UserListener)}
+     *
+     * @param listener the user listener
+     */
+    public void unregisterUserListener(UserListener listener)
+    {
+        if (_listeners != null)
+            _listeners.remove(listener);
+    }
+
     public interface UserListener
     {
         void update(String username, Credential credential, String[] roleArray);
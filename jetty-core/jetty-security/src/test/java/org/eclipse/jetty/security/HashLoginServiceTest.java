@@ -14,18 +14,23 @@
 package org.eclipse.jetty.security;
 
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.security.Credential;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 /**
  * Tests of the HashLoginService.
@@ -66,4 +71,79 @@ public class HashLoginServiceTest
         assertFalse(store.isStarted());
         assertThat(loginService.getUserStore(), is(notNullValue()));
     }
+
+    @Test
+    public void testReplacedUserStoreListener()
+    {
+        PropertyUserStore store1 = new PropertyUserStore();
+        PropertyUserStore store2 = new PropertyUserStore();
+        HashLoginService loginService = new HashLoginService("users");
+
+        loginService.setUserStore(store1);
+        assertEquals(1, store1._listeners.size());
+
+        // The listener is moved to the new store.
+        loginService.setUserStore(store2);
+        assertEquals(0, store1._listeners.size());
+        assertEquals(1, store2._listeners.size());
+
+        // Setting the same store does not register the listener twice.
+        loginService.setUserStore(store2);
+        assertEquals(1, store2._listeners.size());
+
+        loginService.setUserStore(null);
+        assertEquals(0, store2._listeners.size());
+    }
+
+    @Test
+    public void testIdentityCache() throws Exception
+    {
+        AtomicInteger loads = new AtomicInteger();
+        UserStore store = new UserStore()
+        {
+            @Override
+            public UserPrincipal getUserPrincipal(String username)
+            {
+                loads.incrementAndGet();
+                return super.getUserPrincipal(username);
+            }
+        };
+        store.addUser("fred", Credential.getCredential("pwd"), new String[]{"admin"});
+        HashLoginService loginService = new HashLoginService("users");
+        loginService.setUserStore(store);
+        loginService.setIdentityCacheTimeout(60000);
+        loginService.setIdentityCacheNegativeTimeout(60000);
+        loginService.start();
+
+        UserIdentity identity = loginService.login("fred", "pwd", null, null);
+        assertThat(identity, is(notNullValue()));
+        assertTrue(identity.isUserInRole("admin"));
+        assertThat(loginService.login("fred", "pwd", null, null), sameInstance(identity));
+        assertEquals(1, loads.get());
+        // A cached identity is returned without dispatching to the executor.
+        assertThat(loginService.loginAsync("fred", "pwd", task -> fail()).getNow(null), sameInstance(identity));
+
+        // Failed logins are cached too, separately from the successful ones.
+        assertThat(loginService.login("fred", "wrong", null, null), is(nullValue()));
+        assertThat(loginService.login("fred", "wrong", null, null), is(nullValue()));
+        assertEquals(2, loads.get());
+        assertEquals(3, loginService.getIdentityCacheHits());
+        assertEquals(2, loginService.getIdentityCacheMisses());
+        assertEquals(2, loginService.getIdentityCacheSize());
+
+        // The user changes password.
+        store.addUser("fred", Credential.getCredential("wrong"), new String[]{"admin"});
+        loginService.invalidateIdentityCache("fred");
+        assertEquals(0, loginService.getIdentityCacheSize());
+        assertThat(loginService.login("fred", "pwd", null, null), is(nullValue()));
+        assertThat(loginService.login("fred", "wrong", null, null), is(notNullValue()));
+
+        // The cache is bounded.
+        loginService.setIdentityCacheMaxSize(1);
+        assertThat(loginService.login("fred", "other", null, null), is(nullValue()));
+        assertEquals(1, loginService.getIdentityCacheSize());
+
+        loginService.stop();
+        assertEquals(0, loginService.getIdentityCacheSize());
+    }
 }
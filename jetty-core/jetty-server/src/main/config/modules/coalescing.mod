@@ -0,0 +1,38 @@
+[description]
+Installs CoalescingHandler at the root of the `Handler` tree,
+to handle only once concurrent identical GET requests, and replay the response to all of them.
+
+[tags]
+server
+
+[before]
+compression
+gzip
+
+[depends]
+server
+
+[xml]
+etc/jetty-coalescing.xml
+
+[ini-template]
+#tag::documentation[]
+## A comma-separated list of request headers that, with the method and the URI,
+## identify identical requests.
+# jetty.coalescing.keyHeaders=Accept,Accept-Encoding
+
+## The maximum number of requests that may wait for the response of an identical request.
+# jetty.coalescing.maxWaiters=1024
+
+## The maximum content size, in bytes, of a response that may be replayed.
+# jetty.coalescing.maxContentSize=262144
+
+## The maximum duration that a request may wait for the response of an identical request, in milliseconds.
+# jetty.coalescing.maxWait=5000
+
+## A comma-separated list of URI path patterns to include when matching a request.
+# jetty.coalescing.include.path=
+
+## A comma-separated list of URI path patterns to exclude when matching a request.
+# jetty.coalescing.exclude.path=
+#end::documentation[]
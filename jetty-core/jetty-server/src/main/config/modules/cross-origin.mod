@@ -45,4 +45,7 @@ etc/jetty-cross-origin.xml
 
 ## How long the preflight results can be cached by browsers, in seconds.
 # jetty.crossorigin.preflightMaxAge=60
+
+## The max number of Origin header values whose allow decision is cached, or 0 to disable the cache.
+# jetty.crossorigin.originCacheSize=1024
 #end::documentation[]
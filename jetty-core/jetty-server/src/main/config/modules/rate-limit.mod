@@ -0,0 +1,52 @@
+[description]
+Installs RateLimitHandler at the root of the `Handler` tree,
+to limit the rate of requests of each client, identified by its remote address.
+
+[tags]
+server
+
+[before]
+compression
+gzip
+
+[depends]
+server
+
+[xml]
+etc/jetty-rate-limit.xml
+
+[ini-template]
+#tag::documentation[]
+## The average number of requests per second allowed for each client.
+# jetty.rateLimit.maxRequestsPerSecond=10
+
+## The number of requests that each client may perform at once.
+# jetty.rateLimit.burst=10
+
+## The maximum number of clients that are tracked.
+# jetty.rateLimit.maxKeys=65536
+
+## The action taken for requests that exceed the rate limit, either REJECT or DELAY.
+# jetty.rateLimit.action=REJECT
+
+## The maximum duration that a request may be delayed by the DELAY action, in milliseconds.
+# jetty.rateLimit.maxDelay=1000
+
+## A comma-separated list of HTTP methods to include when matching a request.
+# jetty.rateLimit.include.method=
+
+## A comma-separated list of HTTP methods to exclude when matching a request.
+# jetty.rateLimit.exclude.method=
+
+## A comma-separated list of URI path patterns to include when matching a request.
+# jetty.rateLimit.include.path=
+
+## A comma-separated list of URI path patterns to exclude when matching a request.
+# jetty.rateLimit.exclude.path=
+
+## A comma-separated list of remote addresses patterns to include when matching a request.
+# jetty.rateLimit.include.inet=
+
+## A comma-separated list of remote addresses patterns to exclude when matching a request.
+# jetty.rateLimit.exclude.inet=
+#end::documentation[]
@@ -115,6 +115,15 @@ etc/jetty.xml
 ## If set to false, then <env>-deploy module jetty.deploy.scanInterval should also be set to 0.
 # jetty.server.contexts.dynamic=true
 
+## Whether the contexts are started by their first request rather than when the server starts
+# jetty.server.contexts.lazyStart=false
+
+## The max number of requests queued for a context while it is lazily started
+# jetty.server.contexts.maxLazyStartQueueSize=128
+
+## The time (in ms) after which a lazily started context that received no requests is stopped (0 to never stop)
+# jetty.server.contexts.idleStopTimeout=0
+
 ## Should the DefaultHandler serve the jetty favicon.ico from the root.
 # jetty.server.default.serveFavIcon=true
 
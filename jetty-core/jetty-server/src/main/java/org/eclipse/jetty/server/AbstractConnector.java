@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -142,6 +143,8 @@ public abstract class AbstractConnector extends ContainerLifeCycle implements Co
 
     private final AutoLock _lock = new AutoLock();
     private final Condition _setAccepting = _lock.newCondition();
+    private final AutoLock _acceptLimitLock = new AutoLock();
+    private final Set<Object> _acceptLimiters = Collections.newSetFromMap(new IdentityHashMap<>());
     private final Map<String, ConnectionFactory> _factories = new LinkedHashMap<>(); // Order is important on server side, so we use a LinkedHashMap
     private final Server _server;
     private final Executor _executor;
@@ -420,6 +423,35 @@ public abstract class AbstractConnector extends ContainerLifeCycle implements Co
         }
     }
 
+    /**
+     * <p>Pauses or resumes accepting new connections on behalf of the given limiter.</p>
+     * <p>Several limiters, such as {@link ConnectionLimit}, {@link AcceptRateLimit},
+     * {@link LowResourceMonitor} or {@link SslHandshakeExecutor}, may limit the same
+     * connector: accepting is paused when the first of them limits, and resumed only
+     * when none of them limits anymore.</p>
+     *
+     * @param limiter the component that limits accepting
+     * @param limited whether the given limiter pauses accepting
+     * @see #setAccepting(boolean)
+     */
+    public void setAcceptLimited(Object limiter, boolean limited)
+    {
+        // Serialize the limiters, so that calls to setAccepting() are not reordered.
+        try (AutoLock l = _acceptLimitLock.lock())
+        {
+            boolean wasLimited = !_acceptLimiters.isEmpty();
+            if (limited)
+                _acceptLimiters.add(limiter);
+            else
+                _acceptLimiters.remove(limiter);
+            boolean isLimited = !_acceptLimiters.isEmpty();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Accept limited={} by {} limiters={} {}", limited, limiter, _acceptLimiters, this);
+            if (isLimited != wasLimited)
+                setAccepting(!isLimited);
+        }
+    }
+
     @Override
     public ConnectionFactory getConnectionFactory(String protocol)
     {
@@ -184,7 +184,7 @@ public class AcceptRateLimit extends AbstractLifeCycle implements SelectorManage
     {
         for (AbstractConnector c : _connectors)
         {
-            c.setAccepting(false);
+            c.setAcceptLimited(this, true);
         }
         schedule();
     }
@@ -193,7 +193,7 @@ public class AcceptRateLimit extends AbstractLifeCycle implements SelectorManage
     {
         for (AbstractConnector c : _connectors)
         {
-            c.setAccepting(true);
+            c.setAcceptLimited(this, false);
         }
     }
 
@@ -34,7 +34,7 @@ import org.slf4j.LoggerFactory;
 /**
  * <p>A Listener that limits the number of Connections.</p>
  * <p>This listener applies a limit to the number of connections, which when
- * exceeded results in  a call to {@link AbstractConnector#setAccepting(boolean)}
+ * exceeded results in  a call to {@link AbstractConnector#setAcceptLimited(Object, boolean)}
  * to prevent further connections being received.
  * This listener can be applied to an entire {@link Server} or to a specific
  * {@link Connector} by adding it via {@link Container#addBean(Object)}.
@@ -215,7 +215,7 @@ public class ConnectionLimit extends AbstractLifeCycle implements Listener, Sele
     {
         for (AbstractConnector c : _connectors)
         {
-            c.setAccepting(false);
+            c.setAcceptLimited(this, true);
 
             if (_idleTimeout > 0)
             {
@@ -231,7 +231,7 @@ public class ConnectionLimit extends AbstractLifeCycle implements Listener, Sele
     {
         for (AbstractConnector c : _connectors)
         {
-            c.setAccepting(true);
+            c.setAcceptLimited(this, false);
 
             if (_idleTimeout > 0)
             {
@@ -17,6 +17,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jetty.http.HttpHeader;
@@ -29,6 +30,7 @@ import org.eclipse.jetty.util.CharsetStringBuilder;
 import org.eclipse.jetty.util.Fields;
 import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.UrlEncoded;
 
 import static org.eclipse.jetty.util.UrlEncoded.decodeHexByte;
 
@@ -36,6 +38,9 @@ import static org.eclipse.jetty.util.UrlEncoded.decodeHexByte;
  * <p>A {@link CompletableFuture} that is completed once a {@code application/x-www-form-urlencoded}
  * content has been parsed asynchronously from the {@link Content.Source}.</p>
  * <p><a href="https://url.spec.whatwg.org/#application/x-www-form-urlencoded">Specification</a>.</p>
+ * <p>UTF-8 and ISO-8859-1 content is buffered and then scanned once, so that the
+ * fields are decoded only when accessed (see {@link UrlEncoded#decodeToLazyFields(byte[], int, int, Charset, int, int)});
+ * other charsets, or content much larger than the max length, are decoded while the content is read.</p>
  */
 public class FormFields extends ContentSourceCompletableFuture<Fields>
 {
@@ -310,9 +315,13 @@ public class FormFields extends ContentSourceCompletableFuture<Fields>
     }
 
     private final Fields _fields;
+    private final Charset _charset;
     private final CharsetStringBuilder _builder;
     private final int _maxFields;
     private final int _maxLength;
+    private final int _maxLazyLength;
+    private byte[] _bytes;
+    private int _size;
     private int _length;
     private String _name;
     private int _percent = 0;
@@ -323,15 +332,61 @@ public class FormFields extends ContentSourceCompletableFuture<Fields>
         super(source, invocationType);
         _maxFields = maxFields;
         _maxLength = maxSize;
+        _charset = charset;
         _builder = CharsetStringBuilder.forCharset(charset);
         _fields = new Fields(true);
+        // Percent encoding may triple the length of the content, but beyond
+        // that buffering the content is not worth it, so decode it eagerly.
+        boolean lazy = maxSize >= 0 && (StandardCharsets.UTF_8.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset));
+        _maxLazyLength = lazy ? (int)Math.min(Integer.MAX_VALUE - 8, 3L * maxSize + 1) : -1;
+        if (lazy)
+            _bytes = new byte[Math.min(_maxLazyLength, 1024)];
     }
 
     @Override
     protected Fields parse(Content.Chunk chunk) throws CharacterCodingException
     {
         ByteBuffer buffer = chunk.getByteBuffer();
+        if (_bytes != null)
+        {
+            int remaining = buffer.remaining();
+            if (_size + remaining <= _maxLazyLength)
+            {
+                if (_size + remaining > _bytes.length)
+                    _bytes = Arrays.copyOf(_bytes, (int)Math.min(_maxLazyLength, Math.max(_size + remaining, 2L * _bytes.length)));
+                buffer.get(_bytes, _size, remaining);
+                _size += remaining;
+                if (!chunk.isLast())
+                    return null;
+                Fields fields = parseLazily();
+                if (fields != null)
+                    return fields;
+            }
+            // Decode eagerly the content buffered so far.
+            byte[] bytes = _bytes;
+            _bytes = null;
+            Fields fields = parse(ByteBuffer.wrap(bytes, 0, _size), chunk.isLast() && !buffer.hasRemaining());
+            if (fields != null || !buffer.hasRemaining())
+                return fields;
+        }
+        return parse(buffer, chunk.isLast());
+    }
 
+    private Fields parseLazily()
+    {
+        try
+        {
+            return UrlEncoded.decodeToLazyFields(_bytes, 0, _size, _charset, _maxFields, _maxLength);
+        }
+        catch (Throwable x)
+        {
+            // Decode eagerly to report the same failure at the same point.
+            return null;
+        }
+    }
+
+    private Fields parse(ByteBuffer buffer, boolean last) throws CharacterCodingException
+    {
         while (BufferUtil.hasContent(buffer))
         {
             byte b = buffer.get();
@@ -389,7 +444,7 @@ public class FormFields extends ContentSourceCompletableFuture<Fields>
             }
         }
 
-        if (!chunk.isLast())
+        if (!last)
             return null;
 
         // Append any remaining %x.
@@ -18,6 +18,9 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import org.eclipse.jetty.http.BadMessageException;
@@ -58,6 +61,10 @@ import static java.lang.invoke.MethodType.methodType;
  * the request came</p>
  * <p>Headers can also be defined so that forwarded SSL Session IDs and Cipher
  * suites may be customised</p>
+ * <p>The resolution of the headers is remembered by the connection, and reused
+ * for the following requests of the same connection that have the same values
+ * for these headers and the same authority, as it is common for the requests
+ * forwarded by a proxy over a persistent connection.</p>
  * <p>
  *     The Authority (host and port) is updated on the {@link Request} object based
  *     on the host / port information in the following search order.
@@ -147,6 +154,7 @@ import static java.lang.invoke.MethodType.methodType;
 public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
 {
     private static final Logger LOG = LoggerFactory.getLogger(HttpConnection.class);
+    private static final String RESOLUTION_ATTRIBUTE = ForwardedRequestCustomizer.class.getName() + ".resolution";
 
     private HostPortHttpField _forcedHost;
     private boolean _proxyAsAuthority = false;
@@ -161,6 +169,7 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
     private String _forwardedCipherSuiteHeader = "Proxy-auth-cert";
     private String _forwardedSslSessionIdHeader = "Proxy-ssl-id";
     private boolean _sslIsSecure = true;
+    private volatile long _generation;
     private final Index.Mutable<MethodHandle> _handles = new Index.Builder<MethodHandle>()
         .caseSensitive(false)
         .mutable()
@@ -188,6 +197,7 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
     public void setProxyAsAuthority(boolean proxyAsAuthority)
     {
         _proxyAsAuthority = proxyAsAuthority;
+        ++_generation;
     }
 
     /**
@@ -241,6 +251,7 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
     public void setForcedHost(String hostAndPort)
     {
         _forcedHost = new HostPortHttpField(hostAndPort);
+        ++_generation;
     }
 
     /**
@@ -357,6 +368,7 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
     public void setForwardedPortAsAuthority(boolean forwardedPortAsAuthority)
     {
         _forwardedPortAsAuthority = forwardedPortAsAuthority;
+        ++_generation;
     }
 
     /**
@@ -460,17 +472,28 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
     public void setSslIsSecure(boolean sslIsSecure)
     {
         _sslIsSecure = sslIsSecure;
+        ++_generation;
     }
 
     @Override
     public Request customize(Request request, HttpFields.Mutable responseHeaders)
     {
-        HttpConfiguration httpConfig = request.getConnectionMetaData().getHttpConfiguration();
+        ConnectionMetaData connectionMetaData = request.getConnectionMetaData();
+        HttpConfiguration httpConfig = connectionMetaData.getHttpConfiguration();
         HttpFields httpFields = request.getHeaders();
 
+        // Reuse the resolution of a previous request of the connection if it had the same forwarded headers.
+        if (connectionMetaData.getAttribute(RESOLUTION_ATTRIBUTE) instanceof Resolution resolution && resolution.matches(this, httpConfig, request))
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("forwarded {} reused {}", request.getHttpURI(), resolution);
+            return resolution.wrap(request);
+        }
+
         // Do a single pass through the header fields as it is a more efficient single iteration.
         Forwarded forwarded = new Forwarded(request, httpConfig);
-        boolean match = false;
+        List<HttpField> fields = null;
+        boolean failed = false;
         for (HttpField field : httpFields)
         {
             try
@@ -478,45 +501,41 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
                 MethodHandle handle = _handles.get(field.getName());
                 if (handle != null)
                 {
-                    match = true;
+                    if (fields == null)
+                        fields = new ArrayList<>();
+                    fields.add(field);
                     handle.invoke(forwarded, field);
                 }
             }
             catch (Throwable t)
             {
+                failed = true;
                 onError(field, t);
             }
         }
 
-        if (!match)
+        if (fields == null)
             return request;
 
-        HttpURI uri;
+        String scheme = null;
         boolean secure;
         HostPortHttpField authority;
         InetSocketAddress remote;
 
-        HttpURI.Mutable builder = HttpURI.build(request.getHttpURI());
-        boolean httpUriChanged = false;
+        HttpURI httpURI = request.getHttpURI();
 
         if (LOG.isDebugEnabled())
-            LOG.debug("forwarded {} {}", builder, forwarded);
+            LOG.debug("forwarded {} {}", httpURI, forwarded);
 
         // Is secure status configured from headers?
         secure = forwarded.isSecure();
 
         // Set Scheme from configured protocol
         if (forwarded._proto != null)
-        {
-            builder.scheme(forwarded._proto);
-            httpUriChanged = true;
-        }
+            scheme = forwarded._proto;
         // Set scheme if header implies secure scheme is to be used (see #isSslIsSecure())
         else if (forwarded._secureScheme)
-        {
-            builder.scheme(httpConfig.getSecureScheme());
-            httpUriChanged = true;
-        }
+            scheme = httpConfig.getSecureScheme();
 
         // Use authority from headers, if configured.
         if (forwarded._authority != null)
@@ -527,25 +546,23 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
             // Fall back to request metadata if needed.
             if (host == null)
             {
-                host = builder.getHost();
+                host = httpURI.getHost();
             }
 
             if (port == MutableHostPort.UNSET) // is unset by headers
             {
-                port = builder.getPort();
+                port = httpURI.getPort();
             }
 
             // Don't change port if port == IMPLIED.
-            if (request.getHttpURI().getPort() == 0 && port > 0 && port == HttpScheme.CACHE.get(httpConfig.getSecureScheme()).getDefaultPort())
+            if (httpURI.getPort() == 0 && port > 0 && port == HttpScheme.CACHE.get(httpConfig.getSecureScheme()).getDefaultPort())
                 port = 0;
 
             // Update authority if different from metadata
-            if (!host.equalsIgnoreCase(builder.getHost()) ||
-                port != builder.getPort())
+            if (!host.equalsIgnoreCase(httpURI.getHost()) ||
+                port != httpURI.getPort())
             {
                 authority = new HostPortHttpField(host, port);
-                builder.authority(host, port);
-                httpUriChanged = true;
             }
             else
             {
@@ -557,8 +574,6 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
             authority = null;
         }
 
-        uri = httpUriChanged ? builder.asImmutable() : request.getHttpURI();
-
         // Set Remote Address
         if (forwarded.hasFor())
         {
@@ -566,7 +581,7 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
             if (forPort <= 0)
             {
                 // TODO utility methods for this would be nice.
-                SocketAddress addr = request.getConnectionMetaData().getRemoteSocketAddress();
+                SocketAddress addr = connectionMetaData.getRemoteSocketAddress();
                 if (addr instanceof InetSocketAddress)
                     forPort = ((InetSocketAddress)addr).getPort();
             }
@@ -577,7 +592,27 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
             remote = null;
         }
 
-        ConnectionMetaData connectionMetaData = new ConnectionMetaData.Wrapper(request.getConnectionMetaData())
+        Resolution resolution = new Resolution(
+            httpConfig,
+            fields.toArray(HttpField[]::new),
+            httpURI.getHost(),
+            httpURI.getPort(),
+            scheme,
+            authority,
+            secure,
+            forwarded._sslSessionData,
+            newConnectionMetaData(connectionMetaData, remote, authority));
+
+        // Headers that failed to be handled are not remembered, so that they are always reported.
+        if (!failed)
+            connectionMetaData.setAttribute(RESOLUTION_ATTRIBUTE, resolution);
+
+        return resolution.wrap(request);
+    }
+
+    private static ConnectionMetaData newConnectionMetaData(ConnectionMetaData connectionMetaData, InetSocketAddress remote, HostPortHttpField authority)
+    {
+        return new ConnectionMetaData.Wrapper(connectionMetaData)
         {
             @Override
             public SocketAddress getRemoteSocketAddress()
@@ -607,53 +642,6 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
                 );
             }
         };
-
-        HttpFields headers = authority == null
-            ? request.getHeaders()
-            : HttpFields.build(request.getHeaders(), authority);
-
-        EndPoint.SslSessionData sslSessionData = forwarded._sslSessionData;
-        return new Request.AttributesWrapper(request, sslSessionData == null ? request : new Attributes.Synthetic(request)
-        {
-            private static final Set<String> ATTRIBUTES = Set.of(EndPoint.SslSessionData.ATTRIBUTE);
-
-            @Override
-            protected Object getSyntheticAttribute(String name)
-            {
-                return EndPoint.SslSessionData.ATTRIBUTE.equals(name) ? sslSessionData : null;
-            }
-
-            @Override
-            protected Set<String> getSyntheticNameSet()
-            {
-                return ATTRIBUTES;
-            }
-        })
-        {
-            @Override
-            public HttpURI getHttpURI()
-            {
-                return uri;
-            }
-
-            @Override
-            public HttpFields getHeaders()
-            {
-                return headers;
-            }
-
-            @Override
-            public boolean isSecure()
-            {
-                return secure || super.isSecure();
-            }
-
-            @Override
-            public ConnectionMetaData getConnectionMetaData()
-            {
-                return connectionMetaData;
-            }
-        };
     }
 
     protected static int getSecurePort(HttpConfiguration config)
@@ -702,10 +690,12 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
     public void setHostHeader(String hostHeader)
     {
         _forcedHost = new HostPortHttpField(hostHeader);
+        ++_generation;
     }
 
     private void updateHandles()
     {
+        ++_generation;
         _handles.clear();
 
         MethodHandles.Lookup lookup = MethodHandles.lookup();
@@ -827,6 +817,141 @@ public class ForwardedRequestCustomizer implements HttpConfiguration.Customizer
         }
     }
 
+    /**
+     * <p>The resolution of the forwarded headers of a request, remembered as an attribute of the
+     * connection so that it can be reused by the following requests with the same forwarded headers,
+     * which is typical of the keep-alive connections of a reverse proxy.</p>
+     * <p>The resolution depends on the raw values of the forwarded headers, on the authority of the
+     * request and on the configuration, so it is reused only if all of these are unchanged.</p>
+     */
+    private class Resolution
+    {
+        private final long _generation = ForwardedRequestCustomizer.this._generation;
+        private final HttpConfiguration _httpConfig;
+        private final HttpField[] _fields;
+        private final String _host;
+        private final int _port;
+        private final String _scheme;
+        private final HostPortHttpField _authority;
+        private final boolean _secure;
+        private final EndPoint.SslSessionData _sslSessionData;
+        private final ConnectionMetaData _connectionMetaData;
+
+        private Resolution(HttpConfiguration httpConfig, HttpField[] fields, String host, int port, String scheme, HostPortHttpField authority, boolean secure, EndPoint.SslSessionData sslSessionData, ConnectionMetaData connectionMetaData)
+        {
+            _httpConfig = httpConfig;
+            _fields = fields;
+            _host = host;
+            _port = port;
+            _scheme = scheme;
+            _authority = authority;
+            _secure = secure;
+            _sslSessionData = sslSessionData;
+            _connectionMetaData = connectionMetaData;
+        }
+
+        private boolean matches(ForwardedRequestCustomizer customizer, HttpConfiguration httpConfig, Request request)
+        {
+            if (customizer != ForwardedRequestCustomizer.this || _generation != customizer._generation || _httpConfig != httpConfig)
+                return false;
+
+            HttpURI httpURI = request.getHttpURI();
+            if (_port != httpURI.getPort() || !Objects.equals(_host, httpURI.getHost()))
+                return false;
+
+            int index = 0;
+            for (HttpField field : request.getHeaders())
+            {
+                if (_handles.get(field.getName()) != null)
+                {
+                    if (index == _fields.length || !_fields[index].equals(field))
+                        return false;
+                    ++index;
+                }
+            }
+            return index == _fields.length;
+        }
+
+        private Request wrap(Request request)
+        {
+            HttpURI uri;
+            if (_scheme == null && _authority == null)
+            {
+                uri = request.getHttpURI();
+            }
+            else
+            {
+                HttpURI.Mutable builder = HttpURI.build(request.getHttpURI());
+                if (_scheme != null)
+                    builder.scheme(_scheme);
+                if (_authority != null)
+                    builder.authority(_authority.getHost(), _authority.getPort());
+                uri = builder.asImmutable();
+            }
+
+            HttpFields headers = _authority == null
+                ? request.getHeaders()
+                : HttpFields.build(request.getHeaders(), _authority);
+
+            boolean secure = _secure;
+            ConnectionMetaData connectionMetaData = _connectionMetaData;
+            EndPoint.SslSessionData sslSessionData = _sslSessionData;
+            return new Request.AttributesWrapper(request, sslSessionData == null ? request : new Attributes.Synthetic(request)
+            {
+                private static final Set<String> ATTRIBUTES = Set.of(EndPoint.SslSessionData.ATTRIBUTE);
+
+                @Override
+                protected Object getSyntheticAttribute(String name)
+                {
+                    return EndPoint.SslSessionData.ATTRIBUTE.equals(name) ? sslSessionData : null;
+                }
+
+                @Override
+                protected Set<String> getSyntheticNameSet()
+                {
+                    return ATTRIBUTES;
+                }
+            })
+            {
+                @Override
+                public HttpURI getHttpURI()
+                {
+                    return uri;
+                }
+
+                @Override
+                public HttpFields getHeaders()
+                {
+                    return headers;
+                }
+
+                @Override
+                public boolean isSecure()
+                {
+                    return secure || super.isSecure();
+                }
+
+                @Override
+                public ConnectionMetaData getConnectionMetaData()
+                {
+                    return connectionMetaData;
+                }
+            };
+        }
+
+        @Override
+        public String toString()
+        {
+            return "%s@%x{scheme=%s,authority=%s,secure=%b,%s}".formatted(
+                TypeUtil.toShortName(getClass()),
+                hashCode(),
+                _scheme,
+                _authority,
+                _secure,
+                _connectionMetaData);
+        }
+    }
+
     private class Forwarded extends QuotedCSVParser
     {
         HttpConfiguration _config;
@@ -350,10 +350,10 @@ public class LowResourceMonitor extends ContainerLifeCycle
             if (connector instanceof AbstractConnector)
             {
                 AbstractConnector c = (AbstractConnector)connector;
-                if (!isAcceptingInLowResources() && c.isAccepting())
+                if (!isAcceptingInLowResources())
                 {
                     _acceptingConnectors.add(c);
-                    c.setAccepting(false);
+                    c.setAcceptLimited(this, true);
                 }
             }
 
@@ -376,7 +376,7 @@ public class LowResourceMonitor extends ContainerLifeCycle
 
         for (AbstractConnector connector : _acceptingConnectors)
         {
-            connector.setAccepting(true);
+            connector.setAcceptLimited(this, false);
         }
         _acceptingConnectors.clear();
     }
@@ -555,10 +555,8 @@ public interface Request extends Attributes, Content.Source
         String query = request.getHttpURI().getQuery();
         if (StringUtil.isBlank(query))
             return Fields.EMPTY;
-        Fields fields = new Fields(true);
-        if (StringUtil.isNotBlank(query))
-            UrlEncoded.decodeUtf8To(query, fields);
-        return fields;
+        // Only the parameters that are accessed are decoded.
+        return UrlEncoded.decodeUtf8ToLazyFields(query);
     }
 
     static Fields extractQueryParameters(Request request, Charset charset)
@@ -27,7 +27,9 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.eclipse.jetty.http.DateGenerator;
 import org.eclipse.jetty.http.HttpField;
@@ -87,6 +89,7 @@ public class Server extends Handler.Wrapper implements Attributes
     private final MimeTypes.Mutable _mimeTypes = new MimeTypes.Mutable();
     private String _serverInfo = __serverInfo;
     private boolean _openEarly = true;
+    private boolean _concurrentStart;
     private boolean _stopAtShutdown;
     private boolean _dumpAfterStart;
     private boolean _dumpBeforeStop;
@@ -293,6 +296,40 @@ public class Server extends Handler.Wrapper implements Attributes
         _openEarly = openEarly;
     }
 
+    @ManagedAttribute("Whether the components and the connectors are started concurrently")
+    public boolean isConcurrentStart()
+    {
+        return _concurrentStart;
+    }
+
+    /**
+     * <p>Sets whether the components of this server, the contexts of its
+     * {@link org.eclipse.jetty.server.handler.ContextHandlerCollection}s and its connectors
+     * are started concurrently on the {@link #getThreadPool() thread pool}.</p>
+     * <p>The thread pool, the scheduler and the byte buffer pool are started first, then
+     * the other components are started concurrently, unless they declared a dependency with
+     * {@link #addBeanDependency(Object, Object)}, and finally the connectors are started
+     * concurrently.</p>
+     *
+     * @param concurrentStart whether to start the components concurrently
+     * @see #setStartExecutor(Executor)
+     */
+    public void setConcurrentStart(boolean concurrentStart)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _concurrentStart = concurrentStart;
+    }
+
+    @Override
+    public Executor getStartExecutor()
+    {
+        Executor executor = super.getStartExecutor();
+        if (executor == null && isConcurrentStart())
+            executor = getThreadPool();
+        return executor;
+    }
+
     public boolean isDryRun()
     {
         return _dryRun;
@@ -577,6 +614,17 @@ public class Server extends Handler.Wrapper implements Attributes
                 multiException.ifExceptionThrow();
             }
 
+            // The other components may use the scheduler and the byte buffer pool when started.
+            if (getStartExecutor() != null)
+            {
+                List<Object> infrastructure = Stream.of(getThreadPool(), getScheduler(), getByteBufferPool()).filter(Objects::nonNull).toList();
+                for (Object bean : getBeans())
+                {
+                    if (!infrastructure.contains(bean))
+                        infrastructure.forEach(dependency -> addBeanDependency(bean, dependency));
+                }
+            }
+
             // Start the server and components, but not connectors!
             // #start(LifeCycle) is overridden so that connectors are not started
             super.doStart();
@@ -592,11 +640,12 @@ public class Server extends Handler.Wrapper implements Attributes
             }
 
             // start connectors
-            for (Connector connector : _connectors)
+            Executor executor = getStartExecutor();
+            if (executor != null)
             {
                 try
                 {
-                    connector.start();
+                    startConcurrently(executor, _connectors);
                 }
                 catch (Throwable e)
                 {
@@ -605,6 +654,22 @@ public class Server extends Handler.Wrapper implements Attributes
                     _connectors.stream().filter(LifeCycle::isRunning).map(Object.class::cast).forEach(LifeCycle::stop);
                 }
             }
+            else
+            {
+                for (Connector connector : _connectors)
+                {
+                    try
+                    {
+                        connector.start();
+                    }
+                    catch (Throwable e)
+                    {
+                        multiException.add(e);
+                        // stop any started connectors
+                        _connectors.stream().filter(LifeCycle::isRunning).map(Object.class::cast).forEach(LifeCycle::stop);
+                    }
+                }
+            }
 
             multiException.ifExceptionThrow();
             LOG.info(String.format("Started %s @%dms", this, Uptime.getUptime()));
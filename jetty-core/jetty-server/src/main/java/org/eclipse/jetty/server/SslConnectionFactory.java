@@ -16,6 +16,7 @@ package org.eclipse.jetty.server;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLSession;
 
@@ -40,6 +41,7 @@ public class SslConnectionFactory extends AbstractConnectionFactory implements C
     private boolean _directBuffersForEncryption = false;
     private boolean _directBuffersForDecryption = false;
     private boolean _ensureSecureRequestCustomizer = true;
+    private Executor _handshakeExecutor;
 
     public SslConnectionFactory()
     {
@@ -104,6 +106,29 @@ public class SslConnectionFactory extends AbstractConnectionFactory implements C
         _ensureSecureRequestCustomizer = ensureSecureRequestCustomizer;
     }
 
+    /**
+     * @return the executor used to progress the TLS handshakes, or null if the handshakes are
+     * progressed by the connector executor
+     */
+    public Executor getHandshakeExecutor()
+    {
+        return _handshakeExecutor;
+    }
+
+    /**
+     * <p>Sets the executor used to progress the TLS handshakes of the connections created
+     * by this factory, typically a bounded {@link SslHandshakeExecutor}.</p>
+     *
+     * @param handshakeExecutor the executor used to progress the TLS handshakes, or null
+     * to progress the handshakes in the connector executor
+     * @see SslConnection#setHandshakeExecutor(Executor)
+     */
+    public void setHandshakeExecutor(Executor handshakeExecutor)
+    {
+        updateBean(_handshakeExecutor, handshakeExecutor, true);
+        _handshakeExecutor = handshakeExecutor;
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -120,6 +145,9 @@ public class SslConnectionFactory extends AbstractConnectionFactory implements C
     @Override
     public void configure(Connector connector)
     {
+        if (_handshakeExecutor instanceof SslHandshakeExecutor sslHandshakeExecutor)
+            sslHandshakeExecutor.addConnector(connector);
+
         if (isEnsureSecureRequestCustomizer())
         {
             connector.getContainedBeans(HttpConfiguration.class).forEach(configuration ->
@@ -153,6 +181,7 @@ public class SslConnectionFactory extends AbstractConnectionFactory implements C
         SslConnection sslConnection = newSslConnection(connector, endPoint, engine);
         sslConnection.setRenegotiationAllowed(_sslContextFactory.isRenegotiationAllowed());
         sslConnection.setRenegotiationLimit(_sslContextFactory.getRenegotiationLimit());
+        sslConnection.setHandshakeExecutor(getHandshakeExecutor());
         configure(sslConnection, connector, endPoint);
 
         ConnectionFactory next = connector.getConnectionFactory(_nextProtocol);
@@ -0,0 +1,304 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A bounded {@link Executor} dedicated to TLS handshakes.</p>
+ * <p>When configured on a {@link SslConnectionFactory} via
+ * {@link SslConnectionFactory#setHandshakeExecutor(Executor)}, the expensive
+ * key exchange and the {@link javax.net.ssl.SSLEngine} delegated tasks of new
+ * connections are performed by this executor rather than by the connector
+ * executor, so that a storm of new connections cannot monopolize the threads
+ * that serve established connections (see {@link SslConnection#setHandshakeExecutor(Executor)}).</p>
+ * <p>The number of pending handshakes is limited by {@link #getMaxPendingHandshakes()}.
+ * A handshake is pending from its first task until it completes (or its connection is
+ * closed), and it is counted once, no matter how many tasks are needed to progress it.
+ * When the limit is reached, the connectors that use this executor stop accepting
+ * new connections (in the same way {@link ConnectionLimit} and {@link AcceptRateLimit} do),
+ * so that new connections queue fairly in the accept backlog; new handshakes that exceed
+ * the limit are rejected and their connection closed, while the tasks of the pending
+ * handshakes are always executed.
+ * Accepting is resumed once the pending handshakes fall below the limit, unless another
+ * limiter such as {@link ConnectionLimit} still limits the connectors
+ * (see {@link AbstractConnector#setAcceptLimited(Object, boolean)}).</p>
+ * <p><b>Usage:</b></p>
+ * <pre>{@code
+ *   SslConnectionFactory ssl = new SslConnectionFactory(sslContextFactory, "http/1.1");
+ *   ssl.setHandshakeExecutor(new SslHandshakeExecutor(4, 1024));
+ * }</pre>
+ */
+@ManagedObject("A bounded executor of TLS handshakes")
+public class SslHandshakeExecutor extends ContainerLifeCycle implements SslConnection.HandshakeExecutor
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SslHandshakeExecutor.class);
+
+    private final AutoLock _lock = new AutoLock();
+    private final CopyOnWriteArrayList<AbstractConnector> _connectors = new CopyOnWriteArrayList<>();
+    private final SampleStatistic _queueLatency = new SampleStatistic();
+    private final LongAdder _rejected = new LongAdder();
+    private final Set<Runnable> _handshakes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Executor _executor;
+    private int _maxPendingHandshakes;
+    private boolean _limiting;
+
+    public SslHandshakeExecutor()
+    {
+        this(ProcessorUtils.availableProcessors(), 1024);
+    }
+
+    public SslHandshakeExecutor(@Name("maxThreads") int maxThreads, @Name("maxPendingHandshakes") int maxPendingHandshakes)
+    {
+        this(newThreadPool(maxThreads), maxPendingHandshakes);
+    }
+
+    public SslHandshakeExecutor(@Name("executor") Executor executor, @Name("maxPendingHandshakes") int maxPendingHandshakes)
+    {
+        _executor = executor;
+        _maxPendingHandshakes = maxPendingHandshakes;
+        installBean(_executor);
+    }
+
+    private static QueuedThreadPool newThreadPool(int maxThreads)
+    {
+        QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, Math.max(1, maxThreads));
+        threadPool.setName("ssl-handshake");
+        threadPool.setReservedThreads(0);
+        return threadPool;
+    }
+
+    /**
+     * @return the executor that runs the handshakes
+     */
+    public Executor getExecutor()
+    {
+        return _executor;
+    }
+
+    @ManagedAttribute("The maximum number of pending handshakes")
+    public int getMaxPendingHandshakes()
+    {
+        try (AutoLock ignored = _lock.lock())
+        {
+            return _maxPendingHandshakes;
+        }
+    }
+
+    /**
+     * @param maxPendingHandshakes the maximum number of handshakes that have started but not completed yet
+     */
+    public void setMaxPendingHandshakes(int maxPendingHandshakes)
+    {
+        try (AutoLock ignored = _lock.lock())
+        {
+            _maxPendingHandshakes = maxPendingHandshakes;
+            check();
+        }
+    }
+
+    @ManagedAttribute(value = "The current number of handshakes that have started but not completed yet", readonly = true)
+    public int getPendingHandshakes()
+    {
+        try (AutoLock ignored = _lock.lock())
+        {
+            return _handshakes.size();
+        }
+    }
+
+    @ManagedAttribute(value = "Whether the connectors are not accepting because of the pending handshakes", readonly = true)
+    public boolean isLimiting()
+    {
+        try (AutoLock ignored = _lock.lock())
+        {
+            return _limiting;
+        }
+    }
+
+    @ManagedAttribute(value = "The number of handshake tasks executed", readonly = true)
+    public long getHandshakeTasks()
+    {
+        return _queueLatency.getCount();
+    }
+
+    @ManagedAttribute(value = "The number of new handshakes rejected", readonly = true)
+    public long getHandshakeTasksRejected()
+    {
+        return _rejected.sum();
+    }
+
+    @ManagedAttribute(value = "The maximum time in ms a handshake task waited in the queue", readonly = true)
+    public long getQueueLatencyMax()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_queueLatency.getMax());
+    }
+
+    @ManagedAttribute(value = "The mean time in ms a handshake task waited in the queue", readonly = true)
+    public double getQueueLatencyMean()
+    {
+        return _queueLatency.getMean() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _queueLatency.reset();
+        _rejected.reset();
+    }
+
+    /**
+     * <p>Adds a connector to the connectors whose accepting is paused
+     * when the maximum number of pending handshakes is reached.</p>
+     * <p>This method is called by {@link SslConnectionFactory} for the
+     * connectors it is configured with.</p>
+     *
+     * @param connector the connector to limit
+     */
+    public void addConnector(Connector connector)
+    {
+        if (connector instanceof AbstractConnector abstractConnector)
+            _connectors.addIfAbsent(abstractConnector);
+        else
+            LOG.warn("Connector {} is not an AbstractConnector: accepting will not be limited", connector);
+    }
+
+    public void removeConnector(Connector connector)
+    {
+        _connectors.remove(connector);
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        try (AutoLock ignored = _lock.lock())
+        {
+            _handshakes.clear();
+            if (_limiting)
+                _connectors.forEach(c -> c.setAcceptLimited(this, false));
+            _limiting = false;
+        }
+        super.doStop();
+    }
+
+    /**
+     * <p>Executes a task of a handshake.</p>
+     * <p>The first task of a handshake is rejected if the maximum number of pending
+     * handshakes is reached; the following tasks of the same handshake are always executed.</p>
+     *
+     * @param task the task of the handshake
+     * @throws RejectedExecutionException if the task starts a new handshake
+     * and the maximum number of pending handshakes is reached
+     */
+    @Override
+    public void execute(Runnable task)
+    {
+        boolean newHandshake;
+        try (AutoLock ignored = _lock.lock())
+        {
+            newHandshake = !_handshakes.contains(task);
+            if (newHandshake)
+            {
+                if (_handshakes.size() >= _maxPendingHandshakes)
+                {
+                    _rejected.increment();
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Rejected {} pending={}/{}", task, _handshakes.size(), _maxPendingHandshakes);
+                    throw new RejectedExecutionException("Max pending handshakes " + _maxPendingHandshakes + " reached");
+                }
+                _handshakes.add(task);
+                check();
+            }
+        }
+
+        long queued = NanoTime.now();
+        try
+        {
+            _executor.execute(() ->
+            {
+                _queueLatency.record(NanoTime.since(queued));
+                task.run();
+            });
+        }
+        catch (Throwable x)
+        {
+            if (newHandshake)
+            {
+                _rejected.increment();
+                onHandshakeComplete(task);
+            }
+            throw x;
+        }
+    }
+
+    @Override
+    public void onHandshakeComplete(Runnable task)
+    {
+        try (AutoLock ignored = _lock.lock())
+        {
+            if (_handshakes.remove(task))
+                check();
+        }
+    }
+
+    private void check()
+    {
+        assert _lock.isHeldByCurrentThread();
+        if (_handshakes.size() >= _maxPendingHandshakes)
+        {
+            if (!_limiting)
+            {
+                _limiting = true;
+                LOG.info("Pending handshakes limit {} reached for {}", _maxPendingHandshakes, _connectors);
+                _connectors.forEach(c -> c.setAcceptLimited(this, true));
+            }
+        }
+        else if (_limiting)
+        {
+            _limiting = false;
+            LOG.info("Pending handshakes limit {} cleared for {}", _maxPendingHandshakes, _connectors);
+            _connectors.forEach(c -> c.setAcceptLimited(this, false));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        try (AutoLock ignored = _lock.lock())
+        {
+            return String.format("%s@%x{%s,pending=%d/%d,limiting=%b}",
+                getClass().getSimpleName(), hashCode(), getState(), _handshakes.size(), _maxPendingHandshakes, _limiting);
+        }
+    }
+}
@@ -0,0 +1,574 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.io.RetainableByteBuffer;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IteratingCallback;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A {@link Handler} that {@link ConditionalHandler conditionally} coalesces
+ * concurrent identical safe requests, so that only one of them is handled by
+ * the child {@code Handler}, while the others wait for its response.</p>
+ * <p>This handler protects expensive resources from the "thundering herd" of
+ * identical requests that arrive at the same time, for example when a cache
+ * entry expires, and complements the {@link QoSHandler} that limits the
+ * number of concurrent requests regardless of what they ask for.</p>
+ * <p>Only {@code GET} and {@code HEAD} requests are coalesced.
+ * Requests are identical if they have the same method, the same URI and the same
+ * values for the {@link #setKeyHeaders(String...) key headers}, by default
+ * {@code Accept} and {@code Accept-Encoding}.
+ * Requests that carry credentials in the {@code Authorization} or {@code Cookie}
+ * headers are only coalesced if those headers are key headers.</p>
+ * <p>The first request, the leader, is handled by the child {@code Handler}
+ * and its response is written as usual, while its status, headers and content
+ * are captured in pooled buffers.
+ * When the leader completes successfully, the captured response is replayed to
+ * all the requests that arrived meanwhile, the waiters, through retained
+ * {@link Content.Chunk}s that are shared by all the waiters.</p>
+ * <p>Coalescing is bounded: at most {@link #setMaxWaiters(int) maxWaiters}
+ * requests may wait for a leader, for at most {@link #setMaxWait(Duration) maxWait},
+ * and the content of the leader response may be at most
+ * {@link #setMaxContentSize(int) maxContentSize} bytes.
+ * When one of these limits is exceeded, or if the leader fails, or if its response
+ * has trailers or sets cookies, the waiters are handled by the child {@code Handler}
+ * independently of the leader.</p>
+ */
+@ManagedObject
+public class CoalescingHandler extends ConditionalHandler.Abstract
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CoalescingHandler.class);
+    private static final EnumSet<HttpHeader> PER_RESPONSE_HEADERS = EnumSet.of(HttpHeader.SERVER, HttpHeader.DATE, HttpHeader.X_POWERED_BY, HttpHeader.CONNECTION);
+
+    private final Map<Key, Flight> _flights = new ConcurrentHashMap<>();
+    private final LongAdder _coalesced = new LongAdder();
+    private final LongAdder _expired = new LongAdder();
+    private final LongAdder _abandoned = new LongAdder();
+    private List<String> _keyHeaders = List.of(HttpHeader.ACCEPT.asString(), HttpHeader.ACCEPT_ENCODING.asString());
+    private boolean _authorizationKey;
+    private boolean _cookieKey;
+    private int _maxWaiters = 1024;
+    private int _maxContentSize = 256 * 1024;
+    private Duration _maxWait = Duration.ofSeconds(5);
+
+    public CoalescingHandler()
+    {
+        this(null);
+    }
+
+    public CoalescingHandler(Handler handler)
+    {
+        super(false, handler);
+    }
+
+    /**
+     * @return the names of the request headers whose values are part of the key identifying identical requests
+     */
+    @ManagedAttribute(value = "The request headers that are part of the key identifying identical requests", readonly = true)
+    public List<String> getKeyHeaders()
+    {
+        return _keyHeaders;
+    }
+
+    /**
+     * <p>Sets the names of the request headers whose values, together with
+     * the method and the URI, identify identical requests.</p>
+     * <p>The key headers should include all the request headers that the
+     * response depends on, unless those headers are handled before this handler.</p>
+     *
+     * @param keyHeaders the names of the request headers that are part of the key identifying identical requests
+     */
+    public void setKeyHeaders(String... keyHeaders)
+    {
+        if (isStarted())
+            throw new IllegalStateException("Cannot change keyHeaders: " + this);
+        List<String> headers = List.of(keyHeaders);
+        _keyHeaders = headers;
+        _authorizationKey = headers.stream().anyMatch(HttpHeader.AUTHORIZATION::is);
+        _cookieKey = headers.stream().anyMatch(HttpHeader.COOKIE::is);
+    }
+
+    /**
+     * @return the max number of requests that may wait for the response of an identical request
+     */
+    @ManagedAttribute("The maximum number of requests that may wait for the response of an identical request")
+    public int getMaxWaiters()
+    {
+        return _maxWaiters;
+    }
+
+    /**
+     * @param maxWaiters the max number of requests that may wait for the response of an identical request
+     */
+    public void setMaxWaiters(int maxWaiters)
+    {
+        if (maxWaiters < 0)
+            throw new IllegalArgumentException("Invalid maxWaiters: " + maxWaiters);
+        _maxWaiters = maxWaiters;
+    }
+
+    /**
+     * @return the max content size of a response that may be replayed to the waiters
+     */
+    @ManagedAttribute("The maximum content size of a response that may be replayed")
+    public int getMaxContentSize()
+    {
+        return _maxContentSize;
+    }
+
+    /**
+     * @param maxContentSize the max content size of a response that may be replayed to the waiters
+     */
+    public void setMaxContentSize(int maxContentSize)
+    {
+        if (maxContentSize < 0)
+            throw new IllegalArgumentException("Invalid maxContentSize: " + maxContentSize);
+        _maxContentSize = maxContentSize;
+    }
+
+    /**
+     * @return the max duration a request may wait for the response of an identical request
+     */
+    public Duration getMaxWait()
+    {
+        return _maxWait;
+    }
+
+    /**
+     * @param maxWait the max duration a request may wait for the response of an identical request
+     */
+    public void setMaxWait(Duration maxWait)
+    {
+        if (maxWait.isNegative() || maxWait.isZero())
+            throw new IllegalArgumentException("Invalid maxWait duration");
+        _maxWait = maxWait;
+    }
+
+    @ManagedAttribute("The number of requests whose response was replayed from an identical request")
+    public long getCoalescedRequestCount()
+    {
+        return _coalesced.sum();
+    }
+
+    @ManagedAttribute("The number of requests that waited longer than maxWait")
+    public long getExpiredRequestCount()
+    {
+        return _expired.sum();
+    }
+
+    @ManagedAttribute("The number of responses that could not be replayed")
+    public long getAbandonedResponseCount()
+    {
+        return _abandoned.sum();
+    }
+
+    @ManagedAttribute("The number of requests currently being handled on behalf of identical requests")
+    public int getLeaderCount()
+    {
+        return _flights.size();
+    }
+
+    @Override
+    protected boolean onConditionsMet(Request request, Response response, Callback callback) throws Exception
+    {
+        if (!isCoalescable(request))
+            return nextHandler(request, response, callback);
+
+        Key key = newKey(request);
+        Flight flight = new Flight(key, request);
+        Flight existing = _flights.putIfAbsent(key, flight);
+        if (existing == null)
+            return flight.lead(request, response, callback);
+
+        if (existing.join(request, response, callback))
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} coalesced {} with {}", this, request, existing);
+            return true;
+        }
+        return nextHandler(request, response, callback);
+    }
+
+    @Override
+    protected boolean onConditionsNotMet(Request request, Response response, Callback callback) throws Exception
+    {
+        return nextHandler(request, response, callback);
+    }
+
+    /**
+     * <p>Returns whether the given request may be coalesced with identical requests.</p>
+     * <p>The default implementation returns {@code true} for {@code GET} and
+     * {@code HEAD} requests that do not carry credentials, unless the credentials
+     * headers are key headers.</p>
+     *
+     * @param request the request
+     * @return whether the given request may be coalesced with identical requests
+     */
+    protected boolean isCoalescable(Request request)
+    {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.is(method) && !HttpMethod.HEAD.is(method))
+            return false;
+        HttpFields headers = request.getHeaders();
+        if (!_authorizationKey && headers.contains(HttpHeader.AUTHORIZATION))
+            return false;
+        return _cookieKey || !headers.contains(HttpHeader.COOKIE);
+    }
+
+    private Key newKey(Request request)
+    {
+        HttpFields headers = request.getHeaders();
+        List<String> values = new ArrayList<>(_keyHeaders.size());
+        for (String name : _keyHeaders)
+        {
+            List<String> list = headers.getValuesList(name);
+            values.add(list.isEmpty() ? null : String.join(",", list));
+        }
+        return new Key(request.getMethod(), request.getHttpURI().asString(), values);
+    }
+
+    private void handleIndependently(Request request, Response response, Callback callback)
+    {
+        try
+        {
+            if (!nextHandler(request, response, callback))
+                Response.writeError(request, response, callback, HttpStatus.NOT_FOUND_404);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} failed {}", this, request, x);
+            Response.writeError(request, response, callback, x);
+        }
+    }
+
+    private record Key(String method, String uri, List<String> headerValues)
+    {
+    }
+
+    private static class Waiter
+    {
+        private final Request request;
+        private final Response response;
+        private final Callback callback;
+        private Scheduler.Task timeout;
+
+        private Waiter(Request request, Response response, Callback callback)
+        {
+            this.request = request;
+            this.response = response;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * <p>The handling of a leader request, with the waiters for its response.</p>
+     */
+    private class Flight
+    {
+        private final AutoLock _lock = new AutoLock();
+        private final List<Waiter> _waiters = new ArrayList<>();
+        private final List<Content.Chunk> _chunks = new ArrayList<>();
+        private final Key _key;
+        private final ByteBufferPool _bufferPool;
+        private final Scheduler _scheduler;
+        private final int _maxContentSize;
+        private final int _maxWaiters;
+        private final Duration _maxWait;
+        private boolean _done;
+        private long _contentSize;
+        private int _status;
+        private HttpFields _headers;
+
+        private Flight(Key key, Request request)
+        {
+            _key = key;
+            _bufferPool = request.getComponents().getByteBufferPool();
+            _scheduler = request.getComponents().getScheduler();
+            _maxContentSize = getMaxContentSize();
+            _maxWaiters = getMaxWaiters();
+            _maxWait = getMaxWait();
+        }
+
+        private boolean lead(Request request, Response response, Callback callback) throws Exception
+        {
+            boolean handled = false;
+            try
+            {
+                handled = nextHandler(request, new LeaderResponse(request, response), new Callback.Nested(callback)
+                {
+                    @Override
+                    public void succeeded()
+                    {
+                        List<Waiter> waiters = complete(response);
+                        super.succeeded();
+                        replay(waiters);
+                    }
+
+                    @Override
+                    public void failed(Throwable x)
+                    {
+                        abandon("failed");
+                        super.failed(x);
+                    }
+                });
+                return handled;
+            }
+            finally
+            {
+                if (!handled)
+                    abandon("not handled");
+            }
+        }
+
+        private boolean join(Request request, Response response, Callback callback)
+        {
+            Waiter waiter = new Waiter(request, response, callback);
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (_done || _waiters.size() >= _maxWaiters)
+                    return false;
+                _waiters.add(waiter);
+                waiter.timeout = _scheduler.schedule(() -> expire(waiter), _maxWait);
+            }
+            _coalesced.increment();
+            return true;
+        }
+
+        private void expire(Waiter waiter)
+        {
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (!_waiters.remove(waiter))
+                    return;
+            }
+            _coalesced.decrement();
+            _expired.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} expired waiting for {}", waiter.request, this);
+            waiter.request.getComponents().getExecutor().execute(() -> handleIndependently(waiter.request, waiter.response, waiter.callback));
+        }
+
+        private void capture(Response response, boolean last, ByteBuffer byteBuffer)
+        {
+            int length = BufferUtil.length(byteBuffer);
+            String reason = null;
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (_done)
+                    return;
+                if (_headers == null)
+                    reason = snapshot(response);
+                _contentSize += length;
+                if (reason == null && _contentSize > _maxContentSize)
+                    reason = "content too large";
+                if (reason == null)
+                {
+                    if (length > 0)
+                    {
+                        // Copy the content, as the application may reuse its buffer.
+                        RetainableByteBuffer buffer = _bufferPool.acquire(length, false);
+                        ByteBuffer copy = buffer.getByteBuffer();
+                        int position = BufferUtil.flipToFill(copy);
+                        copy.put(byteBuffer.slice());
+                        BufferUtil.flipToFlush(copy, position);
+                        _chunks.add(Content.Chunk.asChunk(copy, last, buffer));
+                    }
+                    else if (last)
+                    {
+                        _chunks.add(Content.Chunk.EOF);
+                    }
+                    return;
+                }
+            }
+            abandon(reason);
+        }
+
+        private String snapshot(Response response)
+        {
+            _status = response.getStatus();
+            _headers = HttpFields.build(response.getHeaders(), PER_RESPONSE_HEADERS).asImmutable();
+            return _headers.contains(HttpHeader.SET_COOKIE) ? "sets cookies" : null;
+        }
+
+        private List<Waiter> complete(Response response)
+        {
+            String reason;
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (_done)
+                    return List.of();
+                reason = _headers == null ? snapshot(response) : null;
+                if (reason == null && response.getTrailersSupplier() != null)
+                    reason = "has trailers";
+                if (reason == null)
+                {
+                    _done = true;
+                    _flights.remove(_key, this);
+                    List<Waiter> waiters = List.copyOf(_waiters);
+                    _waiters.clear();
+                    return waiters;
+                }
+            }
+            abandon(reason);
+            return List.of();
+        }
+
+        private void replay(List<Waiter> waiters)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} replaying to {} waiters", this, waiters.size());
+            for (Waiter waiter : waiters)
+            {
+                waiter.timeout.cancel();
+                new Replay(waiter, _status, _headers, _chunks).iterate();
+            }
+            // Each replay has retained the chunks.
+            _chunks.forEach(Content.Chunk::release);
+        }
+
+        private void abandon(String reason)
+        {
+            List<Waiter> waiters;
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (_done)
+                    return;
+                _done = true;
+                _flights.remove(_key, this);
+                waiters = List.copyOf(_waiters);
+                _waiters.clear();
+            }
+            _chunks.forEach(Content.Chunk::release);
+            _chunks.clear();
+            _abandoned.increment();
+            _coalesced.add(-waiters.size());
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} abandoned ({}), handling {} waiters independently", this, reason, waiters.size());
+            for (Waiter waiter : waiters)
+            {
+                waiter.timeout.cancel();
+                waiter.request.getComponents().getExecutor().execute(() -> handleIndependently(waiter.request, waiter.response, waiter.callback));
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s %s]", getClass().getSimpleName(), hashCode(), _key.method(), _key.uri());
+        }
+
+        private class LeaderResponse extends Response.Wrapper
+        {
+            private LeaderResponse(Request request, Response wrapped)
+            {
+                super(request, wrapped);
+            }
+
+            @Override
+            public void write(boolean last, ByteBuffer byteBuffer, Callback callback)
+            {
+                capture(getWrapped(), last, byteBuffer);
+                super.write(last, byteBuffer, callback);
+            }
+        }
+    }
+
+    /**
+     * <p>Writes the captured response of a leader to a waiter.</p>
+     */
+    private static class Replay extends IteratingCallback
+    {
+        private final Waiter _waiter;
+        private final List<Content.Chunk> _chunks;
+        private int _index;
+        private Content.Chunk _chunk;
+
+        private Replay(Waiter waiter, int status, HttpFields headers, List<Content.Chunk> chunks)
+        {
+            _waiter = waiter;
+            _chunks = chunks;
+            chunks.forEach(Content.Chunk::retain);
+
+            Response response = waiter.response;
+            response.setStatus(status);
+            HttpFields.Mutable responseHeaders = response.getHeaders();
+            for (HttpField field : headers)
+            {
+                responseHeaders.remove(field.getName());
+            }
+            responseHeaders.add(headers);
+        }
+
+        @Override
+        protected Action process()
+        {
+            if (_chunk != null)
+            {
+                _chunk.release();
+                _chunk = null;
+            }
+            if (_index == _chunks.size())
+                return Action.SUCCEEDED;
+            _chunk = _chunks.get(_index++);
+            // Slice the shared buffer, as other waiters write it concurrently.
+            _waiter.response.write(_chunk.isLast(), _chunk.getByteBuffer().slice(), this);
+            return Action.SCHEDULED;
+        }
+
+        @Override
+        protected void onCompleteSuccess()
+        {
+            _waiter.callback.succeeded();
+        }
+
+        @Override
+        protected void onCompleteFailure(Throwable cause)
+        {
+            if (_chunk != null)
+                _chunk.release();
+            while (_index < _chunks.size())
+            {
+                _chunks.get(_index++).release();
+            }
+            _waiter.callback.failed(cause);
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IncludeExclude;
 import org.eclipse.jetty.util.IncludeExcludeSet;
 import org.eclipse.jetty.util.InetAddressPattern;
+import org.eclipse.jetty.util.InetAddressSet;
 import org.eclipse.jetty.util.TypeUtil;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.slf4j.Logger;
@@ -298,6 +299,36 @@ public abstract class ConditionalHandler extends Handler.Wrapper
             exclude(InetAddressPattern.from(p));
     }
 
+    /**
+     * Include an {@link InetAddressSet} in the conditions to be met.
+     * The set is not copied, so it may later be atomically reloaded with
+     * {@link InetAddressSet#load(java.nio.file.Path)} while this handler is started.
+     * @param addresses The {@link InetAddressSet} that is
+     * tested against the {@link ConnectionMetaData#getRemoteSocketAddress() getRemoteSocketAddress()} of
+     * {@link Request#getConnectionMetaData()}.
+     */
+    public void include(InetAddressSet addresses)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _predicates.include(new InetAddressSetPredicate(addresses));
+    }
+
+    /**
+     * Exclude an {@link InetAddressSet} in the conditions to be met.
+     * The set is not copied, so it may later be atomically reloaded with
+     * {@link InetAddressSet#load(java.nio.file.Path)} while this handler is started.
+     * @param addresses The {@link InetAddressSet} that is
+     * tested against the {@link ConnectionMetaData#getRemoteSocketAddress() getRemoteSocketAddress()} of
+     * {@link Request#getConnectionMetaData()}.
+     */
+    public void exclude(InetAddressSet addresses)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _predicates.exclude(new InetAddressSetPredicate(addresses));
+    }
+
     /**
      * {@link IncludeExclude#include(Object) Include} arbitrary {@link Predicate}s in the conditions.
      * @param predicates {@link Predicate}s that are tested against the {@link Request}.
@@ -487,29 +518,58 @@ public abstract class ConditionalHandler extends Handler.Wrapper
 
     /**
      * A Set of {@link Predicate} over {@link Request} optimized for use by {@link IncludeExclude}.
+     * The {@link InetAddressPatternPredicate}s are grouped in an {@link InetAddressSet}, so that
+     * large numbers of patterns are matched with a radix trie rather than one by one.
      */
     public static class PredicateSet extends AbstractSet<Predicate<Request>> implements Set<Predicate<Request>>, Predicate<Request>
     {
         private final ArrayList<Predicate<Request>> _predicates = new ArrayList<>();
+        private final ArrayList<Predicate<Request>> _others = new ArrayList<>();
+        private final InetAddressSet _addresses = new InetAddressSet();
 
         @Override
         public boolean add(Predicate<Request> predicate)
         {
             if (_predicates.contains(predicate))
                 return false;
+            index(predicate);
             return _predicates.add(predicate);
         }
 
         @Override
         public boolean remove(Object o)
         {
-            return _predicates.remove(o);
+            if (!_predicates.remove(o))
+                return false;
+            reindex();
+            return true;
         }
 
         @Override
         public Iterator<Predicate<Request>> iterator()
         {
-            return _predicates.iterator();
+            Iterator<Predicate<Request>> iterator = _predicates.iterator();
+            return new Iterator<>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Predicate<Request> next()
+                {
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove()
+                {
+                    iterator.remove();
+                    reindex();
+                }
+            };
         }
 
         @Override
@@ -518,13 +578,35 @@ public abstract class ConditionalHandler extends Handler.Wrapper
             return _predicates.size();
         }
 
+        private void index(Predicate<Request> predicate)
+        {
+            if (predicate instanceof InetAddressPatternPredicate inetAddressPatternPredicate)
+                _addresses.add(inetAddressPatternPredicate._pattern);
+            else
+                _others.add(predicate);
+        }
+
+        private void reindex()
+        {
+            _others.clear();
+            _addresses.clear();
+            for (Predicate<Request> predicate : _predicates)
+            {
+                index(predicate);
+            }
+        }
+
         @Override
         public boolean test(Request request)
         {
             if (request == null)
                 return false;
 
-            for (Predicate<Request> predicate : _predicates)
+            if (!_addresses.isEmpty() &&
+                _addresses.test(InetAddressPatternPredicate.getInetAddress(request.getConnectionMetaData().getRemoteSocketAddress())))
+                return true;
+
+            for (Predicate<Request> predicate : _others)
             {
                 if (predicate.test(request))
                     return true;
@@ -633,6 +715,45 @@ public abstract class ConditionalHandler extends Handler.Wrapper
         }
     }
 
+    /**
+     * A {@link Predicate} over {@link Request} that tests an {@link InetAddressSet}
+     * against the {@link ConnectionMetaData#getRemoteSocketAddress() getRemoteSocketAddress()} of
+     * {@link Request#getConnectionMetaData()}.
+     */
+    public static class InetAddressSetPredicate implements Predicate<Request>
+    {
+        private final InetAddressSet _addresses;
+
+        public InetAddressSetPredicate(InetAddressSet addresses)
+        {
+            _addresses = Objects.requireNonNull(addresses);
+        }
+
+        @Override
+        public boolean test(Request request)
+        {
+            return _addresses.test(InetAddressPatternPredicate.getInetAddress(request.getConnectionMetaData().getRemoteSocketAddress()));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(_addresses);
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof InetAddressSetPredicate inetAddressSetPredicate && _addresses == inetAddressSetPredicate._addresses;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "%s@%x{size=%d}".formatted(getClass().getSimpleName(), hashCode(), _addresses.size());
+        }
+    }
+
     /**
      * A {@link Predicate} over {@link Request} that tests {@link Request#getMethod() method} name.
      * Using predicates in less efficient than using {@link ConditionalHandler#includeMethod(String...)}
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EventListener;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Objects;
@@ -421,6 +422,24 @@ public class ContextHandler extends Handler.Wrapper implements Attributes, Alias
         return _vhosts.stream().map(VHost::getName).collect(Collectors.toList());
     }
 
+    /**
+     * @return the host names, and the {@code .domain} suffixes of the wildcard host names, that this context
+     * matches, or null if this context may match a request regardless of its host name
+     */
+    Set<String> getVirtualHostKeys()
+    {
+        if (_vhosts.isEmpty())
+            return null;
+        Set<String> keys = new HashSet<>();
+        for (VHost vhost : _vhosts)
+        {
+            if (vhost.getVHost() == null || vhost._vConnector != null)
+                return null;
+            keys.add(vhost.getVHost());
+        }
+        return keys;
+    }
+
     @Override
     public Object getAttribute(String name)
     {
@@ -14,6 +14,7 @@
 package org.eclipse.jetty.server.handler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -22,18 +23,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.util.ArrayUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.Index;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.util.thread.SerializedExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,12 +57,37 @@ import org.slf4j.LoggerFactory;
  * The contexts do not need to be directly contained, only children of the contained handlers.
  * Multiple contexts may have the same context path and they are called in order until one
  * handles the request.
+ * <p>
+ * The contexts are routed first by context path and then, amongst the contexts with the
+ * same context path, by the host name of the request: the contexts with
+ * {@link ContextHandler#setVirtualHosts(List) virtual hosts} are indexed by host name
+ * and wildcard domain, so that the cost of routing a request does not grow with the
+ * number of virtual hosts.
+ * </p>
+ * <p>
+ * If {@link #setLazyStart(boolean) lazy start} is enabled, the {@link ContextHandler}s
+ * directly contained in this collection are mapped, but not started, when this collection
+ * is started: each context is started on a pooled thread when it receives its first request,
+ * and the requests received while it is starting are queued, up to
+ * {@link #setMaxLazyStartQueueSize(int) a maximum}, after which they are rejected with a 503.
+ * A lazily started context may also be stopped, to reclaim its resources, once it has not
+ * received a request for the {@link #setIdleStopTimeout(long) idle stop timeout}; it is then
+ * started again by its next request.
+ * Because the requests queued while a context starts are accepted by this collection before the
+ * context is started, a queued request that the started context does not handle is responded
+ * with a 404, rather than being offered to the next matching context.
+ * </p>
  */
 @ManagedObject("Context Handler Collection")
 public class ContextHandlerCollection extends Handler.Sequence
 {
     private static final Logger LOG = LoggerFactory.getLogger(ContextHandlerCollection.class);
     private final SerializedExecutor _serializedExecutor = new SerializedExecutor();
+    private final ConcurrentMap<ContextHandler, LazyContext> _lazyContexts = new ConcurrentHashMap<>();
+    private boolean _lazyStart;
+    private int _maxLazyStartQueueSize = 128;
+    private long _idleStopTimeout;
+    private Scheduler.Task _idleStopTask;
 
     public ContextHandlerCollection(ContextHandler... contexts)
     {
@@ -69,6 +106,169 @@ public class ContextHandlerCollection extends Handler.Sequence
         super(dynamic, List.of(contexts));
     }
 
+    /**
+     * <p>Returns the executor used to start the contexts concurrently: if none was set,
+     * the {@link Server#getThreadPool() server thread pool} if the server
+     * {@link Server#isConcurrentStart() starts concurrently}, so that contexts with heavy
+     * initialization start in parallel; sibling contexts that depend on each other
+     * must declare it with {@link #addBeanDependency(Object, Object)}.</p>
+     *
+     * @return the executor used to start the contexts concurrently, or null
+     */
+    @Override
+    public Executor getStartExecutor()
+    {
+        Executor executor = super.getStartExecutor();
+        if (executor == null)
+        {
+            Server server = getServer();
+            if (server != null && server.isConcurrentStart())
+                executor = server.getThreadPool();
+        }
+        return executor;
+    }
+
+    /**
+     * @return whether the contexts are started by their first request rather than when this collection starts
+     */
+    @ManagedAttribute("Whether the contexts are started by their first request")
+    public boolean isLazyStart()
+    {
+        return _lazyStart;
+    }
+
+    /**
+     * @param lazyStart whether the contexts are started by their first request rather than when this collection starts
+     */
+    public void setLazyStart(boolean lazyStart)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _lazyStart = lazyStart;
+    }
+
+    /**
+     * @return the max number of requests queued for a context while it is lazily started
+     */
+    @ManagedAttribute("The max number of requests queued for a context while it is lazily started")
+    public int getMaxLazyStartQueueSize()
+    {
+        return _maxLazyStartQueueSize;
+    }
+
+    /**
+     * @param maxLazyStartQueueSize the max number of requests queued for a context while it is lazily started
+     */
+    public void setMaxLazyStartQueueSize(int maxLazyStartQueueSize)
+    {
+        _maxLazyStartQueueSize = maxLazyStartQueueSize;
+    }
+
+    /**
+     * @return the time in ms after which a lazily started context that received no requests is stopped,
+     * or a non-positive value to never stop idle contexts
+     */
+    @ManagedAttribute("The time in ms after which an idle, lazily started, context is stopped")
+    public long getIdleStopTimeout()
+    {
+        return _idleStopTimeout;
+    }
+
+    /**
+     * @param idleStopTimeout the time in ms after which a lazily started context that received no requests
+     * is stopped, or a non-positive value to never stop idle contexts
+     */
+    public void setIdleStopTimeout(long idleStopTimeout)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _idleStopTimeout = idleStopTimeout;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        // Remap, as the virtual hosts of the contexts may have changed since they were added.
+        List<Handler> handlers = getHandlers();
+        if (handlers instanceof Mapping)
+            super.setHandlers(handlers);
+        super.doStart();
+        if (isLazyStart() && getIdleStopTimeout() > 0)
+            scheduleIdleStop();
+    }
+
+    @Override
+    public void setHandlers(List<Handler> handlers)
+    {
+        super.setHandlers(handlers);
+        // The super constructor sets the handlers before the fields are initialized.
+        if (_lazyContexts == null)
+            return;
+        // Forget the lazily started contexts that are no longer mapped, so that they can be collected.
+        List<Handler> mapped = getHandlers();
+        _lazyContexts.entrySet().removeIf(entry ->
+        {
+            if (mapped.contains(entry.getKey()))
+                return false;
+            entry.getValue().failPending();
+            return true;
+        });
+    }
+
+    /**
+     * To facilitate testing.
+     *
+     * @return the contexts that have been lazily started
+     */
+    Set<ContextHandler> getLazyContexts()
+    {
+        return _lazyContexts.keySet();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        Scheduler.Task task = _idleStopTask;
+        _idleStopTask = null;
+        if (task != null)
+            task.cancel();
+        super.doStop();
+        // Stop the contexts that were started lazily after this collection was started.
+        for (LazyContext lazyContext : _lazyContexts.values())
+        {
+            lazyContext.reset();
+        }
+        _lazyContexts.clear();
+    }
+
+    @Override
+    protected void start(LifeCycle l) throws Exception
+    {
+        // Contexts are started by their first request.
+        if (isLazyStart() && l instanceof ContextHandler)
+            return;
+        super.start(l);
+    }
+
+    private void scheduleIdleStop()
+    {
+        Server server = getServer();
+        Scheduler scheduler = server == null ? null : server.getScheduler();
+        if (scheduler == null)
+            return;
+        long period = Math.max(1, getIdleStopTimeout() / 2);
+        _idleStopTask = scheduler.schedule(() ->
+        {
+            if (!isRunning())
+                return;
+            for (LazyContext lazyContext : _lazyContexts.values())
+            {
+                lazyContext.stopIfIdle(server.getThreadPool());
+            }
+            scheduleIdleStop();
+        }, period, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Remap the contexts.  Normally this is not required as context
      * mapping is maintained as a side effect of {@link #setHandlers(Handler[])}
@@ -148,10 +348,10 @@ public class ContextHandlerCollection extends Handler.Sequence
 
         // handle only a single context.
         if (handlers.size() == 1)
-            return handlers.get(0).handle(request, response, callback);
+            return handle(handlers.get(0), request, response, callback);
 
         // handle many contexts
-        Index<Map.Entry<String, Branch[]>> pathBranches = mapping._pathBranches;
+        Index<Branches> pathBranches = mapping._pathBranches;
         if (pathBranches == null)
             return false;
 
@@ -162,29 +362,33 @@ public class ContextHandlerCollection extends Handler.Sequence
         }
 
         int limit = path.length() - 1;
+        String host = null;
 
         while (limit >= 0)
         {
             // Get best match
-            Map.Entry<String, Branch[]> branches = pathBranches.getBest(path, 1, limit);
+            Branches branches = pathBranches.getBest(path, 1, limit);
 
             if (branches == null)
                 break;
 
-            int l = branches.getKey().length();
+            int l = branches._contextPath.length();
             if (l == 1 || path.length() == l || path.charAt(l) == '/')
             {
-                for (Branch branch : branches.getValue())
+                if (branches._hosts == null)
                 {
-                    try
+                    for (Branch branch : branches._branches)
                     {
-                        if (branch.getHandler().handle(request, response, callback))
+                        if (handle(branch, request, response, callback))
                             return true;
                     }
-                    catch (Throwable t)
-                    {
-                        LOG.warn("Unaccepted error {}", this, t);
-                    }
+                }
+                else
+                {
+                    if (host == null)
+                        host = Request.getServerName(request);
+                    if (branches.handle(host, request, response, callback))
+                        return true;
                 }
             }
 
@@ -193,17 +397,40 @@ public class ContextHandlerCollection extends Handler.Sequence
         return false;
     }
 
+    private boolean handle(Branch branch, Request request, Response response, Callback callback)
+    {
+        try
+        {
+            return handle(branch.getHandler(), request, response, callback);
+        }
+        catch (Throwable t)
+        {
+            LOG.warn("Unaccepted error {}", this, t);
+            return false;
+        }
+    }
+
+    private boolean handle(Handler handler, Request request, Response response, Callback callback) throws Exception
+    {
+        if (isLazyStart() && handler instanceof ContextHandler context)
+        {
+            if (!context.checkVirtualHost(request))
+                return false;
+            return _lazyContexts.computeIfAbsent(context, LazyContext::new).handle(request, response, callback);
+        }
+        return handler.handle(request, response, callback);
+    }
+
     @ManagedAttribute("The paths of the contexts in this collection")
     public Set<String> getContextPaths()
     {
         List<Handler> handlers = getHandlers();
         if (handlers instanceof Mapping mapping)
         {
-            Index<Map.Entry<String, Branch[]>> index = mapping._pathBranches;
+            Index<Branches> index = mapping._pathBranches;
             return index.keySet().stream()
                 .map(index::get)
-                .map(Map.Entry::getValue)
-                .flatMap(Stream::of)
+                .flatMap(branches -> Stream.of(branches._branches))
                 .flatMap(b -> b.getContextPaths().stream())
                 .collect(Collectors.toCollection(TreeSet::new));
         }
@@ -304,6 +531,32 @@ public class ContextHandlerCollection extends Handler.Sequence
             return set;
         }
 
+        /**
+         * @param contextPath the context path
+         * @return the virtual host keys of the contexts of this branch with the given context path,
+         * or null if this branch may handle a request regardless of its host name
+         */
+        Set<String> getVirtualHostKeys(String contextPath)
+        {
+            // Other handlers may handle requests regardless of the contexts they contain.
+            if (!(_handler instanceof ContextHandler))
+                return null;
+            Set<String> keys = new HashSet<>();
+            for (ContextHandler context : _contexts)
+            {
+                if (!contextPath.equals(context.getContextPath()))
+                    continue;
+                Set<String> contextKeys = context.getVirtualHostKeys();
+                if (contextKeys == null)
+                    return null;
+                for (String key : contextKeys)
+                {
+                    keys.add(StringUtil.asciiToLowerCase(key));
+                }
+            }
+            return keys;
+        }
+
         boolean hasVirtualHost()
         {
             for (ContextHandler context : _contexts)
@@ -326,21 +579,387 @@ public class ContextHandlerCollection extends Handler.Sequence
         }
     }
 
-    private static class Mapping extends ArrayList<Handler>
+    /**
+     * <p>The start state of a lazily started context, with the requests
+     * queued while it is starting, and the requests it is handling.</p>
+     */
+    private class LazyContext
+    {
+        private final AutoLock _lock = new AutoLock();
+        private final List<Pending> _pending = new ArrayList<>();
+        private final ContextHandler _context;
+        private State _state = State.STOPPED;
+        private int _active;
+        private long _lastAccessNanoTime = NanoTime.now();
+
+        private LazyContext(ContextHandler context)
+        {
+            _context = context;
+        }
+
+        private boolean handle(Request request, Response response, Callback callback) throws Exception
+        {
+            boolean start = false;
+            boolean started = false;
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (_state != State.STOPPING && _state != State.STARTING)
+                    _state = _context.isStarted() ? State.STARTED : State.STOPPED;
+
+                if (_state != State.STARTED)
+                {
+                    if (_pending.size() >= getMaxLazyStartQueueSize())
+                    {
+                        Response.writeError(request, response, callback, HttpStatus.SERVICE_UNAVAILABLE_503, "Context starting");
+                        return true;
+                    }
+                    _pending.add(new Pending(request, response, callback));
+                    if (_state == State.STOPPED)
+                    {
+                        _state = State.STARTING;
+                        start = true;
+                    }
+                }
+                else
+                {
+                    started = true;
+                    _active++;
+                    _lastAccessNanoTime = NanoTime.now();
+                }
+            }
+
+            if (start)
+            {
+                try
+                {
+                    request.getComponents().getExecutor().execute(this::start);
+                }
+                catch (Throwable x)
+                {
+                    LOG.warn("Unable to lazily start {}", _context, x);
+                    try (AutoLock ignored = _lock.lock())
+                    {
+                        _state = State.STOPPED;
+                    }
+                    failPending();
+                }
+            }
+            if (started)
+                return handleStarted(request, response, callback);
+            return true;
+        }
+
+        private boolean handleStarted(Request request, Response response, Callback callback) throws Exception
+        {
+            Callback.Nested completion = new Callback.Nested(callback)
+            {
+                @Override
+                public void completed()
+                {
+                    try (AutoLock ignored = _lock.lock())
+                    {
+                        _active--;
+                        _lastAccessNanoTime = NanoTime.now();
+                    }
+                }
+            };
+            try
+            {
+                if (_context.handle(request, response, completion))
+                    return true;
+            }
+            catch (Throwable x)
+            {
+                Response.writeError(request, response, completion, x);
+                return true;
+            }
+            completion.completed();
+            return false;
+        }
+
+        private void start()
+        {
+            Throwable failure = null;
+            try
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Lazily starting {}", _context);
+                _context.start();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Unable to lazily start {}", _context, x);
+                failure = x;
+            }
+            onStarted(failure);
+        }
+
+        private void onStarted(Throwable failure)
+        {
+            List<Pending> pending;
+            try (AutoLock ignored = _lock.lock())
+            {
+                pending = List.copyOf(_pending);
+                _pending.clear();
+                _state = failure == null ? State.STARTED : State.STOPPED;
+                if (failure == null)
+                    _active += pending.size();
+                _lastAccessNanoTime = NanoTime.now();
+            }
+
+            for (Pending p : pending)
+            {
+                if (failure != null)
+                {
+                    Response.writeError(p.request, p.response, p.callback, HttpStatus.SERVICE_UNAVAILABLE_503, null, failure);
+                    continue;
+                }
+                try
+                {
+                    if (!handleStarted(p.request, p.response, p.callback))
+                        Response.writeError(p.request, p.response, p.callback, HttpStatus.NOT_FOUND_404);
+                }
+                catch (Throwable x)
+                {
+                    Response.writeError(p.request, p.response, p.callback, x);
+                }
+            }
+        }
+
+        private void stopIfIdle(Executor executor)
+        {
+            try (AutoLock ignored = _lock.lock())
+            {
+                if (_state != State.STARTED || _active > 0 || NanoTime.millisSince(_lastAccessNanoTime) < getIdleStopTimeout())
+                    return;
+                _state = State.STOPPING;
+            }
+
+            try
+            {
+                executor.execute(this::stop);
+            }
+            catch (Throwable x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Unable to stop idle {}", _context, x);
+                // The context is still started: handle the requests queued meanwhile.
+                onStarted(null);
+            }
+        }
+
+        private void stop()
+        {
+            try
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Stopping idle {}", _context);
+                _context.stop();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Unable to stop idle {}", _context, x);
+            }
+
+            boolean restart;
+            try (AutoLock ignored = _lock.lock())
+            {
+                // Requests may have been queued while stopping.
+                restart = !_pending.isEmpty();
+                _state = restart ? State.STARTING : State.STOPPED;
+            }
+            if (restart)
+                start();
+        }
+
+        private void failPending()
+        {
+            List<Pending> pending;
+            try (AutoLock ignored = _lock.lock())
+            {
+                pending = List.copyOf(_pending);
+                _pending.clear();
+            }
+            for (Pending p : pending)
+            {
+                Response.writeError(p.request, p.response, p.callback, HttpStatus.SERVICE_UNAVAILABLE_503);
+            }
+        }
+
+        private void reset()
+        {
+            try (AutoLock ignored = _lock.lock())
+            {
+                _state = State.STOPPED;
+            }
+            failPending();
+            try
+            {
+                if (_context.isRunning())
+                    _context.stop();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Unable to stop {}", _context, x);
+            }
+        }
+
+        private enum State
+        {
+            STOPPED, STARTING, STARTED, STOPPING
+        }
+
+        private record Pending(Request request, Response response, Callback callback)
+        {
+        }
+    }
+
+    /**
+     * <p>The branches for a context path, in order, with the branches that
+     * have virtual hosts indexed by host name and by wildcard domain.</p>
+     */
+    private class Branches
+    {
+        private static final int[] NONE = new int[0];
+
+        private final String _contextPath;
+        private final Branch[] _branches;
+        private final Index<int[]> _hosts;
+        private final int[] _anyHost;
+
+        private Branches(String contextPath, Branch[] branches)
+        {
+            _contextPath = contextPath;
+            _branches = branches;
+
+            Map<String, List<Integer>> hosts = new HashMap<>();
+            List<Integer> anyHost = new ArrayList<>();
+            for (int i = 0; i < branches.length; i++)
+            {
+                Set<String> keys = branches[i].getVirtualHostKeys(contextPath);
+                if (keys == null)
+                {
+                    anyHost.add(i);
+                }
+                else
+                {
+                    for (String key : keys)
+                    {
+                        hosts.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                    }
+                }
+            }
+
+            Index<int[]> index = null;
+            if (!hosts.isEmpty())
+            {
+                try
+                {
+                    index = new Index.Builder<int[]>()
+                        .caseSensitive(false)
+                        .withAll(() ->
+                        {
+                            Map<String, int[]> result = new HashMap<>();
+                            hosts.forEach((key, value) -> result.put(key, toArray(value)));
+                            return result;
+                        })
+                        .build();
+                }
+                catch (IllegalStateException x)
+                {
+                    // The branches are tried in order.
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Unable to index virtual hosts of {}", contextPath, x);
+                }
+            }
+            _hosts = index;
+            _anyHost = toArray(anyHost);
+        }
+
+        private static int[] toArray(List<Integer> list)
+        {
+            return list.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * <p>Tries, in order, the branches that match the given host name, which are the branches
+         * with a virtual host equal to the host name, or to the wildcard domain of the host name,
+         * and the branches that may match any host name.</p>
+         */
+        private boolean handle(String host, Request request, Response response, Callback callback)
+        {
+            int[] exact = NONE;
+            int[] wild = NONE;
+            if (host != null)
+            {
+                // Names with a trailing "." are absolute.
+                int end = host.length();
+                if (end > 0 && host.charAt(end - 1) == '.')
+                    end--;
+                int[] indexes = _hosts.get(host, 0, end);
+                if (indexes != null)
+                    exact = indexes;
+                int dot = host.indexOf('.');
+                if (dot > 0 && dot < end)
+                {
+                    indexes = _hosts.get(host, dot, end - dot);
+                    if (indexes != null)
+                        wild = indexes;
+                }
+            }
+
+            // Merge the ordered indexes, so that the branches are tried in order.
+            int e = 0;
+            int w = 0;
+            int a = 0;
+            int last = -1;
+            while (true)
+            {
+                int next = Integer.MAX_VALUE;
+                if (e < exact.length)
+                    next = exact[e];
+                if (w < wild.length)
+                    next = Math.min(next, wild[w]);
+                if (a < _anyHost.length)
+                    next = Math.min(next, _anyHost[a]);
+                if (next == Integer.MAX_VALUE)
+                    return false;
+
+                if (e < exact.length && exact[e] == next)
+                    e++;
+                if (w < wild.length && wild[w] == next)
+                    w++;
+                if (a < _anyHost.length && _anyHost[a] == next)
+                    a++;
+
+                if (next != last && ContextHandlerCollection.this.handle(_branches[next], request, response, callback))
+                    return true;
+                last = next;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s%s", _contextPath, Arrays.toString(_branches));
+        }
+    }
+
+    private class Mapping extends ArrayList<Handler>
     {
-        private final Index<Map.Entry<String, Branch[]>> _pathBranches;
+        private final Index<Branches> _pathBranches;
 
         private Mapping(List<Handler> handlers, Map<String, Branch[]> path2Branches)
         {
             super(handlers);
-            _pathBranches = new Index.Builder<Map.Entry<String, Branch[]>>()
+            _pathBranches = new Index.Builder<Branches>()
                 .caseSensitive(true)
                 .withAll(() ->
                 {
-                    Map<String, Map.Entry<String, Branch[]>> result = new LinkedHashMap<>();
+                    Map<String, Branches> result = new LinkedHashMap<>();
                     for (Map.Entry<String, Branch[]> entry : path2Branches.entrySet())
                     {
-                        result.put(entry.getKey().substring(1), entry);
+                        result.put(entry.getKey().substring(1), new Branches(entry.getKey(), entry.getValue()));
                     }
                     return result;
                 })
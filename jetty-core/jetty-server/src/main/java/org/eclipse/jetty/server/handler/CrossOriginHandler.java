@@ -14,10 +14,16 @@
 package org.eclipse.jetty.server.handler;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
+import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
@@ -27,6 +33,7 @@ import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.slf4j.Logger;
@@ -54,6 +61,10 @@ import org.slf4j.LoggerFactory;
  * credentials (cookies and authentication headers) or not, by configuring
  * {@link #setAllowCredentials(boolean)}.</p>
  * <p>By default, no origin is allowed, and credentials are not allowed.</p>
+ * <p>Allowed origin patterns that do not contain regular expression metacharacters
+ * (for example {@code https://domain\.com}) are matched literally, without regular expressions.
+ * The decision for each {@code Origin} header value, along with the response headers
+ * to add for that origin, is cached in a cache bounded by {@link #setOriginCacheSize(int)}.</p>
  */
 @ManagedObject
 public class CrossOriginHandler extends Handler.Wrapper
@@ -61,6 +72,8 @@ public class CrossOriginHandler extends Handler.Wrapper
     private static final Logger LOG = LoggerFactory.getLogger(CrossOriginHandler.class);
     private static final PreEncodedHttpField ACCESS_CONTROL_ALLOW_CREDENTIALS_TRUE = new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
     private static final PreEncodedHttpField VARY_ORIGIN = new PreEncodedHttpField(HttpHeader.VARY, HttpHeader.ORIGIN.asString());
+    private static final HttpField[] NO_FIELDS = new HttpField[0];
+    private static final int MAX_CACHED_ORIGIN_LENGTH = 256;
 
     private boolean allowCredentials = false;
     private Set<String> allowedHeaders = Set.of("Content-Type");
@@ -72,14 +85,16 @@ public class CrossOriginHandler extends Handler.Wrapper
     private boolean deliverNonAllowedOriginWebSocketUpgrade = false;
     private Set<String> exposedHeaders = Set.of();
     private Duration preflightMaxAge = Duration.ofSeconds(60);
+    private int originCacheSize = 1024;
     private boolean anyOriginAllowed;
+    private final Set<String> allowedLiteralOrigins = new HashSet<>();
     private final Set<Pattern> allowedOriginPatterns = new LinkedHashSet<>();
     private boolean anyTimingOriginAllowed;
+    private final Set<String> allowedLiteralTimingOrigins = new HashSet<>();
     private final Set<Pattern> allowedTimingOriginPatterns = new LinkedHashSet<>();
-    private PreEncodedHttpField accessControlAllowMethodsField;
-    private PreEncodedHttpField accessControlAllowHeadersField;
-    private PreEncodedHttpField accessControlExposeHeadersField;
-    private PreEncodedHttpField accessControlMaxAge;
+    private final Map<String, Decision> decisions = new ConcurrentHashMap<>();
+    private HttpField[] preflightFields = NO_FIELDS;
+    private HttpField[] simpleFields = NO_FIELDS;
 
     /**
      * @return whether the cross server allows cross-origin requests to include credentials
@@ -309,15 +324,65 @@ public class CrossOriginHandler extends Handler.Wrapper
         preflightMaxAge = duration;
     }
 
+    /**
+     * @return the max number of {@code Origin} header values whose decision is cached
+     */
+    @ManagedAttribute("The max number of Origin header values whose decision is cached")
+    public int getOriginCacheSize()
+    {
+        return originCacheSize;
+    }
+
+    /**
+     * <p>Sets the max number of {@code Origin} header values whose decision
+     * (whether the origin is allowed, and the response headers to add) is cached.</p>
+     * <p>When the cache is full, it is cleared, so that a client sending many
+     * distinct origins cannot make the cache grow without bounds.
+     * A value of zero disables the cache.</p>
+     * <p>Default value is {@code 1024}.</p>
+     *
+     * @param size the max number of Origin header values whose decision is cached
+     */
+    public void setOriginCacheSize(int size)
+    {
+        throwIfStarted();
+        originCacheSize = size;
+    }
+
+    /**
+     * @return the number of Origin header values whose decision is currently cached
+     */
+    @ManagedAttribute("The number of Origin header values whose decision is currently cached")
+    public int getCachedOriginCount()
+    {
+        return decisions.size();
+    }
+
     @Override
     protected void doStart() throws Exception
     {
-        resolveAllowedOrigins();
-        resolveAllowedTimingOrigins();
-        accessControlAllowMethodsField = new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_ALLOW_METHODS, String.join(",", getAllowedMethods()));
-        accessControlAllowHeadersField = new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_ALLOW_HEADERS, String.join(",", getAllowedHeaders()));
-        accessControlExposeHeadersField = new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_EXPOSE_HEADERS, String.join(",", getExposedHeaders()));
-        accessControlMaxAge = new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_MAX_AGE, getPreflightMaxAge().toSeconds());
+        decisions.clear();
+        anyOriginAllowed = resolveAllowedOrigins(getAllowedOriginPatterns(), allowedLiteralOrigins, allowedOriginPatterns);
+        anyTimingOriginAllowed = resolveAllowedOrigins(getAllowedTimingOriginPatterns(), allowedLiteralTimingOrigins, allowedTimingOriginPatterns);
+
+        List<HttpField> fields = new ArrayList<>();
+        if (isAllowCredentials())
+            fields.add(ACCESS_CONTROL_ALLOW_CREDENTIALS_TRUE);
+        if (!getAllowedMethods().isEmpty())
+            fields.add(new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_ALLOW_METHODS, String.join(",", getAllowedMethods())));
+        if (!getAllowedHeaders().isEmpty())
+            fields.add(new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_ALLOW_HEADERS, String.join(",", getAllowedHeaders())));
+        long seconds = getPreflightMaxAge().toSeconds();
+        if (seconds > 0)
+            fields.add(new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_MAX_AGE, seconds));
+        preflightFields = fields.toArray(NO_FIELDS);
+
+        fields.clear();
+        if (isAllowCredentials())
+            fields.add(ACCESS_CONTROL_ALLOW_CREDENTIALS_TRUE);
+        if (!getExposedHeaders().isEmpty())
+            fields.add(new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_EXPOSE_HEADERS, String.join(",", getExposedHeaders())));
+        simpleFields = fields.toArray(NO_FIELDS);
 
         if (anyOriginAllowed && isAllowCredentials())
             LOG.warn("{} configured with insecure parameters allowedOrigins=* and allowCredentials=true", getClass().getSimpleName());
@@ -325,6 +390,13 @@ public class CrossOriginHandler extends Handler.Wrapper
         super.doStart();
     }
 
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        decisions.clear();
+    }
+
     @Override
     public boolean handle(Request request, Response response, Callback callback) throws Exception
     {
@@ -340,7 +412,8 @@ public class CrossOriginHandler extends Handler.Wrapper
 
         boolean preflight = isPreflight(request);
 
-        if (originMatches(origins))
+        Decision decision = decide(origins);
+        if (decision.allowOrigin != null)
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("cross-origin request matches allowed origins: {} {}", request, getAllowedOriginPatterns());
@@ -349,7 +422,7 @@ public class CrossOriginHandler extends Handler.Wrapper
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("preflight cross-origin request {}", request);
-                handlePreflightResponse(origins, response);
+                handleResponse(decision.allowOrigin, preflightFields, response);
                 if (!isDeliverPreflightRequests())
                 {
                     if (LOG.isDebugEnabled())
@@ -362,14 +435,14 @@ public class CrossOriginHandler extends Handler.Wrapper
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("simple cross-origin request {}", request);
-                handleSimpleResponse(origins, response);
+                handleResponse(decision.allowOrigin, simpleFields, response);
             }
 
-            if (timingOriginMatches(origins))
+            if (decision.timingAllowOrigin != null)
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("cross-origin request matches allowed timing origins: {} {}", request, getAllowedTimingOriginPatterns());
-                response.getHeaders().put(HttpHeader.TIMING_ALLOW_ORIGIN, origins);
+                response.getHeaders().put(decision.timingAllowOrigin);
             }
 
             return super.handle(request, response, callback);
@@ -413,31 +486,54 @@ public class CrossOriginHandler extends Handler.Wrapper
         }
     }
 
-    private boolean originMatches(String origins)
+    private Decision decide(String origins)
     {
-        if (anyOriginAllowed)
-            return true;
-        if (allowedOriginPatterns.isEmpty())
-            return false;
-        return originMatches(origins, allowedOriginPatterns);
+        Decision decision = decisions.get(origins);
+        if (decision != null)
+            return decision;
+
+        // Only pre-encode the fields of the decisions that are cached,
+        // as the encoding is wasted on one-off origins.
+        int cacheSize = getOriginCacheSize();
+        boolean cache = cacheSize > 0 && origins.length() <= MAX_CACHED_ORIGIN_LENGTH;
+        HttpField allowOrigin = null;
+        HttpField timingAllowOrigin = null;
+        if (originMatches(origins, anyOriginAllowed, allowedLiteralOrigins, allowedOriginPatterns))
+        {
+            allowOrigin = cache
+                ? new PreEncodedHttpField(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, origins)
+                : new HttpField(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, origins);
+            if (originMatches(origins, anyTimingOriginAllowed, allowedLiteralTimingOrigins, allowedTimingOriginPatterns))
+            {
+                timingAllowOrigin = cache
+                    ? new PreEncodedHttpField(HttpHeader.TIMING_ALLOW_ORIGIN, origins)
+                    : new HttpField(HttpHeader.TIMING_ALLOW_ORIGIN, origins);
+            }
+        }
+        decision = new Decision(allowOrigin, timingAllowOrigin);
+
+        if (cache)
+        {
+            if (decisions.size() >= cacheSize)
+                decisions.clear();
+            decisions.put(origins, decision);
+        }
+        return decision;
     }
 
-    private boolean timingOriginMatches(String origins)
+    private boolean originMatches(String origins, boolean anyAllowed, Set<String> allowedLiteralOrigins, Set<Pattern> allowedOriginPatterns)
     {
-        if (anyTimingOriginAllowed)
+        if (anyAllowed)
             return true;
-        if (allowedTimingOriginPatterns.isEmpty())
+        if (allowedLiteralOrigins.isEmpty() && allowedOriginPatterns.isEmpty())
             return false;
-        return originMatches(origins, allowedTimingOriginPatterns);
-    }
-
-    private boolean originMatches(String origins, Set<Pattern> allowedOriginPatterns)
-    {
         for (String origin : origins.split(" "))
         {
             origin = origin.trim();
             if (origin.isEmpty())
                 continue;
+            if (allowedLiteralOrigins.contains(StringUtil.asciiToLowerCase(origin)))
+                return true;
             for (Pattern pattern : allowedOriginPatterns)
             {
                 if (pattern.matcher(origin).matches())
@@ -457,37 +553,28 @@ public class CrossOriginHandler extends Handler.Wrapper
         return request.getHeaders().contains(HttpHeader.SEC_WEBSOCKET_VERSION);
     }
 
-    private void handlePreflightResponse(String origins, Response response)
+    private void handleResponse(HttpField allowOrigin, HttpField[] fields, Response response)
     {
         HttpFields.Mutable headers = response.getHeaders();
-        headers.put(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, origins);
-        if (isAllowCredentials())
-            headers.put(ACCESS_CONTROL_ALLOW_CREDENTIALS_TRUE);
-        Set<String> allowedMethods = getAllowedMethods();
-        if (!allowedMethods.isEmpty())
-            headers.put(accessControlAllowMethodsField);
-        Set<String> allowedHeaders = getAllowedHeaders();
-        if (!allowedHeaders.isEmpty())
-            headers.put(accessControlAllowHeadersField);
-        long seconds = getPreflightMaxAge().toSeconds();
-        if (seconds > 0)
-            headers.put(accessControlMaxAge);
-    }
-
-    private void handleSimpleResponse(String origin, Response response)
-    {
-        HttpFields.Mutable headers = response.getHeaders();
-        headers.put(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
-        if (isAllowCredentials())
-            headers.put(ACCESS_CONTROL_ALLOW_CREDENTIALS_TRUE);
-        Set<String> exposedHeaders = getExposedHeaders();
-        if (!exposedHeaders.isEmpty())
-            headers.put(accessControlExposeHeadersField);
+        headers.put(allowOrigin);
+        for (HttpField field : fields)
+        {
+            headers.put(field);
+        }
     }
 
-    private void resolveAllowedOrigins()
+    /**
+     * <p>Resolves the given allowed origin strings into literal origins,
+     * that are matched case-insensitively without regular expressions,
+     * and into regular expression patterns.</p>
+     *
+     * @return whether any origin is allowed
+     */
+    private static boolean resolveAllowedOrigins(Set<String> allowedOrigins, Set<String> literalOrigins, Set<Pattern> patterns)
     {
-        for (String allowedOrigin : getAllowedOriginPatterns())
+        literalOrigins.clear();
+        patterns.clear();
+        for (String allowedOrigin : allowedOrigins)
         {
             allowedOrigin = allowedOrigin.trim();
             if (allowedOrigin.isEmpty())
@@ -495,30 +582,51 @@ public class CrossOriginHandler extends Handler.Wrapper
 
             if ("*".equals(allowedOrigin))
             {
-                anyOriginAllowed = true;
-                return;
+                literalOrigins.clear();
+                patterns.clear();
+                return true;
             }
 
-            allowedOriginPatterns.add(Pattern.compile(allowedOrigin, Pattern.CASE_INSENSITIVE));
+            String literal = toLiteral(allowedOrigin);
+            if (literal != null)
+                literalOrigins.add(StringUtil.asciiToLowerCase(literal));
+            else
+                patterns.add(Pattern.compile(allowedOrigin, Pattern.CASE_INSENSITIVE));
         }
+        return false;
     }
 
-    private void resolveAllowedTimingOrigins()
+    /**
+     * @param regex the regular expression
+     * @return the string matched by the given regular expression
+     * if it has no metacharacters other than escaped ones, or {@code null}
+     */
+    private static String toLiteral(String regex)
     {
-        for (String allowedTimingOrigin : getAllowedTimingOriginPatterns())
+        StringBuilder builder = new StringBuilder(regex.length());
+        for (int i = 0; i < regex.length(); ++i)
         {
-            allowedTimingOrigin = allowedTimingOrigin.trim();
-            if (allowedTimingOrigin.isEmpty())
-                continue;
-
-            if ("*".equals(allowedTimingOrigin))
+            char c = regex.charAt(i);
+            if (c == '\\')
             {
-                anyTimingOriginAllowed = true;
-                return;
+                // Only escaped punctuation is literal, as for example \d or \Q are not.
+                if (++i == regex.length())
+                    return null;
+                c = regex.charAt(i);
+                if (c > 127 || Character.isLetterOrDigit(c))
+                    return null;
             }
-
-            allowedTimingOriginPatterns.add(Pattern.compile(allowedTimingOrigin, Pattern.CASE_INSENSITIVE));
+            else if (c > 127 || ".[]{}()*+?^$|".indexOf(c) >= 0)
+            {
+                return null;
+            }
+            builder.append(c);
         }
+        return builder.toString();
+    }
+
+    private record Decision(HttpField allowOrigin, HttpField timingAllowOrigin)
+    {
     }
 
     private void throwIfStarted()
@@ -31,6 +31,13 @@ import org.eclipse.jetty.util.InetAddressSet;
  * handler uses the real internet address of the connection, not one reported in
  * the forwarded for headers, as this cannot be as easily forged.
  * </p>
+ * <p>
+ * Patterns with only an address are matched together by an {@link InetAddressSet},
+ * so large lists are efficiently matched. A list that must be replaced while the
+ * handler is started may be held by an {@link InetAddressSet} passed to
+ * {@link #include(InetAddressSet)} or {@link #exclude(InetAddressSet)}
+ * and reloaded with {@link InetAddressSet#load(java.nio.file.Path)}.
+ * </p>
  */
 public class InetAccessHandler extends ConditionalHandler.Abstract
 {
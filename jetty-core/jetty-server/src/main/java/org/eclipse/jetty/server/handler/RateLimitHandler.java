@@ -0,0 +1,462 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A {@link Handler} that {@link ConditionalHandler conditionally} limits
+ * the rate of requests of each client.</p>
+ * <p>Clients are identified by the key returned by the {@link #setKeyFunction(Function) key function},
+ * by default the {@link #remoteAddressKey() remote address} of the connection.
+ * Other functions are provided to identify clients by the value of a
+ * {@link #headerKey(String) header} or by the {@link #userKey() authenticated user}.
+ * Requests for which the key function returns {@code null} are not limited.</p>
+ * <p>Each client may perform {@link #setMaxRequestsPerSecond(double) maxRequestsPerSecond}
+ * requests per second on average, with bursts of up to {@link #setBurst(int) burst} requests.
+ * The limit is implemented with the Generic Cell Rate Algorithm (GCRA), which
+ * is equivalent to a token bucket, but only needs to store a single {@code long}
+ * per client: the theoretical arrival time of the next conforming request.</p>
+ * <p>The clients are stored in a bounded open addressing table of
+ * {@link #setMaxKeys(int) maxKeys} entries, updated with lock-free atomic
+ * operations and without allocation.
+ * An entry whose theoretical arrival time is in the past holds no state, so it
+ * expires implicitly and may be reused by another client without any scheduled task.
+ * If the table is full, a new client takes over the entry that expires the soonest,
+ * with a fresh state, and the evicted client is tracked again from scratch.</p>
+ * <p>The {@link Action action} taken for requests that exceed the limit is either to
+ * {@link Action#REJECT reject} them with status {@code 429 Too Many Requests}, or to
+ * {@link Action#DELAY delay} them by suspending them until they conform to the limit,
+ * for at most {@link #setMaxDelay(Duration) maxDelay}.</p>
+ */
+@ManagedObject
+public class RateLimitHandler extends ConditionalHandler.Abstract
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RateLimitHandler.class);
+    private static final int MAX_PROBES = 8;
+
+    /**
+     * The action taken for requests that exceed the rate limit.
+     */
+    public enum Action
+    {
+        /**
+         * The request is rejected with status {@code 429 Too Many Requests}
+         * and a {@code Retry-After} header.
+         */
+        REJECT,
+        /**
+         * The request is suspended until it conforms to the rate limit, and
+         * is rejected if that would take longer than the {@link #setMaxDelay(Duration) maxDelay}.
+         */
+        DELAY
+    }
+
+    private final LongAdder _rejected = new LongAdder();
+    private final LongAdder _delayed = new LongAdder();
+    private Function<Request, Object> _keyFunction = remoteAddressKey();
+    private double _maxRequestsPerSecond = 10;
+    private int _burst = 10;
+    private int _maxKeys = 64 * 1024;
+    private Action _action = Action.REJECT;
+    private Duration _maxDelay = Duration.ofSeconds(1);
+    private AtomicReferenceArray<Object> _keys;
+    private AtomicLongArray _arrivals;
+    private long _epoch;
+    private long _interval;
+    private long _tolerance;
+
+    public RateLimitHandler()
+    {
+        this(null);
+    }
+
+    public RateLimitHandler(Handler handler)
+    {
+        super(false, handler);
+    }
+
+    /**
+     * @return a key function returning the {@link java.net.InetAddress} of the
+     * {@link org.eclipse.jetty.server.ConnectionMetaData#getRemoteSocketAddress() remote address}
+     */
+    public static Function<Request, Object> remoteAddressKey()
+    {
+        return RateLimitHandler::getRemoteAddress;
+    }
+
+    /**
+     * @param name the name of the header
+     * @return a key function returning the value of the given request header
+     */
+    public static Function<Request, Object> headerKey(String name)
+    {
+        Objects.requireNonNull(name);
+        return request -> request.getHeaders().get(name);
+    }
+
+    /**
+     * @return a key function returning the name of the
+     * {@link Request.AuthenticationState#getUserPrincipal() authenticated user}
+     */
+    public static Function<Request, Object> userKey()
+    {
+        return request ->
+        {
+            Request.AuthenticationState authenticationState = Request.getAuthenticationState(request);
+            Principal principal = authenticationState == null ? null : authenticationState.getUserPrincipal();
+            return principal == null ? null : principal.getName();
+        };
+    }
+
+    private static Object getRemoteAddress(Request request)
+    {
+        SocketAddress socketAddress = request.getConnectionMetaData().getRemoteSocketAddress();
+        if (socketAddress instanceof InetSocketAddress inetSocketAddress)
+        {
+            if (inetSocketAddress.isUnresolved())
+                return inetSocketAddress.getHostString();
+            return inetSocketAddress.getAddress();
+        }
+        return socketAddress;
+    }
+
+    /**
+     * @return the function that returns the key identifying the client of a request
+     */
+    public Function<Request, Object> getKeyFunction()
+    {
+        return _keyFunction;
+    }
+
+    /**
+     * <p>Sets the function that returns the key identifying the client of a request.</p>
+     * <p>The keys must implement {@link Object#equals(Object)} and {@link Object#hashCode()},
+     * and should not retain the request. If the function returns {@code null}, the request
+     * is not limited.</p>
+     *
+     * @param keyFunction the function that returns the key identifying the client of a request
+     * @see #remoteAddressKey()
+     * @see #headerKey(String)
+     * @see #userKey()
+     */
+    public void setKeyFunction(Function<Request, Object> keyFunction)
+    {
+        if (isStarted())
+            throw new IllegalStateException("Cannot change keyFunction: " + this);
+        _keyFunction = Objects.requireNonNull(keyFunction);
+    }
+
+    /**
+     * @return the average number of requests per second allowed for each client
+     */
+    @ManagedAttribute(value = "The average number of requests per second allowed for each client", readonly = true)
+    public double getMaxRequestsPerSecond()
+    {
+        return _maxRequestsPerSecond;
+    }
+
+    /**
+     * @param maxRequestsPerSecond the average number of requests per second allowed for each client
+     */
+    public void setMaxRequestsPerSecond(double maxRequestsPerSecond)
+    {
+        if (isStarted())
+            throw new IllegalStateException("Cannot change maxRequestsPerSecond: " + this);
+        if (!(maxRequestsPerSecond > 0))
+            throw new IllegalArgumentException("Invalid maxRequestsPerSecond: " + maxRequestsPerSecond);
+        _maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * @return the number of requests that each client may perform at once
+     */
+    @ManagedAttribute(value = "The number of requests that each client may perform at once", readonly = true)
+    public int getBurst()
+    {
+        return _burst;
+    }
+
+    /**
+     * @param burst the number of requests that each client may perform at once
+     */
+    public void setBurst(int burst)
+    {
+        if (isStarted())
+            throw new IllegalStateException("Cannot change burst: " + this);
+        if (burst <= 0)
+            throw new IllegalArgumentException("Invalid burst: " + burst);
+        _burst = burst;
+    }
+
+    /**
+     * @return the max number of clients that are tracked
+     */
+    @ManagedAttribute(value = "The maximum number of clients that are tracked", readonly = true)
+    public int getMaxKeys()
+    {
+        return _maxKeys;
+    }
+
+    /**
+     * @param maxKeys the max number of clients that are tracked, rounded up to a power of 2
+     */
+    public void setMaxKeys(int maxKeys)
+    {
+        if (isStarted())
+            throw new IllegalStateException("Cannot change maxKeys: " + this);
+        if (maxKeys <= 0 || maxKeys > 1 << 30)
+            throw new IllegalArgumentException("Invalid maxKeys: " + maxKeys);
+        _maxKeys = maxKeys == 1 ? 1 : Integer.highestOneBit(maxKeys - 1) << 1;
+    }
+
+    /**
+     * @return the action taken for requests that exceed the rate limit
+     */
+    @ManagedAttribute("The action taken for requests that exceed the rate limit")
+    public Action getAction()
+    {
+        return _action;
+    }
+
+    /**
+     * @param action the action taken for requests that exceed the rate limit
+     */
+    public void setAction(Action action)
+    {
+        _action = Objects.requireNonNull(action);
+    }
+
+    /**
+     * @return the max duration a request may be delayed by the {@link Action#DELAY} action
+     */
+    public Duration getMaxDelay()
+    {
+        return _maxDelay;
+    }
+
+    /**
+     * @param maxDelay the max duration a request may be delayed by the {@link Action#DELAY} action
+     */
+    public void setMaxDelay(Duration maxDelay)
+    {
+        if (maxDelay.isNegative())
+            throw new IllegalArgumentException("Invalid maxDelay duration");
+        _maxDelay = maxDelay;
+    }
+
+    @ManagedAttribute("The number of requests rejected")
+    public long getRejectedRequestCount()
+    {
+        return _rejected.sum();
+    }
+
+    @ManagedAttribute("The number of requests delayed")
+    public long getDelayedRequestCount()
+    {
+        return _delayed.sum();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        _keys = new AtomicReferenceArray<>(_maxKeys);
+        _arrivals = new AtomicLongArray(_maxKeys);
+        // Times are relative to the epoch, so that 0 is in the past.
+        _epoch = NanoTime.now() - 1;
+        _interval = Math.max(1, (long)(TimeUnit.SECONDS.toNanos(1) / _maxRequestsPerSecond));
+        _tolerance = _interval * (_burst - 1);
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        _keys = null;
+        _arrivals = null;
+    }
+
+    @Override
+    protected boolean onConditionsMet(Request request, Response response, Callback callback) throws Exception
+    {
+        Object key = _keyFunction.apply(request);
+        if (key == null)
+            return nextHandler(request, response, callback);
+
+        Action action = getAction();
+        long maxDelay = action == Action.DELAY ? getMaxDelay().toNanos() : 0;
+        long delay = acquire(key, NanoTime.since(_epoch), maxDelay);
+        if (delay == 0)
+            return nextHandler(request, response, callback);
+
+        if (delay < 0)
+        {
+            _rejected.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} rejecting {} key={} retry={}ns", this, request, key, -delay);
+            onRateLimited(request, response, callback, -delay);
+            return true;
+        }
+
+        _delayed.increment();
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} delaying {} key={} delay={}ns", this, request, key, delay);
+        request.getComponents().getScheduler().schedule(() ->
+            request.getComponents().getExecutor().execute(() -> handleDelayed(request, response, callback)), delay, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    @Override
+    protected boolean onConditionsNotMet(Request request, Response response, Callback callback) throws Exception
+    {
+        return nextHandler(request, response, callback);
+    }
+
+    /**
+     * <p>Completes a request that exceeds the rate limit.</p>
+     * <p>The default implementation writes a {@code 429 Too Many Requests}
+     * response with a {@code Retry-After} header.</p>
+     *
+     * @param request the request
+     * @param response the response
+     * @param callback the callback to complete
+     * @param retryNanos the time after which the request would conform to the rate limit
+     */
+    protected void onRateLimited(Request request, Response response, Callback callback, long retryNanos)
+    {
+        long retrySeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.getHeaders().put(HttpHeader.RETRY_AFTER, retrySeconds);
+        Response.writeError(request, response, callback, HttpStatus.TOO_MANY_REQUESTS_429);
+    }
+
+    private void handleDelayed(Request request, Response response, Callback callback)
+    {
+        try
+        {
+            if (!nextHandler(request, response, callback))
+                Response.writeError(request, response, callback, HttpStatus.NOT_FOUND_404);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} failed {}", this, request, x);
+            Response.writeError(request, response, callback, x);
+        }
+    }
+
+    /**
+     * <p>Applies the GCRA to the client with the given key.</p>
+     *
+     * @param key the client key
+     * @param now the current time relative to the epoch
+     * @param maxDelay the max nanoseconds that the request may wait to conform
+     * @return {@code 0} if the request conforms, the positive nanoseconds that the
+     * request must wait to conform, or the negative nanoseconds after which a
+     * request would conform if the request is rejected
+     */
+    private long acquire(Object key, long now, long maxDelay)
+    {
+        int slot = slot(key, now);
+        while (true)
+        {
+            long arrival = _arrivals.get(slot);
+            long start = Math.max(arrival, now);
+            long wait = start - now - _tolerance;
+            if (wait > maxDelay)
+                return -wait;
+            if (_arrivals.compareAndSet(slot, arrival, start + _interval))
+                return Math.max(0, wait);
+        }
+    }
+
+    private int slot(Object key, long now)
+    {
+        int mask = _maxKeys - 1;
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        while (true)
+        {
+            // Look for the key in the whole probe chain first, so that a key
+            // never gets a second entry in front of the one holding its state.
+            int free = -1;
+            Object freeKey = null;
+            long freeArrival = 0;
+            int victim = -1;
+            Object victimKey = null;
+            long victimArrival = Long.MAX_VALUE;
+            for (int probe = 0; probe < MAX_PROBES; probe++)
+            {
+                int slot = (hash + probe) & mask;
+                Object current = _keys.get(slot);
+                if (key.equals(current))
+                    return slot;
+                if (free >= 0)
+                    continue;
+                // An entry with an arrival time in the past holds no state, so it can be reused.
+                long arrival = _arrivals.get(slot);
+                if (current == null || arrival <= now)
+                {
+                    free = slot;
+                    freeKey = current;
+                    freeArrival = arrival;
+                }
+                else if (arrival < victimArrival)
+                {
+                    victim = slot;
+                    victimKey = current;
+                    victimArrival = arrival;
+                }
+            }
+
+            // The table is full, take over the entry that expires the soonest.
+            if (free < 0)
+            {
+                free = victim < 0 ? hash & mask : victim;
+                freeKey = victim < 0 ? _keys.get(free) : victimKey;
+                freeArrival = _arrivals.get(free);
+            }
+
+            // If another thread claimed the entry first, scan again,
+            // since it may have claimed it for the same key.
+            if (_keys.compareAndSet(free, freeKey, key))
+            {
+                // Reset the state of the reused entry, unless it has just been updated.
+                _arrivals.compareAndSet(free, freeArrival, 0);
+                return free;
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.Fields;
 import org.eclipse.jetty.util.FutureCallback;
 import org.eclipse.jetty.util.thread.Invocable;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -144,4 +145,34 @@ public class FormFieldsTest
         Throwable cause = assertThrows(ExecutionException.class, futureFields::get).getCause();
         assertThat(cause, instanceOf(expectedException));
     }
+
+    @ParameterizedTest
+    @MethodSource("validData")
+    public void testValidFormFieldsDecodedLazily(List<String> chunks, Charset charset, int maxFields, int maxLength, Map<String, String> expected)
+    {
+        // Content with a max length is buffered and decoded lazily.
+        testValidFormFields(chunks, charset, maxFields, maxLength < 0 ? 1024 : maxLength, expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("invalidData")
+    public void testInvalidFormFieldsDecodedLazily(List<String> chunks, Charset charset, int maxFields, int maxLength, Class<? extends Exception> expectedException)
+    {
+        testInvalidFormFields(chunks, charset, maxFields, maxLength < 0 ? 1024 : maxLength, expectedException);
+    }
+
+    @Test
+    public void testFormFieldsLargerThanBufferDecodedEagerly() throws Exception
+    {
+        AsyncContent source = new AsyncContent();
+        CompletableFuture<Fields> futureFields = FormFields.from(source, Invocable.InvocationType.NON_BLOCKING, new Attributes.Mapped(), UTF_8, -1, 10);
+        // The separators do not count towards the max length,
+        // but content larger than 3 times the max length is not buffered.
+        source.write(false, BufferUtil.toBuffer("a=1&&&&&&&&&&&&&&&&&&&&&&&&&&&&&&&"), Callback.NOOP);
+        source.write(true, BufferUtil.toBuffer("b=2"), Callback.NOOP);
+        Fields fields = futureFields.get(10, TimeUnit.SECONDS);
+        assertEquals("1", fields.getValue("a"));
+        assertEquals("2", fields.getValue("b"));
+        assertEquals("", fields.getValue(""));
+    }
 }
@@ -30,12 +30,15 @@ import org.eclipse.jetty.server.internal.HttpConnection;
 import org.eclipse.jetty.util.Callback;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ForwardedRequestCustomizerTest
@@ -59,6 +62,7 @@ public class ForwardedRequestCustomizerTest
         final AtomicReference<Integer> remotePort = new AtomicReference<>();
         final AtomicReference<String> sslSession = new AtomicReference<>();
         final AtomicReference<String> sslCertificate = new AtomicReference<>();
+        final AtomicReference<ConnectionMetaData> connectionMetaData = new AtomicReference<>();
     }
 
     private Actual actual;
@@ -142,6 +146,7 @@ public class ForwardedRequestCustomizerTest
             actual.remoteAddr.set(Request.getRemoteAddr(request));
             actual.remotePort.set(Request.getRemotePort(request));
             actual.requestURI.set(request.getHttpURI().toString());
+            actual.connectionMetaData.set(request.getConnectionMetaData());
             return true;
         };
 
@@ -1241,6 +1246,80 @@ public class ForwardedRequestCustomizerTest
         expectations.accept(actual);
     }
 
+    @Test
+    public void testResolutionReusedOnPersistentConnection() throws Exception
+    {
+        try (LocalConnector.LocalEndPoint endPoint = connector.connect())
+        {
+            String forwarded = """
+                GET /%s HTTP/1.1
+                Host: myhost
+                X-Forwarded-Proto: https
+                X-Forwarded-For: %s
+
+                """;
+
+            endPoint.addInput(forwarded.formatted("one", "1.1.1.1"));
+            assertThat(HttpTester.parseResponse(endPoint.getResponse()).getStatus(), is(200));
+            Actual first = actual;
+            new Expectations()
+                .scheme("https").serverName("myhost").serverPort(443)
+                .secure(true)
+                .requestURL("https://myhost/one")
+                .remoteAddr("1.1.1.1").remotePort(0)
+                .accept(first);
+
+            // Same forwarded headers, the resolution is reused.
+            endPoint.addInput(forwarded.formatted("two", "1.1.1.1"));
+            assertThat(HttpTester.parseResponse(endPoint.getResponse()).getStatus(), is(200));
+            new Expectations()
+                .scheme("https").serverName("myhost").serverPort(443)
+                .secure(true)
+                .requestURL("https://myhost/two")
+                .remoteAddr("1.1.1.1").remotePort(0)
+                .accept(actual);
+            assertSame(first.connectionMetaData.get(), actual.connectionMetaData.get());
+
+            // Different forwarded headers, the resolution is recomputed.
+            endPoint.addInput(forwarded.formatted("three", "2.2.2.2"));
+            assertThat(HttpTester.parseResponse(endPoint.getResponse()).getStatus(), is(200));
+            new Expectations()
+                .scheme("https").serverName("myhost").serverPort(443)
+                .secure(true)
+                .requestURL("https://myhost/three")
+                .remoteAddr("2.2.2.2").remotePort(0)
+                .accept(actual);
+            assertNotSame(first.connectionMetaData.get(), actual.connectionMetaData.get());
+
+            // No forwarded headers.
+            endPoint.addInput("""
+                GET /four HTTP/1.1
+                Host: myhost
+
+                """);
+            assertThat(HttpTester.parseResponse(endPoint.getResponse()).getStatus(), is(200));
+            new Expectations()
+                .scheme("http").serverName("myhost").serverPort(80)
+                .secure(false)
+                .requestURL("http://myhost/four")
+                .remoteAddr("0.0.0.0").remotePort(0)
+                .accept(actual);
+
+            // A configuration change is not hidden by the resolution of the same headers.
+            endPoint.addInput(forwarded.formatted("five", "2.2.2.2"));
+            assertThat(HttpTester.parseResponse(endPoint.getResponse()).getStatus(), is(200));
+            customizer.setForwardedForHeader("X-Custom-For");
+            endPoint.addInput(forwarded.formatted("six", "2.2.2.2"));
+            assertThat(HttpTester.parseResponse(endPoint.getResponse()).getStatus(), is(200));
+            new Expectations()
+                .scheme("https").serverName("myhost").serverPort(443)
+                .secure(true)
+                .requestURL("https://myhost/six")
+                .remoteAddr("0.0.0.0").remotePort(0)
+                .accept(actual);
+        }
+    }
+
     private static class TestRequest
     {
         String description;
@@ -17,6 +17,10 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.eclipse.jetty.http.HttpStatus;
@@ -24,17 +28,20 @@ import org.eclipse.jetty.http.HttpTester;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.LocalConnector.LocalEndPoint;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.endsWith;
@@ -44,6 +51,7 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class ContextHandlerCollectionTest
@@ -346,6 +354,258 @@ public class ContextHandlerCollectionTest
         assertEquals(wrapperB, Handler.AbstractContainer.findContainerOf(contextB, Handler.Wrapper.class, handlerB));
     }
 
+    @Test
+    public void testConcurrentStart() throws Exception
+    {
+        Server server = new Server();
+        server.setConcurrentStart(true);
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        // The contexts only start if they are started concurrently.
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ContextHandlerCollection collection = new ContextHandlerCollection();
+        for (String name : List.of("A", "B"))
+        {
+            ContextHandler context = new ContextHandler("/" + name);
+            context.setHandler(new IsHandledHandler(name)
+            {
+                @Override
+                protected void doStart() throws Exception
+                {
+                    barrier.await(5, TimeUnit.SECONDS);
+                    super.doStart();
+                }
+            });
+            collection.addHandler(context);
+        }
+        server.setHandler(collection);
+
+        try
+        {
+            server.start();
+            for (String name : List.of("A", "B"))
+            {
+                HttpTester.Response response = HttpTester.parseResponse(connector.getResponse("GET /" + name + "/ HTTP/1.0\r\n\r\n"));
+                assertEquals(HttpStatus.OK_200, response.getStatus());
+                assertEquals(name, response.getContent());
+            }
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testManyVirtualHosts() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        List<Handler> contexts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            ContextHandler context = new ContextHandler(new IsHandledHandler("tenant" + i), "/");
+            context.setVirtualHosts(List.of("tenant" + i + ".example.com", "www.tenant" + i + ".example.com"));
+            contexts.add(context);
+        }
+        ContextHandler wild = new ContextHandler(new IsHandledHandler("wild"), "/");
+        wild.setVirtualHosts(List.of("*.example.org"));
+        contexts.add(wild);
+        contexts.add(new ContextHandler(new IsHandledHandler("other"), "/"));
+        ContextHandlerCollection collection = new ContextHandlerCollection();
+        collection.setHandlers(contexts);
+        server.setHandler(collection);
+
+        try
+        {
+            server.start();
+            assertEquals("tenant500", getName(connector, "tenant500.example.com"));
+            assertEquals("tenant999", getName(connector, "www.tenant999.example.com"));
+            assertEquals("tenant7", getName(connector, "TENANT7.Example.COM."));
+            assertEquals("wild", getName(connector, "any.example.org"));
+            assertEquals("other", getName(connector, "a.b.example.org"));
+            assertEquals("other", getName(connector, "tenant1000.example.com"));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    private static String getName(LocalConnector connector, String host) throws Exception
+    {
+        HttpTester.Response response = HttpTester.parseResponse(connector.getResponse("GET / HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n"));
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        return response.getContent();
+    }
+
+    @Test
+    public void testLazyStart() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        ContextHandler contextA = new ContextHandler(new IsHandledHandler("A"), "/A");
+        ContextHandler contextB = new ContextHandler(new IsHandledHandler("B"), "/B");
+        ContextHandlerCollection collection = new ContextHandlerCollection(contextA, contextB);
+        collection.setLazyStart(true);
+        collection.setIdleStopTimeout(500);
+        server.setHandler(collection);
+
+        try
+        {
+            server.start();
+            assertFalse(contextA.isStarted());
+            assertFalse(contextB.isStarted());
+
+            HttpTester.Response response = HttpTester.parseResponse(connector.getResponse("GET /A/ HTTP/1.0\r\n\r\n"));
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals("A", response.getContent());
+            assertTrue(contextA.isStarted());
+            assertFalse(contextB.isStarted());
+
+            // The idle context is stopped, and started again by the next request.
+            await().atMost(5, TimeUnit.SECONDS).until(contextA::isStopped);
+            response = HttpTester.parseResponse(connector.getResponse("GET /A/ HTTP/1.0\r\n\r\n"));
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals("A", response.getContent());
+        }
+        finally
+        {
+            server.stop();
+        }
+        assertTrue(contextA.isStopped());
+    }
+
+    @Test
+    public void testLazyStartQueue() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        CountDownLatch starting = new CountDownLatch(1);
+        CountDownLatch start = new CountDownLatch(1);
+        ContextHandler context = new ContextHandler(new IsHandledHandler("A"), "/A")
+        {
+            @Override
+            protected void doStart() throws Exception
+            {
+                starting.countDown();
+                assertTrue(start.await(5, TimeUnit.SECONDS));
+                super.doStart();
+            }
+        };
+        ContextHandlerCollection collection = new ContextHandlerCollection(context, new ContextHandler(new IsHandledHandler("B"), "/B"));
+        collection.setLazyStart(true);
+        collection.setMaxLazyStartQueueSize(1);
+        server.setHandler(collection);
+
+        try
+        {
+            server.start();
+
+            // The first request is queued while the context starts.
+            LocalEndPoint queued = connector.executeRequest("GET /A/ HTTP/1.0\r\n\r\n");
+            assertTrue(starting.await(5, TimeUnit.SECONDS));
+
+            // Requests beyond the queue size are rejected.
+            HttpTester.Response response = HttpTester.parseResponse(connector.getResponse("GET /A/ HTTP/1.0\r\n\r\n"));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE_503, response.getStatus());
+
+            start.countDown();
+            response = HttpTester.parseResponse(queued.getResponse());
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals("A", response.getContent());
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testLazyStartUndeploy() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        ContextHandler contextA = new ContextHandler(new IsHandledHandler("A"), "/A");
+        ContextHandler contextB = new ContextHandler(new IsHandledHandler("B"), "/B");
+        ContextHandlerCollection collection = new ContextHandlerCollection(contextA, contextB);
+        collection.setLazyStart(true);
+        server.setHandler(collection);
+
+        try
+        {
+            server.start();
+
+            HttpTester.Response response = HttpTester.parseResponse(connector.getResponse("GET /A/ HTTP/1.0\r\n\r\n"));
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertTrue(collection.getLazyContexts().contains(contextA));
+
+            CountDownLatch undeployed = new CountDownLatch(1);
+            collection.undeployHandler(contextA, Callback.from(undeployed::countDown));
+            assertTrue(undeployed.await(5, TimeUnit.SECONDS));
+
+            // The undeployed context is not retained.
+            assertFalse(collection.getLazyContexts().contains(contextA));
+            assertTrue(contextA.isStopped());
+            response = HttpTester.parseResponse(connector.getResponse("GET /A/ HTTP/1.0\r\n\r\n"));
+            assertEquals(HttpStatus.NOT_FOUND_404, response.getStatus());
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testLazyStartRejected() throws Exception
+    {
+        QueuedThreadPool threadPool = new QueuedThreadPool()
+        {
+            @Override
+            public void execute(Runnable job)
+            {
+                // Reject the tasks that lazily start the contexts.
+                if (job.getClass().getName().contains("LazyContext"))
+                    throw new RejectedExecutionException();
+                super.execute(job);
+            }
+        };
+        Server server = new Server(threadPool);
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        ContextHandler context = new ContextHandler(new IsHandledHandler("A"), "/A");
+        ContextHandlerCollection collection = new ContextHandlerCollection(context, new ContextHandler(new IsHandledHandler("B"), "/B"));
+        collection.setLazyStart(true);
+        server.setHandler(collection);
+
+        try
+        {
+            server.start();
+
+            // The context cannot be started, but the requests do not wait forever.
+            for (int i = 0; i < 2; ++i)
+            {
+                HttpTester.Response response = HttpTester.parseResponse(connector.getResponse("GET /A/ HTTP/1.0\r\n\r\n"));
+                assertEquals(HttpStatus.SERVICE_UNAVAILABLE_503, response.getStatus());
+            }
+            assertFalse(context.isStarted());
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
     @Test
     public void testWrappedContext() throws Exception
     {
@@ -428,7 +688,7 @@ public class ContextHandlerCollectionTest
         }
     }
 
-    private static final class IsHandledHandler extends Handler.Abstract
+    private static class IsHandledHandler extends Handler.Abstract
     {
         private boolean handled;
         private final String name;
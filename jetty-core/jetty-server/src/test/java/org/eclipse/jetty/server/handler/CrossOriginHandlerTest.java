@@ -31,6 +31,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -630,6 +631,90 @@ public class CrossOriginHandlerTest
         assertFalse(response.contains(HttpHeader.ACCESS_CONTROL_ALLOW_CREDENTIALS));
     }
 
+    @Test
+    public void testLiteralOriginsMatchCaseInsensitively() throws Exception
+    {
+        CrossOriginHandler crossOriginHandler = new CrossOriginHandler();
+        crossOriginHandler.setAllowedOriginPatterns(Set.of("https://www\\.example\\.com", "https://.*\\.domain\\.com"));
+        start(crossOriginHandler);
+
+        for (String origin : List.of("https://www.example.com", "HTTPS://WWW.Example.com", "https://foo.domain.com"))
+        {
+            String request = """
+                GET / HTTP/1.1\r
+                Host: localhost\r
+                Connection: close\r
+                Origin: %s\r
+                \r
+                """.formatted(origin);
+            HttpTester.Response response = HttpTester.parseResponse(connector.getResponse(request));
+
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertThat(response.get(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN), is(origin));
+        }
+
+        // The escaped dot is literal, so it does not match any character.
+        String request = """
+            GET / HTTP/1.1\r
+            Host: localhost\r
+            Connection: close\r
+            Origin: https://wwwXexample.com\r
+            \r
+            """;
+        HttpTester.Response response = HttpTester.parseResponse(connector.getResponse(request));
+
+        assertThat(response.getStatus(), is(HttpStatus.OK_200));
+        assertFalse(response.contains(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN));
+    }
+
+    @Test
+    public void testOriginDecisionsAreCachedAndBounded() throws Exception
+    {
+        CrossOriginHandler crossOriginHandler = new CrossOriginHandler();
+        crossOriginHandler.setAllowedOriginPatterns(Set.of("https://.*\\.domain\\.com"));
+        crossOriginHandler.setAllowedTimingOriginPatterns(Set.of("https://timing\\.domain\\.com"));
+        crossOriginHandler.setAllowCredentials(true);
+        crossOriginHandler.setOriginCacheSize(4);
+        start(crossOriginHandler);
+
+        for (int i = 0; i < 10; ++i)
+        {
+            String origin = i % 2 == 0 ? "https://timing.domain.com" : "https://other" + i + ".domain.com";
+            String request = """
+                OPTIONS / HTTP/1.1\r
+                Host: localhost\r
+                Connection: close\r
+                Origin: %s\r
+                Access-Control-Request-Method: PUT\r
+                \r
+                """.formatted(origin);
+            HttpTester.Response response = HttpTester.parseResponse(connector.getResponse(request));
+
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertFalse(response.contains(ApplicationHandler.APPLICATION_HEADER));
+            assertThat(response.get(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN), is(origin));
+            assertThat(response.get(HttpHeader.ACCESS_CONTROL_ALLOW_CREDENTIALS), is("true"));
+            assertTrue(response.contains(HttpHeader.ACCESS_CONTROL_ALLOW_METHODS));
+
+            request = """
+                GET / HTTP/1.1\r
+                Host: localhost\r
+                Connection: close\r
+                Origin: %s\r
+                \r
+                """.formatted(origin);
+            response = HttpTester.parseResponse(connector.getResponse(request));
+
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertTrue(response.contains(ApplicationHandler.APPLICATION_HEADER));
+            assertThat(response.get(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN), is(origin));
+            assertThat(response.get(HttpHeader.ACCESS_CONTROL_ALLOW_CREDENTIALS), is("true"));
+            assertFalse(response.contains(HttpHeader.ACCESS_CONTROL_ALLOW_METHODS));
+            assertThat(response.contains(HttpHeader.TIMING_ALLOW_ORIGIN), is(i % 2 == 0));
+            assertThat(crossOriginHandler.getCachedOriginCount(), lessThanOrEqualTo(4));
+        }
+    }
+
     public static class ApplicationHandler extends Handler.Abstract
     {
         private static final String APPLICATION_HEADER = "X-Application";
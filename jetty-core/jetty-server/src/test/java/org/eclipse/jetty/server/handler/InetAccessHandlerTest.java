@@ -30,9 +30,11 @@ import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.InetAddressSet;
 import org.eclipse.jetty.util.StringUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -127,6 +129,27 @@ public class InetAccessHandlerTest
         testConnector(_connector2.getLocalPort(), path, include, exclude, includeConnectors, excludeConnectors, codePerConnector.get(1));
     }
 
+    @Test
+    public void testManyPatternsAndReload() throws Exception
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            _handler.exclude("10." + (i / 256) + "." + (i % 256) + ".0/24");
+        }
+        _handler.include("127.0.0.0/8");
+        InetAddressSet blocked = new InetAddressSet();
+        _handler.exclude(blocked);
+
+        _server.start();
+        testConnector(_connector1.getLocalPort(), "/", "", "", "", "", "200");
+
+        blocked.setPatterns(List.of("192.168.0.0/16", "127.0.0.1"));
+        testConnector(_connector1.getLocalPort(), "/", "", "", "", "", "403");
+
+        blocked.setPatterns(List.of());
+        testConnector(_connector1.getLocalPort(), "/", "", "", "", "", "200");
+    }
+
     private void testConnector(int port, String path, String include, String exclude, String includeConnectors, String excludeConnectors, String code) throws IOException
     {
         try (Socket socket = new Socket("127.0.0.1", port);)
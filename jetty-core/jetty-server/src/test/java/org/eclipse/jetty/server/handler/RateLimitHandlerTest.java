@@ -0,0 +1,210 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class RateLimitHandlerTest
+{
+    private Server server;
+    private LocalConnector connector;
+
+    private void start(RateLimitHandler rateLimitHandler) throws Exception
+    {
+        server = new Server();
+        connector = new LocalConnector(server);
+        server.addConnector(connector);
+        rateLimitHandler.setHandler(new Handler.Abstract.NonBlocking()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                response.setStatus(HttpStatus.OK_200);
+                callback.succeeded();
+                return true;
+            }
+        });
+        server.setHandler(rateLimitHandler);
+        server.start();
+    }
+
+    @AfterEach
+    public void dispose()
+    {
+        LifeCycle.stop(server);
+    }
+
+    private HttpTester.Response get(String path, String client) throws Exception
+    {
+        String request = """
+            GET %s HTTP/1.1
+            Host: localhost
+            X-Client: %s
+            Connection: close
+
+            """.formatted(path, client);
+        return HttpTester.parseResponse(connector.getResponse(request, 5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectAfterBurst() throws Exception
+    {
+        RateLimitHandler rateLimitHandler = new RateLimitHandler();
+        rateLimitHandler.setMaxRequestsPerSecond(0.1);
+        rateLimitHandler.setBurst(3);
+        rateLimitHandler.setKeyFunction(RateLimitHandler.headerKey("X-Client"));
+        start(rateLimitHandler);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(HttpStatus.OK_200, get("/", "a").getStatus());
+        }
+        HttpTester.Response response = get("/", "a");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS_429, response.getStatus());
+        assertNotNull(response.get(HttpHeader.RETRY_AFTER));
+        assertThat(Long.parseLong(response.get(HttpHeader.RETRY_AFTER)), greaterThanOrEqualTo(9L));
+
+        // Other clients are not limited.
+        assertEquals(HttpStatus.OK_200, get("/", "b").getStatus());
+        assertEquals(1, rateLimitHandler.getRejectedRequestCount());
+    }
+
+    @Test
+    public void testConditions() throws Exception
+    {
+        RateLimitHandler rateLimitHandler = new RateLimitHandler();
+        rateLimitHandler.setMaxRequestsPerSecond(0.1);
+        rateLimitHandler.setBurst(1);
+        rateLimitHandler.includePath("/limited/*");
+        start(rateLimitHandler);
+
+        assertEquals(HttpStatus.OK_200, get("/limited/x", "a").getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS_429, get("/limited/x", "a").getStatus());
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(HttpStatus.OK_200, get("/other", "a").getStatus());
+        }
+    }
+
+    @Test
+    public void testDelay() throws Exception
+    {
+        RateLimitHandler rateLimitHandler = new RateLimitHandler();
+        rateLimitHandler.setMaxRequestsPerSecond(5);
+        rateLimitHandler.setBurst(1);
+        rateLimitHandler.setAction(RateLimitHandler.Action.DELAY);
+        rateLimitHandler.setMaxDelay(Duration.ofMillis(500));
+        rateLimitHandler.setKeyFunction(RateLimitHandler.headerKey("X-Client"));
+        start(rateLimitHandler);
+
+        long begin = NanoTime.now();
+        assertEquals(HttpStatus.OK_200, get("/", "a").getStatus());
+        assertEquals(HttpStatus.OK_200, get("/", "a").getStatus());
+        assertEquals(HttpStatus.OK_200, get("/", "a").getStatus());
+        // The second and third requests are delayed by 200ms each.
+        assertThat(NanoTime.millisSince(begin), greaterThanOrEqualTo(350L));
+        assertEquals(2, rateLimitHandler.getDelayedRequestCount());
+
+        // Requests that would be delayed longer than maxDelay are rejected.
+        int rejected = 0;
+        for (int i = 0; i < 5; i++)
+        {
+            connector.executeRequest("""
+                GET / HTTP/1.1
+                Host: localhost
+                X-Client: b
+
+                """);
+        }
+        for (int i = 0; i < 5; i++)
+        {
+            if (get("/", "b").getStatus() == HttpStatus.TOO_MANY_REQUESTS_429)
+                rejected++;
+        }
+        assertThat(rejected, greaterThanOrEqualTo(1));
+    }
+
+    @Test
+    public void testLimitedKeyBehindExpiredKey() throws Exception
+    {
+        RateLimitHandler rateLimitHandler = new RateLimitHandler();
+        rateLimitHandler.setMaxRequestsPerSecond(1);
+        rateLimitHandler.setBurst(1);
+        rateLimitHandler.setMaxKeys(2);
+        rateLimitHandler.setAction(RateLimitHandler.Action.DELAY);
+        rateLimitHandler.setMaxDelay(Duration.ofSeconds(2));
+        rateLimitHandler.setKeyFunction(RateLimitHandler.headerKey("X-Client"));
+        start(rateLimitHandler);
+
+        // Keys "a" and "c" have the same home slot, so "c" is stored after "a".
+        assertEquals("a".hashCode() & 1, "c".hashCode() & 1);
+        assertEquals(HttpStatus.OK_200, get("/", "a").getStatus());
+        assertEquals(HttpStatus.OK_200, get("/", "c").getStatus());
+        // The second request of "c" is delayed by ~1s, after which the entry of "a"
+        // has expired, while the entry of "c" holds ~1s more of delay.
+        assertEquals(HttpStatus.OK_200, get("/", "c").getStatus());
+        assertEquals(1, rateLimitHandler.getDelayedRequestCount());
+
+        // The expired entry of "a" must not be reused for "c" with a fresh state.
+        rateLimitHandler.setAction(RateLimitHandler.Action.REJECT);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS_429, get("/", "c").getStatus());
+    }
+
+    @Test
+    public void testFullKeyTable() throws Exception
+    {
+        RateLimitHandler rateLimitHandler = new RateLimitHandler();
+        rateLimitHandler.setMaxRequestsPerSecond(0.1);
+        rateLimitHandler.setBurst(1);
+        rateLimitHandler.setMaxKeys(4);
+        rateLimitHandler.setKeyFunction(RateLimitHandler.headerKey("X-Client"));
+        start(rateLimitHandler);
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(HttpStatus.OK_200, get("/", "client" + i).getStatus());
+        }
+        // A new client takes over the entry of another one, with a fresh state.
+        assertEquals(HttpStatus.OK_200, get("/", "other").getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS_429, get("/", "other").getStatus());
+        // Requests without key are not limited.
+        String request = """
+            GET / HTTP/1.1
+            Host: localhost
+            Connection: close
+
+            """;
+        assertEquals(HttpStatus.OK_200, HttpTester.parseResponse(connector.getResponse(request)).getStatus());
+    }
+}
@@ -0,0 +1,239 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.ssl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.io.ssl.SslHandshakeListener;
+import org.eclipse.jetty.server.ConnectionLimit;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.SslHandshakeExecutor;
+import org.eclipse.jetty.toolchain.test.MavenPaths;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SslHandshakeExecutorTest
+{
+    private final AtomicReference<String> _handshakeThread = new AtomicReference<>();
+    private final AtomicReference<String> _handleThread = new AtomicReference<>();
+    private Server _server;
+    private ServerConnector _connector;
+    private SslHandshakeExecutor _handshakeExecutor;
+
+    private void start(int maxPendingHandshakes) throws Exception
+    {
+        Path keystoreFile = MavenPaths.findTestResourceFile("keystore.p12");
+        _server = new Server();
+
+        SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setKeyStorePath(keystoreFile.toString());
+        sslContextFactory.setKeyStorePassword("storepwd");
+
+        _handshakeExecutor = new SslHandshakeExecutor(2, maxPendingHandshakes);
+        SslConnectionFactory sslConnectionFactory = new SslConnectionFactory(sslContextFactory, HttpVersion.HTTP_1_1.asString());
+        sslConnectionFactory.setHandshakeExecutor(_handshakeExecutor);
+        sslConnectionFactory.addBean(new SslHandshakeListener()
+        {
+            @Override
+            public void handshakeSucceeded(Event event)
+            {
+                _handshakeThread.set(Thread.currentThread().getName());
+            }
+        });
+
+        _connector = new ServerConnector(_server, sslConnectionFactory, new HttpConnectionFactory());
+        _server.addConnector(_connector);
+        _server.setHandler(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback)
+            {
+                _handleThread.set(Thread.currentThread().getName());
+                Content.Sink.write(response, true, "OK", callback);
+                return true;
+            }
+        });
+        _server.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (_server != null)
+            _server.stop();
+    }
+
+    private SSLSocket newSocket() throws Exception
+    {
+        SslContextFactory.Client clientFactory = new SslContextFactory.Client(true);
+        clientFactory.start();
+        SSLContext sslContext = clientFactory.getSslContext();
+        clientFactory.stop();
+        SSLSocket socket = (SSLSocket)sslContext.getSocketFactory().createSocket("localhost", _connector.getLocalPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    @Test
+    public void testHandshakeOffloaded() throws Exception
+    {
+        start(16);
+
+        for (int i = 0; i < 3; i++)
+        {
+            try (SSLSocket socket = newSocket())
+            {
+                OutputStream output = socket.getOutputStream();
+                output.write("""
+                    GET / HTTP/1.1
+                    Host: localhost
+                    Connection: close
+
+                    """.getBytes(StandardCharsets.UTF_8));
+                output.flush();
+
+                HttpTester.Response response = HttpTester.parseResponse(socket.getInputStream());
+                assertEquals(HttpStatus.OK_200, response.getStatus());
+                assertEquals("OK", response.getContent());
+            }
+        }
+
+        assertThat(_handshakeThread.get(), startsWith("ssl-handshake"));
+        assertThat(_handleThread.get(), not(startsWith("ssl-handshake")));
+        assertThat(_handshakeExecutor.getHandshakeTasks(), greaterThan(0L));
+        assertThat(_handshakeExecutor.getHandshakeTasksRejected(), is(0L));
+        await().atMost(5, TimeUnit.SECONDS).until(_handshakeExecutor::getPendingHandshakes, is(0));
+    }
+
+    @Test
+    public void testCombinedWithConnectionLimit() throws Exception
+    {
+        _server = new Server();
+        _connector = new ServerConnector(_server, 1, 1);
+        _server.addConnector(_connector);
+        _server.addBean(new ConnectionLimit(1, _connector));
+        SslHandshakeExecutor handshakeExecutor = new SslHandshakeExecutor(Runnable::run, 1);
+        handshakeExecutor.addConnector(_connector);
+        _server.addBean(handshakeExecutor);
+        _server.start();
+
+        try (Socket ignored = new Socket("localhost", _connector.getLocalPort()))
+        {
+            // The connection limit is reached.
+            await().atMost(5, TimeUnit.SECONDS).until(() -> _connector.getConnectedEndPoints().size(), is(1));
+            await().atMost(5, TimeUnit.SECONDS).until(_connector::isAccepting, is(false));
+
+            // The handshake limit is reached too.
+            Runnable handshake = () -> {};
+            handshakeExecutor.execute(handshake);
+            assertTrue(handshakeExecutor.isLimiting());
+
+            // Clearing the handshake limit does not resume accepting,
+            // as the connection limit is still reached.
+            handshakeExecutor.onHandshakeComplete(handshake);
+            assertFalse(handshakeExecutor.isLimiting());
+            assertFalse(_connector.isAccepting());
+        }
+
+        // Accepting is resumed when the connection limit is cleared too.
+        await().atMost(5, TimeUnit.SECONDS).until(_connector::isAccepting, is(true));
+    }
+
+    @Test
+    public void testPendingHandshakesCountedOnce() throws Exception
+    {
+        AtomicInteger executed = new AtomicInteger();
+        SslHandshakeExecutor handshakeExecutor = new SslHandshakeExecutor(Runnable::run, 1);
+        handshakeExecutor.start();
+        try
+        {
+            Runnable handshake1 = executed::incrementAndGet;
+            Runnable handshake2 = executed::incrementAndGet;
+
+            handshakeExecutor.execute(handshake1);
+            assertEquals(1, handshakeExecutor.getPendingHandshakes());
+            assertTrue(handshakeExecutor.isLimiting());
+
+            // The tasks of a pending handshake are always executed.
+            handshakeExecutor.execute(handshake1);
+            handshakeExecutor.execute(handshake1);
+            assertEquals(3, executed.get());
+            assertEquals(1, handshakeExecutor.getPendingHandshakes());
+
+            // New handshakes are rejected.
+            assertThrows(RejectedExecutionException.class, () -> handshakeExecutor.execute(handshake2));
+            assertEquals(3, executed.get());
+            assertEquals(1, handshakeExecutor.getHandshakeTasksRejected());
+
+            handshakeExecutor.onHandshakeComplete(handshake1);
+            assertEquals(0, handshakeExecutor.getPendingHandshakes());
+            assertFalse(handshakeExecutor.isLimiting());
+
+            handshakeExecutor.execute(handshake2);
+            assertEquals(4, executed.get());
+            assertEquals(1, handshakeExecutor.getPendingHandshakes());
+        }
+        finally
+        {
+            handshakeExecutor.stop();
+        }
+    }
+
+    @Test
+    public void testHandshakeRejected() throws Exception
+    {
+        start(0);
+
+        try (SSLSocket socket = newSocket())
+        {
+            assertThrows(IOException.class, socket::startHandshake);
+        }
+
+        assertThat(_handshakeExecutor.getHandshakeTasksRejected(), greaterThan(0L));
+        assertEquals(0, _handshakeExecutor.getPendingHandshakes());
+    }
+}
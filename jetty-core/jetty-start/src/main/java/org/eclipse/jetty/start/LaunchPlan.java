@@ -0,0 +1,528 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.start;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.start.config.ConfigSource;
+import org.eclipse.jetty.start.config.DirConfigSource;
+
+/**
+ * <p>The launch plan of a {@code ${jetty.base}}: the result of the module resolution
+ * performed by a previous launch, cached in {@code ${jetty.base}/.start/launch.plan}
+ * when the {@code --launch-cache} option is used.</p>
+ * <p>The plan is keyed by the command line, the {@code ${jetty.home}} and {@code ${jetty.base}}
+ * directories and the Java runtime, and records the modification time and size of its inputs:
+ * the {@code *.mod} and {@code *.ini} files of the configuration directories, the classpath
+ * entries and their directories, and the XML and property files.
+ * If none of them changed, the plan is used to launch the server without reading the modules
+ * again, either by forking a JVM with the cached command line, or by invoking the main class
+ * with the cached classpath and arguments.</p>
+ */
+public class LaunchPlan
+{
+    public static final String LAUNCH_CACHE = "--launch-cache";
+    public static final String APP_CDS = "--app-cds";
+
+    private static final String HEADER = "# Jetty launch plan, generated by start.jar, do not edit";
+    private static final String KEY = "[key]";
+    private static final String INPUTS = "[inputs]";
+    private static final String SYSTEM = "[system]";
+    private static final String CLASSPATH = "[classpath]";
+    private static final String MAIN = "[main]";
+    private static final String ARGS = "[args]";
+    private static final String EXEC = "[exec]";
+    private static final String APP_CDS_ARCHIVE = "[app-cds]";
+
+    /**
+     * @param baseHome the base and home
+     * @return the cache directory of the base, {@code ${jetty.base}/.start}
+     */
+    public static Path getCacheDir(BaseHome baseHome)
+    {
+        return baseHome.getBasePath().resolve(".start");
+    }
+
+    /**
+     * @param baseHome the base and home
+     * @return whether the {@code --launch-cache} option is in the command line or in an ini file
+     */
+    public static boolean isEnabled(BaseHome baseHome)
+    {
+        for (ConfigSource source : baseHome.getConfigSources())
+        {
+            for (RawArgs.Entry arg : source.getArgs())
+            {
+                if (LAUNCH_CACHE.equals(arg.getLine()))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param baseHome the base and home
+     * @return the cached plan, or null if there is no plan, or if it is out of date
+     */
+    public static LaunchPlan load(BaseHome baseHome)
+    {
+        if (!isEnabled(baseHome))
+            return null;
+
+        Path file = getCacheDir(baseHome).resolve("launch.plan");
+        if (!Files.isRegularFile(file))
+        {
+            StartLog.debug("No launch plan %s", file);
+            return null;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+        {
+            LaunchPlan plan = new LaunchPlan(key(baseHome));
+            if (!HEADER.equals(reader.readLine()))
+                return null;
+
+            String section = null;
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (isSection(line))
+                {
+                    section = line;
+                    continue;
+                }
+                if (section == null)
+                    return null;
+
+                switch (section)
+                {
+                    case KEY ->
+                    {
+                        if (!plan.key.equals(line))
+                        {
+                            StartLog.debug("Launch plan %s is for another command line", file);
+                            return null;
+                        }
+                    }
+                    case INPUTS ->
+                    {
+                        Input input = Input.parse(line);
+                        if (!input.equals(Input.of(input.path)))
+                        {
+                            StartLog.debug("Launch plan %s is out of date: %s changed", file, input.path);
+                            return null;
+                        }
+                        plan.inputs.add(input);
+                    }
+                    case SYSTEM ->
+                    {
+                        int equals = line.indexOf('=');
+                        plan.systemProperties.put(line.substring(0, equals), line.substring(equals + 1));
+                    }
+                    case CLASSPATH -> plan.classpath.add(Paths.get(line));
+                    case MAIN -> plan.mainClass = line;
+                    case ARGS -> plan.args.add(line);
+                    case EXEC -> plan.exec.add(line);
+                    case APP_CDS_ARCHIVE -> plan.appCdsArchive = Paths.get(line);
+                    default -> throw new IllegalStateException(section);
+                }
+            }
+
+            // Only use a complete plan.
+            if (plan.inputs.isEmpty() || plan.exec.isEmpty() && plan.mainClass == null)
+                return null;
+            StartLog.debug("Using launch plan %s", file);
+            return plan;
+        }
+        catch (Exception x)
+        {
+            StartLog.debug(x);
+            return null;
+        }
+    }
+
+    /**
+     * <p>Create the plan of the given resolved arguments, and store the properties
+     * that it passes to the main class in {@code ${jetty.base}/.start/launch.properties},
+     * unless {@code --exec-properties} is used.</p>
+     *
+     * @param baseHome the base and home
+     * @param args the resolved arguments
+     * @return the plan
+     * @throws IOException if the plan cannot be created
+     */
+    public static LaunchPlan of(BaseHome baseHome, StartArgs args) throws IOException
+    {
+        Path dir = getCacheDir(baseHome);
+        FS.ensureDirectoryExists(dir);
+        Path properties = dir.resolve("launch.properties");
+
+        LaunchPlan plan = new LaunchPlan(key(baseHome));
+        if (args.isExec())
+        {
+            CommandLineBuilder cmd = args.getMainArgs(StartArgs.ALL_PARTS, properties);
+            for (String arg : cmd.getArgs())
+            {
+                // The options depend on whether the archive exists, so they are computed at every launch.
+                if (!isAppCdsOption(arg))
+                    plan.exec.add(arg);
+            }
+            if (args.isAppCds())
+                plan.appCdsArchive = args.getAppCdsArchive();
+        }
+        else
+        {
+            plan.classpath.addAll(args.getJettyEnvironment().getClasspath().getElements());
+            plan.mainClass = args.getMainClassname();
+            plan.args.addAll(args.getMainArgs(StartArgs.ARG_PARTS, properties).getArgs());
+        }
+        // The system properties are set after getMainArgs(), that may set some.
+        for (String key : args.getSystemProperties().keySet())
+        {
+            String value = System.getProperty(key);
+            if (value != null)
+                plan.systemProperties.put(key, value);
+        }
+
+        // Inputs of the module resolution.
+        for (ConfigSource source : baseHome.getConfigSources())
+        {
+            if (source instanceof DirConfigSource dirSource)
+            {
+                plan.addInput(dirSource.getDir().resolve("start.ini"));
+                plan.addInputs(dirSource.getDir().resolve("start.d"));
+                plan.addInputs(dirSource.getDir().resolve("modules"));
+            }
+        }
+        // Outputs of the module resolution, added or removed files change their directory.
+        for (StartEnvironment environment : args.getEnvironments())
+        {
+            for (Path path : environment.getClasspath().getElements())
+            {
+                plan.addInput(path);
+                plan.addInput(path.getParent());
+            }
+            for (Path path : environment.getXmlFiles())
+            {
+                plan.addInput(path);
+            }
+            for (Path path : environment.getPropertyFiles())
+            {
+                plan.addInput(path);
+            }
+        }
+        plan.addInput(getStartJar());
+        return plan;
+    }
+
+    /**
+     * @param archive the AppCDS archive
+     * @return the JVM options that use the archive, or that create it if it does not exist
+     */
+    public static List<String> getAppCdsOptions(Path archive)
+    {
+        String file = archive.toAbsolutePath().toString();
+        // Since Java 19, the JVM creates the archive, and recreates it when it does not match the classpath.
+        if (Runtime.version().feature() >= 19)
+            return List.of("-XX:+AutoCreateSharedArchive", "-XX:SharedArchiveFile=" + file);
+        if (Files.isRegularFile(archive))
+            return List.of("-XX:SharedArchiveFile=" + file);
+        return List.of("-XX:ArchiveClassesAtExit=" + file);
+    }
+
+    /**
+     * @param baseHome the base and home
+     * @param classpath the classpath
+     * @return the AppCDS archive of the given classpath, in the cache directory of the base
+     */
+    public static Path getAppCdsArchive(BaseHome baseHome, Classpath classpath)
+    {
+        String hash = hash(List.of(classpath.toString(), System.getProperty("java.home"), Runtime.version().toString()));
+        return getCacheDir(baseHome).resolve("app-cds-" + hash.substring(0, 16) + ".jsa");
+    }
+
+    private static boolean isAppCdsOption(String arg)
+    {
+        return arg.equals("-XX:+AutoCreateSharedArchive") ||
+            arg.startsWith("-XX:SharedArchiveFile=") ||
+            arg.startsWith("-XX:ArchiveClassesAtExit=");
+    }
+
+    private static boolean isSection(String line)
+    {
+        return switch (line)
+        {
+            case KEY, INPUTS, SYSTEM, CLASSPATH, MAIN, ARGS, EXEC, APP_CDS_ARCHIVE -> true;
+            default -> false;
+        };
+    }
+
+    private static String key(BaseHome baseHome)
+    {
+        List<String> values = new ArrayList<>();
+        values.add(StartArgs.VERSION);
+        values.add(System.getProperty("java.home"));
+        values.add(Runtime.version().toString());
+        values.add(baseHome.getHomePath().toString());
+        values.add(baseHome.getBasePath().toString());
+        for (RawArgs.Entry arg : baseHome.getConfigSources().getCommandLineSource().getArgs())
+        {
+            values.add(arg.getLine());
+        }
+        return hash(values);
+    }
+
+    private static String hash(List<String> values)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String value : values)
+            {
+                digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte)0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+        catch (NoSuchAlgorithmException x)
+        {
+            throw new IllegalStateException(x);
+        }
+    }
+
+    private static Path getStartJar()
+    {
+        try
+        {
+            CodeSource codeSource = LaunchPlan.class.getProtectionDomain().getCodeSource();
+            return codeSource == null ? null : Paths.get(codeSource.getLocation().toURI());
+        }
+        catch (URISyntaxException | IllegalArgumentException x)
+        {
+            return null;
+        }
+    }
+
+    private final String key;
+    private final List<Input> inputs = new ArrayList<>();
+    private final Map<String, String> systemProperties = new LinkedHashMap<>();
+    private final List<Path> classpath = new ArrayList<>();
+    private final List<String> args = new ArrayList<>();
+    private final List<String> exec = new ArrayList<>();
+    private String mainClass;
+    private Path appCdsArchive;
+
+    private LaunchPlan(String key)
+    {
+        this.key = key;
+    }
+
+    private void addInput(Path path) throws IOException
+    {
+        if (path != null && inputs.stream().noneMatch(input -> input.path.equals(path)))
+            inputs.add(Input.of(path));
+    }
+
+    private void addInputs(Path dir) throws IOException
+    {
+        addInput(dir);
+        if (Files.isDirectory(dir))
+        {
+            try (Stream<Path> paths = Files.walk(dir))
+            {
+                for (Path path : paths.toList())
+                {
+                    addInput(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the plan forks a JVM
+     */
+    public boolean isExec()
+    {
+        return !exec.isEmpty();
+    }
+
+    /**
+     * @return the command line of the forked JVM, including the AppCDS options, if any
+     */
+    public List<String> getCommandLine()
+    {
+        List<String> cmd = new ArrayList<>(exec);
+        if (appCdsArchive != null)
+            cmd.addAll(1, getAppCdsOptions(appCdsArchive));
+        return cmd;
+    }
+
+    /**
+     * @return the system properties to set before launching
+     */
+    public Map<String, String> getSystemProperties()
+    {
+        return systemProperties;
+    }
+
+    /**
+     * @return the classpath of the main class, when not forking
+     */
+    public Classpath getClasspath()
+    {
+        Classpath cp = new Classpath();
+        classpath.forEach(cp::addComponent);
+        return cp;
+    }
+
+    /**
+     * @return the main class, when not forking
+     */
+    public String getMainClassname()
+    {
+        return mainClass;
+    }
+
+    /**
+     * @return the arguments of the main class, when not forking
+     */
+    public List<String> getArgs()
+    {
+        return args;
+    }
+
+    /**
+     * <p>Store the plan in {@code ${jetty.base}/.start/launch.plan}.</p>
+     * <p>A plan with a value that spans multiple lines cannot be stored, and is ignored.</p>
+     *
+     * @param baseHome the base and home
+     * @return whether the plan was stored
+     * @throws IOException if the plan cannot be written
+     */
+    public boolean store(BaseHome baseHome) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        lines.add(KEY);
+        lines.add(key);
+        lines.add(INPUTS);
+        inputs.forEach(input -> lines.add(input.toString()));
+        lines.add(SYSTEM);
+        systemProperties.forEach((k, v) -> lines.add(k + "=" + v));
+        if (isExec())
+        {
+            lines.add(EXEC);
+            lines.addAll(exec);
+            if (appCdsArchive != null)
+            {
+                lines.add(APP_CDS_ARCHIVE);
+                lines.add(appCdsArchive.toString());
+            }
+        }
+        else
+        {
+            lines.add(CLASSPATH);
+            classpath.forEach(path -> lines.add(path.toString()));
+            lines.add(MAIN);
+            lines.add(mainClass);
+            lines.add(ARGS);
+            lines.addAll(args);
+        }
+
+        List<String> values = new ArrayList<>(exec);
+        values.addAll(args);
+        systemProperties.forEach((k, v) -> values.add(k + "=" + v));
+        classpath.forEach(path -> values.add(path.toString()));
+        for (String value : values)
+        {
+            if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0 || isSection(value))
+            {
+                StartLog.debug("Cannot store launch plan with value %s", value);
+                return false;
+            }
+        }
+
+        Path dir = getCacheDir(baseHome);
+        FS.ensureDirectoryExists(dir);
+        Path file = dir.resolve("launch.plan");
+        Path tmp = Files.createTempFile(dir, "launch", ".tmp");
+        try
+        {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+            {
+                for (String line : lines)
+                {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+        StartLog.debug("Stored launch plan %s", file);
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "%s@%x{exec=%b,main=%s,inputs=%d}".formatted(getClass().getSimpleName(), hashCode(), isExec(), mainClass, inputs.size());
+    }
+
+    /**
+     * The modification time and size of a file or directory, or -1 if it does not exist.
+     */
+    private record Input(long lastModified, long size, Path path)
+    {
+        static Input of(Path path) throws IOException
+        {
+            if (!Files.exists(path))
+                return new Input(-1, -1, path);
+            long size = Files.isDirectory(path) ? 0 : Files.size(path);
+            return new Input(Files.getLastModifiedTime(path).toMillis(), size, path);
+        }
+
+        static Input parse(String line)
+        {
+            String[] parts = line.split("\\|", 3);
+            return new Input(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Paths.get(parts[2]));
+        }
+
+        @Override
+        public String toString()
+        {
+            return lastModified + "|" + size + "|" + path;
+        }
+    }
+}
@@ -77,9 +77,18 @@ public class Main
         try
         {
             Main main = new Main();
-            StartArgs startArgs = main.processCommandLine(args);
-            test = startArgs.isTestingModeEnabled();
-            main.start(startArgs);
+            BaseHome baseHome = new BaseHome(new CommandLineConfigSource(args));
+            LaunchPlan launchPlan = LaunchPlan.load(baseHome);
+            if (launchPlan != null)
+            {
+                main.start(launchPlan);
+            }
+            else
+            {
+                StartArgs startArgs = main.processCommandLine(baseHome);
+                test = startArgs.isTestingModeEnabled();
+                main.start(startArgs);
+            }
         }
         catch (UsageException e)
         {
@@ -298,12 +307,16 @@ public class Main
             return;
         }
 
-        StartLog.debug("%s - %s", invokedClass, invokedClass.getPackage().getImplementationVersion());
-
         CommandLineBuilder cmd = args.getMainArgs(StartArgs.ARG_PARTS);
-        String[] argArray = cmd.getArgs().toArray(new String[0]);
         StartLog.debug("Command Line Args: %s", cmd.toString());
+        invokeMain(invokedClass, cmd.getArgs());
+    }
+
+    private void invokeMain(Class<?> invokedClass, List<String> args) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
+    {
+        StartLog.debug("%s - %s", invokedClass, invokedClass.getPackage().getImplementationVersion());
 
+        String[] argArray = args.toArray(new String[0]);
         Class<?>[] methodParamTypes = {argArray.getClass()};
 
         Method main = invokedClass.getDeclaredMethod("main", methodParamTypes);
@@ -386,7 +399,12 @@ public class Main
         // Processing Order is important!
         // 1) Configuration Locations
         CommandLineConfigSource cmdLineSource = new CommandLineConfigSource(cmdLine);
-        baseHome = new BaseHome(cmdLineSource);
+        return processCommandLine(new BaseHome(cmdLineSource));
+    }
+
+    public StartArgs processCommandLine(BaseHome baseHome) throws Exception
+    {
+        this.baseHome = baseHome;
         StartArgs args = new StartArgs(baseHome);
 
         StartLog.debug("jetty.home=%s", baseHome.getHome());
@@ -575,23 +593,16 @@ public class Main
                 .collect(Collectors.toList());
             StartLog.warn("Forking second JVM due to forking module(s): %s. Use --dry-run to generate the command line to avoid forking.", execModules);
 
-            ProcessBuilder pbuilder = new ProcessBuilder(cmd.getArgs());
-            StartLog.endStartLog();
-            final Process process = pbuilder.start();
-            Runtime.getRuntime().addShutdownHook(new Thread(() ->
-            {
-                StartLog.debug("Destroying %s", process);
-                process.destroy();
-            }));
-
-            copyInThread(process.getErrorStream(), System.err);
-            copyInThread(process.getInputStream(), System.out);
-            copyInThread(System.in, process.getOutputStream());
-            process.waitFor();
-            System.exit(0); // exit JVM when child process ends.
+            if (args.isLaunchCache())
+                storeLaunchPlan(args);
+
+            exec(cmd.getArgs());
             return;
         }
 
+        if (args.isAppCds())
+            StartLog.warn("Ignoring %s, as it requires a forked JVM: use --exec, or --dry-run to generate the command line", LaunchPlan.APP_CDS);
+
         if (args.hasJvmArgs() || args.hasSystemProperties())
         {
             StartLog.warn("Unknown Arguments detected.  Consider using --dry-run or --exec");
@@ -601,6 +612,9 @@ public class Main
                 args.getJvmArgSources().forEach((jvmArg, source) -> StartLog.warn("  Argument: %s (interpreted as a JVM argument, from %s)", jvmArg, source));
         }
 
+        if (args.isLaunchCache() && !args.getSelectedModules().isEmpty())
+            storeLaunchPlan(args);
+
         ClassLoader cl = classpath.getClassLoader();
         Thread.currentThread().setContextClassLoader(cl);
 
@@ -616,6 +630,69 @@ public class Main
         }
     }
 
+    /**
+     * <p>Launch the server with a cached launch plan, without resolving the modules.</p>
+     *
+     * @param plan the launch plan
+     * @throws IOException if the forked JVM cannot be started
+     * @throws InterruptedException if interrupted while waiting for the forked JVM
+     * @see LaunchPlan#load(BaseHome)
+     */
+    public void start(LaunchPlan plan) throws IOException, InterruptedException
+    {
+        StartLog.debug("LaunchPlan: %s", plan);
+        plan.getSystemProperties().forEach(System::setProperty);
+
+        if (plan.isExec())
+        {
+            exec(plan.getCommandLine());
+            return;
+        }
+
+        ClassLoader cl = plan.getClasspath().getClassLoader();
+        Thread.currentThread().setContextClassLoader(cl);
+        try
+        {
+            invokeMain(cl.loadClass(plan.getMainClassname()), plan.getArgs());
+        }
+        catch (Throwable e)
+        {
+            e.printStackTrace();
+            usageExit(e, ERR_INVOKE_MAIN, false);
+        }
+    }
+
+    private void storeLaunchPlan(StartArgs args)
+    {
+        try
+        {
+            LaunchPlan.of(baseHome, args).store(baseHome);
+        }
+        catch (IOException x)
+        {
+            StartLog.warn("Unable to store launch plan in %s", LaunchPlan.getCacheDir(baseHome));
+            StartLog.debug(x);
+        }
+    }
+
+    private void exec(List<String> cmd) throws IOException, InterruptedException
+    {
+        ProcessBuilder pbuilder = new ProcessBuilder(cmd);
+        StartLog.endStartLog();
+        final Process process = pbuilder.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+        {
+            StartLog.debug("Destroying %s", process);
+            process.destroy();
+        }));
+
+        copyInThread(process.getErrorStream(), System.err);
+        copyInThread(process.getInputStream(), System.out);
+        copyInThread(System.in, process.getOutputStream());
+        process.waitFor();
+        System.exit(0); // exit JVM when child process ends.
+    }
+
     /* implement Apache commons daemon (jsvc) lifecycle methods (init, start, stop, destroy) */
     public void start() throws Exception
     {
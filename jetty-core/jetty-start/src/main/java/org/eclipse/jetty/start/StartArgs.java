@@ -193,6 +193,8 @@ public class StartArgs
 
     private boolean exec = false;
     private String execProperties;
+    private boolean launchCache = false;
+    private boolean appCds = false;
     private boolean allowInsecureHttpDownloads = false;
     private boolean approveAllLicenses = false;
 
@@ -507,6 +509,21 @@ public class StartArgs
 
     public CommandLineBuilder getMainArgs(Set<String> parts) throws IOException
     {
+        return getMainArgs(parts, null);
+    }
+
+    /**
+     * @param parts the parts of the command line
+     * @param propertiesFile the file used to pass the properties to the main class,
+     * if {@code --exec-properties} is not used, or null to use a temporary file
+     * @return the command line
+     * @throws IOException if the properties file cannot be written
+     */
+    public CommandLineBuilder getMainArgs(Set<String> parts, Path propertiesFile) throws IOException
+    {
+        if (execProperties != null)
+            propertiesFile = Paths.get(execProperties);
+
         if (parts.isEmpty())
             parts = ALL_PARTS;
 
@@ -550,6 +567,9 @@ public class StartArgs
                 String value = System.getProperty(propKey);
                 cmd.addOption("-D", propKey, value);
             }
+
+            if (appCds)
+                LaunchPlan.getAppCdsOptions(getAppCdsArchive()).forEach(cmd::addArg);
         }
 
         if (parts.contains("path"))
@@ -626,7 +646,7 @@ public class StartArgs
         if (parts.contains("args"))
         {
             Props properties = jettyEnvironment.getProperties();
-            if (dryRun && execProperties == null)
+            if (dryRun && propertiesFile == null)
             {
                 // pass properties as args
                 for (Prop p : properties)
@@ -638,16 +658,12 @@ public class StartArgs
             else if (properties.size() > 0)
             {
                 // pass properties as a temp property file
-                Path propPath;
-                if (execProperties == null)
+                Path propPath = propertiesFile;
+                if (propPath == null)
                 {
                     propPath = Files.createTempFile("start_", ".properties");
                     propPath.toFile().deleteOnExit();
                 }
-                else
-                {
-                    propPath = Paths.get(execProperties);
-                }
 
                 try (OutputStream out = Files.newOutputStream(propPath))
                 {
@@ -927,6 +943,24 @@ public class StartArgs
         return exec;
     }
 
+    public boolean isLaunchCache()
+    {
+        return launchCache;
+    }
+
+    public boolean isAppCds()
+    {
+        return appCds;
+    }
+
+    /**
+     * @return the AppCDS archive of the classpath, used when {@code --app-cds} is enabled
+     */
+    public Path getAppCdsArchive()
+    {
+        return LaunchPlan.getAppCdsArchive(baseHome, jettyEnvironment.getClasspath());
+    }
+
     public boolean isLicenseCheckRequired()
     {
         return licenseCheckRequired;
@@ -1182,6 +1216,20 @@ public class StartArgs
             return environment;
         }
 
+        // Cache the launch plan of the resolved modules
+        if (LaunchPlan.LAUNCH_CACHE.equals(arg))
+        {
+            launchCache = true;
+            return environment;
+        }
+
+        // Use an AppCDS archive of the classpath for the forked JVM
+        if (LaunchPlan.APP_CDS.equals(arg))
+        {
+            appCds = true;
+            return environment;
+        }
+
         // Allow insecure-http downloads
         if (ARG_ALLOW_INSECURE_HTTP_DOWNLOADS.equals(arg))
         {
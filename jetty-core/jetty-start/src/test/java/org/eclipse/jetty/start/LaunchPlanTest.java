@@ -0,0 +1,123 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.start;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenPaths;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LaunchPlanTest
+{
+    private Path base;
+    private Path zedIni;
+
+    @BeforeEach
+    public void prepareBase() throws Exception
+    {
+        System.setProperty("jetty.home", "");
+        System.setProperty("jetty.base", "");
+
+        base = MavenPaths.targetTestDir("base-launch-plan");
+        FS.ensureEmpty(base);
+        zedIni = base.resolve("start.d/zed.ini");
+        FS.ensureDirExists(zedIni.getParent());
+        Files.writeString(zedIni, "zed.key=value");
+    }
+
+    private List<String> cmdLine(String... extra)
+    {
+        List<String> cmdLine = new ArrayList<>();
+        cmdLine.add("jetty.home=" + MavenPaths.findTestResourceDir("dist-home"));
+        cmdLine.add("jetty.base=" + base);
+        cmdLine.add("main.class=" + PropertyDump.class.getName());
+        cmdLine.add("--modules=base");
+        cmdLine.addAll(List.of(extra));
+        return cmdLine;
+    }
+
+    private LaunchPlan load(List<String> cmdLine) throws Exception
+    {
+        return LaunchPlan.load(new BaseHome(cmdLine.toArray(new String[0])));
+    }
+
+    @Test
+    public void testInProcessPlan() throws Exception
+    {
+        List<String> cmdLine = cmdLine(LaunchPlan.LAUNCH_CACHE);
+        Main main = new Main();
+        StartArgs args = main.processCommandLine(cmdLine);
+        assertTrue(args.isLaunchCache());
+        assertTrue(LaunchPlan.of(main.getBaseHome(), args).store(main.getBaseHome()));
+
+        LaunchPlan plan = load(cmdLine);
+        assertNotNull(plan);
+        assertFalse(plan.isExec());
+        assertEquals(PropertyDump.class.getName(), plan.getMainClassname());
+        assertEquals(args.getJettyEnvironment().getClasspath().getElements(), plan.getClasspath().getElements());
+        Path properties = LaunchPlan.getCacheDir(main.getBaseHome()).resolve("launch.properties");
+        assertThat(plan.getArgs(), hasItem(properties.toAbsolutePath().toString()));
+        assertTrue(Files.readString(properties).contains("zed.key=value"));
+
+        // Another command line does not use the plan.
+        assertNull(load(cmdLine(LaunchPlan.LAUNCH_CACHE, "other.key=value")));
+        // The plan is not used unless enabled.
+        assertNull(load(cmdLine()));
+
+        // A changed ini file invalidates the plan.
+        Files.writeString(zedIni, "zed.key=changed");
+        assertNull(load(cmdLine));
+    }
+
+    @Test
+    public void testExecPlanWithAppCds() throws Exception
+    {
+        List<String> cmdLine = cmdLine(LaunchPlan.LAUNCH_CACHE, "--exec", LaunchPlan.APP_CDS);
+        Main main = new Main();
+        StartArgs args = main.processCommandLine(cmdLine);
+        assertTrue(args.isAppCds());
+        List<String> appCdsOptions = LaunchPlan.getAppCdsOptions(args.getAppCdsArchive());
+        assertThat(args.getMainArgs(StartArgs.ALL_PARTS).getArgs(), hasItem(appCdsOptions.get(0)));
+        assertTrue(LaunchPlan.of(main.getBaseHome(), args).store(main.getBaseHome()));
+
+        LaunchPlan plan = load(cmdLine);
+        assertNotNull(plan);
+        assertTrue(plan.isExec());
+        List<String> commandLine = plan.getCommandLine();
+        assertEquals(CommandLineBuilder.findJavaBin(), commandLine.get(0));
+        assertEquals(appCdsOptions, commandLine.subList(1, 1 + appCdsOptions.size()));
+        assertThat(commandLine, hasItem(PropertyDump.class.getName()));
+
+        // A new module invalidates the plan.
+        Path modules = base.resolve("modules");
+        FS.ensureDirExists(modules);
+        Files.writeString(modules.resolve("other.mod"), "[description]\nOther module\n");
+        assertNull(load(cmdLine));
+        assertThat(commandLine, not(hasItem(LaunchPlan.LAUNCH_CACHE)));
+    }
+}
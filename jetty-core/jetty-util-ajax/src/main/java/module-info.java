@@ -13,8 +13,11 @@
 
 module org.eclipse.jetty.util.ajax
 {
-    requires org.eclipse.jetty.util;
     requires org.slf4j;
 
+    // Exposed by the JSONWriter APIs.
+    requires transitive org.eclipse.jetty.io;
+    requires transitive org.eclipse.jetty.util;
+
     exports org.eclipse.jetty.util.ajax;
 }
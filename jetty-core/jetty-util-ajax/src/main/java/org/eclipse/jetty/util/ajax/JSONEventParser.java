@@ -0,0 +1,847 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.TypeUtil;
+import org.eclipse.jetty.util.Utf8StringBuilder;
+
+/**
+ * <p>A non-blocking JSON parser that notifies a {@link Listener} of the JSON
+ * structure and values as they are parsed from partial JSON content.</p>
+ * <p>Differently from {@link AsyncJSON}, no {@code Map} or {@code List} is
+ * built, and strings and numbers are not decoded: they are notified as
+ * {@link Token}s that refer to the bytes of the buffer being parsed, and
+ * that are decoded only if the listener asks for their value.
+ * Only tokens that span multiple chunks are copied.</p>
+ * <p>Usage:</p>
+ * <pre>
+ * JSONEventParser parser = new JSONEventParser(new JSONEventParser.Listener()
+ * {
+ *     &#64;Override
+ *     public void onName(JSONEventParser.Token name)
+ *     {
+ *         if (name.is("id"))
+ *             ...
+ *     }
+ * });
+ *
+ * // Feed the parser with partial JSON content.
+ * parser.parse(chunk1);
+ * parser.parse(chunk2);
+ *
+ * // Tell the parser that the JSON content is terminated.
+ * parser.complete();
+ * </pre>
+ * <p>After the call to {@link #complete()} the parser can be reused to parse
+ * another JSON content.</p>
+ */
+public class JSONEventParser
+{
+    // The container states of the stack.
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+
+    // The states of the structure.
+    private static final int VALUE = 0;
+    private static final int NAME = 1;
+    private static final int COLON = 2;
+    private static final int COMMA = 3;
+    private static final int DONE = 4;
+
+    // The states of the token being parsed.
+    private static final int NONE = 0;
+    private static final int STRING = 1;
+    private static final int ESCAPE = 2;
+    private static final int UNICODE = 3;
+    private static final int NUMBER = 4;
+    private static final int LITERAL = 5;
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final Token token = new Token();
+    private final Listener listener;
+    private byte[] stack = new byte[16];
+    private int depth;
+    private int state;
+    private boolean open;
+    private boolean started;
+    private int tokenState;
+    private boolean tokenName;
+    private boolean tokenEscaped;
+    private int unicodeDigits;
+    private byte[] literal;
+    private int literalIndex;
+    private byte[] partial = new byte[0];
+    private int partialLength;
+    private boolean partialActive;
+    private long offset;
+
+    public JSONEventParser(Listener listener)
+    {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * @return the depth of the JSON object or array being parsed
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * <p>Feeds the parser with the given bytes chunk.</p>
+     *
+     * @param bytes the bytes to parse
+     * @return whether the JSON parsing was complete
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public boolean parse(byte[] bytes)
+    {
+        return parse(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * <p>Feeds the parser with the given buffer chunk.</p>
+     * <p>The buffer is entirely consumed, and the {@link Token}s notified
+     * to the listener are valid only during the notification.</p>
+     *
+     * @param buffer the buffer to parse
+     * @return whether the JSON parsing was complete
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public boolean parse(ByteBuffer buffer)
+    {
+        try
+        {
+            started = true;
+            int position = buffer.position();
+            int limit = buffer.limit();
+            int tokenStart = position;
+            int index = position;
+            while (index < limit)
+            {
+                byte b = buffer.get(index);
+                switch (tokenState)
+                {
+                    case STRING ->
+                    {
+                        if (b == '"')
+                        {
+                            string(buffer, tokenStart, index);
+                            ++index;
+                            continue;
+                        }
+                        if (b == '\\')
+                        {
+                            tokenEscaped = true;
+                            tokenState = ESCAPE;
+                        }
+                        ++index;
+                        continue;
+                    }
+                    case ESCAPE ->
+                    {
+                        switch (b)
+                        {
+                            case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> tokenState = STRING;
+                            case 'u' ->
+                            {
+                                unicodeDigits = 0;
+                                tokenState = UNICODE;
+                            }
+                            default -> throw newInvalidJSON(buffer, index, "invalid escape sequence");
+                        }
+                        ++index;
+                        continue;
+                    }
+                    case UNICODE ->
+                    {
+                        if (hexDigit(b) < 0)
+                            throw newInvalidJSON(buffer, index, "invalid hex digit");
+                        if (++unicodeDigits == 4)
+                            tokenState = STRING;
+                        ++index;
+                        continue;
+                    }
+                    case NUMBER ->
+                    {
+                        if (isNumberCharacter(b))
+                        {
+                            ++index;
+                            continue;
+                        }
+                        number(buffer, tokenStart, index);
+                        // The byte that ended the number is parsed below.
+                    }
+                    case LITERAL ->
+                    {
+                        if (b != literal[literalIndex])
+                            throw newInvalidJSON(buffer, index, "invalid literal");
+                        ++index;
+                        if (++literalIndex == literal.length)
+                            literal();
+                        continue;
+                    }
+                    default ->
+                    {
+                    }
+                }
+
+                // No token is being parsed.
+                ++index;
+                if (isWhitespace(b))
+                    continue;
+
+                switch (state)
+                {
+                    case VALUE ->
+                    {
+                        if (b == ']' && open && stack[depth] == ARRAY)
+                        {
+                            end();
+                            listener.onArrayEnd();
+                            break;
+                        }
+                        open = false;
+                        switch (b)
+                        {
+                            case '{' ->
+                            {
+                                push(OBJECT);
+                                listener.onObjectStart();
+                                state = NAME;
+                                open = true;
+                            }
+                            case '[' ->
+                            {
+                                push(ARRAY);
+                                listener.onArrayStart();
+                                state = VALUE;
+                                open = true;
+                            }
+                            case '"' ->
+                            {
+                                tokenState = STRING;
+                                tokenName = false;
+                                tokenEscaped = false;
+                                tokenStart = index;
+                            }
+                            case 't' -> startLiteral(TRUE);
+                            case 'f' -> startLiteral(FALSE);
+                            case 'n' -> startLiteral(NULL);
+                            default ->
+                            {
+                                if (b != '-' && (b < '0' || b > '9'))
+                                    throw newInvalidJSON(buffer, index - 1, "invalid character");
+                                tokenState = NUMBER;
+                                tokenStart = index - 1;
+                            }
+                        }
+                    }
+                    case NAME ->
+                    {
+                        if (b == '}' && open)
+                        {
+                            end();
+                            listener.onObjectEnd();
+                        }
+                        else if (b == '"')
+                        {
+                            open = false;
+                            tokenState = STRING;
+                            tokenName = true;
+                            tokenEscaped = false;
+                            tokenStart = index;
+                        }
+                        else
+                        {
+                            throw newInvalidJSON(buffer, index - 1, "invalid object field name");
+                        }
+                    }
+                    case COLON ->
+                    {
+                        if (b != ':')
+                            throw newInvalidJSON(buffer, index - 1, "missing ':'");
+                        state = VALUE;
+                    }
+                    case COMMA ->
+                    {
+                        byte container = stack[depth];
+                        if (b == ',')
+                        {
+                            state = container == OBJECT ? NAME : VALUE;
+                        }
+                        else if (b == '}' && container == OBJECT)
+                        {
+                            end();
+                            listener.onObjectEnd();
+                        }
+                        else if (b == ']' && container == ARRAY)
+                        {
+                            end();
+                            listener.onArrayEnd();
+                        }
+                        else
+                        {
+                            throw newInvalidJSON(buffer, index - 1, "missing ',' or end of " + (container == OBJECT ? "object" : "array"));
+                        }
+                    }
+                    case DONE -> throw newInvalidJSON(buffer, index - 1, "invalid character after JSON data");
+                    default -> throw new IllegalStateException("invalid state " + state);
+                }
+            }
+
+            // Save the token that spans to the next chunk.
+            if (tokenState == STRING || tokenState == ESCAPE || tokenState == UNICODE || tokenState == NUMBER)
+                accumulate(buffer, tokenStart, limit);
+            offset += limit - position;
+            buffer.position(limit);
+            return state == DONE;
+        }
+        catch (Throwable x)
+        {
+            reset();
+            throw x;
+        }
+    }
+
+    /**
+     * <p>Signals to the parser that the JSON content is complete.</p>
+     *
+     * @throws IllegalArgumentException if the JSON is malformed or incomplete
+     * @throws IllegalStateException if no JSON was passed to the {@code parse()} methods
+     */
+    public void complete()
+    {
+        try
+        {
+            if (!started)
+                throw new IllegalStateException("no JSON parsed");
+            // A top-level number is only terminated by the end of the content.
+            if (tokenState == NUMBER && depth == 0)
+                number(BufferUtil.EMPTY_BUFFER, 0, 0);
+            if (state != DONE || tokenState != NONE)
+                throw new IllegalArgumentException("incomplete JSON at offset " + offset);
+        }
+        finally
+        {
+            reset();
+        }
+    }
+
+    private void reset()
+    {
+        depth = 0;
+        state = VALUE;
+        open = false;
+        started = false;
+        tokenState = NONE;
+        partialLength = 0;
+        partialActive = false;
+        offset = 0;
+    }
+
+    private void push(byte container)
+    {
+        if (++depth == stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[depth] = container;
+    }
+
+    private void end()
+    {
+        --depth;
+        open = false;
+        value();
+    }
+
+    private void value()
+    {
+        state = depth == 0 ? DONE : COMMA;
+    }
+
+    private void startLiteral(byte[] literal)
+    {
+        tokenState = LITERAL;
+        this.literal = literal;
+        literalIndex = 1;
+    }
+
+    private void literal()
+    {
+        tokenState = NONE;
+        value();
+        if (literal == NULL)
+            listener.onNull();
+        else
+            listener.onBoolean(literal == TRUE);
+    }
+
+    private void string(ByteBuffer buffer, int start, int end)
+    {
+        tokenState = NONE;
+        Token token = token(buffer, start, end, tokenEscaped, false);
+        if (tokenName)
+        {
+            state = COLON;
+            listener.onName(token);
+        }
+        else
+        {
+            value();
+            listener.onString(token);
+        }
+    }
+
+    private void number(ByteBuffer buffer, int start, int end)
+    {
+        tokenState = NONE;
+        Token token = token(buffer, start, end, false, true);
+        token.integral = checkNumber(token.buffer, token.start, token.end);
+        value();
+        listener.onNumber(token);
+    }
+
+    private Token token(ByteBuffer buffer, int start, int end, boolean escaped, boolean number)
+    {
+        if (partialActive)
+        {
+            // The token spans multiple chunks, complete the copy of its bytes.
+            accumulate(buffer, start, end);
+            buffer = ByteBuffer.wrap(partial, 0, partialLength);
+            start = 0;
+            end = partialLength;
+            partialActive = false;
+            partialLength = 0;
+        }
+        token.buffer = buffer;
+        token.start = start;
+        token.end = end;
+        token.escaped = escaped;
+        token.number = number;
+        return token;
+    }
+
+    private void accumulate(ByteBuffer buffer, int start, int end)
+    {
+        int length = end - start;
+        if (partialLength + length > partial.length)
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length + 32));
+        buffer.get(start, partial, partialLength, length);
+        partialLength += length;
+        partialActive = true;
+    }
+
+    private boolean checkNumber(ByteBuffer buffer, int start, int end)
+    {
+        // Validates the JSON number grammar: -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?
+        int index = start;
+        if (index < end && buffer.get(index) == '-')
+            ++index;
+        int digits = digits(buffer, index, end);
+        if (digits == 0 || (digits > 1 && buffer.get(index) == '0'))
+            throw newInvalidNumber(buffer, start, end);
+        index += digits;
+        boolean integral = true;
+        if (index < end && buffer.get(index) == '.')
+        {
+            ++index;
+            digits = digits(buffer, index, end);
+            if (digits == 0)
+                throw newInvalidNumber(buffer, start, end);
+            index += digits;
+            integral = false;
+        }
+        if (index < end && (buffer.get(index) == 'e' || buffer.get(index) == 'E'))
+        {
+            ++index;
+            if (index < end && (buffer.get(index) == '+' || buffer.get(index) == '-'))
+                ++index;
+            digits = digits(buffer, index, end);
+            if (digits == 0)
+                throw newInvalidNumber(buffer, start, end);
+            index += digits;
+            integral = false;
+        }
+        if (index != end)
+            throw newInvalidNumber(buffer, start, end);
+        return integral;
+    }
+
+    private static int digits(ByteBuffer buffer, int start, int end)
+    {
+        int index = start;
+        while (index < end)
+        {
+            byte b = buffer.get(index);
+            if (b < '0' || b > '9')
+                break;
+            ++index;
+        }
+        return index - start;
+    }
+
+    private IllegalArgumentException newInvalidNumber(ByteBuffer buffer, int start, int end)
+    {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new IllegalArgumentException("invalid number '%s' at offset %d".formatted(new String(bytes, StandardCharsets.US_ASCII), offset));
+    }
+
+    private IllegalArgumentException newInvalidJSON(ByteBuffer buffer, int index, String message)
+    {
+        return new IllegalArgumentException("%s at offset %d".formatted(message, offset + index - buffer.position()));
+    }
+
+    private static boolean isNumberCharacter(byte b)
+    {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    private static boolean isWhitespace(byte b)
+    {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static int hexDigit(byte b)
+    {
+        if (b >= '0' && b <= '9')
+            return b - '0';
+        if (b >= 'a' && b <= 'f')
+            return b - 'a' + 10;
+        if (b >= 'A' && b <= 'F')
+            return b - 'A' + 10;
+        return -1;
+    }
+
+    static String decodeString(ByteBuffer buffer, int start, int end, boolean escaped)
+    {
+        int length = end - start;
+        if (!escaped)
+        {
+            if (buffer.hasArray())
+                return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+            byte[] bytes = new byte[length];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Utf8StringBuilder builder = new Utf8StringBuilder(length);
+        for (int index = start; index < end; ++index)
+        {
+            byte b = buffer.get(index);
+            if (b != '\\')
+            {
+                builder.append(b);
+                continue;
+            }
+            byte escape = buffer.get(++index);
+            switch (escape)
+            {
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' ->
+                {
+                    int c = (TypeUtil.convertHexDigit(buffer.get(index + 1)) << 12) +
+                        (TypeUtil.convertHexDigit(buffer.get(index + 2)) << 8) +
+                        (TypeUtil.convertHexDigit(buffer.get(index + 3)) << 4) +
+                        TypeUtil.convertHexDigit(buffer.get(index + 4));
+                    builder.append((char)c);
+                    index += 4;
+                }
+                default -> builder.append((char)escape);
+            }
+        }
+        return builder.takeCompleteString(null);
+    }
+
+    static Number decodeNumber(ByteBuffer buffer, int start, int end, boolean integral)
+    {
+        int length = end - start;
+        if (integral && length <= 18)
+        {
+            int index = start;
+            boolean negative = buffer.get(index) == '-';
+            if (negative)
+                ++index;
+            long value = 0;
+            while (index < end)
+            {
+                value = value * 10 + (buffer.get(index++) - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        String string = new String(bytes, StandardCharsets.US_ASCII);
+        if (integral)
+        {
+            try
+            {
+                return Long.parseLong(string);
+            }
+            catch (NumberFormatException x)
+            {
+                // Too large for a long.
+            }
+        }
+        return Double.parseDouble(string);
+    }
+
+    /**
+     * <p>A string, object field name or number parsed from the JSON content.</p>
+     * <p>A token refers to the bytes of the buffer being parsed, so it is only
+     * valid during the listener notification, and its value must be retrieved
+     * during the notification.</p>
+     */
+    public static class Token
+    {
+        private ByteBuffer buffer;
+        private int start;
+        private int end;
+        private boolean escaped;
+        private boolean number;
+        private boolean integral;
+
+        private Token()
+        {
+        }
+
+        ByteBuffer buffer()
+        {
+            return buffer;
+        }
+
+        int start()
+        {
+            return start;
+        }
+
+        int end()
+        {
+            return end;
+        }
+
+        /**
+         * @return the number of bytes of this token, excluding the quotes of strings
+         */
+        public int length()
+        {
+            return end - start;
+        }
+
+        /**
+         * @return whether this token is a string that contains escape sequences
+         */
+        public boolean isEscaped()
+        {
+            return escaped;
+        }
+
+        /**
+         * @return whether this token is a number without fraction and exponent
+         */
+        public boolean isIntegral()
+        {
+            return number && integral;
+        }
+
+        /**
+         * <p>Compares this token with the given string, without decoding this token
+         * if the string is ASCII and this token does not contain escape sequences.</p>
+         *
+         * @param value the string to compare with
+         * @return whether this token is the given string
+         */
+        public boolean is(String value)
+        {
+            if (escaped)
+                return asString().equals(value);
+            int length = value.length();
+            if (length != end - start)
+            {
+                // Non-ASCII characters are encoded with more than one byte.
+                for (int i = 0; i < length; ++i)
+                {
+                    if (value.charAt(i) > 0x7F)
+                        return asString().equals(value);
+                }
+                return false;
+            }
+            for (int i = 0; i < length; ++i)
+            {
+                char c = value.charAt(i);
+                if (c > 0x7F)
+                    return asString().equals(value);
+                if (buffer.get(start + i) != c)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return this token decoded as a string
+         */
+        public String asString()
+        {
+            return decodeString(buffer, start, end, escaped);
+        }
+
+        /**
+         * @return this token decoded as a {@code Long} if it is integral, otherwise as a {@code Double}
+         * @throws NumberFormatException if this token is not a number
+         */
+        public Number asNumber()
+        {
+            if (!number)
+                throw new NumberFormatException("not a number");
+            return decodeNumber(buffer, start, end, integral);
+        }
+
+        /**
+         * @return this token decoded as a {@code long}
+         * @throws NumberFormatException if this token is not a number
+         */
+        public long asLong()
+        {
+            if (!number)
+                throw new NumberFormatException("not a number");
+            if (integral && end - start <= 18)
+            {
+                // Avoid boxing.
+                int index = start;
+                boolean negative = buffer.get(index) == '-';
+                if (negative)
+                    ++index;
+                long value = 0;
+                while (index < end)
+                {
+                    value = value * 10 + (buffer.get(index++) - '0');
+                }
+                return negative ? -value : value;
+            }
+            return asNumber().longValue();
+        }
+
+        /**
+         * @return this token decoded as a {@code double}
+         * @throws NumberFormatException if this token is not a number
+         */
+        public double asDouble()
+        {
+            if (integral && end - start <= 15)
+                return asLong();
+            return asNumber().doubleValue();
+        }
+
+        @Override
+        public String toString()
+        {
+            return asString();
+        }
+    }
+
+    /**
+     * <p>The listener of JSON events.</p>
+     * <p>Object field values are notified after the field name, and array
+     * elements are notified in order, between the start and the end events
+     * of the object or array that contains them.</p>
+     */
+    public interface Listener
+    {
+        /**
+         * <p>Callback method invoked when a JSON <code>{</code> is parsed.</p>
+         */
+        default void onObjectStart()
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON <code>}</code> is parsed.</p>
+         */
+        default void onObjectEnd()
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON <code>[</code> is parsed.</p>
+         */
+        default void onArrayStart()
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a JSON <code>]</code> is parsed.</p>
+         */
+        default void onArrayEnd()
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when the name of an object field is parsed.</p>
+         *
+         * @param name the object field name, only valid during this invocation
+         */
+        default void onName(Token name)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a string value is parsed.</p>
+         *
+         * @param value the string value, only valid during this invocation
+         */
+        default void onString(Token value)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a number value is parsed.</p>
+         *
+         * @param value the number value, only valid during this invocation
+         */
+        default void onNumber(Token value)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a {@code true} or {@code false} value is parsed.</p>
+         *
+         * @param value the boolean value
+         */
+        default void onBoolean(boolean value)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when a {@code null} value is parsed.</p>
+         */
+        default void onNull()
+        {
+        }
+    }
+}
@@ -0,0 +1,592 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.io.RetainableByteBuffer;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IteratingCallback;
+
+/**
+ * <p>A streaming JSON generator that encodes JSON directly into
+ * {@link RetainableByteBuffer}s acquired from a {@link ByteBufferPool},
+ * and that writes them to a {@link Content.Sink}.</p>
+ * <p>Strings are escaped and encoded to UTF-8, and numbers are formatted,
+ * directly into the buffers, without intermediate {@code String}s.</p>
+ * <p>Usage:</p>
+ * <pre>
+ * JSONWriter writer = new JSONWriter(bufferPool);
+ * writer.beginObject()
+ *     .name("id").value(42)
+ *     .name("tags").beginArray().value("a").value("b").endArray()
+ *     .endObject();
+ * writer.write(response, true, callback);
+ * </pre>
+ * <p>The JSON generated so far may be written with {@link #write(Content.Sink, boolean, Callback)}
+ * before the JSON is complete, for example to stream a large JSON array, and the generation
+ * can continue while the previous write is in progress.
+ * The buffers are released when they have been written.</p>
+ * <p>The escaping of strings is the same as that of {@link JSON}.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public class JSONWriter
+{
+    // The states of the stack.
+    private static final byte OBJECT = 1;
+    private static final byte OBJECT_FIRST = 2;
+    private static final byte ARRAY = 3;
+    private static final byte ARRAY_FIRST = 4;
+    // Large enough for the longest number written by writeLong().
+    private static final int MIN_BUFFER_SIZE = 20;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private final List<RetainableByteBuffer> buffers = new ArrayList<>();
+    private final ByteBufferPool bufferPool;
+    private final int bufferSize;
+    private final boolean direct;
+    private RetainableByteBuffer current;
+    private ByteBuffer byteBuffer;
+    private byte[] stack = new byte[16];
+    private int depth;
+    private boolean named;
+
+    /**
+     * @param bufferPool the pool to acquire the buffers from
+     */
+    public JSONWriter(ByteBufferPool bufferPool)
+    {
+        this(bufferPool, 4096, false);
+    }
+
+    /**
+     * @param bufferPool the pool to acquire the buffers from
+     * @param bufferSize the size of the buffers, at least 20 bytes
+     * @param direct whether the buffers are direct
+     */
+    public JSONWriter(ByteBufferPool bufferPool, int bufferSize, boolean direct)
+    {
+        if (bufferSize < MIN_BUFFER_SIZE)
+            throw new IllegalArgumentException("Invalid buffer size " + bufferSize);
+        this.bufferPool = bufferPool;
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+    }
+
+    /**
+     * @return the depth of the JSON object or array being generated
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return the number of bytes generated and not yet written
+     */
+    public long getPendingBytes()
+    {
+        long pending = byteBuffer == null ? 0 : byteBuffer.position();
+        for (RetainableByteBuffer buffer : buffers)
+        {
+            pending += buffer.remaining();
+        }
+        return pending;
+    }
+
+    /**
+     * <p>Generates a JSON <code>{</code>.</p>
+     *
+     * @return this writer
+     */
+    public JSONWriter beginObject()
+    {
+        beforeValue();
+        push(OBJECT_FIRST);
+        writeByte('{');
+        return this;
+    }
+
+    /**
+     * <p>Generates a JSON <code>}</code>.</p>
+     *
+     * @return this writer
+     * @throws IllegalStateException if no JSON object is being generated
+     */
+    public JSONWriter endObject()
+    {
+        if (depth == 0 || (stack[depth] != OBJECT && stack[depth] != OBJECT_FIRST) || named)
+            throw new IllegalStateException("Not in object");
+        --depth;
+        writeByte('}');
+        return this;
+    }
+
+    /**
+     * <p>Generates a JSON <code>[</code>.</p>
+     *
+     * @return this writer
+     */
+    public JSONWriter beginArray()
+    {
+        beforeValue();
+        push(ARRAY_FIRST);
+        writeByte('[');
+        return this;
+    }
+
+    /**
+     * <p>Generates a JSON <code>]</code>.</p>
+     *
+     * @return this writer
+     * @throws IllegalStateException if no JSON array is being generated
+     */
+    public JSONWriter endArray()
+    {
+        if (depth == 0 || (stack[depth] != ARRAY && stack[depth] != ARRAY_FIRST))
+            throw new IllegalStateException("Not in array");
+        --depth;
+        writeByte(']');
+        return this;
+    }
+
+    /**
+     * <p>Generates the name of a field of the JSON object being generated.</p>
+     *
+     * @param name the field name
+     * @return this writer
+     * @throws IllegalStateException if no JSON object is being generated
+     */
+    public JSONWriter name(String name)
+    {
+        if (depth == 0 || named)
+            throw new IllegalStateException("Not expecting a name");
+        byte state = stack[depth];
+        if (state == OBJECT)
+            writeByte(',');
+        else if (state == OBJECT_FIRST)
+            stack[depth] = OBJECT;
+        else
+            throw new IllegalStateException("Not in object");
+        writeString(name);
+        writeByte(':');
+        named = true;
+        return this;
+    }
+
+    /**
+     * <p>Generates a JSON string, or {@code null} if the value is {@code null}.</p>
+     *
+     * @param value the string value
+     * @return this writer
+     */
+    public JSONWriter value(CharSequence value)
+    {
+        if (value == null)
+            return nullValue();
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    /**
+     * <p>Generates a JSON number.</p>
+     *
+     * @param value the number value
+     * @return this writer
+     */
+    public JSONWriter value(long value)
+    {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    /**
+     * <p>Generates a JSON number.</p>
+     *
+     * @param value the number value
+     * @return this writer
+     * @throws IllegalArgumentException if the value is not finite
+     */
+    public JSONWriter value(double value)
+    {
+        if (!Double.isFinite(value))
+            throw new IllegalArgumentException("Invalid JSON number " + value);
+        beforeValue();
+        if (value == (long)value && Math.abs(value) < 1e7 && (value != 0 || 1 / value > 0))
+        {
+            writeLong((long)value);
+            writeAscii(".0");
+        }
+        else
+        {
+            writeAscii(Double.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * <p>Generates a JSON {@code true} or {@code false}.</p>
+     *
+     * @param value the boolean value
+     * @return this writer
+     */
+    public JSONWriter value(boolean value)
+    {
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    /**
+     * <p>Generates a JSON {@code null}.</p>
+     *
+     * @return this writer
+     */
+    public JSONWriter nullValue()
+    {
+        beforeValue();
+        writeBytes(NULL);
+        return this;
+    }
+
+    /**
+     * <p>Generates the given object as JSON.</p>
+     * <p>{@code Map}s are generated as JSON objects; {@code Iterable}s and arrays
+     * as JSON arrays; {@code CharSequence}s, {@code Character}s and {@code Enum}s
+     * as JSON strings; {@code Number}s as JSON numbers; {@code Boolean}s as
+     * JSON booleans; and other objects as the JSON string of their {@code toString()}.</p>
+     *
+     * @param value the object to generate
+     * @return this writer
+     */
+    public JSONWriter value(Object value)
+    {
+        if (value == null)
+            return nullValue();
+        if (value instanceof CharSequence string)
+            return value(string);
+        if (value instanceof Number number)
+        {
+            if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte)
+                return value(number.longValue());
+            if (number instanceof Double || number instanceof Float)
+                return value(number.doubleValue());
+            if (number instanceof BigInteger || number instanceof BigDecimal)
+            {
+                beforeValue();
+                writeAscii(number.toString());
+                return this;
+            }
+            return value(number.doubleValue());
+        }
+        if (value instanceof Boolean bool)
+            return value(bool.booleanValue());
+        if (value instanceof Map<?, ?> map)
+        {
+            beginObject();
+            for (Map.Entry<?, ?> entry : map.entrySet())
+            {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof Iterable<?> iterable)
+        {
+            beginArray();
+            for (Object element : iterable)
+            {
+                value(element);
+            }
+            return endArray();
+        }
+        if (value.getClass().isArray())
+        {
+            beginArray();
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; ++i)
+            {
+                value(Array.get(value, i));
+            }
+            return endArray();
+        }
+        if (value instanceof Enum<?> e)
+            return value(e.name());
+        return value(value.toString());
+    }
+
+    /**
+     * <p>Writes the JSON generated so far to the given sink.</p>
+     * <p>The callback is completed when all the generated JSON has been written,
+     * and the buffers released.</p>
+     *
+     * @param sink the sink to write to
+     * @param last whether the write is the last to the sink
+     * @param callback the callback notified when the write is complete
+     */
+    public void write(Content.Sink sink, boolean last, Callback callback)
+    {
+        if (current != null)
+        {
+            BufferUtil.flipToFlush(byteBuffer, 0);
+            buffers.add(current);
+            current = null;
+            byteBuffer = null;
+        }
+        List<RetainableByteBuffer> pending = new ArrayList<>(buffers);
+        buffers.clear();
+        new Flusher(sink, last, pending, callback).iterate();
+    }
+
+    /**
+     * <p>Releases the buffers of the JSON generated and not yet written,
+     * and resets this writer so that it can generate a new JSON.</p>
+     */
+    public void release()
+    {
+        if (current != null)
+        {
+            current.release();
+            current = null;
+            byteBuffer = null;
+        }
+        buffers.forEach(RetainableByteBuffer::release);
+        buffers.clear();
+        depth = 0;
+        named = false;
+    }
+
+    private void push(byte state)
+    {
+        if (++depth == stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[depth] = state;
+    }
+
+    private void beforeValue()
+    {
+        if (depth == 0)
+            return;
+        switch (stack[depth])
+        {
+            case ARRAY -> writeByte(',');
+            case ARRAY_FIRST -> stack[depth] = ARRAY;
+            default ->
+            {
+                if (!named)
+                    throw new IllegalStateException("Missing name");
+                named = false;
+            }
+        }
+    }
+
+    private void ensure(int bytes)
+    {
+        if (byteBuffer != null && byteBuffer.remaining() >= bytes)
+            return;
+        if (current != null)
+        {
+            BufferUtil.flipToFlush(byteBuffer, 0);
+            buffers.add(current);
+        }
+        // Numbers longer than the buffer size are written to a larger buffer.
+        current = bufferPool.acquire(Math.max(bufferSize, bytes), direct);
+        byteBuffer = current.getByteBuffer();
+        BufferUtil.flipToFill(byteBuffer);
+    }
+
+    private void writeByte(int b)
+    {
+        ensure(1);
+        byteBuffer.put((byte)b);
+    }
+
+    private void writeBytes(byte[] bytes)
+    {
+        ensure(bytes.length);
+        byteBuffer.put(bytes);
+    }
+
+    private void writeAscii(String ascii)
+    {
+        int length = ascii.length();
+        ensure(length);
+        for (int i = 0; i < length; ++i)
+        {
+            byteBuffer.put((byte)ascii.charAt(i));
+        }
+    }
+
+    private void writeLong(long value)
+    {
+        if (value == Long.MIN_VALUE)
+        {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        // At most 19 digits and the sign.
+        ensure(20);
+        if (value < 0)
+        {
+            byteBuffer.put((byte)'-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10)
+        {
+            ++digits;
+        }
+        int position = byteBuffer.position();
+        for (int i = digits - 1; i >= 0; --i)
+        {
+            byteBuffer.put(position + i, (byte)('0' + value % 10));
+            value /= 10;
+        }
+        byteBuffer.position(position + digits);
+    }
+
+    private void writeString(CharSequence string)
+    {
+        writeByte('"');
+        int length = string.length();
+        for (int i = 0; i < length; ++i)
+        {
+            char c = string.charAt(i);
+            // The longest encoding is a 6 bytes escape sequence.
+            ensure(6);
+            if (c >= 0x20 && c < 0x7F)
+            {
+                if (c == '"' || c == '\\')
+                    byteBuffer.put((byte)'\\');
+                byteBuffer.put((byte)c);
+            }
+            else if (c < 0x80)
+            {
+                byteBuffer.put((byte)'\\');
+                switch (c)
+                {
+                    case '\b' -> byteBuffer.put((byte)'b');
+                    case '\f' -> byteBuffer.put((byte)'f');
+                    case '\n' -> byteBuffer.put((byte)'n');
+                    case '\r' -> byteBuffer.put((byte)'r');
+                    case '\t' -> byteBuffer.put((byte)'t');
+                    default -> byteBuffer.put((byte)'u').put((byte)'0').put((byte)'0').put(HEX[c >> 4]).put(HEX[c & 0xF]);
+                }
+            }
+            else if (c < 0x800)
+            {
+                byteBuffer.put((byte)(0xC0 | (c >> 6)));
+                byteBuffer.put((byte)(0x80 | (c & 0x3F)));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1)))
+            {
+                int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                byteBuffer.put((byte)(0xF0 | (codePoint >> 18)));
+                byteBuffer.put((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+                byteBuffer.put((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+                byteBuffer.put((byte)(0x80 | (codePoint & 0x3F)));
+            }
+            else if (Character.isSurrogate(c))
+            {
+                // Unpaired surrogates cannot be encoded to UTF-8.
+                byteBuffer.put((byte)'?');
+            }
+            else
+            {
+                byteBuffer.put((byte)(0xE0 | (c >> 12)));
+                byteBuffer.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+                byteBuffer.put((byte)(0x80 | (c & 0x3F)));
+            }
+        }
+        writeByte('"');
+    }
+
+    private static class Flusher extends IteratingCallback
+    {
+        private final Content.Sink sink;
+        private final boolean last;
+        private final List<RetainableByteBuffer> buffers;
+        private final Callback callback;
+        private int index;
+        private boolean written;
+
+        private Flusher(Content.Sink sink, boolean last, List<RetainableByteBuffer> buffers, Callback callback)
+        {
+            this.sink = sink;
+            this.last = last;
+            this.buffers = buffers;
+            this.callback = callback;
+        }
+
+        @Override
+        protected Action process()
+        {
+            if (index < buffers.size())
+            {
+                RetainableByteBuffer buffer = buffers.get(index++);
+                written = true;
+                sink.write(last && index == buffers.size(), buffer.getByteBuffer(), this);
+                return Action.SCHEDULED;
+            }
+            if (last && !written)
+            {
+                written = true;
+                sink.write(true, BufferUtil.EMPTY_BUFFER, this);
+                return Action.SCHEDULED;
+            }
+            return Action.SUCCEEDED;
+        }
+
+        @Override
+        protected void onSuccess()
+        {
+            if (index > 0)
+                buffers.get(index - 1).release();
+        }
+
+        @Override
+        protected void onCompleteSuccess()
+        {
+            callback.succeeded();
+        }
+
+        @Override
+        protected void onCompleteFailure(Throwable cause)
+        {
+            // Release the buffer that failed to be written, and those not yet written.
+            for (int i = Math.max(0, index - 1); i < buffers.size(); ++i)
+            {
+                buffers.get(i).release();
+            }
+            callback.failed(cause);
+        }
+    }
+}
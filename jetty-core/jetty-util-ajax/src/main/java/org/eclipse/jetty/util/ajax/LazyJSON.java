@@ -0,0 +1,377 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Parses JSON content into a lazy DOM, where strings and numbers are kept as
+ * slices of the JSON content until they are accessed.</p>
+ * <p>JSON objects are represented with an immutable {@code Map<String, Object>},
+ * JSON arrays with an immutable {@code List<Object>}, and the other JSON values
+ * with {@code String}, {@code Long}, {@code Double}, {@code Boolean} and {@code null},
+ * like {@link AsyncJSON} does.
+ * The values are decoded when they are first retrieved via {@link Map#get(Object)}
+ * or {@link List#get(int)}, so that the values that are never retrieved are never
+ * decoded.</p>
+ * <p>Usage:</p>
+ * <pre>
+ * ByteBuffer json = ...;
+ * Map&lt;String, Object&gt; object = LazyJSON.parse(json);
+ * String id = (String)object.get("id");
+ * </pre>
+ * <p>The lazy DOM refers to the bytes of the JSON content, so the JSON content
+ * must not be modified, or its buffer reused, while the lazy DOM is in use.</p>
+ */
+public class LazyJSON
+{
+    // The kinds of values.
+    private static final byte STRING = 1;
+    private static final byte ESCAPED_STRING = 2;
+    private static final byte INTEGRAL = 3;
+    private static final byte NUMBER = 4;
+
+    private LazyJSON()
+    {
+    }
+
+    /**
+     * <p>Parses the given JSON content into a lazy DOM.</p>
+     *
+     * @param json the JSON content, from its position to its limit
+     * @param <R> the type the result is cast to
+     * @return the lazy DOM of the JSON content
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> R parse(ByteBuffer json)
+    {
+        Builder builder = new Builder(json.slice());
+        JSONEventParser parser = new JSONEventParser(builder);
+        parser.parse(builder.input);
+        parser.complete();
+        return (R)builder.result;
+    }
+
+    /**
+     * <p>Parses the given JSON content into a lazy DOM.</p>
+     *
+     * @param json the JSON content
+     * @param <R> the type the result is cast to
+     * @return the lazy DOM of the JSON content
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public static <R> R parse(byte[] json)
+    {
+        return parse(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * <p>The values of a JSON object or array, each recorded as its kind and
+     * its offsets in the JSON content, and decoded when first retrieved.</p>
+     */
+    private static class Values
+    {
+        // Each entry is: name start, name end, value kind, value start, value end.
+        private static final int ENTRY = 5;
+
+        private final ByteBuffer input;
+        private int[] table = new int[ENTRY * 4];
+        private Object[] values = new Object[4];
+        private int size;
+
+        private Values(ByteBuffer input)
+        {
+            this.input = input;
+        }
+
+        private void add(int nameStart, int nameEnd, byte kind, int start, int end, Object value)
+        {
+            if (size == values.length)
+            {
+                table = Arrays.copyOf(table, table.length * 2);
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            int entry = size * ENTRY;
+            table[entry] = nameStart;
+            table[entry + 1] = nameEnd;
+            table[entry + 2] = kind;
+            table[entry + 3] = start;
+            table[entry + 4] = end;
+            values[size] = value;
+            ++size;
+        }
+
+        private Object value(int index)
+        {
+            int entry = index * ENTRY;
+            int kind = table[entry + 2];
+            Object value = values[index];
+            if (value != null || kind == 0)
+                return value;
+            value = switch (kind)
+            {
+                case STRING, ESCAPED_STRING -> JSONEventParser.decodeString(input, table[entry + 3], table[entry + 4], kind == ESCAPED_STRING);
+                default -> JSONEventParser.decodeNumber(input, table[entry + 3], table[entry + 4], kind == INTEGRAL);
+            };
+            // Benign race, the value may be decoded concurrently more than once.
+            values[index] = value;
+            return value;
+        }
+
+        private String name(int index)
+        {
+            // The name end is negative if the name is escaped.
+            int entry = index * ENTRY;
+            int end = table[entry + 1];
+            return JSONEventParser.decodeString(input, table[entry], Math.abs(end), end < 0);
+        }
+
+        private boolean nameEquals(int index, String name)
+        {
+            int entry = index * ENTRY;
+            int start = table[entry];
+            int end = table[entry + 1];
+            int length = name.length();
+            if (end < 0)
+                return name(index).equals(name);
+            for (int i = 0; i < length; ++i)
+            {
+                if (name.charAt(i) > 0x7F)
+                    return name(index).equals(name);
+            }
+            // Compare the ASCII name with the bytes of the JSON content.
+            if (length != end - start)
+                return false;
+            for (int i = 0; i < length; ++i)
+            {
+                if (input.get(start + i) != name.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static class LazyObject extends AbstractMap<String, Object>
+    {
+        private final Values values;
+        private volatile Map<String, Object> map;
+
+        private LazyObject(Values values)
+        {
+            this.values = values;
+        }
+
+        @Override
+        public Object get(Object key)
+        {
+            Map<String, Object> map = this.map;
+            if (map != null)
+                return map.get(key);
+            if (!(key instanceof String name))
+                return null;
+            // The last field wins if the name is duplicated.
+            for (int index = values.size - 1; index >= 0; --index)
+            {
+                if (values.nameEquals(index, name))
+                    return values.value(index);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            Map<String, Object> map = this.map;
+            if (map != null)
+                return map.containsKey(key);
+            if (!(key instanceof String name))
+                return false;
+            for (int index = values.size - 1; index >= 0; --index)
+            {
+                if (values.nameEquals(index, name))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return values.size == 0;
+        }
+
+        @Override
+        public int size()
+        {
+            return map().size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet()
+        {
+            return map().entrySet();
+        }
+
+        private Map<String, Object> map()
+        {
+            // Iterations decode all the fields.
+            Map<String, Object> map = this.map;
+            if (map == null)
+            {
+                Map<String, Object> fields = new LinkedHashMap<>();
+                for (int index = 0; index < values.size; ++index)
+                {
+                    fields.put(values.name(index), values.value(index));
+                }
+                map = Collections.unmodifiableMap(fields);
+                this.map = map;
+            }
+            return map;
+        }
+    }
+
+    private static class LazyArray extends AbstractList<Object>
+    {
+        private final Values values;
+
+        private LazyArray(Values values)
+        {
+            this.values = values;
+        }
+
+        @Override
+        public Object get(int index)
+        {
+            if (index < 0 || index >= values.size)
+                throw new IndexOutOfBoundsException(index);
+            return values.value(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return values.size;
+        }
+    }
+
+    private static class Builder implements JSONEventParser.Listener
+    {
+        private final List<Values> stack = new ArrayList<>();
+        private final ByteBuffer input;
+        private int nameStart;
+        private int nameEnd;
+        private Object result;
+
+        private Builder(ByteBuffer input)
+        {
+            this.input = input;
+        }
+
+        @Override
+        public void onObjectStart()
+        {
+            Values values = new Values(input);
+            value(0, 0, 0, new LazyObject(values));
+            stack.add(values);
+        }
+
+        @Override
+        public void onObjectEnd()
+        {
+            stack.remove(stack.size() - 1);
+        }
+
+        @Override
+        public void onArrayStart()
+        {
+            Values values = new Values(input);
+            value(0, 0, 0, new LazyArray(values));
+            stack.add(values);
+        }
+
+        @Override
+        public void onArrayEnd()
+        {
+            stack.remove(stack.size() - 1);
+        }
+
+        @Override
+        public void onName(JSONEventParser.Token name)
+        {
+            if (name.buffer() == input)
+            {
+                nameStart = name.start();
+                nameEnd = name.isEscaped() ? -name.end() : name.end();
+            }
+            else
+            {
+                // Cannot happen, the whole input is parsed at once.
+                throw new IllegalStateException();
+            }
+        }
+
+        @Override
+        public void onString(JSONEventParser.Token value)
+        {
+            if (value.buffer() == input)
+                value(value.isEscaped() ? ESCAPED_STRING : STRING, value.start(), value.end(), null);
+            else
+                value(0, 0, 0, value.asString());
+        }
+
+        @Override
+        public void onNumber(JSONEventParser.Token value)
+        {
+            // A top-level number is copied by the parser.
+            if (value.buffer() == input)
+                value(value.isIntegral() ? INTEGRAL : NUMBER, value.start(), value.end(), null);
+            else
+                value(0, 0, 0, value.asNumber());
+        }
+
+        @Override
+        public void onBoolean(boolean value)
+        {
+            value(0, 0, 0, value);
+        }
+
+        @Override
+        public void onNull()
+        {
+            value(0, 0, 0, null);
+        }
+
+        private void value(int kind, int start, int end, Object value)
+        {
+            if (stack.isEmpty())
+            {
+                result = kind == 0 ? value : kind == STRING || kind == ESCAPED_STRING
+                    ? JSONEventParser.decodeString(input, start, end, kind == ESCAPED_STRING)
+                    : JSONEventParser.decodeNumber(input, start, end, kind == INTEGRAL);
+                return;
+            }
+            stack.get(stack.size() - 1).add(nameStart, nameEnd, (byte)kind, start, end, value);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JSONEventParserTest
+{
+    private static class Events implements JSONEventParser.Listener
+    {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onObjectStart()
+        {
+            events.add("{");
+        }
+
+        @Override
+        public void onObjectEnd()
+        {
+            events.add("}");
+        }
+
+        @Override
+        public void onArrayStart()
+        {
+            events.add("[");
+        }
+
+        @Override
+        public void onArrayEnd()
+        {
+            events.add("]");
+        }
+
+        @Override
+        public void onName(JSONEventParser.Token name)
+        {
+            events.add("name:" + name.asString());
+        }
+
+        @Override
+        public void onString(JSONEventParser.Token value)
+        {
+            events.add("string:" + value.asString());
+        }
+
+        @Override
+        public void onNumber(JSONEventParser.Token value)
+        {
+            events.add("number:" + value.asNumber());
+        }
+
+        @Override
+        public void onBoolean(boolean value)
+        {
+            events.add("boolean:" + value);
+        }
+
+        @Override
+        public void onNull()
+        {
+            events.add("null");
+        }
+    }
+
+    private static List<String> parse(byte[] bytes, int chunkSize)
+    {
+        Events events = new Events();
+        JSONEventParser parser = new JSONEventParser(events);
+        for (int offset = 0; offset < bytes.length; offset += chunkSize)
+        {
+            parser.parse(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+        }
+        parser.complete();
+        return events.events;
+    }
+
+    public static Stream<Arguments> validJSON()
+    {
+        return Stream.of(
+            Arguments.of("{}", List.of("{", "}")),
+            Arguments.of("[]", List.of("[", "]")),
+            Arguments.of(" 42 ", List.of("number:42")),
+            Arguments.of("-1.5e2", List.of("number:-150.0")),
+            Arguments.of("\"caf\\u00e9 \\\"olé\\\"\"", List.of("string:café \"olé\"")), // e acute
+            Arguments.of("""
+                {
+                  "id": 123456789012,
+                  "name": "Jetty",
+                  "ratio": 0.25,
+                  "tags": ["a", "b\\n", []],
+                  "active": true,
+                  "owner": null,
+                  "nested": {"empty": {}, "flag": false}
+                }
+                """, List.of(
+                "{",
+                "name:id", "number:123456789012",
+                "name:name", "string:Jetty",
+                "name:ratio", "number:0.25",
+                "name:tags", "[", "string:a", "string:b\n", "[", "]", "]",
+                "name:active", "boolean:true",
+                "name:owner", "null",
+                "name:nested", "{", "name:empty", "{", "}", "name:flag", "boolean:false", "}",
+                "}"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("validJSON")
+    public void testParse(String json, List<String> expected)
+    {
+        byte[] bytes = json.getBytes(UTF_8);
+
+        // Parse the whole input.
+        assertEquals(expected, parse(bytes, bytes.length));
+
+        // Parse byte by byte, and in small chunks.
+        assertEquals(expected, parse(bytes, 1));
+        assertEquals(expected, parse(bytes, 3));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"|", "}", "]", "{]", "[}", "+", ".", "{} []", "[1,]", "{\"a\":1,}", "{\"a\" 1}", "{1:2}",
+        "01", "1.", "-", "1e", "--1", "tru", "nul", "\"abc", "\"\\x\"", "\"\\u12G4\"", "[1 2]"})
+    public void testParseInvalidJSON(String json)
+    {
+        byte[] bytes = json.getBytes(UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> parse(bytes, bytes.length));
+        assertThrows(IllegalArgumentException.class, () -> parse(bytes, 1));
+    }
+
+    @ParameterizedTest(name = "[{index}] ''{0}'' -> ''{1}''")
+    @MethodSource("org.eclipse.jetty.util.ajax.AsyncJSONTest#validStrings")
+    public void testParseString(String string, String expected)
+    {
+        byte[] bytes = ("\"" + string + "\"").getBytes(UTF_8);
+        assertEquals(List.of("string:" + expected), parse(bytes, bytes.length));
+        assertEquals(List.of("string:" + expected), parse(bytes, 1));
+    }
+
+    @Test
+    public void testTokens()
+    {
+        List<Object> values = new ArrayList<>();
+        JSONEventParser parser = new JSONEventParser(new JSONEventParser.Listener()
+        {
+            @Override
+            public void onName(JSONEventParser.Token name)
+            {
+                values.add(name.is("id"));
+                values.add(name.is("café"));
+            }
+
+            @Override
+            public void onNumber(JSONEventParser.Token value)
+            {
+                values.add(value.isIntegral());
+                values.add(value.asLong());
+                values.add(value.asDouble());
+            }
+        });
+
+        assertTrue(parser.parse("{\"id\":-42}".getBytes(UTF_8)));
+        parser.complete();
+        assertEquals(List.of(true, false, true, -42L, -42D), values);
+
+        // The parser can be reused.
+        values.clear();
+        assertTrue(parser.parse("{\"café\":25E-1}".getBytes(UTF_8)));
+        parser.complete();
+        assertEquals(List.of(false, true, false, 2L, 2.5D), values);
+
+        // Integers that do not fit a long are doubles.
+        values.clear();
+        assertFalse(parser.parse("12345678901234567890".getBytes(UTF_8)));
+        parser.complete();
+        assertEquals(List.of(true, Long.MAX_VALUE, 1.2345678901234567E19), values);
+    }
+
+    @Test
+    public void testIncompleteJSON()
+    {
+        JSONEventParser parser = new JSONEventParser(new JSONEventParser.Listener() {});
+        assertThrows(IllegalStateException.class, parser::complete);
+
+        assertFalse(parser.parse("[1, {\"a\":".getBytes(UTF_8)));
+        assertEquals(2, parser.getDepth());
+        assertThrows(IllegalArgumentException.class, parser::complete);
+        assertEquals(0, parser.getDepth());
+    }
+}
@@ -0,0 +1,220 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FutureCallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JSONWriterTest
+{
+    private ArrayByteBufferPool.Tracking bufferPool;
+
+    @BeforeEach
+    public void prepare()
+    {
+        bufferPool = new ArrayByteBufferPool.Tracking();
+    }
+
+    @AfterEach
+    public void dispose()
+    {
+        assertThat("Leaks: " + bufferPool.dumpLeaks(), bufferPool.getLeaks().size(), is(0));
+    }
+
+    private static class Sink implements Content.Sink
+    {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final List<Boolean> lasts = new ArrayList<>();
+
+        @Override
+        public void write(boolean last, ByteBuffer byteBuffer, Callback callback)
+        {
+            try
+            {
+                lasts.add(last);
+                BufferUtil.writeTo(byteBuffer, bytes);
+                callback.succeeded();
+            }
+            catch (IOException x)
+            {
+                callback.failed(x);
+            }
+        }
+
+        private String json()
+        {
+            return bytes.toString(UTF_8);
+        }
+    }
+
+    private String write(JSONWriter writer) throws Exception
+    {
+        Sink sink = new Sink();
+        FutureCallback callback = new FutureCallback();
+        writer.write(sink, true, callback);
+        callback.get();
+        assertTrue(sink.lasts.get(sink.lasts.size() - 1));
+        return sink.json();
+    }
+
+    @Test
+    public void testWriteStructure() throws Exception
+    {
+        JSONWriter writer = new JSONWriter(bufferPool);
+        writer.beginObject()
+            .name("id").value(42)
+            .name("name").value("Jetty")
+            .name("ratio").value(0.25)
+            .name("tags").beginArray().value("a").value(-1L).nullValue().beginObject().endObject().endArray()
+            .name("empty").beginArray().endArray()
+            .name("active").value(true)
+            .endObject();
+        assertEquals(0, writer.getDepth());
+
+        assertEquals("{\"id\":42,\"name\":\"Jetty\",\"ratio\":0.25,\"tags\":[\"a\",-1,null,{}],\"empty\":[],\"active\":true}", write(writer));
+    }
+
+    @Test
+    public void testWriteObjectSameAsJSON() throws Exception
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("string", "café \"\\/\b\f\n\r\t\u0001\u007f € 😀"); // control characters
+        map.put("long", Long.MIN_VALUE);
+        map.put("int", Integer.MAX_VALUE);
+        map.put("double", 1.0E7);
+        map.put("negativeZero", -0.0D);
+        map.put("float", 1.5F);
+        map.put("big", new BigDecimal("1234567890.0987654321"));
+        map.put("list", List.of(1, 2.0, "three"));
+        map.put("array", new int[]{4, 5});
+        map.put("strings", new String[]{"six"});
+        map.put("nested", Map.of("key", false));
+        map.put("null", null);
+
+        JSONWriter writer = new JSONWriter(bufferPool);
+        writer.value((Object)map);
+
+        assertEquals(new JSON().toJSON(map), write(writer));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {20, 21, 64, 4096})
+    public void testWriteAcrossBuffers(int bufferSize) throws Exception
+    {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 200; ++i)
+        {
+            list.add("élément-" + i + "-😀\n");
+            list.add(i * 1_000_000_007L);
+        }
+
+        JSONWriter writer = new JSONWriter(bufferPool, bufferSize, true);
+        writer.value((Object)list);
+
+        String json = write(writer);
+        assertEquals(new JSON().toJSON(list), json);
+        assertEquals(list, LazyJSON.parse(json.getBytes(UTF_8)));
+    }
+
+    @Test
+    public void testNumberLongerThanBuffer() throws Exception
+    {
+        BigDecimal big = new BigDecimal("-1234567890123456789012345678901234567890.0987654321");
+        double small = -1.2345678901234567E-300;
+        List<Object> list = List.of(big, small, Long.MIN_VALUE);
+
+        // The non pooling pool allocates buffers of exactly the requested size.
+        JSONWriter writer = new JSONWriter(ByteBufferPool.NON_POOLING, 20, false);
+        writer.value((Object)list);
+
+        assertEquals("[" + big + "," + small + "," + Long.MIN_VALUE + "]", write(writer));
+    }
+
+    @Test
+    public void testInvalidBufferSize()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new JSONWriter(bufferPool, 19, false));
+    }
+
+    @Test
+    public void testStreamingWrites() throws Exception
+    {
+        Sink sink = new Sink();
+        JSONWriter writer = new JSONWriter(bufferPool, 20, false);
+        writer.beginArray();
+        for (int i = 0; i < 10; ++i)
+        {
+            writer.value("item" + i);
+            FutureCallback callback = new FutureCallback();
+            writer.write(sink, false, callback);
+            callback.get();
+        }
+        writer.endArray();
+        FutureCallback callback = new FutureCallback();
+        writer.write(sink, true, callback);
+        callback.get();
+
+        assertEquals("[\"item0\",\"item1\",\"item2\",\"item3\",\"item4\",\"item5\",\"item6\",\"item7\",\"item8\",\"item9\"]", sink.json());
+        assertTrue(sink.lasts.get(sink.lasts.size() - 1));
+        assertEquals(1, sink.lasts.stream().filter(last -> last).count());
+
+        // Writing nothing still completes the sink.
+        Sink empty = new Sink();
+        callback = new FutureCallback();
+        writer.write(empty, true, callback);
+        callback.get();
+        assertEquals(List.of(true), empty.lasts);
+    }
+
+    @Test
+    public void testInvalidStructure()
+    {
+        JSONWriter writer = new JSONWriter(bufferPool);
+        assertThrows(IllegalStateException.class, () -> writer.name("a"));
+        assertThrows(IllegalStateException.class, writer::endObject);
+        writer.beginObject();
+        assertThrows(IllegalStateException.class, () -> writer.value(1));
+        assertThrows(IllegalStateException.class, writer::endArray);
+        writer.name("a");
+        assertThrows(IllegalStateException.class, () -> writer.name("b"));
+        assertThrows(IllegalStateException.class, writer::endObject);
+        assertThrows(IllegalArgumentException.class, () -> writer.value(Double.NaN));
+        writer.release();
+    }
+}
@@ -0,0 +1,108 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyJSONTest
+{
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "{}",
+        "[]",
+        "\"top\"",
+        "-12.5",
+        "7",
+        "true",
+        "null",
+        "[1, -2, 3.5, 4e2, \"five\", false, null, [], {}]",
+        "[1, [2, [3]]]",
+        "{\"a\":{\"b\":{\"c\":[1]}}, \"d\":\"\\u00e9\\n\", \"è\":\"€\"}"
+    })
+    public void testParseSameAsAsyncJSON(String json)
+    {
+        AsyncJSON parser = new AsyncJSON.Factory().newAsyncJSON();
+        parser.parse(json.getBytes(UTF_8));
+        Object expected = parser.complete();
+
+        assertEquals(expected, LazyJSON.parse(json.getBytes(UTF_8)));
+
+        // Direct buffers are supported.
+        ByteBuffer direct = ByteBuffer.allocateDirect(json.length() * 4);
+        direct.put(json.getBytes(UTF_8)).flip();
+        assertEquals(expected, LazyJSON.parse(direct));
+        // The buffer is not consumed.
+        assertTrue(direct.hasRemaining());
+    }
+
+    @Test
+    public void testLazyObject()
+    {
+        String json = """
+            {
+              "id": 42,
+              "name": "old",
+              "caf\\u00e9": "escaped name",
+              "über": "non-ASCII name",
+              "list": [1, "two"],
+              "name": "new"
+            }
+            """;
+        Map<String, Object> object = LazyJSON.parse(json.getBytes(UTF_8));
+
+        assertEquals(42L, object.get("id"));
+        // The last field wins.
+        assertEquals("new", object.get("name"));
+        assertEquals("escaped name", object.get("café"));
+        assertEquals("non-ASCII name", object.get("über"));
+        assertTrue(object.containsKey("list"));
+        assertFalse(object.containsKey("missing"));
+        assertNull(object.get("missing"));
+        assertNull(object.get(42));
+
+        List<Object> list = (List<Object>)object.get("list");
+        assertEquals(2, list.size());
+        assertEquals("two", list.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+
+        // The DOM is immutable.
+        assertThrows(UnsupportedOperationException.class, () -> object.put("id", 1));
+        assertThrows(UnsupportedOperationException.class, () -> list.add(3));
+
+        // Iteration decodes the whole object.
+        assertEquals(5, object.size());
+        assertEquals(List.of("id", "name", "café", "über", "list"), List.copyOf(object.keySet()));
+        assertEquals("new", object.get("name"));
+    }
+
+    @Test
+    public void testParseInvalidJSON()
+    {
+        assertThrows(IllegalArgumentException.class, () -> LazyJSON.parse("{\"a\":".getBytes(UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> LazyJSON.parse("[1,]".getBytes(UTF_8)));
+    }
+}
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -31,12 +32,17 @@ import java.util.stream.Stream;
  * or case-insensitive (by specifying the option at the constructor) and
  * of a case-sensitive set of value strings.</p>
  * <p>The implementation of this class is not thread safe.</p>
+ * <p>A {@code Fields} instance may be created with its fields not yet decoded,
+ * for example by {@link UrlEncoded#decodeUtf8ToLazyFields(String)}, in which case
+ * {@link #get(String)} and the other lookups by name decode only the fields with
+ * the given name, while all the other methods decode all the fields first.</p>
  */
 public class Fields implements Iterable<Fields.Field>
 {
     public static final Fields EMPTY = new Fields(Collections.emptyMap());
 
     private final Map<String, Field> fields;
+    private volatile Source source;
 
     /**
      * <p>Creates an empty, modifiable, case insensitive {@code Fields} instance.</p>
@@ -66,20 +72,33 @@ public class Fields implements Iterable<Fields.Field>
         this.fields = fields;
     }
 
+    /**
+     * <p>Creates a case-sensitive {@code Fields} instance whose fields
+     * are decoded from the given source only when accessed.</p>
+     *
+     * @param source the source of the fields
+     */
+    Fields(Source source)
+    {
+        this(true);
+        this.source = source;
+    }
+
     public Fields(Fields fields)
     {
-        if (fields.fields instanceof TreeMap<String, Field>)
+        Map<String, Field> map = fields.fields();
+        if (map instanceof TreeMap<String, Field>)
         {
             this.fields = new TreeMap<>(String::compareToIgnoreCase);
-            this.fields.putAll(fields.fields);
+            this.fields.putAll(map);
         }
-        else if (fields.fields instanceof LinkedHashMap<String, Field>)
+        else if (map instanceof LinkedHashMap<String, Field>)
         {
-            this.fields = new LinkedHashMap<>(fields.fields);
+            this.fields = new LinkedHashMap<>(map);
         }
-        else if (Collections.unmodifiableMap(fields.fields) == fields.fields)
+        else if (Collections.unmodifiableMap(map) == map)
         {
-            this.fields = fields.fields;
+            this.fields = map;
         }
         else
         {
@@ -89,6 +108,7 @@ public class Fields implements Iterable<Fields.Field>
 
     public Fields asImmutable()
     {
+        Map<String, Field> fields = fields();
         Map<String, Field> unmodifiable = Collections.unmodifiableMap(fields);
         return unmodifiable == fields ? this : new Fields(unmodifiable);
     }
@@ -104,7 +124,7 @@ public class Fields implements Iterable<Fields.Field>
         {
             if (getSize() != that.getSize())
                 return false;
-            if (!fields.getClass().equals(that.fields.getClass()))
+            if (!fields().getClass().equals(that.fields().getClass()))
                 return false;
             for (Map.Entry<String, Field> entry : fields.entrySet())
             {
@@ -121,7 +141,7 @@ public class Fields implements Iterable<Fields.Field>
     @Override
     public int hashCode()
     {
-        return fields.hashCode();
+        return fields().hashCode();
     }
 
     /**
@@ -129,12 +149,12 @@ public class Fields implements Iterable<Fields.Field>
      */
     public Set<String> getNames()
     {
-        return fields.keySet();
+        return fields().keySet();
     }
 
     public Stream<Field> stream()
     {
-        return fields.values().stream();
+        return fields().values().stream();
     }
 
     /**
@@ -143,6 +163,9 @@ public class Fields implements Iterable<Fields.Field>
      */
     public Field get(String name)
     {
+        Source source = this.source;
+        if (source != null)
+            return source.get(name);
         return fields.get(name);
     }
 
@@ -192,7 +215,7 @@ public class Fields implements Iterable<Fields.Field>
     {
         // Preserve the case for the field name
         Field field = new Field(name, StringUtil.nonNull(value));
-        fields.put(name, field);
+        fields().put(name, field);
     }
 
     /**
@@ -205,7 +228,7 @@ public class Fields implements Iterable<Fields.Field>
         if (field != null)
         {
             String s = field.getName();
-            fields.put(s, field);
+            fields().put(s, field);
         }
     }
 
@@ -218,7 +241,7 @@ public class Fields implements Iterable<Fields.Field>
      */
     public void add(String name, String value)
     {
-        fields.compute(name, (k, f) ->
+        fields().compute(name, (k, f) ->
         {
             if (f == null)
                 // Preserve the case for the field name
@@ -243,7 +266,7 @@ public class Fields implements Iterable<Fields.Field>
             add(name, values[0]);
         else
         {
-            fields.compute(name, (k, f) ->
+            fields().compute(name, (k, f) ->
             {
                 if (f == null)
                     return new Field(name, StringUtil.toListNonNull(values));
@@ -262,7 +285,7 @@ public class Fields implements Iterable<Fields.Field>
     public void add(Field field)
     {
         String key = field.getName();
-        fields.compute(key, (k, f) ->
+        fields().compute(key, (k, f) ->
         {
             if (f == null)
                 return field;
@@ -285,7 +308,7 @@ public class Fields implements Iterable<Fields.Field>
      */
     public Field remove(String name)
     {
-        return fields.remove(name);
+        return fields().remove(name);
     }
 
     /**
@@ -295,6 +318,7 @@ public class Fields implements Iterable<Fields.Field>
      */
     public void clear()
     {
+        source = null;
         fields.clear();
     }
 
@@ -303,6 +327,9 @@ public class Fields implements Iterable<Fields.Field>
      */
     public boolean isEmpty()
     {
+        Source source = this.source;
+        if (source != null)
+            return source.isEmpty();
         return fields.isEmpty();
     }
 
@@ -312,7 +339,7 @@ public class Fields implements Iterable<Fields.Field>
      */
     public int getSize()
     {
-        return fields.size();
+        return fields().size();
     }
 
     /**
@@ -321,7 +348,7 @@ public class Fields implements Iterable<Fields.Field>
     @Override
     public Iterator<Field> iterator()
     {
-        return fields.values().iterator();
+        return fields().values().iterator();
     }
 
     /**
@@ -337,7 +364,7 @@ public class Fields implements Iterable<Fields.Field>
                 return TypeUtil.toString(this);
             }
         };
-        fields.forEach((k, f) -> result.put(f.getName(), f.getValues().toArray(new String[0])));
+        fields().forEach((k, f) -> result.put(f.getName(), f.getValues().toArray(new String[0])));
         return result;
     }
 
@@ -347,18 +374,62 @@ public class Fields implements Iterable<Fields.Field>
     public MultiMap<String> toMultiMap()
     {
         MultiMap<String> multiMap = new MultiMap<>();
-        fields.forEach((k, f) -> multiMap.addValues(k, f.getValues()));
+        fields().forEach((k, f) -> multiMap.addValues(k, f.getValues()));
         return multiMap;
     }
 
     @Override
     public String toString()
     {
-        return fields.values().stream()
+        return fields().values().stream()
             .map(Field::toString)
             .collect(Collectors.joining(",", "[", "]"));
     }
 
+    private Map<String, Field> fields()
+    {
+        if (source != null)
+            decode();
+        return fields;
+    }
+
+    private synchronized void decode()
+    {
+        // Decode all the fields before publishing them by clearing the source,
+        // so that concurrent readers see either the source or all the fields.
+        Source source = this.source;
+        if (source == null)
+            return;
+        source.forEach(field -> fields.put(field.getName(), field));
+        this.source = null;
+    }
+
+    /**
+     * <p>A source of fields that are decoded only when they are accessed.</p>
+     * <p>Implementations must be safe to use concurrently for lookups.</p>
+     */
+    interface Source
+    {
+        /**
+         * @return whether there are no fields
+         */
+        boolean isEmpty();
+
+        /**
+         * @param name the field name
+         * @return the {@link Field} with the given name and all its values, or null if no such field exists
+         */
+        Field get(String name);
+
+        /**
+         * <p>Decodes all the fields, in order of their first occurrence,
+         * with all their values.</p>
+         *
+         * @param consumer the consumer of the fields
+         */
+        void forEach(Consumer<Field> consumer);
+    }
+
     /**
      * <p>A named list of string values.</p>
      * <p>The name is case-sensitive and there must be at least one value.</p>
@@ -528,7 +599,7 @@ public class Fields implements Iterable<Fields.Field>
         if (a == null || a.isEmpty())
             return b;
 
-        Fields fields = new Fields(a.fields instanceof LinkedHashMap<String, Field>);
+        Fields fields = new Fields(a.fields() instanceof LinkedHashMap<String, Field>);
         fields.addAll(a);
         fields.addAll(b);
         return fields;
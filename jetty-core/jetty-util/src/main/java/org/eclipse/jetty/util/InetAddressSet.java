@@ -13,12 +13,20 @@
 
 package org.eclipse.jetty.util;
 
+import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 
 /**
@@ -28,29 +36,142 @@ import java.util.function.Predicate;
  * The patterns that may be set are defined in {@link InetAddressPattern}.
  * </p>
  * <p>This class is designed to work with {@link IncludeExcludeSet}</p>
+ * <p>When the set holds at least {@link #getTrieThreshold()} patterns, the singleton,
+ * CIDR and range patterns are compiled into a radix trie of address prefixes, so that
+ * the cost of {@link #test(InetAddress)} depends on the length of the address rather
+ * than on the number of patterns.
+ * The patterns may be atomically replaced with {@link #load(Path)} or
+ * {@link #setPatterns(Collection)} without blocking concurrent calls to
+ * {@link #test(InetAddress)}, which see either the old or the new patterns.</p>
  *
  * @see IncludeExcludeSet
  */
 public class InetAddressSet extends AbstractSet<String> implements Set<String>, Predicate<InetAddress>
 {
-    private Map<String, InetAddressPattern> _patterns = new HashMap<>();
+    private final AtomicReference<Lookup> _lookup = new AtomicReference<>();
+    private volatile Map<String, InetAddressPattern> _patterns = new HashMap<>();
+    private int _trieThreshold = 16;
+
+    /**
+     * @return the number of patterns from which a radix trie is used to match addresses
+     */
+    public int getTrieThreshold()
+    {
+        return _trieThreshold;
+    }
+
+    /**
+     * @param trieThreshold the number of patterns from which a radix trie is used to match addresses
+     */
+    public void setTrieThreshold(int trieThreshold)
+    {
+        _trieThreshold = trieThreshold;
+        _lookup.set(null);
+    }
 
     @Override
     public boolean add(String pattern)
     {
-        return _patterns.put(pattern, InetAddressPattern.from(pattern)) == null;
+        boolean added = _patterns.put(pattern, InetAddressPattern.from(pattern)) == null;
+        _lookup.set(null);
+        return added;
+    }
+
+    /**
+     * Adds an already parsed pattern, keyed by its string representation.
+     *
+     * @param pattern the pattern to add
+     * @return true if the set did not already contain the pattern
+     */
+    public boolean add(InetAddressPattern pattern)
+    {
+        boolean added = _patterns.put(pattern.toString(), pattern) == null;
+        _lookup.set(null);
+        return added;
     }
 
     @Override
     public boolean remove(Object pattern)
     {
-        return _patterns.remove(pattern) != null;
+        boolean removed = _patterns.remove(pattern) != null;
+        _lookup.set(null);
+        return removed;
+    }
+
+    @Override
+    public void clear()
+    {
+        _patterns.clear();
+        _lookup.set(null);
+    }
+
+    /**
+     * <p>Atomically replaces all the patterns of this set.</p>
+     * <p>All the patterns are parsed before any is replaced, so that if
+     * any pattern is invalid this set is left unchanged.</p>
+     *
+     * @param patterns the new patterns
+     * @throws IllegalArgumentException if a pattern is invalid
+     */
+    public void setPatterns(Collection<String> patterns)
+    {
+        Map<String, InetAddressPattern> map = new HashMap<>();
+        for (String pattern : patterns)
+        {
+            map.put(pattern, InetAddressPattern.from(pattern));
+        }
+        Lookup lookup = new Lookup(map.values(), _trieThreshold);
+        _patterns = map;
+        _lookup.set(lookup);
+    }
+
+    /**
+     * <p>Atomically replaces all the patterns of this set with those read from a file.</p>
+     * <p>The file contains one pattern per line; blank lines and lines
+     * starting with {@code #} are ignored.</p>
+     *
+     * @param path the file of patterns
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a pattern is invalid
+     * @see #setPatterns(Collection)
+     */
+    public void load(Path path) throws IOException
+    {
+        List<String> patterns = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8))
+        {
+            String pattern = line.trim();
+            if (!pattern.isEmpty() && !pattern.startsWith("#"))
+                patterns.add(pattern);
+        }
+        setPatterns(patterns);
     }
 
     @Override
     public Iterator<String> iterator()
     {
-        return _patterns.keySet().iterator();
+        Iterator<String> iterator = _patterns.keySet().iterator();
+        return new Iterator<>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public String next()
+            {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                iterator.remove();
+                _lookup.set(null);
+            }
+        };
     }
 
     @Override
@@ -64,11 +185,81 @@ public class InetAddressSet extends AbstractSet<String> implements Set<String>,
     {
         if (address == null)
             return false;
-        for (InetAddressPattern pattern : _patterns.values())
+        Lookup lookup = _lookup.get();
+        if (lookup == null)
+        {
+            lookup = new Lookup(_patterns.values(), _trieThreshold);
+            // Do not overwrite a lookup that has been concurrently loaded.
+            if (!_lookup.compareAndSet(null, lookup))
+                lookup = _lookup.get();
+        }
+        return lookup.test(address);
+    }
+
+    /**
+     * An immutable snapshot of the patterns, optimized for matching.
+     */
+    private static class Lookup implements Predicate<InetAddress>
+    {
+        private final InetAddressPattern[] _patterns;
+        private final InetAddressTrie _trie;
+
+        private Lookup(Collection<InetAddressPattern> patterns, int trieThreshold)
+        {
+            if (patterns.size() < trieThreshold)
+            {
+                _patterns = patterns.toArray(new InetAddressPattern[0]);
+                _trie = null;
+                return;
+            }
+
+            InetAddressTrie trie = new InetAddressTrie();
+            List<InetAddressPattern> others = new ArrayList<>();
+            for (InetAddressPattern pattern : patterns)
+            {
+                if (pattern instanceof InetAddressPattern.SingletonInetAddressRange singleton)
+                {
+                    byte[] raw = singleton._address.getAddress();
+                    trie.add(raw, raw.length * 8);
+                }
+                else if (pattern instanceof InetAddressPattern.CidrInetAddressRange cidr)
+                {
+                    trie.add(cidr._raw, cidr._octets * 8 + Integer.bitCount(cidr._mask));
+                }
+                else if (pattern instanceof InetAddressPattern.MinMaxInetAddressRange range)
+                {
+                    trie.addRange(toBytes(range._min), toBytes(range._max));
+                }
+                else
+                {
+                    others.add(pattern);
+                }
+            }
+            _patterns = others.toArray(new InetAddressPattern[0]);
+            _trie = trie;
+        }
+
+        private static byte[] toBytes(int[] octets)
         {
-            if (pattern.test(address))
+            byte[] bytes = new byte[octets.length];
+            for (int i = 0; i < octets.length; i++)
+            {
+                bytes[i] = (byte)octets[i];
+            }
+            return bytes;
+        }
+
+        @Override
+        public boolean test(InetAddress address)
+        {
+            if (_trie != null && _trie.test(address))
                 return true;
+            for (InetAddressPattern pattern : _patterns)
+            {
+                if (pattern.test(address))
+                    return true;
+            }
+            return false;
         }
-        return false;
     }
 }
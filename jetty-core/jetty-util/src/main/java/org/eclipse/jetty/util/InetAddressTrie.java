@@ -0,0 +1,206 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+
+/**
+ * <p>A compressed binary radix (Patricia) trie of IPv4 and IPv6 address prefixes.</p>
+ * <p>Each node of the trie holds a prefix of an address and the number of significant
+ * bits of that prefix, so that the cost of a lookup is bounded by the number of bits
+ * of the address rather than by the number of prefixes in the trie.
+ * Prefixes that are covered by a shorter prefix are not stored.</p>
+ * <p>Inclusive address ranges are decomposed into the minimal set of CIDR prefixes
+ * that cover them.</p>
+ * <p>This class is not thread-safe for modifications, but may be safely
+ * read by multiple threads once built and safely published.</p>
+ */
+class InetAddressTrie
+{
+    private final Node _ipv4 = new Node(new byte[4], 0);
+    private final Node _ipv6 = new Node(new byte[16], 0);
+
+    /**
+     * @param address the address of the prefix, with all the bits after the prefix cleared
+     * @param bits the number of significant bits of the prefix
+     */
+    void add(byte[] address, int bits)
+    {
+        Node root = root(address);
+        if (root == null || bits < 0 || bits > address.length * 8)
+            throw new IllegalArgumentException("Bad prefix /" + bits);
+        insert(root, address.clone(), bits);
+    }
+
+    /**
+     * @param min the first address of the range
+     * @param max the last address of the range, of the same family as {@code min}
+     */
+    void addRange(byte[] min, byte[] max)
+    {
+        if (min.length != max.length)
+            throw new IllegalArgumentException("Cannot mix IPv4 and IPv6");
+        int width = min.length * 8;
+        BigInteger from = new BigInteger(1, min);
+        BigInteger to = new BigInteger(1, max);
+        while (from.compareTo(to) <= 0)
+        {
+            // The largest aligned block starting at from that does not go past to.
+            int hostBits = from.signum() == 0 ? width : Math.min(width, from.getLowestSetBit());
+            while (hostBits > 0 && from.add(BigInteger.ONE.shiftLeft(hostBits)).subtract(BigInteger.ONE).compareTo(to) > 0)
+            {
+                hostBits--;
+            }
+            add(toBytes(from, min.length), width - hostBits);
+            from = from.add(BigInteger.ONE.shiftLeft(hostBits));
+        }
+    }
+
+    boolean test(InetAddress address)
+    {
+        return address != null && test(address.getAddress());
+    }
+
+    boolean test(byte[] address)
+    {
+        Node node = root(address);
+        while (node != null)
+        {
+            if (node._terminal)
+                return true;
+            Node child = node._children[bit(address, node._bits)];
+            if (child == null || !matches(address, child._address, node._bits + 1, child._bits))
+                return false;
+            node = child;
+        }
+        return false;
+    }
+
+    private Node root(byte[] address)
+    {
+        return switch (address.length)
+        {
+            case 4 -> _ipv4;
+            case 16 -> _ipv6;
+            default -> null;
+        };
+    }
+
+    private static void insert(Node node, byte[] address, int bits)
+    {
+        while (true)
+        {
+            // A shorter prefix already covers this one.
+            if (node._terminal)
+                return;
+
+            if (bits == node._bits)
+            {
+                // This prefix covers any longer prefix below this node.
+                node._terminal = true;
+                node._children[0] = null;
+                node._children[1] = null;
+                return;
+            }
+
+            int b = bit(address, node._bits);
+            Node child = node._children[b];
+            if (child == null)
+            {
+                node._children[b] = new Node(address, bits, true);
+                return;
+            }
+
+            int common = commonBits(address, child._address, node._bits + 1, Math.min(bits, child._bits));
+            if (common == child._bits)
+            {
+                node = child;
+                continue;
+            }
+
+            Node split = new Node(address, common);
+            split._children[bit(child._address, common)] = child;
+            node._children[b] = split;
+            if (common == bits)
+            {
+                split._terminal = true;
+                split._children[0] = null;
+                split._children[1] = null;
+            }
+            else
+            {
+                split._children[bit(address, common)] = new Node(address, bits, true);
+            }
+            return;
+        }
+    }
+
+    private static int bit(byte[] address, int index)
+    {
+        return (address[index >> 3] >> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * @return the index of the first bit in {@code [from, to)} that differs, or {@code to}
+     */
+    private static int commonBits(byte[] a, byte[] b, int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            if ((i & 7) == 0 && i + 8 <= to && a[i >> 3] == b[i >> 3])
+            {
+                i += 7;
+                continue;
+            }
+            if (bit(a, i) != bit(b, i))
+                return i;
+        }
+        return to;
+    }
+
+    private static boolean matches(byte[] a, byte[] b, int from, int to)
+    {
+        return commonBits(a, b, from, to) == to;
+    }
+
+    private static byte[] toBytes(BigInteger value, int length)
+    {
+        byte[] bytes = value.toByteArray();
+        byte[] address = new byte[length];
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, address, length - copy, copy);
+        return address;
+    }
+
+    private static class Node
+    {
+        private final byte[] _address;
+        private final int _bits;
+        private final Node[] _children = new Node[2];
+        private boolean _terminal;
+
+        private Node(byte[] address, int bits)
+        {
+            this(address, bits, false);
+        }
+
+        private Node(byte[] address, int bits, boolean terminal)
+        {
+            _address = address;
+            _bits = bits;
+            _terminal = terminal;
+        }
+    }
+}
@@ -16,6 +16,8 @@ package org.eclipse.jetty.util;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
@@ -23,6 +25,10 @@ import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -34,11 +40,14 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
@@ -51,6 +60,12 @@ import org.slf4j.LoggerFactory;
  * files and reporting these events via registered Listeners.
  * The scanner operates on the {@link Path#toRealPath(LinkOption...)} of the files scanned and
  * can be configured to follow symlinks.
+ * <p>
+ * By default, the scanner polls, walking all the scanned directories every {@link #getScanInterval() scan interval}.
+ * If {@link #setUseWatchService(boolean) a WatchService is used}, the scanner is notified of changes by the file system,
+ * and only rescans the changed paths, so that changes are detected within the {@link #getWatchDelay() watch delay};
+ * the directories are still walked every scan interval, to reconcile any change that the file system did not notify.
+ * In both cases, an added or changed file is only reported once it is unchanged between two scans.
  */
 public class Scanner extends ContainerLifeCycle
 {
@@ -78,6 +93,15 @@ public class Scanner extends ContainerLifeCycle
     private final Scheduler _scheduler;
     private int _scanDepth = DEFAULT_SCAN_DEPTH;
     private final LinkOption[] _linkOptions;
+    private final AutoLock _lock = new AutoLock();
+    private boolean _useWatchService;
+    private long _watchDelay = 250;
+    private WatchService _watchService;
+    private final Map<WatchKey, Path> _watchKeys = new ConcurrentHashMap<>();
+    private final Set<Path> _watchedPaths = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean _watchOverflow = new AtomicBoolean();
+    private final AtomicBoolean _watchScanScheduled = new AtomicBoolean();
+    private Scheduler.Task _watchTask;
 
     private enum Status
     {
@@ -398,6 +422,54 @@ public class Scanner extends ContainerLifeCycle
         _scanInterval = scanInterval;
     }
 
+    /**
+     * @return whether changes are notified by a {@link WatchService}, rather than only found by polling
+     */
+    public boolean isUseWatchService()
+    {
+        return _useWatchService;
+    }
+
+    /**
+     * <p>Set whether changes are notified by a {@link WatchService}, rather than only found by polling.</p>
+     * <p>When a WatchService is used, the {@link #setScanInterval(int) scan interval} is the interval
+     * between reconciliation scans, which may be much longer than the polling interval, or 0 to rely only
+     * on the notifications. If the file system does not support a WatchService, the scanner polls.</p>
+     *
+     * @param useWatchService true to use a WatchService
+     */
+    public void setUseWatchService(boolean useWatchService)
+    {
+        if (isRunning())
+            throw new IllegalStateException("Scanner started");
+        _useWatchService = useWatchService;
+    }
+
+    /**
+     * @return the delay in milliseconds after a change is notified before the changed paths are scanned
+     */
+    public long getWatchDelay()
+    {
+        return _watchDelay;
+    }
+
+    /**
+     * <p>Set the delay after a change is notified before the changed paths are scanned,
+     * during which further changes are coalesced into the same scan.</p>
+     * <p>An added or changed file is rescanned after the same delay, and reported
+     * once it is unchanged.</p>
+     *
+     * @param watchDelay the delay in milliseconds
+     */
+    public void setWatchDelay(long watchDelay)
+    {
+        if (isRunning())
+            throw new IllegalStateException("Scanner started");
+        if (watchDelay < 0)
+            throw new IllegalArgumentException("Invalid watch delay " + watchDelay);
+        _watchDelay = watchDelay;
+    }
+
     public void setScanDirs(List<Path> dirs)
     {
         if (isRunning())
@@ -657,6 +729,10 @@ public class Scanner extends ContainerLifeCycle
         if (LOG.isDebugEnabled())
             LOG.debug("{}.startup()", this.getClass().getSimpleName());
 
+        // watch before the initial scan, so that no change is missed
+        if (_useWatchService)
+            startWatching();
+
         if (_reportExisting)
         {
             // if files exist at startup, report them
@@ -666,7 +742,10 @@ public class Scanner extends ContainerLifeCycle
         else
         {
             //just register the list of existing files and only report changes
-            _prevScan = scanFiles();
+            try (AutoLock ignored = _lock.lock())
+            {
+                _prevScan = scanFiles();
+            }
         }
 
         // schedule further scans
@@ -689,6 +768,7 @@ public class Scanner extends ContainerLifeCycle
         _task = null;
         if (task != null)
             task.cancel();
+        stopWatching();
         _scanningStarted = false;
     }
 
@@ -769,12 +849,259 @@ public class Scanner extends ContainerLifeCycle
      */
     void scan()
     {
-        int cycle = _scanCount.incrementAndGet();
-        reportScanStart(cycle);
-        Map<Path, MetaData> currentScan = scanFiles();
-        reportDifferences(currentScan, _prevScan == null ? Collections.emptyMap() : Collections.unmodifiableMap(_prevScan));
-        _prevScan = currentScan;
-        reportScanEnd(cycle);
+        try (AutoLock ignored = _lock.lock())
+        {
+            int cycle = _scanCount.incrementAndGet();
+            reportScanStart(cycle);
+            Map<Path, MetaData> currentScan = scanFiles();
+            reportDifferences(currentScan, _prevScan == null ? Collections.emptyMap() : Collections.unmodifiableMap(_prevScan));
+            _prevScan = currentScan;
+            reportScanEnd(cycle);
+            if (_watchService != null && hasUnstable(currentScan))
+                scheduleWatchScan();
+        }
+    }
+
+    /**
+     * Perform a pass of the scanner over the paths notified by the WatchService,
+     * and the paths not yet stable, and report changes.
+     */
+    private void scanWatched()
+    {
+        try (AutoLock ignored = _lock.lock())
+        {
+            if (_prevScan == null || _watchOverflow.getAndSet(false))
+            {
+                scan();
+                return;
+            }
+
+            Set<Path> paths = new HashSet<>();
+            for (Path path : _watchedPaths)
+            {
+                _watchedPaths.remove(path);
+                paths.add(path);
+            }
+            for (Map.Entry<Path, MetaData> entry : _prevScan.entrySet())
+            {
+                if (entry.getValue()._status == Status.ADDED || entry.getValue()._status == Status.CHANGED)
+                    paths.add(entry.getKey());
+            }
+
+            int cycle = _scanCount.incrementAndGet();
+            reportScanStart(cycle);
+            Map<Path, MetaData> currentScan = new HashMap<>(_prevScan);
+            for (Path path : paths)
+            {
+                scanPath(path, currentScan);
+            }
+            reportDifferences(currentScan, Collections.unmodifiableMap(_prevScan));
+            _prevScan = currentScan;
+            reportScanEnd(cycle);
+            if (hasUnstable(currentScan))
+                scheduleWatchScan();
+        }
+    }
+
+    private static boolean hasUnstable(Map<Path, MetaData> scan)
+    {
+        for (MetaData metaData : scan.values())
+        {
+            if (metaData._status == Status.ADDED || metaData._status == Status.CHANGED)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Rescan a single path, and its descendants within the scan depth,
+     * replacing their previous scan info.
+     */
+    private void scanPath(Path path, Map<Path, MetaData> currentScan)
+    {
+        currentScan.keySet().removeIf(p -> p.startsWith(path));
+
+        Path root = findRoot(path);
+        if (root == null || !Files.exists(path))
+            return;
+
+        int depth = root.relativize(path).getNameCount();
+        if (path.equals(root))
+            depth = 0;
+        if (depth > _scanDepth)
+            return;
+
+        try
+        {
+            Files.walkFileTree(path, EnumSet.allOf(FileVisitOption.class), _scanDepth - depth,
+                new Visitor(root, _scannables.get(root), currentScan));
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Error scanning {}", path, e);
+        }
+    }
+
+    /**
+     * @return the scanned root that contains the path, or null if none
+     */
+    private Path findRoot(Path path)
+    {
+        Path root = null;
+        for (Path p : _scannables.keySet())
+        {
+            if (path.startsWith(p) && (root == null || p.getNameCount() > root.getNameCount()))
+                root = p;
+        }
+        return root;
+    }
+
+    private void startWatching()
+    {
+        try
+        {
+            _watchService = _scannables.keySet().stream()
+                .findFirst()
+                .map(Path::getFileSystem)
+                .orElse(FileSystems.getDefault())
+                .newWatchService();
+            for (Path root : _scannables.keySet())
+            {
+                // a root file is watched via its parent directory
+                if (Files.isDirectory(root))
+                    watch(root, 0);
+                else
+                    register(root.getParent());
+            }
+        }
+        catch (Throwable x)
+        {
+            LOG.info("Unable to watch {}, polling instead", _scannables.keySet(), x);
+            stopWatching();
+            return;
+        }
+
+        Thread thread = new Thread(this::watchEvents, "Scanner-Watch-" + SCANNER_IDS.getAndIncrement());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void stopWatching()
+    {
+        Scheduler.Task task = _watchTask;
+        _watchTask = null;
+        if (task != null)
+            task.cancel();
+        IO.close(_watchService);
+        _watchService = null;
+        _watchKeys.clear();
+        _watchedPaths.clear();
+        _watchOverflow.set(false);
+        _watchScanScheduled.set(false);
+    }
+
+    /**
+     * Watch a directory and its subdirectories whose children are within the scan depth.
+     */
+    private void watch(Path dir, int depth) throws IOException
+    {
+        if (depth >= _scanDepth || !Files.isDirectory(dir))
+            return;
+        register(dir);
+        if (depth + 1 < _scanDepth)
+        {
+            try (Stream<Path> children = Files.list(dir))
+            {
+                for (Path child : children.filter(Files::isDirectory).toList())
+                {
+                    watch(child, depth + 1);
+                }
+            }
+        }
+    }
+
+    private void register(Path dir) throws IOException
+    {
+        WatchKey key = dir.register(_watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        _watchKeys.put(key, dir);
+    }
+
+    private void watchEvents()
+    {
+        WatchService watchService = _watchService;
+        while (watchService != null)
+        {
+            try
+            {
+                WatchKey key = watchService.take();
+                Path dir = _watchKeys.get(key);
+                for (WatchEvent<?> event : key.pollEvents())
+                {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null)
+                    {
+                        _watchOverflow.set(true);
+                        continue;
+                    }
+
+                    Path path = dir.resolve((Path)event.context());
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("watched {} {}", event.kind(), path);
+                    _watchedPaths.add(path);
+
+                    // watch new directories within the scan depth
+                    Path root = findRoot(path);
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && root != null)
+                    {
+                        try
+                        {
+                            watch(path, root.relativize(path).getNameCount());
+                        }
+                        catch (IOException x)
+                        {
+                            if (LOG.isDebugEnabled())
+                                LOG.debug("Unable to watch {}", path, x);
+                            _watchOverflow.set(true);
+                        }
+                    }
+                }
+                if (!key.reset())
+                    _watchKeys.remove(key);
+                scheduleWatchScan();
+            }
+            catch (ClosedWatchServiceException x)
+            {
+                break;
+            }
+            catch (InterruptedException x)
+            {
+                if (!isRunning())
+                    break;
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Error watching {}", _scannables.keySet(), x);
+            }
+        }
+    }
+
+    private void scheduleWatchScan()
+    {
+        if (isRunning() && _watchService != null && _watchScanScheduled.compareAndSet(false, true))
+        {
+            _watchTask = _scheduler.schedule(() ->
+            {
+                _watchScanScheduled.set(false);
+                try
+                {
+                    scanWatched();
+                }
+                catch (Throwable x)
+                {
+                    LOG.warn("Error scanning {}", _scannables.keySet(), x);
+                }
+            }, _watchDelay, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -123,6 +123,14 @@ public class SearchPattern
      */
     public int match(ByteBuffer buffer)
     {
+        if (buffer.hasArray())
+        {
+            // Scanning the backing array avoids the bounds checks of ByteBuffer.get(int).
+            int offset = buffer.arrayOffset() + buffer.position();
+            int index = match(buffer.array(), offset, buffer.remaining());
+            return index < 0 ? -1 : index - offset;
+        }
+
         int remaining = buffer.remaining();
         int cursor = 0;
         while (remaining - cursor >= getLength())
@@ -180,6 +188,9 @@ public class SearchPattern
      */
     public int endsWith(ByteBuffer buffer)
     {
+        if (buffer.hasArray())
+            return endsWith(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+
         int limit = buffer.limit();
         int cursor = getLength() <= buffer.remaining() ? limit - getLength() : buffer.position();
         while (cursor < limit)
@@ -236,6 +247,9 @@ public class SearchPattern
      */
     public int startsWith(ByteBuffer buffer, int matched)
     {
+        if (buffer.hasArray() && buffer.hasRemaining())
+            return startsWith(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), matched);
+
         int position = buffer.position();
         for (int i = matched; i < getLength(); ++i)
         {
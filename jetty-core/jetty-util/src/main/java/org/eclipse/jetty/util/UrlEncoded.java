@@ -334,6 +334,52 @@ public class UrlEncoded
         decodeUtf8To(uri, offset, length, fields::add);
     }
 
+    /**
+     * <p>Decodes URI query parameters into a {@link Fields} instance,
+     * decoding the names and values only when they are accessed.</p>
+     * <p>The query string is scanned once, validating its encoding, so that
+     * looking up a parameter by name only decodes the values of that parameter,
+     * while the other parameters are never decoded.
+     * This is most efficient for query strings with many parameters
+     * of which the application only reads a few.</p>
+     *
+     * @param query the URI query string.
+     * @return the Fields with the query parameters
+     * @throws IllegalArgumentException if the query string is not valid
+     * @see #decodeUtf8To(String, Fields)
+     */
+    public static Fields decodeUtf8ToLazyFields(String query)
+    {
+        return new Fields(UrlEncodedFields.ofQuery(query, 0, query.length()));
+    }
+
+    /**
+     * <p>Decodes {@code application/x-www-form-urlencoded} content into a {@link Fields} instance,
+     * decoding the names and values only when they are accessed.</p>
+     * <p>The content is scanned once, validating its encoding and its length,
+     * but the number of distinct names can only be known by decoding them,
+     * so {@code null} is returned if the number of name/value pairs
+     * exceeds {@code maxFields}, and the content must be decoded eagerly.</p>
+     *
+     * @param bytes the form content
+     * @param offset the offset at which the form content starts
+     * @param length the length of the form content
+     * @param charset the charset of the form content, which must be UTF-8 or ISO-8859-1
+     * @param maxFields the max number of fields, or -1 for no limit
+     * @param maxLength the max length of the decoded names and values, or -1 for no limit
+     * @return the Fields with the form fields, or null if there are more than {@code maxFields} name/value pairs
+     * @throws CharacterCodingException if the content is not valid in the given charset
+     * @throws IllegalStateException if the content is incomplete or too large
+     * @throws IllegalArgumentException if the percent encoding is not valid or the charset is not supported
+     */
+    public static Fields decodeToLazyFields(byte[] bytes, int offset, int length, Charset charset, int maxFields, int maxLength) throws CharacterCodingException
+    {
+        UrlEncodedFields fields = UrlEncodedFields.ofForm(bytes, offset, length, charset, maxLength);
+        if (maxFields >= 0 && fields.size() > maxFields)
+            return null;
+        return new Fields(fields);
+    }
+
     private static void decodeUtf8To(String query, int offset, int length, BiConsumer<String, String> adder)
     {
         Utf8StringBuilder buffer = new Utf8StringBuilder();
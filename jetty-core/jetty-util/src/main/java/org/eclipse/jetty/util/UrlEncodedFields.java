@@ -0,0 +1,417 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.eclipse.jetty.util.UrlEncoded.decodeHexByte;
+
+/**
+ * <p>A {@link Fields.Source} of URL encoded fields.</p>
+ * <p>The URL encoded string or bytes are scanned once, validating the encoding and
+ * recording the offsets of the names and values in a table, while the names and
+ * values are decoded into strings only when they are accessed.
+ * Names that do not need decoding are compared with the raw characters or bytes.</p>
+ * <p>The decoding is the same as {@link UrlEncoded#decodeUtf8To(String, Fields)}
+ * for query strings and as {@code FormFields} for form content.</p>
+ */
+class UrlEncodedFields implements Fields.Source
+{
+    // Each entry is: name start, name end, value start, value end, flags.
+    // The value start is -1 when there is no '=', and the value is the empty string.
+    private static final int ENTRY = 5;
+    private static final int NAME_ENCODED = 1;
+    private static final int VALUE_ENCODED = 2;
+
+    private final String string;
+    private final byte[] bytes;
+    private final boolean utf8;
+    private int[] table;
+    private int size;
+    private String[] names;
+    private Fields.Field[] fields;
+
+    private UrlEncodedFields(String string, byte[] bytes, boolean utf8)
+    {
+        this.string = string;
+        this.bytes = bytes;
+        this.utf8 = utf8;
+    }
+
+    /**
+     * @param query the URI query string
+     * @param offset the offset at which the query parameters start
+     * @param length the length of the query parameters
+     * @return the fields of the query string
+     * @throws IllegalArgumentException if the query string is not valid
+     */
+    static UrlEncodedFields ofQuery(String query, int offset, int length)
+    {
+        UrlEncodedFields fields = new UrlEncodedFields(query, null, true);
+        try
+        {
+            fields.scan(offset, length, false, -1);
+        }
+        catch (CharacterCodingException x)
+        {
+            // Cannot happen, query strings report coding errors with IllegalArgumentException.
+            throw new IllegalArgumentException(x);
+        }
+        return fields;
+    }
+
+    /**
+     * @param bytes the form content
+     * @param offset the offset at which the form content starts
+     * @param length the length of the form content
+     * @param charset the charset of the form content, either UTF-8 or ISO-8859-1
+     * @param maxLength the max length of the decoded names and values, or -1 for no limit
+     * @return the fields of the form content
+     * @throws CharacterCodingException if the form content is not valid UTF-8
+     * @throws IllegalStateException if the form content is not valid or too large
+     * @throws IllegalArgumentException if the percent encoding is not valid
+     */
+    static UrlEncodedFields ofForm(byte[] bytes, int offset, int length, Charset charset, int maxLength) throws CharacterCodingException
+    {
+        boolean utf8 = StandardCharsets.UTF_8.equals(charset);
+        if (!utf8 && !StandardCharsets.ISO_8859_1.equals(charset))
+            throw new IllegalArgumentException("Unsupported charset " + charset);
+        UrlEncodedFields fields = new UrlEncodedFields(null, bytes, utf8);
+        fields.scan(offset, length, true, maxLength);
+        return fields;
+    }
+
+    /**
+     * @return the number of name/value pairs, possibly with the same name
+     */
+    int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @Override
+    public Fields.Field get(String name)
+    {
+        for (int index = 0; index < size; ++index)
+        {
+            if (nameEquals(index, name))
+            {
+                Fields.Field field = fields[index];
+                if (field == null)
+                {
+                    field = decodeField(index, name);
+                    fields[index] = field;
+                }
+                return field;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void forEach(Consumer<Fields.Field> consumer)
+    {
+        Fields fields = new Fields(true);
+        for (int index = 0; index < size; ++index)
+        {
+            fields.add(name(index), value(index));
+        }
+        fields.forEach(consumer);
+    }
+
+    private void scan(int offset, int length, boolean form, int maxLength) throws CharacterCodingException
+    {
+        Utf8StringBuilder validator = null;
+        int end = offset + length;
+        table = new int[ENTRY * (count('&', offset, end) + 1)];
+        int start = offset;
+        int equals = -1;
+        int flags = 0;
+        int partStart = offset;
+        int percents = 0;
+        boolean nonAscii = false;
+        long total = 0;
+
+        for (int i = offset; i < end; ++i)
+        {
+            int c = charAt(i);
+            switch (c)
+            {
+                case '&' ->
+                {
+                    if (equals >= 0 || i > start || form)
+                    {
+                        validator = validate(validator, partStart, i, nonAscii, form);
+                        total = checkMaxLength(total, validator, partStart, i, percents, nonAscii, maxLength);
+                        if (equals >= 0)
+                            add(start, equals, equals + 1, i, flags);
+                        else
+                            add(start, i, -1, -1, flags);
+                    }
+                    start = i + 1;
+                    equals = -1;
+                    flags = 0;
+                    partStart = start;
+                    percents = 0;
+                    nonAscii = false;
+                }
+                case '=' ->
+                {
+                    // Only the first '=' separates the name from the value.
+                    if (equals < 0)
+                    {
+                        validator = validate(validator, partStart, i, nonAscii, form);
+                        total = checkMaxLength(total, validator, partStart, i, percents, nonAscii, maxLength);
+                        equals = i;
+                        partStart = i + 1;
+                        percents = 0;
+                        nonAscii = false;
+                    }
+                }
+                case '+' -> flags |= equals < 0 ? NAME_ENCODED : VALUE_ENCODED;
+                case '%' ->
+                {
+                    if (i + 2 >= end)
+                    {
+                        if (form)
+                            throw new IllegalStateException("invalid percent encoding");
+                        throw new Utf8StringBuilder.Utf8IllegalArgumentException();
+                    }
+                    byte b = decodeHexByte((char)charAt(i + 1), (char)charAt(i + 2));
+                    if (b < 0)
+                        nonAscii = true;
+                    ++percents;
+                    flags |= equals < 0 ? NAME_ENCODED : VALUE_ENCODED;
+                    i += 2;
+                }
+                default ->
+                {
+                    // Non-ASCII characters of strings are not decoded,
+                    // while non-ASCII bytes are decoded only if they are UTF-8.
+                    if (c > 127 && bytes != null && utf8)
+                    {
+                        nonAscii = true;
+                        flags |= equals < 0 ? NAME_ENCODED : VALUE_ENCODED;
+                    }
+                }
+            }
+        }
+
+        if (equals >= 0 || end > start)
+        {
+            validator = validate(validator, partStart, end, nonAscii, form);
+            checkMaxLength(total, validator, partStart, end, percents, nonAscii, maxLength);
+            if (equals >= 0)
+                add(start, equals, equals + 1, end, flags);
+            else
+                add(start, end, -1, -1, flags);
+        }
+
+        names = new String[size];
+        fields = new Fields.Field[size];
+    }
+
+    private Utf8StringBuilder validate(Utf8StringBuilder validator, int from, int to, boolean nonAscii, boolean form) throws CharacterCodingException
+    {
+        // Only the parts with percent encoded or raw non-ASCII UTF-8 bytes may be invalid.
+        if (!nonAscii || !utf8)
+            return validator;
+        if (validator == null)
+            validator = new Utf8StringBuilder(to - from);
+        else
+            validator.reset();
+        decodeTo(validator, from, to);
+        validator.complete();
+        if (validator.hasCodingErrors())
+        {
+            if (form)
+                throw new Utf8StringBuilder.Utf8CharacterCodingException();
+            throw new Utf8StringBuilder.Utf8IllegalArgumentException();
+        }
+        return validator;
+    }
+
+    private long checkMaxLength(long total, Utf8StringBuilder validator, int from, int to, int percents, boolean nonAscii, int maxLength)
+    {
+        if (maxLength < 0)
+            return total;
+        // The validator contains the decoded part only if it had to be validated.
+        int length = nonAscii && utf8 ? validator.length() : to - from - 2 * percents;
+        total += length;
+        if (total > maxLength)
+            throw new IllegalStateException("form too large > " + maxLength);
+        return total;
+    }
+
+    private void add(int nameStart, int nameEnd, int valueStart, int valueEnd, int flags)
+    {
+        // The table has been sized for the number of '&' separators.
+        int index = size * ENTRY;
+        table[index] = nameStart;
+        table[index + 1] = nameEnd;
+        table[index + 2] = valueStart;
+        table[index + 3] = valueEnd;
+        table[index + 4] = flags;
+        ++size;
+    }
+
+    private int count(char c, int from, int to)
+    {
+        int count = 0;
+        if (string != null)
+        {
+            for (int i = string.indexOf(c, from); i >= 0 && i < to; i = string.indexOf(c, i + 1))
+            {
+                ++count;
+            }
+        }
+        else
+        {
+            for (int i = from; i < to; ++i)
+            {
+                if (bytes[i] == c)
+                    ++count;
+            }
+        }
+        return count;
+    }
+
+    private int charAt(int index)
+    {
+        return string != null ? string.charAt(index) : bytes[index] & 0xFF;
+    }
+
+    private boolean nameEquals(int index, String name)
+    {
+        int entry = index * ENTRY;
+        if ((table[entry + 4] & NAME_ENCODED) != 0)
+            return name(index).equals(name);
+        int from = table[entry];
+        int length = table[entry + 1] - from;
+        if (name.length() != length)
+            return false;
+        if (string != null)
+            return string.regionMatches(from, name, 0, length);
+        for (int i = 0; i < length; ++i)
+        {
+            if ((bytes[from + i] & 0xFF) != name.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private String name(int index)
+    {
+        String name = names[index];
+        if (name == null)
+        {
+            int entry = index * ENTRY;
+            name = decode(table[entry], table[entry + 1], (table[entry + 4] & NAME_ENCODED) != 0);
+            names[index] = name;
+        }
+        return name;
+    }
+
+    private String value(int index)
+    {
+        int entry = index * ENTRY;
+        int from = table[entry + 2];
+        if (from < 0)
+            return "";
+        return decode(from, table[entry + 3], (table[entry + 4] & VALUE_ENCODED) != 0);
+    }
+
+    private Fields.Field decodeField(int index, String name)
+    {
+        String value = value(index);
+        List<String> values = null;
+        for (int other = index + 1; other < size; ++other)
+        {
+            if (nameEquals(other, name))
+            {
+                if (values == null)
+                {
+                    values = new ArrayList<>();
+                    values.add(value);
+                }
+                values.add(value(other));
+            }
+        }
+        return values == null ? new Fields.Field(name, value) : new Fields.Field(name, values);
+    }
+
+    private String decode(int from, int to, boolean encoded)
+    {
+        if (!encoded)
+        {
+            if (string != null)
+                return string.substring(from, to);
+            // Bytes that are not encoded are either ASCII, or ISO-8859-1.
+            return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+        }
+
+        CharsetStringBuilder builder = utf8 ? new Utf8StringBuilder(to - from) : new CharsetStringBuilder.Iso88591StringBuilder();
+        decodeTo(builder, from, to);
+        try
+        {
+            return builder.build();
+        }
+        catch (CharacterCodingException x)
+        {
+            // Cannot happen, the encoding has been validated when scanned.
+            throw new IllegalArgumentException(x);
+        }
+    }
+
+    private void decodeTo(CharsetStringBuilder builder, int from, int to)
+    {
+        for (int i = from; i < to; ++i)
+        {
+            int c = charAt(i);
+            switch (c)
+            {
+                case '+' ->
+                {
+                    if (string != null)
+                        builder.append((byte)' ');
+                    else
+                        builder.append(' ');
+                }
+                case '%' ->
+                {
+                    builder.append(decodeHexByte((char)charAt(i + 1), (char)charAt(i + 2)));
+                    i += 2;
+                }
+                default ->
+                {
+                    if (string != null)
+                        builder.append((char)c);
+                    else
+                        builder.append((byte)c);
+                }
+            }
+        }
+    }
+}
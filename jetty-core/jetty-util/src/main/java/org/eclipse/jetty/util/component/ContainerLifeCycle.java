@@ -24,6 +24,10 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jetty.util.ExceptionUtil;
 import org.eclipse.jetty.util.annotation.ManagedObject;
@@ -66,6 +70,11 @@ import org.slf4j.LoggerFactory;
  * added via an {@link #addBean(Object)} method that are also {@link EventListener}s are added as listeners via a
  * call to {@link #addEventListener(EventListener)}.
  * <p>
+ * If a {@link #setStartExecutor(Executor) start executor} is set, the managed beans are started concurrently
+ * on that executor, rather than in the order they were added, except that the start executor itself, if it is
+ * a bean, is started first, and that a bean is started only after the beans that it depends on, as declared with
+ * {@link #addBeanDependency(Object, Object)}. The beans are always stopped in the reverse order they were added.
+ * <p>
  * This class also provides utility methods to dump deep structures of objects.
  * In the dump, the following symbols are used to indicate the type of contained object:
  * <pre>
@@ -84,9 +93,11 @@ public class ContainerLifeCycle extends AbstractLifeCycle implements Container,
     private final List<Container.Listener> _listeners = new CopyOnWriteArrayList<>();
     private boolean _doStarted;
     private boolean _destroyed;
+    private volatile Executor _startExecutor;
 
     /**
-     * Starts the managed lifecycle beans in the order they were added.
+     * Starts the managed lifecycle beans in the order they were added,
+     * or concurrently if a {@link #getStartExecutor() start executor} is set.
      */
     @Override
     protected void doStart() throws Exception
@@ -100,36 +111,22 @@ public class ContainerLifeCycle extends AbstractLifeCycle implements Container,
         // start our managed and auto beans
         try
         {
-            for (Bean b : _beans)
+            Executor executor = getStartExecutor();
+            if (executor == null)
             {
-                if (!isStarting())
-                    break;
-                if (b._bean instanceof LifeCycle l)
+                for (Bean b : _beans)
                 {
-                    switch (b._managed)
-                    {
-                        case MANAGED:
-                            if (l.isStopped() || l.isFailed())
-                                start(l);
-                            break;
-
-                        case AUTO:
-                            if (l.isStopped())
-                            {
-                                manage(b);
-                                start(l);
-                            }
-                            else
-                            {
-                                unmanage(b);
-                            }
-                            break;
-
-                        default:
-                            break;
-                    }
+                    if (!isStarting())
+                        break;
+                    LifeCycle l = toStart(b);
+                    if (l != null)
+                        start(l);
                 }
             }
+            else
+            {
+                startBeansConcurrently(executor);
+            }
         }
         catch (Throwable th)
         {
@@ -158,6 +155,140 @@ public class ContainerLifeCycle extends AbstractLifeCycle implements Container,
         }
     }
 
+    /**
+     * @param b the bean
+     * @return the lifecycle of the bean to start, or null if the bean must not be started
+     */
+    private LifeCycle toStart(Bean b)
+    {
+        if (b._bean instanceof LifeCycle l)
+        {
+            switch (b._managed)
+            {
+                case MANAGED:
+                    if (l.isStopped() || l.isFailed())
+                        return l;
+                    break;
+
+                case AUTO:
+                    if (l.isStopped())
+                    {
+                        manage(b);
+                        return l;
+                    }
+                    unmanage(b);
+                    break;
+
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts the managed beans in groups, each group made of the beans whose dependencies
+     * have all been started, each group started concurrently.
+     */
+    private void startBeansConcurrently(Executor executor) throws Exception
+    {
+        List<Bean> pending = new ArrayList<>();
+        for (Bean b : _beans)
+        {
+            if (b._bean instanceof LifeCycle && (b._managed == Managed.MANAGED || b._managed == Managed.AUTO))
+                pending.add(b);
+        }
+
+        while (!pending.isEmpty() && isStarting())
+        {
+            List<Bean> ready = new ArrayList<>();
+            for (Bean b : pending)
+            {
+                if (isReady(b, pending, executor))
+                    ready.add(b);
+            }
+            if (ready.isEmpty())
+                throw new IllegalStateException("Circular bean dependencies " + pending);
+            pending.removeAll(ready);
+
+            List<LifeCycle> lifeCycles = new ArrayList<>();
+            for (Bean b : ready)
+            {
+                LifeCycle l = toStart(b);
+                if (l != null)
+                    lifeCycles.add(l);
+            }
+            startAll(executor, lifeCycles, true);
+        }
+    }
+
+    private boolean isReady(Bean bean, List<Bean> pending, Executor executor)
+    {
+        for (Bean b : pending)
+        {
+            if (b == bean)
+                continue;
+            // The beans are started by the start executor, so it must be started first.
+            if (b._bean == executor || bean._dependencies.contains(b._bean))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Starts the given lifecycles concurrently on the given executor, and waits for them to be started.</p>
+     * <p>The lifecycles that the executor has not yet started are started by the calling thread,
+     * so that the executor cannot be exhausted by nested concurrent starts.</p>
+     * <p>All the lifecycles are started even if some of them fail to start, and the failures are
+     * combined and thrown once all the starts have completed; it is the responsibility of the caller
+     * to stop the lifecycles that have been started.</p>
+     *
+     * @param executor the executor to start the lifecycles
+     * @param lifeCycles the lifecycles to start
+     * @throws Exception if one or more lifecycles failed to start
+     */
+    protected void startConcurrently(Executor executor, Collection<? extends LifeCycle> lifeCycles) throws Exception
+    {
+        startAll(executor, lifeCycles, false);
+    }
+
+    private void startAll(Executor executor, Collection<? extends LifeCycle> lifeCycles, boolean startBean) throws Exception
+    {
+        if (lifeCycles.isEmpty())
+            return;
+
+        List<StartTask> tasks = new ArrayList<>();
+        for (LifeCycle l : lifeCycles)
+        {
+            tasks.add(new StartTask(l, startBean));
+        }
+
+        // The first task is run by this thread.
+        for (StartTask task : tasks.subList(1, tasks.size()))
+        {
+            try
+            {
+                executor.execute(task);
+            }
+            catch (RejectedExecutionException x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Start rejected by {}, starting {} in the caller thread", executor, task, x);
+            }
+        }
+        for (StartTask task : tasks)
+        {
+            task.run();
+        }
+
+        Throwable failure = null;
+        for (StartTask task : tasks)
+        {
+            failure = ExceptionUtil.combine(failure, task.join());
+        }
+        ExceptionUtil.ifExceptionThrow(failure);
+    }
+
     /**
      * Starts the given lifecycle.
      *
@@ -180,6 +311,58 @@ public class ContainerLifeCycle extends AbstractLifeCycle implements Container,
         l.stop();
     }
 
+    /**
+     * @return the executor used to start the managed beans concurrently, or null to start them in the order they were added
+     */
+    public Executor getStartExecutor()
+    {
+        return _startExecutor;
+    }
+
+    /**
+     * <p>Sets the executor used to start the managed beans concurrently.</p>
+     * <p>The beans that must be started after other beans must declare
+     * their dependencies with {@link #addBeanDependency(Object, Object)}.</p>
+     *
+     * @param executor the executor used to start the managed beans concurrently,
+     * or null to start them in the order they were added
+     */
+    public void setStartExecutor(Executor executor)
+    {
+        _startExecutor = executor;
+    }
+
+    /**
+     * <p>Declares that a bean depends on another bean, so that it is started after it when
+     * the beans are {@link #setStartExecutor(Executor) started concurrently}.</p>
+     * <p>A dependency that is not a bean of this container is ignored, and so is
+     * a dependency that was already added for the given bean.</p>
+     *
+     * @param bean the bean
+     * @param dependency the bean that must be started before the given bean
+     * @throws IllegalArgumentException if the given bean is not a bean of this container
+     */
+    public void addBeanDependency(Object bean, Object dependency)
+    {
+        Bean b = getBean(bean);
+        if (b == null)
+            throw new IllegalArgumentException("Unknown bean " + bean);
+        if (bean == dependency)
+            throw new IllegalArgumentException("Bean cannot depend on itself " + bean);
+        b._dependencies.addIfAbsent(dependency);
+    }
+
+    /**
+     * @param bean the bean
+     * @return the beans that the given bean depends on
+     * @see #addBeanDependency(Object, Object)
+     */
+    public Collection<Object> getBeanDependencies(Object bean)
+    {
+        Bean b = getBean(bean);
+        return b == null ? Collections.emptyList() : Collections.unmodifiableCollection(b._dependencies);
+    }
+
     /**
      * Stops the managed lifecycle beans in the reverse order they were added.
      */
@@ -800,6 +983,7 @@ public class ContainerLifeCycle extends AbstractLifeCycle implements Container,
     {
         private final Object _bean;
         private volatile Managed _managed = Managed.POJO;
+        private final CopyOnWriteArrayList<Object> _dependencies = new CopyOnWriteArrayList<>();
 
         private Bean(Object b)
         {
@@ -835,6 +1019,61 @@ public class ContainerLifeCycle extends AbstractLifeCycle implements Container,
         }
     }
 
+    private class StartTask implements Runnable
+    {
+        private final AtomicBoolean _claimed = new AtomicBoolean();
+        private final CountDownLatch _done = new CountDownLatch(1);
+        private final ClassLoader _classLoader = Thread.currentThread().getContextClassLoader();
+        private final LifeCycle _lifeCycle;
+        private final boolean _startBean;
+        private Throwable _failure;
+
+        private StartTask(LifeCycle lifeCycle, boolean startBean)
+        {
+            _lifeCycle = lifeCycle;
+            _startBean = startBean;
+        }
+
+        @Override
+        public void run()
+        {
+            if (!_claimed.compareAndSet(false, true))
+                return;
+
+            Thread thread = Thread.currentThread();
+            ClassLoader classLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(_classLoader);
+            try
+            {
+                if (_startBean)
+                    start(_lifeCycle);
+                else
+                    _lifeCycle.start();
+            }
+            catch (Throwable x)
+            {
+                _failure = x;
+            }
+            finally
+            {
+                thread.setContextClassLoader(classLoader);
+                _done.countDown();
+            }
+        }
+
+        private Throwable join() throws InterruptedException
+        {
+            _done.await();
+            return _failure;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _lifeCycle);
+        }
+    }
+
     public void updateBean(Object oldBean, final Object newBean)
     {
         if (newBean != oldBean)
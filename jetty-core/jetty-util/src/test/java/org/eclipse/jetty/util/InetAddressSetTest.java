@@ -15,10 +15,14 @@ package org.eclipse.jetty.util;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Stream;
 
+import org.eclipse.jetty.toolchain.test.MavenPaths;
 import org.eclipse.jetty.toolchain.test.Net;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
@@ -28,6 +32,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -354,4 +359,96 @@ public class InetAddressSetTest
         assertTrue(set.test(InetAddress.getByName("10.0.0.5")));
         assertTrue(set.test(InetAddress.getByName("10.0.0.6")));
     }
+
+    @Test
+    public void testTrieMatchesLinear() throws Exception
+    {
+        Random random = new Random(42);
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+        {
+            int a = random.nextInt(4);
+            int b = random.nextInt(256);
+            int c = random.nextInt(256);
+            switch (i % 5)
+            {
+                case 0 -> patterns.add("10." + a + "." + b + "." + c);
+                case 1 -> patterns.add("10." + a + "." + (b & 0xF0) + ".0/" + (20 + random.nextInt(5)));
+                case 2 -> patterns.add("10." + a + "." + b + "." + c + "-10." + a + "." + b + "." + Math.min(255, c + random.nextInt(64)));
+                case 3 -> patterns.add("11." + a + "." + b + ".0/24");
+                default -> patterns.add("fd00:" + Integer.toHexString(a) + ":" + Integer.toHexString(b) + "::/" + (48 + random.nextInt(40)));
+            }
+        }
+        patterns.add("10.3.0.0/16");
+        patterns.add("fd00:3::/32");
+        patterns.add("10-11.1.0-3.0-31");
+
+        InetAddressSet linear = new InetAddressSet();
+        linear.setTrieThreshold(Integer.MAX_VALUE);
+        linear.addAll(patterns);
+        InetAddressSet trie = new InetAddressSet();
+        trie.setTrieThreshold(0);
+        trie.addAll(patterns);
+
+        int matches = 0;
+        for (int i = 0; i < 20000; i++)
+        {
+            InetAddress address;
+            if (i % 4 == 3)
+            {
+                byte[] raw = new byte[16];
+                raw[0] = (byte)0xfd;
+                raw[3] = (byte)random.nextInt(4);
+                raw[5] = (byte)random.nextInt(256);
+                raw[6] = (byte)random.nextInt(256);
+                address = InetAddress.getByAddress(raw);
+            }
+            else
+            {
+                address = InetAddress.getByAddress(new byte[]{(byte)(10 + random.nextInt(2)), (byte)random.nextInt(4), (byte)random.nextInt(256), (byte)random.nextInt(256)});
+            }
+            boolean expected = linear.test(address);
+            assertEquals(expected, trie.test(address), address.toString());
+            if (expected)
+                matches++;
+        }
+        assertTrue(matches > 0);
+
+        assertTrue(trie.test(InetAddress.getByName("10.3.255.255")));
+        trie.remove("10.3.0.0/16");
+        linear.remove("10.3.0.0/16");
+        assertEquals(linear.test(InetAddress.getByName("10.3.255.255")), trie.test(InetAddress.getByName("10.3.255.255")));
+    }
+
+    @Test
+    public void testLoad() throws Exception
+    {
+        Path dir = MavenPaths.targetTestDir(InetAddressSetTest.class.getSimpleName());
+        Files.createDirectories(dir);
+        Path file = dir.resolve("addresses.txt");
+        Files.writeString(file, """
+            # Blocked addresses
+            192.168.0.0/16
+
+            10.0.0.1-10.0.0.10
+            ::1
+            """);
+
+        InetAddressSet set = new InetAddressSet();
+        set.add("1.2.3.4");
+        set.load(file);
+        assertEquals(3, set.size());
+        assertFalse(set.test(InetAddress.getByName("1.2.3.4")));
+        assertTrue(set.test(InetAddress.getByName("192.168.10.20")));
+        assertTrue(set.test(InetAddress.getByName("10.0.0.10")));
+        assertFalse(set.test(InetAddress.getByName("10.0.0.11")));
+        assertTrue(set.test(InetAddress.getByName("::1")));
+
+        // A bad file leaves the set unchanged.
+        Files.writeString(file, "1.2.3.4\n1.2.3.4/33\n");
+        assertThrows(IllegalArgumentException.class, () -> set.load(file));
+        assertEquals(3, set.size());
+        assertFalse(set.test(InetAddress.getByName("1.2.3.4")));
+        assertTrue(set.test(InetAddress.getByName("192.168.10.20")));
+    }
 }
@@ -460,6 +460,71 @@ public class ScannerTest
         }
     }
 
+    @Test
+    public void testWatchService() throws Exception
+    {
+        Path root = _directory.resolve("watched");
+        FS.ensureDirExists(root);
+
+        BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+        Scanner scanner = new Scanner();
+        scanner.setUseWatchService(true);
+        scanner.setWatchDelay(50);
+        // No polling, changes are only notified by the WatchService.
+        scanner.setScanInterval(0);
+        scanner.setScanDepth(2);
+        scanner.setReportDirs(false);
+        scanner.setReportExistingFilesOnStartup(false);
+        scanner.addDirectory(root);
+        scanner.addListener(new Scanner.DiscreteListener()
+        {
+            @Override
+            public void fileRemoved(String filename)
+            {
+                queue.add(new Event(filename, Notification.REMOVED));
+            }
+
+            @Override
+            public void fileChanged(String filename)
+            {
+                queue.add(new Event(filename, Notification.CHANGED));
+            }
+
+            @Override
+            public void fileAdded(String filename)
+            {
+                queue.add(new Event(filename, Notification.ADDED));
+            }
+        });
+
+        try
+        {
+            scanner.start();
+
+            Path file = root.resolve("a.txt");
+            Files.writeString(file, "a");
+            assertEquals(new Event(file.toString(), Notification.ADDED), queue.poll(10, TimeUnit.SECONDS));
+
+            Files.writeString(file, "changed");
+            assertEquals(new Event(file.toString(), Notification.CHANGED), queue.poll(10, TimeUnit.SECONDS));
+
+            // A file in a new directory is notified, as the directory is within the scan depth.
+            Path dir = root.resolve("dir");
+            Files.createDirectory(dir);
+            Path nested = dir.resolve("b.txt");
+            Files.writeString(nested, "b");
+            assertEquals(new Event(nested.toString(), Notification.ADDED), queue.poll(10, TimeUnit.SECONDS));
+
+            Files.delete(file);
+            assertEquals(new Event(file.toString(), Notification.REMOVED), queue.poll(10, TimeUnit.SECONDS));
+            assertNull(queue.poll(500, TimeUnit.MILLISECONDS));
+        }
+        finally
+        {
+            scanner.stop();
+        }
+    }
+
     private void delete(String string) throws IOException
     {
         Path file = _directory.resolve(string);
@@ -231,4 +231,27 @@ public class SearchPatternTest
         int partialMatch = pattern.endsWith(data, 0, length);
         System.err.println("match1: " + partialMatch);
     }
+
+    @Test
+    public void testHeapAndDirectByteBuffersMatchTheSame()
+    {
+        SearchPattern pattern = SearchPattern.compile("\n--boundary");
+        byte[] random = new byte[4096];
+        ThreadLocalRandom.current().nextBytes(random);
+        byte[] data = ("xyz" + new String(random, StandardCharsets.ISO_8859_1) + "\n--boundary" + "tail\n--bou").getBytes(StandardCharsets.ISO_8859_1);
+
+        // A heap slice with a non-zero array offset.
+        ByteBuffer heap = ByteBuffer.wrap(data).position(3).slice();
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length - 3).put(heap.duplicate()).flip();
+
+        assertEquals(pattern.match(direct), pattern.match(heap));
+        assertEquals(random.length, pattern.match(heap));
+        assertEquals(pattern.endsWith(direct), pattern.endsWith(heap));
+        assertEquals(6, pattern.endsWith(heap));
+
+        ByteBuffer start = ByteBuffer.wrap(data).position(data.length - 6).slice();
+        ByteBuffer directStart = ByteBuffer.allocateDirect(start.remaining()).put(start.duplicate()).flip();
+        assertEquals(pattern.startsWith(directStart, 0), pattern.startsWith(start, 0));
+        assertEquals(6, pattern.startsWith(start, 0));
+    }
 }
@@ -14,6 +14,7 @@
 package org.eclipse.jetty.util;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -33,6 +34,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
@@ -301,4 +304,94 @@ public class URLEncodedTest
             UrlEncoded.decodeTo(inputString, map, charset);
         });
     }
+
+    @ParameterizedTest
+    @MethodSource("invalidTestData")
+    public void testInvalidDecodeUtf8ToLazyFields(String inputString, Charset charset, Class<? extends Throwable> expectedThrowable)
+    {
+        // The encoding is validated eagerly, even if names and values are decoded lazily.
+        assertThrows(expectedThrowable, () -> UrlEncoded.decodeUtf8ToLazyFields(inputString));
+    }
+
+    public static Stream<String> lazyTestData()
+    {
+        return Stream.of(
+            "",
+            "&",
+            "&&a=1&&",
+            "a",
+            "a=",
+            "=v",
+            "=",
+            "a=1&b=2&a=3",
+            "a=1=2&b",
+            "a+b=c+d&a%20b=e",
+            "na%6De=v%61lue&name=other",
+            "text=test%C3%A4&t%C3%A4xt=v",
+            "text=\u00e4&\u00e4=\u00e4",
+            "x=%E2%82%AC&y=%F0%9F%98%80&x"
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("lazyTestData")
+    public void testDecodeUtf8ToLazyFields(String query)
+    {
+        Fields expected = new Fields(true);
+        UrlEncoded.decodeUtf8To(query, expected);
+
+        // Lookups by name do not decode the other fields.
+        Fields lazy = UrlEncoded.decodeUtf8ToLazyFields(query);
+        assertEquals(expected.isEmpty(), lazy.isEmpty());
+        for (Fields.Field field : expected)
+        {
+            assertEquals(field, lazy.get(field.getName()));
+            assertEquals(field.getValues(), lazy.getValues(field.getName()));
+        }
+        assertNull(lazy.get("unknown"));
+
+        // All the other methods decode all the fields.
+        assertEquals(expected.toStringArrayMap().toString(), lazy.toStringArrayMap().toString());
+        assertEquals(expected, lazy);
+        assertEquals(expected.getNames(), UrlEncoded.decodeUtf8ToLazyFields(query).getNames());
+    }
+
+    @ParameterizedTest
+    @MethodSource("lazyTestData")
+    public void testDecodeToLazyFields(String query) throws Exception
+    {
+        for (Charset charset : List.of(UTF_8, StandardCharsets.ISO_8859_1))
+        {
+            Fields expected = new Fields(true);
+            UrlEncoded.decodeTo(query, expected::add, charset);
+            byte[] bytes = query.getBytes(charset);
+            Fields lazy = UrlEncoded.decodeToLazyFields(bytes, 0, bytes.length, charset, -1, -1);
+            assertNotNull(lazy);
+            // Unlike query strings, empty form fields are not skipped, unless they are at the end.
+            expected.remove("");
+            lazy.remove("");
+            assertEquals(expected.toStringArrayMap().toString(), lazy.toStringArrayMap().toString());
+        }
+    }
+
+    @Test
+    public void testDecodeToLazyFieldsLimits() throws Exception
+    {
+        byte[] bytes = "a=1&b=%C3%A4%C3%A4&a=2".getBytes(UTF_8);
+
+        Fields fields = UrlEncoded.decodeToLazyFields(bytes, 0, bytes.length, UTF_8, 3, 7);
+        assertNotNull(fields);
+        assertEquals(List.of("1", "2"), fields.getValues("a"));
+        assertEquals("\u00e4\u00e4", fields.getValue("b"));
+
+        // The number of distinct names cannot be known without decoding them.
+        assertNull(UrlEncoded.decodeToLazyFields(bytes, 0, bytes.length, UTF_8, 2, -1));
+        // The length of the decoded names and values is checked.
+        assertThrows(IllegalStateException.class, () -> UrlEncoded.decodeToLazyFields(bytes, 0, bytes.length, UTF_8, -1, 6));
+        // The encoding is validated.
+        byte[] invalid = "a=%C3".getBytes(UTF_8);
+        assertThrows(CharacterCodingException.class, () -> UrlEncoded.decodeToLazyFields(invalid, 0, invalid.length, UTF_8, -1, -1));
+        byte[] incomplete = "a=%C".getBytes(UTF_8);
+        assertThrows(IllegalStateException.class, () -> UrlEncoded.decodeToLazyFields(incomplete, 0, incomplete.length, UTF_8, -1, -1));
+    }
 }
@@ -18,16 +18,21 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.Collection;
 import java.util.EventListener;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.util.TypeUtil;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -744,4 +749,106 @@ public class ContainerLifeCycleTest
         Collection<Bean> beans = container.getBeans(Bean.class);
         assertEquals(1, beans.size());
     }
+
+    @Test
+    public void testConcurrentStart() throws Exception
+    {
+        QueuedThreadPool executor = new QueuedThreadPool();
+        Queue<String> events = new ConcurrentLinkedQueue<>();
+        CyclicBarrier barrier = new CyclicBarrier(3);
+
+        ContainerLifeCycle container = new ContainerLifeCycle();
+        container.setStartExecutor(executor);
+        container.addBean(executor);
+        // The beans only start if they are started concurrently.
+        for (String name : new String[]{"a", "b", "c"})
+        {
+            container.addBean(new AbstractLifeCycle()
+            {
+                @Override
+                protected void doStart() throws Exception
+                {
+                    barrier.await(5, TimeUnit.SECONDS);
+                    events.add("start " + name);
+                }
+
+                @Override
+                protected void doStop()
+                {
+                    events.add("stop " + name);
+                }
+            });
+        }
+        AbstractLifeCycle dependent = new AbstractLifeCycle()
+        {
+            @Override
+            protected void doStart()
+            {
+                events.add("start dependent");
+            }
+        };
+        container.addBean(dependent);
+        container.getBeans(AbstractLifeCycle.class).forEach(bean ->
+        {
+            if (bean != dependent)
+                container.addBeanDependency(dependent, bean);
+        });
+
+        container.start();
+        assertTrue(executor.isStarted());
+        assertEquals("start dependent", events.stream().reduce((a, b) -> b).orElse(null));
+        assertThat(events.stream().limit(3).toList(), containsInAnyOrder("start a", "start b", "start c"));
+
+        // The beans are stopped in reverse order.
+        events.clear();
+        container.stop();
+        assertThat(events, contains("stop c", "stop b", "stop a"));
+    }
+
+    @Test
+    public void testConcurrentStartFailure() throws Exception
+    {
+        QueuedThreadPool executor = new QueuedThreadPool();
+        executor.start();
+        TestContainerLifeCycle started = new TestContainerLifeCycle();
+        AbstractLifeCycle failing = new AbstractLifeCycle()
+        {
+            @Override
+            protected void doStart()
+            {
+                throw new IllegalStateException("test");
+            }
+        };
+        TestContainerLifeCycle notStarted = new TestContainerLifeCycle();
+
+        ContainerLifeCycle container = new ContainerLifeCycle();
+        container.setStartExecutor(executor);
+        container.addBean(started);
+        container.addBean(failing);
+        container.addBean(notStarted);
+        container.addBeanDependency(notStarted, failing);
+
+        assertThrows(IllegalStateException.class, container::start);
+        assertTrue(container.isFailed());
+        assertEquals(1, started.started.get());
+        assertEquals(1, started.stopped.get());
+        assertEquals(0, notStarted.started.get());
+
+        executor.stop();
+    }
+
+    @Test
+    public void testDuplicateBeanDependencyIgnored()
+    {
+        Object bean = new Object();
+        Object dependency = new Object();
+        ContainerLifeCycle container = new ContainerLifeCycle();
+        container.addBean(bean);
+        container.addBean(dependency);
+
+        container.addBeanDependency(bean, dependency);
+        container.addBeanDependency(bean, dependency);
+
+        assertEquals(List.of(dependency), List.copyOf(container.getBeanDependencies(bean)));
+    }
 }
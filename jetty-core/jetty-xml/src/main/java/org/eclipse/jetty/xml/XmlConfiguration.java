@@ -13,6 +13,7 @@
 
 package org.eclipse.jetty.xml;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,6 +35,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -41,6 +44,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -49,6 +53,7 @@ import java.util.Properties;
 import java.util.Queue;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.xml.XMLConstants;
@@ -110,6 +115,22 @@ public class XmlConfiguration
         .toList();
     private static final Pool<ConfigurationParser> __parsers =
         new ConcurrentPool<>(ConcurrentPool.StrategyType.THREAD_ID, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    /**
+     * The max number of parsed {@code <Configure>} documents that are cached by content hash,
+     * location and parser configuration, so that the same XML applied many times (eg to every
+     * deployed context) is parsed only once.
+     * Set the system property to 0 to disable the cache.
+     */
+    public static final String DOCUMENT_CACHE_SIZE = "org.eclipse.jetty.xml.XmlConfiguration.documentCacheSize";
+    private static final Map<String, Document> __documents = newDocumentCache(Integer.getInteger(DOCUMENT_CACHE_SIZE, 64));
+    private static final ClassValue<Members> __members = new ClassValue<>()
+    {
+        @Override
+        protected Members computeValue(Class<?> type)
+        {
+            return new Members(type);
+        }
+    };
     public static final Comparator<Executable> EXECUTABLE_COMPARATOR = (e1, e2) ->
     {
         // Favour methods with less parameters
@@ -278,12 +299,12 @@ public class XmlConfiguration
      */
     public XmlConfiguration(Resource resource, Map<String, Object> idMap, Map<String, String> properties) throws SAXException, IOException
     {
-        XmlParser parser = getXmlParser();
         try (InputStream inputStream = resource.newInputStream())
         {
             _location = resource;
-            setConfig(parser.parse(inputStream));
-            _dtd = parser.getDTD();
+            Document document = parse(inputStream);
+            _dtd = document._dtd;
+            setConfig(document._root);
             _idMap = idMap == null ? new HashMap<>() : idMap;
             _propertyMap = properties == null ? new HashMap<>() : properties;
         }
@@ -291,6 +312,39 @@ public class XmlConfiguration
         {
             throw new XmlConfigurationException("Bad Jetty XML configuration in " + this, t);
         }
+    }
+
+    /**
+     * <p>Parses an XML document, or returns the cached parse of a document with the same content,
+     * location and parser configuration.</p>
+     * <p>Only {@code <Configure>} documents are cached, as they are never modified when applied,
+     * while the documents of other {@link ConfigurationProcessor}s may be.</p>
+     */
+    private Document parse(InputStream inputStream) throws IOException, SAXException
+    {
+        XmlParser parser = getXmlParser();
+        try
+        {
+            String key = null;
+            if (__documents != null)
+            {
+                byte[] bytes = inputStream.readAllBytes();
+                key = String.join("|", hash(bytes), String.valueOf(_location), parser.getClass().getName(), String.valueOf(parser.isValidating()));
+                Document document = __documents.get(key);
+                if (document != null)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Cached document {} for {}", key, _location);
+                    return document;
+                }
+                inputStream = new ByteArrayInputStream(bytes);
+            }
+
+            Document document = new Document(parser.parse(inputStream), parser.getDTD());
+            if (key != null && "Configure".equals(document._root.getTag()))
+                __documents.put(key, document);
+            return document;
+        }
         finally
         {
             if (parser instanceof Closeable closeable)
@@ -298,6 +352,32 @@ public class XmlConfiguration
         }
     }
 
+    private static Map<String, Document> newDocumentCache(int maxSize)
+    {
+        if (maxSize <= 0)
+            return null;
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75F, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Document> eldest)
+            {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private static String hash(byte[] bytes)
+    {
+        try
+        {
+            return StringUtil.toHexString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public String toString()
     {
@@ -631,13 +711,43 @@ public class XmlConfiguration
 
             String types = null;
             Object setValue = value;
+            Members members = __members.get(oClass);
+            String setterKey = setter + "(" + vClass.getName() + ")";
             try
             {
+                // Try the way a value of this class was last set
+                Setter cached = members._setters.get(setterKey);
+                if (cached != null)
+                {
+                    try
+                    {
+                        setValue = cached.set(this, obj, value);
+                        return;
+                    }
+                    catch (InvocationTargetException e)
+                    {
+                        // The setter itself failed, as it would without the cache.
+                        throw e;
+                    }
+                    catch (Exception e)
+                    {
+                        // Fall back to the full search, which may find another way to set the value.
+                        LOG.trace("IGNORED", e);
+                        members._setters.remove(setterKey, cached);
+                        setValue = value;
+                    }
+                }
+
                 // Try for trivial match
                 try
                 {
                     Method set = oClass.getMethod(setter, vClass);
                     invokeMethod(set, obj, arg);
+                    members._setters.put(setterKey, (c, o, v) ->
+                    {
+                        c.invokeMethod(set, o, new Object[]{v});
+                        return v;
+                    });
                     return;
                 }
                 catch (IllegalArgumentException | IllegalAccessException | NoSuchMethodException e)
@@ -653,6 +763,11 @@ public class XmlConfiguration
                     vClass = (Class<?>)type.get(null);
                     Method set = oClass.getMethod(setter, vClass);
                     invokeMethod(set, obj, arg);
+                    members._setters.put(setterKey, (c, o, v) ->
+                    {
+                        c.invokeMethod(set, o, new Object[]{v});
+                        return v;
+                    });
                     return;
                 }
                 catch (NoSuchFieldException | IllegalArgumentException | IllegalAccessException | NoSuchMethodException e)
@@ -670,6 +785,11 @@ public class XmlConfiguration
                         try
                         {
                             setField(field, obj, value);
+                            members._setters.put(setterKey, (c, o, v) ->
+                            {
+                                c.setField(field, o, v);
+                                return v;
+                            });
                             return;
                         }
                         catch (IllegalArgumentException e)
@@ -679,8 +799,12 @@ public class XmlConfiguration
                             {
                                 try
                                 {
-                                    value = TypeUtil.valueOf(field.getType(), ((String)value).trim());
-                                    setField(field, obj, value);
+                                    setField(field, obj, TypeUtil.valueOf(field.getType(), ((String)value).trim()));
+                                    members._setters.put(setterKey, (c, o, v) ->
+                                    {
+                                        c.setField(field, o, TypeUtil.valueOf(field.getType(), ((String)v).trim()));
+                                        return v;
+                                    });
                                     return;
                                 }
                                 catch (Exception e2)
@@ -714,6 +838,11 @@ public class XmlConfiguration
                         {
                             set = s;
                             invokeMethod(set, obj, arg);
+                            members._setters.put(setterKey, (c, o, v) ->
+                            {
+                                c.invokeMethod(s, o, new Object[]{v});
+                                return v;
+                            });
                             return;
                         }
                         catch (IllegalArgumentException | IllegalAccessException e)
@@ -730,6 +859,12 @@ public class XmlConfiguration
                                 {
                                     setValue = convertArrayToCollection(value, c);
                                     invokeMethod(s, obj, setValue);
+                                    members._setters.put(setterKey, (x, o, v) ->
+                                    {
+                                        Collection<?> collection = convertArrayToCollection(v, c);
+                                        x.invokeMethod(s, o, new Object[]{collection});
+                                        return collection;
+                                    });
                                     return;
                                 }
                             }
@@ -764,6 +899,14 @@ public class XmlConfiguration
                         _configuration.initializeDefaults(arg[0]);
                         invokeMethod(set, obj, arg);
                         setValue = arg[0];
+                        Method converted = set;
+                        members._setters.put(setterKey, (c, o, v) ->
+                        {
+                            Object newValue = cons.newInstance(new Object[]{v});
+                            c._configuration.initializeDefaults(newValue);
+                            c.invokeMethod(converted, o, newValue);
+                            return newValue;
+                        });
                         return;
                     }
                     catch (NoSuchMethodException | IllegalAccessException | InstantiationException e)
@@ -992,10 +1135,7 @@ public class XmlConfiguration
                 throw new IllegalArgumentException("Method name cannot be blank");
 
             // Lets just try all methods for now
-            Method[] methods = Arrays.stream(oClass.getMethods())
-                .filter(m -> m.getName().equals(methodName))
-                .sorted(EXECUTABLE_COMPARATOR)
-                .toArray(Method[]::new);
+            Method[] methods = __members.get(oClass).getMethods(methodName);
 
             for (Method method : methods)
             {
@@ -1059,8 +1199,7 @@ public class XmlConfiguration
             Objects.requireNonNull(klass, "Class cannot be null");
             Objects.requireNonNull(args, "Named list cannot be null");
 
-            Constructor<?>[] constructors = klass.getConstructors();
-            Arrays.sort(constructors, EXECUTABLE_COMPARATOR);
+            Constructor<?>[] constructors = __members.get(klass).getConstructors();
             for (Constructor<?> constructor : constructors)
             {
                 try
@@ -1832,6 +1971,81 @@ public class XmlConfiguration
         }
     }
 
+    /**
+     * A parsed XML document.
+     */
+    private static class Document
+    {
+        private final XmlParser.Node _root;
+        private final String _dtd;
+
+        private Document(XmlParser.Node root, String dtd)
+        {
+            _root = root;
+            _dtd = dtd;
+        }
+    }
+
+    /**
+     * <p>A way to set a value of a given class on an object, found by the reflective
+     * search of {@code JettyXmlConfiguration.set(Object, XmlParser.Node)}.</p>
+     */
+    @FunctionalInterface
+    private interface Setter
+    {
+        /**
+         * @return the value that was set, possibly converted
+         * @throws IllegalArgumentException if the value cannot be set this way
+         */
+        Object set(JettyXmlConfiguration configuration, Object obj, Object value) throws Exception;
+    }
+
+    /**
+     * <p>The members of a class resolved by the configuration, cached so that configuring
+     * many objects of the same class, for example when deploying many contexts, does not
+     * repeat the reflective searches.</p>
+     * <p>Members are cached in a {@link ClassValue}, so they do not prevent a class
+     * (and its class loader) from being unloaded.</p>
+     */
+    private static class Members
+    {
+        private final Class<?> _class;
+        private final Map<String, Method[]> _methods = new ConcurrentHashMap<>();
+        private final Map<String, Setter> _setters = new ConcurrentHashMap<>();
+        private volatile Constructor<?>[] _constructors;
+
+        private Members(Class<?> type)
+        {
+            _class = type;
+        }
+
+        /**
+         * @return the public methods with the given name, sorted by {@link #EXECUTABLE_COMPARATOR}
+         */
+        private Method[] getMethods(String name)
+        {
+            return _methods.computeIfAbsent(name, n -> Arrays.stream(_class.getMethods())
+                .filter(m -> m.getName().equals(n))
+                .sorted(EXECUTABLE_COMPARATOR)
+                .toArray(Method[]::new));
+        }
+
+        /**
+         * @return the public constructors, sorted by {@link #EXECUTABLE_COMPARATOR}
+         */
+        private Constructor<?>[] getConstructors()
+        {
+            Constructor<?>[] constructors = _constructors;
+            if (constructors == null)
+            {
+                constructors = _class.getConstructors();
+                Arrays.sort(constructors, EXECUTABLE_COMPARATOR);
+                _constructors = constructors;
+            }
+            return constructors;
+        }
+    }
+
     private static List<XmlParser.Node> getNodes(XmlParser.Node node, String elementName)
     {
         String attrName = StringUtil.asciiToLowerCase(elementName);
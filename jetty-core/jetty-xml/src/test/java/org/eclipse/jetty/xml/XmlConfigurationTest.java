@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -596,6 +597,46 @@ public class XmlConfigurationTest
         assertThat("tc.getSet() has two entries as specified in the xml", tc.getSet().size(), is(2));
     }
 
+    @Test
+    public void testRepeatedConfiguration() throws Exception
+    {
+        // Applied repeatedly, the configuration uses the cached document and setters.
+        String xml = "<Configure class=\"org.eclipse.jetty.xml.ExampleConfiguration\">" +
+            "<Set name=\"TestString\" id=\"string\">value</Set>" +
+            "<Set name=\"PropertyTest\" id=\"int\">42</Set>" +
+            "<Set name=\"testField1\">7</Set>" +
+            "<Set name=\"Set\" id=\"set\">" + STRING_ARRAY_XML + "</Set>" +
+            "<Set name=\"Test\"><Array type=\"String\"><Item>x</Item></Array></Set>" +
+            "</Configure>";
+        for (int i = 0; i < 3; i++)
+        {
+            XmlConfiguration configuration = asXmlConfiguration(xml);
+            ExampleConfiguration tc = new ExampleConfiguration();
+            configuration.configure(tc);
+            assertEquals("value", tc.getTestString());
+            assertEquals(42, tc.propValue);
+            assertEquals(7, tc.testField1);
+            assertEquals(Set.of("String1", "String2"), tc.getSet());
+            assertThat(tc.testObject, instanceOf(String[].class));
+            assertEquals("value", configuration.getIdMap().get("string"));
+            assertEquals(42, configuration.getIdMap().get("int"));
+            assertEquals(tc.getSet(), configuration.getIdMap().get("set"));
+        }
+    }
+
+    @Test
+    public void testChangedConfiguration() throws Exception
+    {
+        // The same file with a different content is not served from the document cache.
+        for (int i = 0; i < 3; i++)
+        {
+            XmlConfiguration configuration = asXmlConfiguration("<Configure class=\"org.eclipse.jetty.xml.ExampleConfiguration\"><Set name=\"TestString\">value" + i + "</Set></Configure>");
+            ExampleConfiguration tc = new ExampleConfiguration();
+            configuration.configure(tc);
+            assertEquals("value" + i, tc.getTestString());
+        }
+    }
+
     @Test
     public void testMap() throws Exception
     {
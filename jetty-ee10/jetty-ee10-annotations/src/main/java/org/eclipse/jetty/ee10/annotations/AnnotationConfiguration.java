@@ -13,7 +13,9 @@
 
 package org.eclipse.jetty.ee10.annotations;
 
+import java.io.File;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -74,6 +76,7 @@ public class AnnotationConfiguration extends AbstractConfiguration
     public static final String CONTAINER_INITIALIZER_STARTER = "org.eclipse.jetty.containerInitializerStarter";
     public static final String MULTI_THREADED = "org.eclipse.jetty.annotations.multiThreaded";
     public static final String MAX_SCAN_WAIT = "org.eclipse.jetty.annotations.maxWait";
+    public static final String SCAN_CACHE_DIR = "org.eclipse.jetty.annotations.scanCacheDir";
     protected static final String STATE = "org.eclipse.jetty.annotations.state";
 
     public static final int DEFAULT_MAX_SCAN_WAIT = 60; /* time in sec */
@@ -511,15 +514,17 @@ public class AnnotationConfiguration extends AbstractConfiguration
         if (target != null)
             javaPlatform = Integer.parseInt(target.toString());
         AnnotationParser parser = createAnnotationParser(javaPlatform);
+        parser.setScanCache(getScanCache(context));
         state._parserTasks = new ArrayList<>();
 
         if (LOG.isDebugEnabled())
-            LOG.debug("Annotation scanning commencing: webxml={}, metadatacomplete={}, configurationDiscovered={}, multiThreaded={}, maxScanWait={}",
+            LOG.debug("Annotation scanning commencing: webxml={}, metadatacomplete={}, configurationDiscovered={}, multiThreaded={}, maxScanWait={}, scanCache={}",
                 context.getServletContext().getEffectiveMajorVersion(),
                 context.getMetaData().isMetaDataComplete(),
                 context.isConfigurationDiscovered(),
                 isUseMultiThreading(context),
-                getMaxScanWait(context));
+                getMaxScanWait(context),
+                parser.getScanCache());
 
         //scan selected jars on the container classpath first
         parseContainerPath(context, parser);
@@ -561,12 +566,13 @@ public class AnnotationConfiguration extends AbstractConfiguration
                 LOG.debug("Scanned {} in {}ms", p.getResource(), TimeUnit.NANOSECONDS.toMillis(p.getStatistic().getElapsedNanos()));
             }
 
-            LOG.debug("Scanned {} container path jars, {} WEB-INF/lib jars, {} WEB-INF/classes dirs in {}ms for context {}",
+            LOG.debug("Scanned {} container path jars, {} WEB-INF/lib jars, {} WEB-INF/classes dirs in {}ms for context {}, scanCache={}",
                 (state._containerPathStats == null ? -1 : state._containerPathStats.getTotal()),
                 (state._webInfLibStats == null ? -1 : state._webInfLibStats.getTotal()),
                 (state._webInfClassesStats == null ? -1 : state._webInfClassesStats.getTotal()),
                 elapsedMs,
-                context);
+                context,
+                parser.getScanCache());
         }
 
         if (timeout)
@@ -634,6 +640,31 @@ public class AnnotationConfiguration extends AbstractConfiguration
         return Integer.getInteger(MAX_SCAN_WAIT, DEFAULT_MAX_SCAN_WAIT);
     }
 
+    /**
+     * Work out the directory, if any, in which to cache the scan results of jars.
+     *
+     * @param context the context of the scan cache setting
+     * @return the scan cache for the directory set on the context, or server, or via a System property,
+     * or null if the scan results are not cached.
+     * @see #SCAN_CACHE_DIR
+     */
+    protected AnnotationScanCache getScanCache(WebAppContext context)
+    {
+        //try context attribute, then server attribute, then system property to get the scan cache directory
+        Object o = context.getAttribute(SCAN_CACHE_DIR);
+        if (o == null && context.getServer() != null)
+            o = context.getServer().getAttribute(SCAN_CACHE_DIR);
+        if (o == null)
+            o = System.getProperty(SCAN_CACHE_DIR);
+        if (o == null || StringUtil.isBlank(o.toString()))
+            return null;
+        if (o instanceof Path path)
+            return new AnnotationScanCache(path);
+        if (o instanceof File file)
+            return new AnnotationScanCache(file.toPath());
+        return new AnnotationScanCache(Path.of(o.toString()));
+    }
+
     public void createServletContainerInitializerAnnotationHandlers(WebAppContext context, List<ServletContainerInitializer> scis)
         throws Exception
     {
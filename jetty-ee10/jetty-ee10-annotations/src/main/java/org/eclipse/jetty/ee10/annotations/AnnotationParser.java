@@ -67,6 +67,7 @@ public class AnnotationParser
      */
     protected Map<String, URI> _parsedClassNames = new ConcurrentHashMap<>();
     private final int _asmVersion;
+    private AnnotationScanCache _scanCache;
 
     /**
      * Determine the runtime version of asm.
@@ -535,6 +536,30 @@ public class AnnotationParser
         _asmVersion = asmVersion;
     }
 
+    /**
+     * @return the ASM API version used to parse the classes
+     */
+    int getAsmVersion()
+    {
+        return _asmVersion;
+    }
+
+    /**
+     * @return the cache of the scan results of jars, or null if jars are always parsed
+     */
+    public AnnotationScanCache getScanCache()
+    {
+        return _scanCache;
+    }
+
+    /**
+     * @param scanCache the cache of the scan results of jars, or null to always parse jars
+     */
+    public void setScanCache(AnnotationScanCache scanCache)
+    {
+        _scanCache = scanCache;
+    }
+
     /**
      * Parse a resource
      *
@@ -638,7 +663,11 @@ public class AnnotationParser
         try (ResourceFactory.Closeable resourceFactory = ResourceFactory.closeable())
         {
             Resource insideJarResource = resourceFactory.newJarFileResource(jarResource.getURI());
-            parseDir(handlers, insideJarResource);
+            AnnotationScanCache scanCache = _scanCache;
+            if (scanCache == null)
+                parseDir(handlers, insideJarResource);
+            else
+                scanCache.parseJar(this, handlers, jarResource, insideJarResource);
         }
     }
 
@@ -662,16 +691,26 @@ public class AnnotationParser
             ClassReader reader = new ClassReader(in);
             reader.accept(new MyClassVisitor(handlers, containingResource, _asmVersion), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
 
-            String classname = normalize(reader.getClassName());
-            URI existing = _parsedClassNames.putIfAbsent(classname, location);
-            if (existing != null)
-                LOG.warn("{} scanned from multiple locations: {}, {}", classname, existing, location);
+            addParsedClassName(normalize(reader.getClassName()), location);
         }
         catch (IllegalArgumentException | IOException e)
         {
             throw new IOException("Unable to parse class: " + classFile.toUri(), e);
         }
     }
+
+    /**
+     * Record that a class has been scanned.
+     *
+     * @param classname the name of the class
+     * @param location the location the class was scanned from
+     */
+    void addParsedClassName(String classname, URI location)
+    {
+        URI existing = _parsedClassNames.putIfAbsent(classname, location);
+        if (existing != null)
+            LOG.warn("{} scanned from multiple locations: {}, {}", classname, existing, location);
+    }
     
     /**
      * Useful mostly for testing to expose the list of parsed classes.
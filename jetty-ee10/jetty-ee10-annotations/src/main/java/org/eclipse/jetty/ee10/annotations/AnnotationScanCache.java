@@ -0,0 +1,586 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.ee10.annotations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.Jetty;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.resource.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AnnotationScanCache
+ * <p>
+ * An on-disk cache of the results of scanning jars for annotations, so that
+ * a jar that has already been scanned does not need to be parsed again with asm.
+ * <p>
+ * For each jar, the cache records the classes with their superclass and interfaces,
+ * and the annotations found on the classes, methods and fields. On a cache hit these
+ * are replayed to the {@link AnnotationParser.Handler}s as if the jar had been parsed,
+ * so the discovered annotations, the {@code @HandlesTypes} matches and the
+ * {@link AnnotationConfiguration.ClassInheritanceMap} are the same as with a full scan.
+ * <p>
+ * Scan results are stored by the content hash of the jar, so that identical jars
+ * at different locations (eg a war unpacked to a new temp directory) share the same
+ * entry. To avoid hashing unchanged jars on every start, the content hash is itself
+ * cached against the path, size and last modified time of the jar.
+ * The scan results are also keyed by the runtime version (which selects the classes
+ * of multi-release jars), by the ASM API version of the parser, by the Jetty version
+ * and by the cache format version, so that they are not replayed to a differently
+ * configured parser.
+ * <p>
+ * Only jars on the default file system are cached; directories such as
+ * {@code WEB-INF/classes} are always parsed. The cache directory may be shared
+ * between webapps and servers, and may be deleted at any time.
+ */
+public class AnnotationScanCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(AnnotationScanCache.class);
+    private static final int MAGIC = 0x4A415343;
+    private static final int VERSION = 1;
+
+    private final Path _directory;
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+
+    /**
+     * @param directory the directory in which to store the scan results, created if it does not exist
+     */
+    public AnnotationScanCache(Path directory)
+    {
+        _directory = Objects.requireNonNull(directory);
+    }
+
+    public Path getDirectory()
+    {
+        return _directory;
+    }
+
+    /**
+     * @return the number of jars whose scan results were replayed from the cache
+     */
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    /**
+     * @return the number of jars that were parsed and added to the cache
+     */
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    /**
+     * Parse a jar, or replay its cached scan results.
+     *
+     * @param parser the parser to parse the jar with on a cache miss
+     * @param handlers the handlers to call back
+     * @param jarResource the jar file
+     * @param insideJarResource the root of the contents of the jar
+     * @throws Exception if unable to parse
+     */
+    void parseJar(AnnotationParser parser, Set<? extends AnnotationParser.Handler> handlers, Resource jarResource, Resource insideJarResource) throws Exception
+    {
+        String key = key(jarResource.getPath(), parser);
+        if (key == null)
+        {
+            parser.parseDir(handlers, insideJarResource);
+            return;
+        }
+
+        Path indexFile = _directory.resolve(key + ".idx");
+        List<ClassEntry> classes = load(indexFile, insideJarResource);
+        if (classes != null)
+        {
+            _hits.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Replaying {} classes of {} from {}", classes.size(), jarResource, indexFile);
+            for (ClassEntry entry : classes)
+            {
+                entry.replay(handlers);
+                String classFile = StringUtil.replace(entry._info.getClassName(), '.', '/') + ".class";
+                parser.addParsedClassName(entry._info.getClassName(), URIUtil.addPath(insideJarResource.getURI(), classFile));
+            }
+            return;
+        }
+
+        _misses.increment();
+        Recorder recorder = new Recorder();
+        Set<AnnotationParser.Handler> recording = new HashSet<>(handlers);
+        recording.add(recorder);
+        parser.parseDir(recording, insideJarResource);
+        store(indexFile, recorder._classes);
+    }
+
+    /**
+     * @param jar the jar file
+     * @param parser the parser to parse the jar with on a cache miss
+     * @return the key of the scan results of the jar, or null if the jar cannot be cached
+     */
+    private String key(Path jar, AnnotationParser parser)
+    {
+        if (jar == null || jar.getFileSystem() != FileSystems.getDefault())
+            return null;
+
+        try
+        {
+            BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+            if (!attributes.isRegularFile())
+                return null;
+            String path = jar.toAbsolutePath().toString();
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+
+            Path keyFile = _directory.resolve(hash(path.getBytes(StandardCharsets.UTF_8)) + ".key");
+            String contentHash = null;
+            try (DataInputStream in = open(keyFile))
+            {
+                if (path.equals(in.readUTF()) && size == in.readLong() && lastModified == in.readLong())
+                    contentHash = in.readUTF();
+            }
+            catch (NoSuchFileException x)
+            {
+                // Not seen this jar at this path before.
+            }
+            catch (IOException x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Ignoring {}", keyFile, x);
+            }
+
+            if (contentHash == null)
+            {
+                contentHash = hashContent(jar);
+                String hash = contentHash;
+                write(keyFile, out ->
+                {
+                    out.writeUTF(path);
+                    out.writeLong(size);
+                    out.writeLong(lastModified);
+                    out.writeUTF(hash);
+                });
+            }
+
+            // Multi-release jars are scanned differently depending on the runtime version,
+            // and the results may differ with other ASM or Jetty versions.
+            return String.format("%s-%d-%d-%d-%s", contentHash, VERSION, Runtime.version().feature(), parser.getAsmVersion(), Jetty.VERSION);
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Not caching {}", jar, x);
+            return null;
+        }
+    }
+
+    private List<ClassEntry> load(Path indexFile, Resource containingResource)
+    {
+        try (DataInputStream in = open(indexFile))
+        {
+            int count = in.readInt();
+            List<ClassEntry> classes = new ArrayList<>(count);
+            for (int c = 0; c < count; c++)
+            {
+                AnnotationParser.ClassInfo classInfo = new AnnotationParser.ClassInfo(containingResource,
+                    in.readUTF(), in.readInt(), in.readInt(), readString(in), readString(in), readStrings(in));
+                ClassEntry entry = new ClassEntry(classInfo);
+                entry._annotations.addAll(List.of(readStrings(in)));
+                for (int m = in.readInt(); m-- > 0; )
+                {
+                    Object memberInfo = switch (in.readByte())
+                    {
+                        case 'M' -> new AnnotationParser.MethodInfo(classInfo,
+                            in.readUTF(), in.readInt(), in.readUTF(), readString(in), readStrings(in));
+                        case 'F' -> new AnnotationParser.FieldInfo(classInfo,
+                            in.readUTF(), in.readInt(), in.readUTF(), readString(in), readValue(in));
+                        default -> throw new IOException("Invalid member");
+                    };
+                    entry._members.add(new MemberEntry(memberInfo, List.of(readStrings(in))));
+                }
+                classes.add(entry);
+            }
+            return classes;
+        }
+        catch (NoSuchFileException x)
+        {
+            return null;
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Ignoring {}", indexFile, x);
+            return null;
+        }
+    }
+
+    private void store(Path indexFile, List<ClassEntry> classes)
+    {
+        write(indexFile, out ->
+        {
+            out.writeInt(classes.size());
+            for (ClassEntry entry : classes)
+            {
+                AnnotationParser.ClassInfo classInfo = entry._info;
+                out.writeUTF(classInfo.getClassName());
+                out.writeInt(classInfo.getVersion());
+                out.writeInt(classInfo.getAccess());
+                writeString(out, classInfo.getSignature());
+                writeString(out, classInfo.getSuperName());
+                writeStrings(out, classInfo.getInterfaces());
+                writeStrings(out, entry._annotations.toArray(String[]::new));
+                out.writeInt(entry._members.size());
+                for (MemberEntry member : entry._members)
+                {
+                    if (member._info instanceof AnnotationParser.MethodInfo methodInfo)
+                    {
+                        out.writeByte('M');
+                        out.writeUTF(methodInfo.getMethodName());
+                        out.writeInt(methodInfo.getAccess());
+                        out.writeUTF(methodInfo.getDesc());
+                        writeString(out, methodInfo.getSignature());
+                        writeStrings(out, methodInfo.getExceptions());
+                    }
+                    else
+                    {
+                        AnnotationParser.FieldInfo fieldInfo = (AnnotationParser.FieldInfo)member._info;
+                        out.writeByte('F');
+                        out.writeUTF(fieldInfo.getFieldName());
+                        out.writeInt(fieldInfo.getAccess());
+                        out.writeUTF(fieldInfo.getFieldType());
+                        writeString(out, fieldInfo.getSignature());
+                        writeValue(out, fieldInfo.getValue());
+                    }
+                    writeStrings(out, member._annotations.toArray(String[]::new));
+                }
+            }
+        });
+    }
+
+    private DataInputStream open(Path file) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION)
+        {
+            in.close();
+            throw new IOException("Invalid format " + file);
+        }
+        return in;
+    }
+
+    /**
+     * Write a file atomically, so that concurrent readers and writers,
+     * possibly in other processes, never see a partially written file.
+     */
+    private void write(Path file, Writer writer)
+    {
+        Path tmp = null;
+        try
+        {
+            Files.createDirectories(_directory);
+            tmp = Files.createTempFile(_directory, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writer.write(out);
+            }
+            try
+            {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException x)
+            {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException x)
+        {
+            LOG.warn("Unable to write annotation scan cache {}", file, x);
+            try
+            {
+                if (tmp != null)
+                    Files.deleteIfExists(tmp);
+            }
+            catch (IOException ignored)
+            {
+                // Best effort.
+            }
+        }
+    }
+
+    private static String hashContent(Path jar) throws IOException
+    {
+        MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(jar))
+        {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) >= 0)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return StringUtil.toHexString(digest.digest());
+    }
+
+    private static String hash(byte[] bytes)
+    {
+        return StringUtil.toHexString(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException x)
+        {
+            throw new IllegalStateException(x);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException
+    {
+        out.writeBoolean(string != null);
+        if (string != null)
+            out.writeUTF(string);
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException
+    {
+        if (strings == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(strings.length);
+        for (String string : strings)
+        {
+            out.writeUTF(string);
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        String[] strings = new String[length];
+        for (int i = 0; i < length; i++)
+        {
+            strings[i] = in.readUTF();
+        }
+        return strings;
+    }
+
+    /**
+     * Write the constant value of a field, which asm reports as
+     * an {@link Integer}, {@link Long}, {@link Float}, {@link Double} or {@link String}.
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException
+    {
+        if (value instanceof Integer i)
+        {
+            out.writeByte('I');
+            out.writeInt(i);
+        }
+        else if (value instanceof Long l)
+        {
+            out.writeByte('J');
+            out.writeLong(l);
+        }
+        else if (value instanceof Float f)
+        {
+            out.writeByte('F');
+            out.writeFloat(f);
+        }
+        else if (value instanceof Double d)
+        {
+            out.writeByte('D');
+            out.writeDouble(d);
+        }
+        else if (value instanceof String s)
+        {
+            out.writeByte('S');
+            out.writeUTF(s);
+        }
+        else
+        {
+            out.writeByte('N');
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException
+    {
+        return switch (in.readByte())
+        {
+            case 'I' -> in.readInt();
+            case 'J' -> in.readLong();
+            case 'F' -> in.readFloat();
+            case 'D' -> in.readDouble();
+            case 'S' -> in.readUTF();
+            case 'N' -> null;
+            default -> throw new IOException("Invalid field value");
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,hits=%d,misses=%d}", getClass().getSimpleName(), hashCode(), _directory, getHits(), getMisses());
+    }
+
+    private interface Writer
+    {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * The scan results of a class.
+     */
+    private static class ClassEntry
+    {
+        private final AnnotationParser.ClassInfo _info;
+        private final List<String> _annotations = new ArrayList<>();
+        private final List<MemberEntry> _members = new ArrayList<>();
+
+        private ClassEntry(AnnotationParser.ClassInfo info)
+        {
+            _info = info;
+        }
+
+        private void replay(Set<? extends AnnotationParser.Handler> handlers)
+        {
+            for (AnnotationParser.Handler h : handlers)
+            {
+                h.handle(_info);
+            }
+            for (String annotation : _annotations)
+            {
+                for (AnnotationParser.Handler h : handlers)
+                {
+                    h.handle(_info, annotation);
+                }
+            }
+            for (MemberEntry member : _members)
+            {
+                for (String annotation : member._annotations)
+                {
+                    for (AnnotationParser.Handler h : handlers)
+                    {
+                        if (member._info instanceof AnnotationParser.MethodInfo methodInfo)
+                            h.handle(methodInfo, annotation);
+                        else
+                            h.handle((AnnotationParser.FieldInfo)member._info, annotation);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An annotated method or field.
+     */
+    private static class MemberEntry
+    {
+        private final Object _info;
+        private final List<String> _annotations;
+
+        private MemberEntry(Object info, List<String> annotations)
+        {
+            _info = info;
+            _annotations = annotations;
+        }
+    }
+
+    /**
+     * Records the callbacks of the parsing of a jar.
+     * Classes in a jar are parsed sequentially, so the callbacks
+     * for the members of a class follow the callback for the class.
+     */
+    private static class Recorder extends AnnotationParser.AbstractHandler
+    {
+        private final List<ClassEntry> _classes = new ArrayList<>();
+        private ClassEntry _class;
+
+        @Override
+        public void handle(AnnotationParser.ClassInfo classInfo)
+        {
+            _class = new ClassEntry(classInfo);
+            _classes.add(_class);
+        }
+
+        @Override
+        public void handle(AnnotationParser.ClassInfo info, String annotationName)
+        {
+            _class._annotations.add(annotationName);
+        }
+
+        @Override
+        public void handle(AnnotationParser.MethodInfo info, String annotationName)
+        {
+            add(info, annotationName);
+        }
+
+        @Override
+        public void handle(AnnotationParser.FieldInfo info, String annotationName)
+        {
+            add(info, annotationName);
+        }
+
+        private void add(Object info, String annotationName)
+        {
+            List<MemberEntry> members = _class._members;
+            MemberEntry last = members.isEmpty() ? null : members.get(members.size() - 1);
+            if (last == null || last._info != info)
+            {
+                last = new MemberEntry(info, new ArrayList<>());
+                members.add(last);
+            }
+            last._annotations.add(annotationName);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -29,6 +30,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import org.eclipse.jetty.toolchain.test.FS;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
@@ -39,13 +42,16 @@ import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.objectweb.asm.Opcodes;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -98,6 +104,50 @@ public class TestAnnotationParser
         }
     }
 
+    public static class RecordingHandler implements AnnotationParser.Handler
+    {
+        public final List<String> events = new ArrayList<>();
+
+        @Override
+        public void handle(AnnotationParser.ClassInfo classInfo)
+        {
+            events.add("class " + classInfo.getClassName() + " " + classInfo.getVersion() + " " + classInfo.getAccess() + " " + classInfo.getSignature() +
+                " " + classInfo.getSuperName() + " " + Arrays.toString(classInfo.getInterfaces()) + " " + classInfo.getContainingResource());
+        }
+
+        @Override
+        public void handle(AnnotationParser.MethodInfo methodInfo)
+        {
+            events.add("method " + methodInfo.getMethodName());
+        }
+
+        @Override
+        public void handle(AnnotationParser.FieldInfo fieldInfo)
+        {
+            events.add("field " + fieldInfo.getFieldName());
+        }
+
+        @Override
+        public void handle(AnnotationParser.ClassInfo info, String annotationName)
+        {
+            events.add("@" + annotationName + " " + info.getClassName());
+        }
+
+        @Override
+        public void handle(AnnotationParser.MethodInfo info, String annotationName)
+        {
+            events.add("@" + annotationName + " " + info.getClassInfo().getClassName() + "." + info.getMethodName() + " " + info.getAccess() + " " +
+                info.getDesc() + " " + info.getSignature() + " " + Arrays.toString(info.getExceptions()));
+        }
+
+        @Override
+        public void handle(AnnotationParser.FieldInfo info, String annotationName)
+        {
+            events.add("@" + annotationName + " " + info.getClassInfo().getClassName() + "." + info.getFieldName() + " " + info.getAccess() + " " +
+                info.getFieldType() + " " + info.getSignature() + " " + info.getValue());
+        }
+    }
+
     @Test
     public void testSampleAnnotation(WorkDir workDir) throws Exception
     {
@@ -319,6 +369,97 @@ public class TestAnnotationParser
         }
     }
 
+    @Test
+    public void testScanCache(WorkDir workDir) throws Exception
+    {
+        Path root = workDir.getEmptyPathDir();
+        Path cacheDir = root.resolve("cache");
+        Path jar = root.resolve("lib/classes.jar");
+        jarClasses(jar, ClassA.class, ClassA.Foo.class, ClassB.class, InterfaceD.class);
+
+        // Parse the jar without a cache.
+        RecordingHandler expected = new RecordingHandler();
+        try (ResourceFactory.Closeable resourceFactory = ResourceFactory.closeable())
+        {
+            new AnnotationParser().parse(Collections.singleton(expected), resourceFactory.newResource(jar));
+        }
+        assertThat(expected.events, hasItem("@" + Sample.class.getName() + " " + ClassA.class.getName() + ".m 2 Ljava/lang/Integer; null null"));
+
+        // Parse the jar, which is added to the cache.
+        AnnotationScanCache cache = new AnnotationScanCache(cacheDir);
+        assertEquals(expected.events, parseWithCache(cache, jar));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // Replay the jar from the cache.
+        AnnotationParser parser = new AnnotationParser();
+        parser.setScanCache(new AnnotationScanCache(cacheDir));
+        RecordingHandler replayed = new RecordingHandler();
+        try (ResourceFactory.Closeable resourceFactory = ResourceFactory.closeable())
+        {
+            parser.parse(Collections.singleton(replayed), resourceFactory.newResource(jar));
+        }
+        assertEquals(expected.events, replayed.events);
+        assertEquals(1, parser.getScanCache().getHits());
+        assertThat(parser.getParsedClassNames().keySet(), containsInAnyOrder(ClassA.class.getName(), ClassA.Foo.class.getName(), ClassB.class.getName(), InterfaceD.class.getName()));
+
+        // A copy of the jar at another location is replayed from the cache.
+        Path copy = root.resolve("other/classes.jar");
+        FS.ensureDirExists(copy.getParent());
+        Files.copy(jar, copy);
+        cache = new AnnotationScanCache(cacheDir);
+        List<String> copyEvents = parseWithCache(cache, copy);
+        assertEquals(expected.events.size(), copyEvents.size());
+        assertEquals(1, cache.getHits());
+
+        // A parser with a different ASM version does not replay the cached results.
+        parser = new AnnotationParser(Opcodes.ASM8);
+        cache = new AnnotationScanCache(cacheDir);
+        parser.setScanCache(cache);
+        try (ResourceFactory.Closeable resourceFactory = ResourceFactory.closeable())
+        {
+            parser.parse(Collections.singleton(new RecordingHandler()), resourceFactory.newResource(jar));
+        }
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // A modified jar is parsed again.
+        Files.delete(jar);
+        jarClasses(jar, ClassA.class, ClassA.Foo.class);
+        cache = new AnnotationScanCache(cacheDir);
+        List<String> modifiedEvents = parseWithCache(cache, jar);
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertThat(modifiedEvents, not(hasItem(containsString(ClassB.class.getName()))));
+    }
+
+    private List<String> parseWithCache(AnnotationScanCache cache, Path jar) throws Exception
+    {
+        AnnotationParser parser = new AnnotationParser();
+        parser.setScanCache(cache);
+        RecordingHandler handler = new RecordingHandler();
+        try (ResourceFactory.Closeable resourceFactory = ResourceFactory.closeable())
+        {
+            parser.parse(Collections.singleton(handler), resourceFactory.newResource(jar));
+        }
+        return handler.events;
+    }
+
+    private void jarClasses(Path jar, Class<?>... classes) throws IOException, URISyntaxException
+    {
+        FS.ensureDirExists(jar.getParent());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar)))
+        {
+            for (Class<?> clazz : classes)
+            {
+                String classRef = TypeUtil.toClassReference(clazz);
+                out.putNextEntry(new JarEntry(classRef));
+                Files.copy(Paths.get(this.getClass().getResource('/' + classRef).toURI()), out);
+                out.closeEntry();
+            }
+        }
+    }
+
     private void copyClass(Class<?> clazz, Path outputDir) throws IOException, URISyntaxException
     {
         String classRef = TypeUtil.toClassReference(clazz);
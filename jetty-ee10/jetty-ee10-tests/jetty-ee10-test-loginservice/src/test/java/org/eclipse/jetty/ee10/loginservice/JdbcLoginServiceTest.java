@@ -21,6 +21,8 @@ import java.io.PrintWriter;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import jakarta.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.client.AuthenticationStore;
@@ -33,6 +35,7 @@ import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.security.JDBCLoginService;
 import org.eclipse.jetty.security.LoginService;
+import org.eclipse.jetty.security.UserIdentity;
 import org.eclipse.jetty.toolchain.test.FS;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jetty.util.IO;
@@ -41,9 +44,13 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mariadb.jdbc.MariaDbDataSource;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Testcontainers(disabledWithoutDocker = true)
@@ -53,6 +60,7 @@ public class JdbcLoginServiceTest
         "Lorem ipsum dolor sit amet, consectetur adipiscing elit.";
 
     private static Path __docRoot;
+    private static File __realmFile;
     private static String __realm = "JdbcRealm";
     private static URI __baseUri;
     private static DatabaseLoginServiceTestServer __testServer;
@@ -69,6 +77,7 @@ public class JdbcLoginServiceTest
         //create the realm properties file based on dynamic + static info
         Path skeleton = MavenTestingUtils.getTestResourcePath("jdbcrealm.properties");
         File realmFile = dir.resolve("realm.properties").toFile();
+        __realmFile = realmFile;
         try (PrintWriter writer = new PrintWriter(new FileOutputStream(realmFile)))
         {
             writer.println("jdbcdriver = " + DatabaseLoginServiceTestServer.MARIA_DB_DRIVER_CLASS);
@@ -190,4 +199,34 @@ public class JdbcLoginServiceTest
         assertEquals(HttpStatus.OK_200, response.getStatus());
         assertEquals(_content, __testServer.getTestFilter().getRequestContent());
     }
+
+    @Test
+    public void testDataSourceAsyncLogin() throws Exception
+    {
+        MariaDbDataSource ds = new MariaDbDataSource();
+        ds.setUser(DatabaseLoginServiceTestServer.MARIA_DB_USER);
+        ds.setPassword(DatabaseLoginServiceTestServer.MARIA_DB_PASSWORD);
+        ds.setUrl(DatabaseLoginServiceTestServer.MARIA_DB_FULL_URL);
+
+        JDBCLoginService loginService = new JDBCLoginService(__realm, __realmFile.getAbsolutePath());
+        loginService.setDataSource(ds);
+        loginService.start();
+        try
+        {
+            UserIdentity identity = loginService.loginAsync("jetty", "jetty", ForkJoinPool.commonPool()).get(5, TimeUnit.SECONDS);
+            assertNotNull(identity);
+            assertTrue(identity.isUserInRole("admin"));
+            assertFalse(identity.isUserInRole("user"));
+
+            identity = loginService.loginAsync("plain", "plain", ForkJoinPool.commonPool()).get(5, TimeUnit.SECONDS);
+            assertNotNull(identity);
+            assertTrue(identity.isUserInRole("admin"));
+
+            assertNull(loginService.loginAsync("foo", "bar", ForkJoinPool.commonPool()).get(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            loginService.stop();
+        }
+    }
 }
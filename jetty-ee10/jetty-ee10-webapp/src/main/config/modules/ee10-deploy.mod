@@ -24,6 +24,10 @@ etc/jetty-ee10-deploy.xml
 ## Monitored directory scan period (seconds)
 # jetty.deploy.scanInterval=0
 
+## Whether changes to the monitored directory are notified by the file system,
+## rather than only found by the periodic scan
+# jetty.deploy.useWatchService=false
+
 ## Whether to extract *.war files
 # jetty.deploy.extractWars=true
 
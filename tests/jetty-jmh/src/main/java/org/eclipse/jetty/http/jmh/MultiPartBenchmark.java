@@ -0,0 +1,176 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.MultiPart;
+import org.eclipse.jetty.http.MultiPartFormData;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.io.content.ChunksContentSource;
+import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.SearchPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MultiPartBenchmark
+{
+    private static final String BOUNDARY = "WebKitFormBoundary7MA4YWxkTrZu0gW";
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    @Param({"1048576", "67108864"})
+    int partSize;
+
+    @Param({"heap", "direct"})
+    String bufferType;
+
+    private List<ByteBuffer> buffers;
+    private SearchPattern pattern;
+
+    @Setup
+    public void setup()
+    {
+        byte[] content = new byte[partSize];
+        ThreadLocalRandom.current().nextBytes(content);
+        byte[] head = ("--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"file.bin\"\r\n" +
+            "Content-Type: application/octet-stream\r\n" +
+            "\r\n").getBytes(US_ASCII);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(US_ASCII);
+
+        ByteBuffer body = ByteBuffer.allocate(head.length + content.length + tail.length);
+        body.put(head).put(content).put(tail).flip();
+
+        buffers = new ArrayList<>();
+        while (body.hasRemaining())
+        {
+            int length = Math.min(CHUNK_SIZE, body.remaining());
+            ByteBuffer slice = body.slice(body.position(), length);
+            body.position(body.position() + length);
+            if ("direct".equals(bufferType))
+                slice = ByteBuffer.allocateDirect(length).put(slice).flip();
+            buffers.add(slice);
+        }
+
+        pattern = SearchPattern.compile("\n--" + BOUNDARY);
+    }
+
+    private Content.Source newContentSource()
+    {
+        List<Content.Chunk> chunks = new ArrayList<>(buffers.size());
+        for (int i = 0; i < buffers.size(); ++i)
+        {
+            chunks.add(Content.Chunk.from(buffers.get(i).slice(), i == buffers.size() - 1));
+        }
+        return new ChunksContentSource(chunks);
+    }
+
+    @Benchmark
+    public int testSearchPatternMatch()
+    {
+        int result = 0;
+        for (ByteBuffer buffer : buffers)
+        {
+            result += pattern.match(buffer);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void testFormDataParserParts(Blackhole blackhole) throws Exception
+    {
+        MultiPartFormData.Parser parser = new MultiPartFormData.Parser(BOUNDARY);
+        parser.setMaxMemoryFileSize(-1);
+        parser.parse(newContentSource(), new Promise.Invocable<>()
+        {
+            @Override
+            public void succeeded(MultiPartFormData.Parts parts)
+            {
+                for (MultiPart.Part part : parts)
+                {
+                    blackhole.consume(part.getLength());
+                }
+                parts.close();
+            }
+
+            @Override
+            public void failed(Throwable x)
+            {
+                throw new IllegalStateException(x);
+            }
+        });
+    }
+
+    @Benchmark
+    public long testPartSourceStreaming()
+    {
+        long length = 0;
+        MultiPart.PartSource partSource = new MultiPart.PartSource(newContentSource(), BOUNDARY);
+        MultiPart.Part part;
+        while ((part = partSource.read()) != null)
+        {
+            Content.Source content = part.getContentSource();
+            while (true)
+            {
+                Content.Chunk chunk = content.read();
+                if (chunk == null)
+                    throw new IllegalStateException();
+                length += chunk.remaining();
+                chunk.release();
+                if (chunk.isLast())
+                    break;
+            }
+        }
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(MultiPartBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,170 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http3.qpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http3.qpack.Instruction;
+import org.eclipse.jetty.http3.qpack.QpackDecoder;
+import org.eclipse.jetty.http3.qpack.QpackEncoder;
+import org.eclipse.jetty.http3.qpack.QpackException;
+import org.eclipse.jetty.http3.qpack.QpackInsertionStrategy;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.NanoTime;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * <p>Compares the QPACK insertion strategies, encoding typical response headers
+ * over a single connection, in CPU time and in encoded bytes per response,
+ * where the encoded bytes include both the field section and the encoder
+ * stream instructions; the bytes per response are {@code encodedBytes / responses}.</p>
+ */
+@State(Scope.Thread)
+public class QpackEncoderBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        Options opt = new OptionsBuilder()
+            .include(QpackEncoderBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Param({"always", "frequency"})
+    public String strategy;
+
+    private final ByteBuffer fieldSection = ByteBuffer.allocate(4096);
+    private final Instructions encoderInstructions = new Instructions();
+    private final Instructions decoderInstructions = new Instructions();
+    private QpackEncoder encoder;
+    private QpackDecoder decoder;
+    private long streamId;
+
+    @Setup(Level.Iteration)
+    public void prepare() throws Exception
+    {
+        decoder = new QpackDecoder(decoderInstructions);
+        decoder.setBeginNanoTimeSupplier(NanoTime::now);
+        decoder.setMaxHeadersSize(8 * 1024);
+        decoder.setMaxTableCapacity(4 * 1024);
+        decoder.setMaxBlockedStreams(64);
+
+        encoder = new QpackEncoder(encoderInstructions);
+        encoder.setInsertionStrategy(switch (strategy)
+        {
+            case "always" -> QpackInsertionStrategy.ALWAYS;
+            case "frequency" -> new QpackInsertionStrategy.Frequency(2, Set.of());
+            default -> throw new IllegalArgumentException(strategy);
+        });
+        encoder.setMaxTableCapacity(4 * 1024);
+        encoder.setTableCapacity(4 * 1024);
+        encoder.setMaxBlockedStreams(64);
+        decoder.parseInstructions(encoderInstructions.take());
+        streamId = 0;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bytes
+    {
+        public long encodedBytes;
+        public long responses;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            encodedBytes = 0;
+            responses = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public MetaData encode(Bytes bytes) throws QpackException
+    {
+        long id = streamId;
+        streamId += 4;
+
+        HttpFields fields = HttpFields.build()
+            .put(HttpHeader.SERVER, "Jetty(12)")
+            .put(HttpHeader.DATE, "Mon, 19 Oct 2026 10:00:00 GMT")
+            .put(HttpHeader.CONTENT_TYPE, "application/json;charset=UTF-8")
+            .put(HttpHeader.CACHE_CONTROL, "private, max-age=0")
+            .put(HttpHeader.VARY, "Accept-Encoding")
+            .put(HttpHeader.CONTENT_LENGTH, 1000 + (id % 997))
+            .put("x-request-id", Long.toHexString(id * 0x9E3779B97F4A7C15L));
+        MetaData.Response response = new MetaData.Response(200, null, HttpVersion.HTTP_3, fields);
+
+        fieldSection.clear();
+        encoder.encode(fieldSection, id, response);
+        fieldSection.flip();
+        ByteBuffer instructions = encoderInstructions.take();
+        bytes.encodedBytes += fieldSection.remaining() + instructions.remaining();
+        bytes.responses++;
+
+        // Process the response on the decoder side, and acknowledge it on the encoder side.
+        decoder.parseInstructions(instructions);
+        decoder.decode(id, fieldSection, (streamId, metadata, wasBlocked) -> {});
+        encoder.parseInstructions(decoderInstructions.take());
+        return response;
+    }
+
+    private static class Instructions implements Instruction.Handler
+    {
+        private final ByteBufferPool.Accumulator accumulator = new ByteBufferPool.Accumulator();
+
+        @Override
+        public void onInstructions(List<Instruction> instructions)
+        {
+            instructions.forEach(instruction -> instruction.encode(ByteBufferPool.NON_POOLING, accumulator));
+        }
+
+        private ByteBuffer take()
+        {
+            ByteBuffer buffer = BufferUtil.allocate(Math.toIntExact(accumulator.getTotalLength()));
+            BufferUtil.clearToFill(buffer);
+            accumulator.getByteBuffers().forEach(buffer::put);
+            BufferUtil.flipToFlush(buffer, 0);
+            accumulator.release();
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.proxy.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.client.ByteBufferRequestContent;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.Response;
+import org.eclipse.jetty.client.Result;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.proxy.ProxyHandler;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * <p>Measures the throughput of large bodies through a {@link ProxyHandler},
+ * in both the download (server to client) and upload (client to server) direction.</p>
+ */
+@State(Scope.Benchmark)
+public class ProxyThroughputBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        Options opt = new OptionsBuilder()
+            .include(ProxyThroughputBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .threads(4)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Param({"65536", "1048576", "16777216"})
+    public int size;
+
+    private Server server;
+    private ServerConnector serverConnector;
+    private Server proxy;
+    private ServerConnector proxyConnector;
+    private HttpClient client;
+    private ByteBuffer content;
+
+    @Setup
+    public void prepare() throws Exception
+    {
+        content = ByteBuffer.allocateDirect(size);
+        while (content.hasRemaining())
+        {
+            content.put((byte)content.position());
+        }
+        content.flip();
+
+        server = new Server();
+        serverConnector = new ServerConnector(server, 1, 1);
+        server.addConnector(serverConnector);
+        server.setHandler(new Handler.Abstract()
+        {
+            @Override
+            public boolean handle(Request request, org.eclipse.jetty.server.Response response, Callback callback)
+            {
+                if (HttpMethod.POST.is(request.getMethod()))
+                {
+                    Content.Source.consumeAll(request, callback);
+                }
+                else
+                {
+                    response.getHeaders().put(HttpHeader.CONTENT_LENGTH, size);
+                    response.write(true, content.slice(), callback);
+                }
+                return true;
+            }
+        });
+        server.start();
+
+        proxy = new Server();
+        proxyConnector = new ServerConnector(proxy, 1, 1);
+        proxy.addConnector(proxyConnector);
+        int serverPort = serverConnector.getLocalPort();
+        proxy.setHandler(new ProxyHandler.Reverse(request -> HttpURI.build(request.getHttpURI()).port(serverPort)));
+        proxy.start();
+
+        client = new HttpClient();
+        client.start();
+    }
+
+    @TearDown
+    public void dispose() throws Exception
+    {
+        client.stop();
+        proxy.stop();
+        server.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long download() throws Exception
+    {
+        return send(client.newRequest("localhost", proxyConnector.getLocalPort())
+            .path("/download"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long upload() throws Exception
+    {
+        return send(client.newRequest("localhost", proxyConnector.getLocalPort())
+            .method(HttpMethod.POST)
+            .path("/upload")
+            .body(new ByteBufferRequestContent(content.slice())));
+    }
+
+    private long send(org.eclipse.jetty.client.Request request) throws Exception
+    {
+        CompletableFuture<Long> completable = new CompletableFuture<>();
+        request.send(new Response.Listener()
+        {
+            private long bytes;
+
+            @Override
+            public void onContent(Response response, ByteBuffer content)
+            {
+                bytes += content.remaining();
+            }
+
+            @Override
+            public void onComplete(Result result)
+            {
+                if (result.isFailed())
+                    completable.completeExceptionally(result.getFailure());
+                else if (result.getResponse().getStatus() != HttpStatus.OK_200)
+                    completable.completeExceptionally(new IllegalStateException(result.getResponse().toString()));
+                else
+                    completable.complete(bytes);
+            }
+        });
+        return completable.get(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,170 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quic.jmh;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http3.api.Session;
+import org.eclipse.jetty.http3.api.Stream;
+import org.eclipse.jetty.http3.client.HTTP3Client;
+import org.eclipse.jetty.http3.frames.HeadersFrame;
+import org.eclipse.jetty.http3.server.HTTP3ServerConnectionFactory;
+import org.eclipse.jetty.quic.client.ClientQuicConfiguration;
+import org.eclipse.jetty.quic.server.QuicServerConnector;
+import org.eclipse.jetty.quic.server.ServerQuicConfiguration;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * <p>Measures the HTTP/3 request throughput over loopback of a {@link QuicServerConnector}
+ * with one or more {@link QuicServerConnector#setDatagramChannels(int) DatagramChannels}.</p>
+ * <p>Each benchmark thread has its own HTTP/3 client session, and therefore its own client port.</p>
+ */
+public class QuicServerConnectorBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        Options opt = new OptionsBuilder()
+            .include(QuicServerConnectorBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .threads(8)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ServerState
+    {
+        @Param({"1", "4"})
+        public int datagramChannels;
+
+        private Server server;
+        private QuicServerConnector connector;
+        private Path pemDir;
+
+        @Setup
+        public void prepare() throws Exception
+        {
+            SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+            sslContextFactory.setKeyStoreResource(ResourceFactory.root().newClassLoaderResource("keystore.p12"));
+            sslContextFactory.setKeyStorePassword("storepwd");
+            pemDir = Files.createTempDirectory("quic-jmh");
+            ServerQuicConfiguration quicConfiguration = new ServerQuicConfiguration(sslContextFactory, pemDir);
+
+            server = new Server();
+            connector = new QuicServerConnector(server, quicConfiguration, new HTTP3ServerConnectionFactory(quicConfiguration));
+            connector.setDatagramChannels(datagramChannels);
+            server.addConnector(connector);
+            server.setHandler(new Handler.Abstract()
+            {
+                @Override
+                public boolean handle(Request request, Response response, Callback callback)
+                {
+                    callback.succeeded();
+                    return true;
+                }
+            });
+            server.start();
+        }
+
+        @TearDown
+        public void dispose() throws Exception
+        {
+            System.err.println("steered packets = " + connector.getSteeredPackets());
+            server.stop();
+            IO.delete(pemDir.toFile());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ClientState
+    {
+        private HTTP3Client client;
+        private Session.Client session;
+        private MetaData.Request request;
+
+        @Setup
+        public void prepare(ServerState serverState) throws Exception
+        {
+            SslContextFactory.Client sslContextFactory = new SslContextFactory.Client(true);
+            client = new HTTP3Client(new ClientQuicConfiguration(sslContextFactory, null));
+            client.start();
+            int port = serverState.connector.getLocalPort();
+            session = client.connect(new InetSocketAddress("localhost", port), new Session.Client.Listener() {})
+                .get(5, TimeUnit.SECONDS);
+            request = new MetaData.Request(HttpMethod.GET.asString(), HttpURI.from("https://localhost:" + port + "/"), HttpVersion.HTTP_3, HttpFields.EMPTY);
+        }
+
+        @TearDown
+        public void dispose() throws Exception
+        {
+            client.stop();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Object request(ClientState clientState) throws Exception
+    {
+        CompletableFuture<MetaData.Response> completable = new CompletableFuture<>();
+        clientState.session.newRequest(new HeadersFrame(clientState.request, true), new Stream.Client.Listener()
+        {
+            @Override
+            public void onResponse(Stream.Client stream, HeadersFrame frame)
+            {
+                completable.complete((MetaData.Response)frame.getMetaData());
+            }
+
+            @Override
+            public void onFailure(Stream.Client stream, long error, Throwable failure)
+            {
+                completable.completeExceptionally(failure);
+            }
+        });
+        return completable.get(5, TimeUnit.SECONDS);
+    }
+}
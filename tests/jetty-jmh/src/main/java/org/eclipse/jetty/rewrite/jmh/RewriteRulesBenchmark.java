@@ -0,0 +1,196 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.rewrite.jmh;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.rewrite.handler.HeaderPatternRule;
+import org.eclipse.jetty.rewrite.handler.RedirectMapRule;
+import org.eclipse.jetty.rewrite.handler.RedirectPatternRule;
+import org.eclipse.jetty.rewrite.handler.RedirectRegexRule;
+import org.eclipse.jetty.rewrite.handler.RewriteHandler;
+import org.eclipse.jetty.rewrite.handler.Rule;
+import org.eclipse.jetty.rewrite.handler.RuleContainer;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * <p>Measures a {@link RewriteHandler} with a large number of legacy redirect rules,
+ * evaluated sequentially, compiled, or compiled with the exact redirects in a {@link RedirectMapRule}.</p>
+ */
+@State(Scope.Benchmark)
+public class RewriteRulesBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        Options opt = new OptionsBuilder()
+            .include(RewriteRulesBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Param({"sequential", "compiled", "map"})
+    public String mode;
+
+    @Param({"1500"})
+    public int rules;
+
+    private Server server;
+    private LocalConnector connector;
+    private ByteBuffer[] requests;
+    private RuleContainer ruleContainer;
+    private HttpURI[] uris;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception
+    {
+        server = new Server();
+        connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        int exact = rules * 2 / 3;
+        int regex = rules - exact;
+        List<Rule> list = new ArrayList<>();
+        list.add(new HeaderPatternRule("/*", "X-Rewrite", "true"));
+        RedirectMapRule map = new RedirectMapRule();
+        for (int i = 0; i < exact; i++)
+        {
+            String path = "/legacy/section" + (i % 50) + "/page" + i + ".html";
+            String location = "/pages/" + i;
+            if ("map".equals(mode))
+                map.addRedirect(path, location);
+            else
+                list.add(new RedirectPatternRule(path, location));
+        }
+        if ("map".equals(mode))
+            list.add(map);
+        for (int i = 0; i < regex; i++)
+        {
+            list.add(new RedirectRegexRule("/archive" + i + "/([0-9]+)/(.*)", "/archive/$1/" + i + "/$2"));
+        }
+
+        RewriteHandler rewriteHandler = new RewriteHandler(new OkHandler());
+        rewriteHandler.setRules(list);
+        rewriteHandler.setCompiled(!"sequential".equals(mode));
+        server.setHandler(rewriteHandler);
+        server.start();
+
+        ruleContainer = rewriteHandler.getRuleContainer();
+        requests = new ByteBuffer[64];
+        uris = new HttpURI[requests.length];
+        for (int i = 0; i < requests.length; i++)
+        {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String path = switch (i % 3)
+            {
+                case 0 ->
+                {
+                    int page = random.nextInt(exact);
+                    yield "/legacy/section" + (page % 50) + "/page" + page + ".html";
+                }
+                case 1 -> "/archive" + random.nextInt(regex) + "/2024/item";
+                default -> "/current/page" + i + ".html";
+            };
+            uris[i] = HttpURI.from(path);
+            requests[i] = BufferUtil.toBuffer("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws Exception
+    {
+        server.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public ByteBuffer rewrite() throws Exception
+    {
+        ByteBuffer request = requests[ThreadLocalRandom.current().nextInt(requests.length)];
+        return connector.getResponse(request.slice());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Rule.Handler matchAndApply() throws Exception
+    {
+        HttpURI uri = uris[ThreadLocalRandom.current().nextInt(uris.length)];
+        return ruleContainer.matchAndApply(new Input(uri));
+    }
+
+    private static class Input extends Rule.Handler
+    {
+        private static final Request REQUEST = (Request)Proxy.newProxyInstance(Request.class.getClassLoader(), new Class<?>[]{Request.class}, (proxy, method, args) ->
+        {
+            throw new UnsupportedOperationException(method.getName());
+        });
+
+        private final HttpURI _uri;
+
+        private Input(HttpURI uri)
+        {
+            super(REQUEST);
+            _uri = uri;
+        }
+
+        @Override
+        public HttpURI getHttpURI()
+        {
+            return _uri;
+        }
+    }
+
+    private static class OkHandler extends Handler.Abstract.NonBlocking
+    {
+        @Override
+        public boolean handle(Request request, Response response, Callback callback)
+        {
+            response.setStatus(200);
+            callback.succeeded();
+            return true;
+        }
+    }
+}
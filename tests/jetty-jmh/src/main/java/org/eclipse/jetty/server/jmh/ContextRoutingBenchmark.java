@@ -0,0 +1,132 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * <p>Measures the dispatch of requests to one of many contexts with the
+ * same context path, each with its own virtual hosts, as for multi-tenant servers.</p>
+ */
+@State(Scope.Benchmark)
+public class ContextRoutingBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        Options opt = new OptionsBuilder()
+            .include(ContextRoutingBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Param({"10", "1000", "10000"})
+    public int vhosts;
+
+    private Server server;
+    private LocalConnector connector;
+    private ByteBuffer[] requests;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception
+    {
+        server = new Server();
+        connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        List<Handler> contexts = new ArrayList<>();
+        for (int i = 0; i < vhosts; i++)
+        {
+            ContextHandler context = new ContextHandler(new TenantHandler(), "/");
+            context.setVirtualHosts(List.of("tenant" + i + ".example.com", "*.tenant" + i + ".example.org"));
+            contexts.add(context);
+        }
+        contexts.add(new ContextHandler(new TenantHandler(), "/"));
+        ContextHandlerCollection collection = new ContextHandlerCollection();
+        collection.setHandlers(contexts);
+        server.setHandler(collection);
+        server.start();
+
+        requests = new ByteBuffer[64];
+        for (int i = 0; i < requests.length; i++)
+        {
+            int tenant = ThreadLocalRandom.current().nextInt(vhosts);
+            String host = switch (i % 3)
+            {
+                case 0 -> "tenant" + tenant + ".example.com";
+                case 1 -> "www.tenant" + tenant + ".example.org";
+                default -> "unknown" + tenant + ".example.net";
+            };
+            requests[i] = BufferUtil.toBuffer("GET /path HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws Exception
+    {
+        server.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public ByteBuffer route() throws Exception
+    {
+        ByteBuffer request = requests[ThreadLocalRandom.current().nextInt(requests.length)];
+        return connector.getResponse(request.slice());
+    }
+
+    private static class TenantHandler extends Handler.Abstract.NonBlocking
+    {
+        @Override
+        public boolean handle(Request request, Response response, Callback callback)
+        {
+            response.setStatus(200);
+            callback.succeeded();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.jmh;
+
+import java.net.InetAddress;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.InetAddressSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * <p>Measures the matching of addresses against block lists of random IPv4 and IPv6
+ * CIDR prefixes, of sizes typical of published abuse lists, with and without the radix trie.</p>
+ */
+@State(Scope.Benchmark)
+public class InetAddressSetBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        Options opt = new OptionsBuilder()
+            .include(InetAddressSetBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Param({"100", "10000", "100000"})
+    public int patterns;
+
+    @Param({"true", "false"})
+    public boolean trie;
+
+    private InetAddressSet set;
+    private InetAddress[] addresses;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        Random random = new Random(patterns);
+        set = new InetAddressSet();
+        set.setTrieThreshold(trie ? 0 : Integer.MAX_VALUE);
+        while (set.size() < patterns)
+        {
+            if (random.nextInt(4) == 0)
+            {
+                int bits = 32 + random.nextInt(33);
+                byte[] raw = new byte[16];
+                raw[0] = 0x20;
+                raw[1] = 0x01;
+                for (int i = 2; i < bits / 8; i++)
+                {
+                    raw[i] = (byte)random.nextInt(256);
+                }
+                set.add(InetAddress.getByAddress(raw).getHostAddress() + "/" + (bits / 8 * 8));
+            }
+            else
+            {
+                int bits = 16 + random.nextInt(17);
+                int address = random.nextInt() & (int)(0xFFFFFFFFL << (32 - bits));
+                set.add((address >>> 24) + "." + (address >>> 16 & 0xFF) + "." + (address >>> 8 & 0xFF) + "." + (address & 0xFF) + "/" + bits);
+            }
+        }
+
+        addresses = new InetAddress[1024];
+        for (int i = 0; i < addresses.length; i++)
+        {
+            byte[] raw = new byte[i % 4 == 0 ? 16 : 4];
+            random.nextBytes(raw);
+            addresses[i] = InetAddress.getByAddress(raw);
+        }
+        // Build the lookup before measuring.
+        set.test(addresses[0]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean test()
+    {
+        return set.test(addresses[ThreadLocalRandom.current().nextInt(addresses.length)]);
+    }
+}
@@ -0,0 +1,94 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.Fields;
+import org.eclipse.jetty.util.UrlEncoded;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * <p>Measures the decoding of a query string with many parameters, of which only a few are read,
+ * such as the query strings of analytics beacons, decoded eagerly or lazily.</p>
+ */
+@State(Scope.Benchmark)
+public class UrlEncodedBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        Options opt = new OptionsBuilder()
+            .include(UrlEncodedBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .addProfiler("gc")
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Param({"10", "200"})
+    public int parameters;
+
+    @Param({"true", "false"})
+    public boolean lazy;
+
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < parameters; i++)
+        {
+            if (i > 0)
+                builder.append('&');
+            builder.append("param").append(i).append('=');
+            builder.append(i % 3 == 0 ? "some+value%20" : "value").append(i);
+        }
+        query = builder.toString();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String decode()
+    {
+        Fields fields;
+        if (lazy)
+        {
+            fields = UrlEncoded.decodeUtf8ToLazyFields(query);
+        }
+        else
+        {
+            fields = new Fields(true);
+            UrlEncoded.decodeUtf8To(query, fields);
+        }
+        return fields.getValue("param" + (parameters / 2));
+    }
+}